@@ -0,0 +1,33 @@
+package soot.jimple.infoflow;
+
+import soot.Scene;
+import soot.jimple.infoflow.data.AccessPathFactory;
+import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
+
+/**
+ * Factory for data flow managers in the benchmarks. The constructor of the
+ * {@link InfoflowManager} is not visible outside of this package, so the
+ * benchmarks need this helper to create a manager without running a full
+ * data flow analysis.
+ *
+ */
+public class BenchmarkManagers {
+
+	private BenchmarkManagers() {
+	}
+
+	/**
+	 * Creates a new data flow manager that has no solver, no interprocedural
+	 * control flow graph and no source/sink manager
+	 * @param config The configuration of the data flow analysis
+	 * @param taintWrapper The taint wrapper to use. May be null.
+	 * @param accessPathFactory The factory for creating access paths
+	 * @return The new data flow manager
+	 */
+	public static InfoflowManager createManager(InfoflowConfiguration config,
+			ITaintPropagationWrapper taintWrapper, AccessPathFactory accessPathFactory) {
+		return new InfoflowManager(config, null, null, null, taintWrapper,
+				Scene.v().getOrMakeFastHierarchy(), accessPathFactory);
+	}
+
+}
@@ -0,0 +1,90 @@
+package soot.jimple.infoflow.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.AccessPathFactory;
+
+/**
+ * Benchmarks for deriving abstractions and for comparing them. Abstractions
+ * cache their hash code, so the comparisons are done on abstractions whose
+ * hash code has never been computed, and the hash code is measured on freshly
+ * derived abstractions. Subtract the result of
+ * {@link #deriveNewAbstraction()} from {@link #deriveAndHashCode()} to get
+ * the cost of the hash code computation alone.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AbstractionBenchmark {
+
+	private Abstraction source;
+	private AccessPath[] targetPaths;
+	private Stmt[] stmts;
+	private Abstraction[] left;
+	private Abstraction[] right;
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		BenchmarkScene scene = BenchmarkScene.v();
+		AccessPathFactory factory = scene.getAccessPathFactory();
+		stmts = scene.getLoadStmts();
+
+		AccessPath sourcePath = factory.createAccessPath(scene.getLocals()[0], true);
+		source = new Abstraction(sourcePath, stmts[0], null, false, false);
+
+		int count = scene.getLocals().length;
+		targetPaths = new AccessPath[count];
+		left = new Abstraction[count];
+		right = new Abstraction[count];
+		for (int i = 0; i < count; i++) {
+			targetPaths[i] = factory.createAccessPath(scene.getLocals()[i], scene.getFields(2), true);
+			left[i] = source.deriveNewAbstraction(targetPaths[i], stmts[i]);
+			right[i] = source.deriveNewAbstraction(factory.createAccessPath(scene.getLocals()[i],
+					scene.getFields(2), true), stmts[i]);
+		}
+	}
+
+	@Benchmark
+	public Abstraction deriveNewAbstraction() {
+		int idx = next++ % targetPaths.length;
+		return source.deriveNewAbstraction(targetPaths[idx], stmts[idx]);
+	}
+
+	@Benchmark
+	public int deriveAndHashCode() {
+		int idx = next++ % targetPaths.length;
+		return source.deriveNewAbstraction(targetPaths[idx], stmts[idx]).hashCode();
+	}
+
+	@Benchmark
+	public boolean equalsSame() {
+		int idx = next++ % left.length;
+		return left[idx].equals(right[idx]);
+	}
+
+	@Benchmark
+	public boolean equalsDifferent() {
+		int idx = next++ % left.length;
+		return left[idx].equals(right[(idx + 1) % right.length]);
+	}
+
+}
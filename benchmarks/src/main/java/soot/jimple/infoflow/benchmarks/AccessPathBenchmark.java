@@ -0,0 +1,73 @@
+package soot.jimple.infoflow.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.Local;
+import soot.SootField;
+import soot.Type;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.AccessPathFactory;
+
+/**
+ * Benchmarks for creating access paths and appending fields to them
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessPathBenchmark {
+
+	/**
+	 * The number of fields in the created access paths
+	 */
+	@Param({ "0", "1", "3", "5" })
+	public int fieldCount;
+
+	private AccessPathFactory factory;
+	private Local[] locals;
+	private SootField[] fields;
+	private Type[] fieldTypes;
+	private AccessPath[] basePaths;
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		BenchmarkScene scene = BenchmarkScene.v();
+		factory = scene.getAccessPathFactory();
+		locals = scene.getLocals();
+		fields = fieldCount == 0 ? null : scene.getFields(fieldCount);
+		fieldTypes = fieldCount == 0 ? null : scene.getFieldTypes(fieldCount);
+
+		basePaths = new AccessPath[locals.length];
+		for (int i = 0; i < locals.length; i++)
+			basePaths[i] = factory.createAccessPath(locals[i], true);
+	}
+
+	@Benchmark
+	public AccessPath createAccessPath() {
+		Local local = locals[next++ % locals.length];
+		return factory.createAccessPath(local, fields, true);
+	}
+
+	@Benchmark
+	public AccessPath appendFields() {
+		AccessPath basePath = basePaths[next++ % basePaths.length];
+		return factory.appendFields(basePath, fields, fieldTypes, true);
+	}
+
+}
@@ -0,0 +1,88 @@
+package soot.jimple.infoflow.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import soot.jimple.infoflow.collect.AtomicBitSet;
+
+/**
+ * Benchmarks for {@link AtomicBitSet#set(long)}. The threads set interleaved
+ * bits, so that they all work on the same words of the bit set. Once a
+ * thread hits a bit that is already set, the bit set is replaced by a fresh
+ * one. In this way, almost every call has to actually update the bit set.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomicBitSetBenchmark {
+
+	/**
+	 * The number of bits in the bit set
+	 */
+	@Param({ "64", "4096" })
+	public int size;
+
+	private volatile AtomicBitSet bits;
+
+	/**
+	 * Per-thread position in the bit set
+	 */
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		private long next;
+		private int stride;
+
+		@Setup
+		public void setup(ThreadParams params) {
+			next = params.getThreadIndex();
+			stride = params.getThreadCount();
+		}
+
+	}
+
+	@Setup
+	public void setup() {
+		bits = new AtomicBitSet(size);
+	}
+
+	private boolean set(ThreadState state) {
+		long n = state.next;
+		state.next = (n + state.stride) % size;
+		AtomicBitSet current = bits;
+		boolean changed = current.set(n);
+		if (!changed)
+			bits = new AtomicBitSet(size);
+		return changed;
+	}
+
+	@Benchmark
+	@Threads(1)
+	public boolean singleThread(ThreadState state) {
+		return set(state);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean fourThreads(ThreadState state) {
+		return set(state);
+	}
+
+}
@@ -0,0 +1,235 @@
+package soot.jimple.infoflow.benchmarks;
+
+import java.util.ArrayList;
+
+import soot.G;
+import soot.Local;
+import soot.Modifier;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.VoidType;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.BenchmarkManagers;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.InfoflowManager;
+import soot.jimple.infoflow.data.AccessPathFactory;
+import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
+import soot.options.Options;
+
+/**
+ * Small synthetic Soot scene on which the benchmarks operate. The scene
+ * contains the basic JDK classes and one data class with a few fields that
+ * all point to objects of the data class itself, plus a method whose body
+ * consists of field loads and collection calls. Since Soot is a singleton, the scene is created once per JVM and
+ * shared by all benchmarks of a fork.
+ *
+ */
+public class BenchmarkScene {
+
+	/**
+	 * The name of the synthetic data class
+	 */
+	public static final String DATA_CLASS = "soot.jimple.infoflow.benchmarks.Data";
+
+	/**
+	 * The number of fields in the synthetic data class
+	 */
+	public static final int FIELD_COUNT = 8;
+
+	/**
+	 * The number of locals and field load statements in the synthetic method
+	 */
+	public static final int LOCAL_COUNT = 16;
+
+	private static BenchmarkScene instance = null;
+
+	private final InfoflowConfiguration config;
+	private final AccessPathFactory accessPathFactory;
+
+	private final SootClass dataClass;
+	private final SootField[] fields;
+	private final Type[] fieldTypes;
+	private final Local[] locals;
+	private final Stmt[] loadStmts;
+
+	private final Local listLocal;
+	private final Local elementLocal;
+	private final Stmt listAddStmt;
+	private final Stmt listGetStmt;
+	private final Stmt listClearStmt;
+
+	/**
+	 * Gets the shared benchmark scene, creating it if necessary
+	 * @return The shared benchmark scene
+	 */
+	public static synchronized BenchmarkScene v() {
+		if (instance == null)
+			instance = new BenchmarkScene();
+		return instance;
+	}
+
+	private BenchmarkScene() {
+		G.reset();
+		Options.v().set_prepend_classpath(true);
+		Options.v().set_allow_phantom_refs(true);
+		Options.v().set_no_bodies_for_excluded(true);
+		Options.v().set_output_format(Options.output_format_none);
+		Scene.v().addBasicClass("java.util.List", SootClass.SIGNATURES);
+		Scene.v().addBasicClass("java.util.ArrayList", SootClass.SIGNATURES);
+		Scene.v().loadNecessaryClasses();
+
+		this.config = new InfoflowConfiguration();
+		this.accessPathFactory = new AccessPathFactory(config);
+
+		// Create the data class with its fields
+		dataClass = new SootClass(DATA_CLASS, Modifier.PUBLIC);
+		dataClass.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+		Scene.v().addClass(dataClass);
+		dataClass.setApplicationClass();
+
+		RefType dataType = dataClass.getType();
+		RefType objectType = RefType.v("java.lang.Object");
+		fields = new SootField[FIELD_COUNT];
+		fieldTypes = new Type[FIELD_COUNT];
+		for (int i = 0; i < FIELD_COUNT; i++) {
+			fieldTypes[i] = dataType;
+			fields[i] = new SootField("f" + i, fieldTypes[i], Modifier.PUBLIC);
+			dataClass.addField(fields[i]);
+		}
+
+		// Create a method that loads the fields into locals
+		SootMethod method = new SootMethod("run", new ArrayList<Type>(), VoidType.v(), Modifier.PUBLIC);
+		dataClass.addMethod(method);
+		JimpleBody body = Jimple.v().newBody(method);
+		method.setActiveBody(body);
+
+		locals = new Local[LOCAL_COUNT];
+		loadStmts = new Stmt[LOCAL_COUNT];
+		Local thisLocal = Jimple.v().newLocal("this", dataType);
+		body.getLocals().add(thisLocal);
+		body.getUnits().add(Jimple.v().newIdentityStmt(thisLocal, Jimple.v().newThisRef(dataType)));
+		for (int i = 0; i < LOCAL_COUNT; i++) {
+			SootField field = fields[i % FIELD_COUNT];
+			locals[i] = Jimple.v().newLocal("l" + i, field.getType());
+			body.getLocals().add(locals[i]);
+			Local base = i == 0 ? thisLocal : locals[i - 1];
+			loadStmts[i] = Jimple.v().newAssignStmt(locals[i],
+					Jimple.v().newInstanceFieldRef(base, field.makeRef()));
+			body.getUnits().add(loadStmts[i]);
+		}
+
+		// Create some calls on a collection for the taint wrapper
+		SootClass listClass = Scene.v().getSootClass("java.util.List");
+		listLocal = Jimple.v().newLocal("list", listClass.getType());
+		elementLocal = Jimple.v().newLocal("element", objectType);
+		Local resultLocal = Jimple.v().newLocal("result", objectType);
+		body.getLocals().add(listLocal);
+		body.getLocals().add(elementLocal);
+		body.getLocals().add(resultLocal);
+
+		SootMethod addMethod = listClass.getMethod("boolean add(java.lang.Object)");
+		SootMethod getMethod = listClass.getMethod("java.lang.Object get(int)");
+		SootMethod clearMethod = listClass.getMethod("void clear()");
+		listAddStmt = Jimple.v().newInvokeStmt(Jimple.v().newInterfaceInvokeExpr(listLocal,
+				addMethod.makeRef(), elementLocal));
+		listGetStmt = Jimple.v().newAssignStmt(resultLocal, Jimple.v().newInterfaceInvokeExpr(listLocal,
+				getMethod.makeRef(), IntConstant.v(0)));
+		listClearStmt = Jimple.v().newInvokeStmt(Jimple.v().newInterfaceInvokeExpr(listLocal,
+				clearMethod.makeRef()));
+		body.getUnits().add(listAddStmt);
+		body.getUnits().add(listGetStmt);
+		body.getUnits().add(listClearStmt);
+		body.getUnits().add(Jimple.v().newReturnVoidStmt());
+	}
+
+	/**
+	 * Creates a data flow manager for the given taint wrapper and initializes
+	 * the wrapper with it
+	 * @param taintWrapper The taint wrapper to initialize
+	 * @return The new data flow manager
+	 */
+	public InfoflowManager createManager(ITaintPropagationWrapper taintWrapper) {
+		InfoflowManager manager = BenchmarkManagers.createManager(config, taintWrapper,
+				accessPathFactory);
+		taintWrapper.initialize(manager);
+		return manager;
+	}
+
+	public InfoflowConfiguration getConfig() {
+		return this.config;
+	}
+
+	public AccessPathFactory getAccessPathFactory() {
+		return this.accessPathFactory;
+	}
+
+	public SootClass getDataClass() {
+		return this.dataClass;
+	}
+
+	public SootField[] getFields() {
+		return this.fields;
+	}
+
+	public Type[] getFieldTypes() {
+		return this.fieldTypes;
+	}
+
+	public Local[] getLocals() {
+		return this.locals;
+	}
+
+	public Stmt[] getLoadStmts() {
+		return this.loadStmts;
+	}
+
+	public Local getListLocal() {
+		return this.listLocal;
+	}
+
+	public Local getElementLocal() {
+		return this.elementLocal;
+	}
+
+	public Stmt getListAddStmt() {
+		return this.listAddStmt;
+	}
+
+	public Stmt getListGetStmt() {
+		return this.listGetStmt;
+	}
+
+	public Stmt getListClearStmt() {
+		return this.listClearStmt;
+	}
+
+	/**
+	 * Gets the first n fields of the data class
+	 * @param n The number of fields
+	 * @return The first n fields of the data class
+	 */
+	public SootField[] getFields(int n) {
+		SootField[] res = new SootField[n];
+		System.arraycopy(fields, 0, res, 0, n);
+		return res;
+	}
+
+	/**
+	 * Gets the types of the first n fields of the data class
+	 * @param n The number of fields
+	 * @return The types of the first n fields of the data class
+	 */
+	public Type[] getFieldTypes(int n) {
+		Type[] res = new Type[n];
+		System.arraycopy(fieldTypes, 0, res, 0, n);
+		return res;
+	}
+
+}
@@ -0,0 +1,99 @@
+package soot.jimple.infoflow.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import soot.jimple.infoflow.collect.MyConcurrentHashMap;
+
+/**
+ * Benchmarks for {@link MyConcurrentHashMap#putIfAbsentElseGet(Object, Object)}
+ * with several threads working on the same map. The map is emptied before
+ * every iteration, so that each iteration starts with insertions and then
+ * continues with lookups of existing keys, as the solver does with its jump
+ * functions. A small key set means that all threads compete for the same
+ * entries.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentMapBenchmark {
+
+	/**
+	 * The number of distinct keys shared by all threads
+	 */
+	@Param({ "64", "65536" })
+	public int keyCount;
+
+	private MyConcurrentHashMap<Integer, Integer> map;
+	private Integer[] keys;
+
+	/**
+	 * Per-thread position in the key array. The threads start at different
+	 * offsets so that they do not run in lock-step.
+	 */
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		private int next;
+
+		@Setup
+		public void setup(ThreadParams params) {
+			next = params.getThreadIndex() * 7919;
+		}
+
+	}
+
+	@Setup
+	public void setup() {
+		keys = new Integer[keyCount];
+		for (int i = 0; i < keyCount; i++)
+			keys[i] = Integer.valueOf(i * 31);
+	}
+
+	@Setup(Level.Iteration)
+	public void resetMap() {
+		map = new MyConcurrentHashMap<>();
+	}
+
+	private Integer putIfAbsentElseGet(ThreadState state) {
+		Integer key = keys[(state.next++ & Integer.MAX_VALUE) % keys.length];
+		return map.putIfAbsentElseGet(key, key);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Integer singleThread(ThreadState state) {
+		return putIfAbsentElseGet(state);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Integer fourThreads(ThreadState state) {
+		return putIfAbsentElseGet(state);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Integer allThreads(ThreadState state) {
+		return putIfAbsentElseGet(state);
+	}
+
+}
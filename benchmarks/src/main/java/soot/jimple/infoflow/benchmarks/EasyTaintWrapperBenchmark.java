@@ -0,0 +1,74 @@
+package soot.jimple.infoflow.benchmarks;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.AccessPathFactory;
+import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
+
+/**
+ * Benchmarks for {@link EasyTaintWrapper#getTaintsForMethodInternal} on calls
+ * to <code>java.util.List</code> that create, propagate, and kill taints. The
+ * wrapper is loaded from the default rule file of the project.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EasyTaintWrapperBenchmark {
+
+	/**
+	 * The file from which to load the taint wrapper rules
+	 */
+	@Param("../EasyTaintWrapperSource.txt")
+	public String taintWrapperFile;
+
+	private BenchmarkScene scene;
+	private EasyTaintWrapper wrapper;
+	private AccessPath taintedElement;
+	private AccessPath taintedList;
+
+	@Setup
+	public void setup() throws IOException {
+		scene = BenchmarkScene.v();
+		wrapper = new EasyTaintWrapper(taintWrapperFile);
+		scene.createManager(wrapper);
+
+		AccessPathFactory factory = scene.getAccessPathFactory();
+		taintedElement = factory.createAccessPath(scene.getElementLocal(), true);
+		taintedList = factory.createAccessPath(scene.getListLocal(), true);
+	}
+
+	@Benchmark
+	public Set<AccessPath> taintedParameter() {
+		return wrapper.getTaintsForMethodInternal(scene.getListAddStmt(), taintedElement);
+	}
+
+	@Benchmark
+	public Set<AccessPath> taintedBase() {
+		return wrapper.getTaintsForMethodInternal(scene.getListGetStmt(), taintedList);
+	}
+
+	@Benchmark
+	public Set<AccessPath> killedBase() {
+		return wrapper.getTaintsForMethodInternal(scene.getListClearStmt(), taintedList);
+	}
+
+}
@@ -0,0 +1,86 @@
+package soot.jimple.infoflow.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.AccessPathFactory;
+import soot.jimple.infoflow.data.SourceContextAndPath;
+
+/**
+ * Benchmarks for {@link SourceContextAndPath#extendPath(Abstraction, boolean)}.
+ * Each invocation builds the complete path along a chain of abstractions, as
+ * the path builders do when walking back from a sink to a source.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SourceContextAndPathBenchmark {
+
+	/**
+	 * The number of abstractions in the chain
+	 */
+	@Param({ "10", "50" })
+	public int pathLength;
+
+	private Abstraction[] chain;
+	private AccessPath sourcePath;
+	private Stmt sourceStmt;
+
+	@Setup
+	public void setup() {
+		BenchmarkScene scene = BenchmarkScene.v();
+		AccessPathFactory factory = scene.getAccessPathFactory();
+		Stmt[] stmts = scene.getLoadStmts();
+		int localCount = scene.getLocals().length;
+
+		sourcePath = factory.createAccessPath(scene.getLocals()[0], true);
+		sourceStmt = stmts[0];
+
+		// Every abstraction in the chain gets a distinct access path, so that
+		// the loop checks never cut the path short
+		chain = new Abstraction[pathLength];
+		chain[0] = new Abstraction(sourcePath, sourceStmt, null, false, false);
+		for (int i = 1; i < pathLength; i++) {
+			int fieldCount = (i / localCount) % BenchmarkScene.FIELD_COUNT;
+			AccessPath ap = factory.createAccessPath(scene.getLocals()[i % localCount],
+					fieldCount == 0 ? null : scene.getFields(fieldCount), true);
+			chain[i] = chain[i - 1].deriveNewAbstraction(ap, stmts[i % stmts.length]);
+		}
+	}
+
+	private SourceContextAndPath walk(boolean trackPath) {
+		SourceContextAndPath scap = new SourceContextAndPath(sourcePath, sourceStmt);
+		for (int i = chain.length - 1; i >= 0 && scap != null; i--)
+			scap = scap.extendPath(chain[i], trackPath);
+		return scap;
+	}
+
+	@Benchmark
+	public SourceContextAndPath extendTrackedPath() {
+		return walk(true);
+	}
+
+	@Benchmark
+	public SourceContextAndPath extendUntrackedPath() {
+		return walk(false);
+	}
+
+}
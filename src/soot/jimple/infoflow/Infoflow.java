@@ -9,13 +9,18 @@
  ******************************************************************************/
 package soot.jimple.infoflow;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -23,6 +28,8 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.LoadingCache;
+
 import soot.G;
 import soot.MethodOrMethodContext;
 import soot.PackManager;
@@ -34,6 +41,7 @@ import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowConfiguration.CallgraphAlgorithm;
 import soot.jimple.infoflow.InfoflowConfiguration.CodeEliminationMode;
 import soot.jimple.infoflow.InfoflowConfiguration.DataFlowSolver;
+import soot.jimple.infoflow.InfoflowConfiguration.OffHeapStorageMode;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.aliasing.FlowSensitiveAliasStrategy;
 import soot.jimple.infoflow.aliasing.IAliasingStrategy;
@@ -47,6 +55,8 @@ import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
 import soot.jimple.infoflow.data.AccessPathFactory;
 import soot.jimple.infoflow.data.FlowDroidMemoryManager.PathDataErasureMode;
+import soot.jimple.infoflow.data.SinkEntailmentIndex;
+import soot.jimple.infoflow.data.pathBuilders.ConcurrentAbstractionPathBuilder;
 import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
 import soot.jimple.infoflow.data.pathBuilders.IAbstractionPathBuilder;
 import soot.jimple.infoflow.data.pathBuilders.IAbstractionPathBuilder.OnPathBuilderResultAvailable;
@@ -56,9 +66,15 @@ import soot.jimple.infoflow.handlers.PostAnalysisHandler;
 import soot.jimple.infoflow.handlers.ResultsAvailableHandler;
 import soot.jimple.infoflow.handlers.ResultsAvailableHandler2;
 import soot.jimple.infoflow.handlers.TaintPropagationHandler;
+import soot.jimple.infoflow.memory.AnalysisBudgetPlanner;
 import soot.jimple.infoflow.memory.FlowDroidMemoryWatcher;
 import soot.jimple.infoflow.memory.FlowDroidTimeoutWatcher;
 import soot.jimple.infoflow.memory.IMemoryBoundedSolver;
+import soot.jimple.infoflow.memory.IMemoryPressureHandler;
+import soot.jimple.infoflow.metrics.AnalysisEventRecorder;
+import soot.jimple.infoflow.metrics.AnalysisPhase;
+import soot.jimple.infoflow.metrics.IAnalysisEventListener.TaskKind;
+import soot.jimple.infoflow.metrics.InfoflowMetrics;
 import soot.jimple.infoflow.problems.BackwardsInfoflowProblem;
 import soot.jimple.infoflow.problems.InfoflowProblem;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
@@ -70,17 +86,29 @@ import soot.jimple.infoflow.solver.IInfoflowSolver;
 import soot.jimple.infoflow.solver.cfg.BackwardsInfoflowCFG;
 import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
 import soot.jimple.infoflow.solver.cfg.InfoflowCFG;
+import soot.jimple.infoflow.solver.cfg.ModRefSummaries;
 import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
 import soot.jimple.infoflow.solver.executors.SetPoolExecutor;
+import soot.jimple.infoflow.solver.fastSolver.IFDSSolver;
+import soot.jimple.infoflow.solver.fastSolver.IndexedFlowFunctionCache;
+import soot.jimple.infoflow.solver.fastSolver.MethodCompletionTracker;
+import soot.jimple.infoflow.solver.fastSolver.OffHeapSolverTier;
+import soot.jimple.infoflow.solver.fastSolver.SolverCheckpointManager;
+import soot.jimple.infoflow.solver.fastSolver.flowInsensitive.FlowInsensitiveSolver;
 import soot.jimple.infoflow.solver.memory.DefaultMemoryManagerFactory;
 import soot.jimple.infoflow.solver.memory.IMemoryManager;
 import soot.jimple.infoflow.solver.memory.IMemoryManagerFactory;
 import soot.jimple.infoflow.source.IOneSourceAtATimeManager;
+import soot.jimple.infoflow.source.IRestrictedSourceSinkManager;
 import soot.jimple.infoflow.source.ISourceSinkManager;
+import soot.jimple.infoflow.source.RestrictedSourceSinkManager;
+import soot.jimple.infoflow.source.SourceGroupPlanner;
 import soot.jimple.infoflow.util.SootMethodRepresentationParser;
 import soot.jimple.infoflow.util.SystemClassHandler;
 import soot.jimple.toolkits.callgraph.ReachableMethods;
+import soot.jimple.toolkits.pointer.LocalMustAliasAnalysis;
 import soot.options.Options;
+import soot.util.queue.QueueReader;
 
 /**
  * main infoflow class which triggers the analysis and offers method to
@@ -89,10 +117,13 @@ import soot.options.Options;
  */
 public class Infoflow extends AbstractInfoflow {
 
+	// The phases that every source partition runs through
+	private static final Set<AnalysisPhase> PARTITION_PHASES = EnumSet.of(AnalysisPhase.SourceSinkScan,
+			AnalysisPhase.ForwardSolver, AnalysisPhase.EntailmentPruning, AnalysisPhase.PathReconstruction);
+
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 
 	private InfoflowResults results = null;
-	private InfoflowManager manager;
 
 	private Set<ResultsAvailableHandler> onResultsAvailable = new HashSet<ResultsAvailableHandler>();
 	private TaintPropagationHandler taintPropagationHandler = null;
@@ -101,6 +132,14 @@ public class Infoflow extends AbstractInfoflow {
 
 	private long maxMemoryConsumption = -1;
 	private FlowDroidMemoryWatcher memoryWatcher = null;
+	private AnalysisBudgetPlanner budgetPlanner = null;
+	private File resumeCheckpoint = null;
+	private LoadingCache<SootMethod, LocalMustAliasAnalysis> sharedMustAliasCache = null;
+	private boolean keepMethodCaches = false;
+	private final InfoflowMetrics metrics = new InfoflowMetrics();
+	private final AnalysisEventRecorder eventRecorder = new AnalysisEventRecorder();
+	private final Map<AnalysisPhase, Integer> activePhases = new EnumMap<>(AnalysisPhase.class);
+	private final Map<AnalysisPhase, Long> activePhaseShares = new EnumMap<>(AnalysisPhase.class);
 
 	private Set<Stmt> collectedSources = null;
 	private Set<Stmt> collectedSinks = null;
@@ -162,7 +201,9 @@ public class Infoflow extends AbstractInfoflow {
 			return;
 		}
 
+		eventRecorder.beginPhase(AnalysisPhase.SootInitialization);
 		initializeSoot(appPath, libPath, entryPointCreator.getRequiredClasses());
+		eventRecorder.endPhase(AnalysisPhase.SootInitialization);
 
 		// entryPoints are the entryPoints required by Soot to calculate Graph -
 		// if there is no main method,
@@ -182,8 +223,10 @@ public class Infoflow extends AbstractInfoflow {
 			return;
 		}
 
+		eventRecorder.beginPhase(AnalysisPhase.SootInitialization);
 		initializeSoot(appPath, libPath, SootMethodRepresentationParser.v()
 				.parseClassNames(Collections.singletonList(entryPoint), false).keySet(), entryPoint);
+		eventRecorder.endPhase(AnalysisPhase.SootInitialization);
 
 		if (!Scene.v().containsMethod(entryPoint)) {
 			logger.error("Entry point not found: " + entryPoint);
@@ -210,6 +253,58 @@ public class Infoflow extends AbstractInfoflow {
 		runAnalysis(sourcesSinks, seeds);
 	}
 
+	/**
+	 * Resumes an analysis that was interrupted from the given checkpoint. The
+	 * application, the libraries, the entry points, the sources and sinks,
+	 * and the configuration must be the same as in the interrupted run.
+	 * 
+	 * @param checkpoint
+	 *            The checkpoint file that was written by the interrupted run
+	 * @param appPath
+	 *            The path to the application to analyze
+	 * @param libPath
+	 *            The path to the libraries
+	 * @param entryPointCreator
+	 *            The creator for the dummy main method
+	 * @param sourcesSinks
+	 *            The sources and sinks to be used
+	 */
+	public void resume(File checkpoint, String appPath, String libPath, IEntryPointCreator entryPointCreator,
+			ISourceSinkManager sourcesSinks) {
+		this.resumeCheckpoint = checkpoint;
+		try {
+			computeInfoflow(appPath, libPath, entryPointCreator, sourcesSinks);
+		} finally {
+			this.resumeCheckpoint = null;
+		}
+	}
+
+	/**
+	 * Resumes an analysis that was interrupted from the given checkpoint. The
+	 * application, the libraries, the entry point, the sources and sinks, and
+	 * the configuration must be the same as in the interrupted run.
+	 * 
+	 * @param checkpoint
+	 *            The checkpoint file that was written by the interrupted run
+	 * @param appPath
+	 *            The path to the application to analyze
+	 * @param libPath
+	 *            The path to the libraries
+	 * @param entryPoint
+	 *            The signature of the entry point method
+	 * @param sourcesSinks
+	 *            The sources and sinks to be used
+	 */
+	public void resume(File checkpoint, String appPath, String libPath, String entryPoint,
+			ISourceSinkManager sourcesSinks) {
+		this.resumeCheckpoint = checkpoint;
+		try {
+			computeInfoflow(appPath, libPath, entryPoint, sourcesSinks);
+		} finally {
+			this.resumeCheckpoint = null;
+		}
+	}
+
 	/**
 	 * Releases the callgraph and all intermediate objects associated with it
 	 */
@@ -251,26 +346,60 @@ public class Infoflow extends AbstractInfoflow {
 			checkAndFixConfiguration();
 			config.printSummary();
 
+			// Publish the live metrics
+			if (config.getPublishMetrics())
+				metrics.register();
+
 			// Register a memory watcher
 			if (memoryWatcher != null) {
-				memoryWatcher.clearSolvers();
+				memoryWatcher.close();
 				memoryWatcher = null;
 			}
 			memoryWatcher = new FlowDroidMemoryWatcher(results);
+			if (config.getPredictiveMemoryWarnings())
+				memoryWatcher.enablePredictiveWarnings();
+			if (config.getAnalysisMemoryBudget() > 0)
+				memoryWatcher.setMemoryBudget(config.getAnalysisMemoryBudget() * 1000 * 1000);
+
+			// Plan the time budget across the analysis phases
+			budgetPlanner = null;
+			if (config.getAnalysisTimeBudget() > 0) {
+				budgetPlanner = new AnalysisBudgetPlanner(config.getAnalysisTimeBudget());
+				budgetPlanner.start();
+			}
 
 			// Build the callgraph
 			long beforeCallgraph = System.nanoTime();
+			beginPhase(AnalysisPhase.CallgraphConstruction);
 			constructCallgraph();
+			ModRefSummaries modRefSummaries = computeModRefSummaries();
+			endPhase(AnalysisPhase.CallgraphConstruction);
 			logger.info("Callgraph construction took " + (System.nanoTime() - beforeCallgraph) / 1E9 + " seconds");
 
 			// Initialize the source sink manager
 			if (sourcesSinks != null)
 				sourcesSinks.initialize();
 
-			// Perform constant propagation and remove dead code
-			if (config.getCodeEliminationMode() != CodeEliminationMode.NoCodeElimination) {
+			// Perform constant propagation and remove dead code. This phase is
+			// optional, so we skip it if we are out of time.
+			if (config.getCodeEliminationMode() == CodeEliminationMode.NoCodeElimination) {
+				if (budgetPlanner != null)
+					budgetPlanner.skipPhase(AnalysisPhase.ConstantPropagation);
+			} else if (budgetPlanner != null && budgetPlanner.isExhausted()) {
+				logger.warn("Analysis time budget exhausted, skipping dead code elimination");
+				budgetPlanner.skipPhase(AnalysisPhase.ConstantPropagation);
+				results.addTruncatedPhase(AnalysisPhase.ConstantPropagation);
+			} else {
 				long currentMillis = System.nanoTime();
-				eliminateDeadCode(sourcesSinks);
+				beginPhase(AnalysisPhase.ConstantPropagation);
+				eliminateDeadCode(sourcesSinks, modRefSummaries);
+
+				// The summaries still account for the statements that have
+				// just been removed. If we rebuild the callgraph, they are
+				// recomputed along with it anyway.
+				if (modRefSummaries != null && !config.getEnableReflection())
+					modRefSummaries = computeModRefSummaries();
+				endPhase(AnalysisPhase.ConstantPropagation);
 				logger.info("Dead code elimination took " + (System.nanoTime() - currentMillis) / 1E9 + " seconds");
 			}
 
@@ -278,8 +407,14 @@ public class Infoflow extends AbstractInfoflow {
 			// for
 			// reflective method calls
 			if (config.getEnableReflection()) {
+				beginPhase(AnalysisPhase.CallgraphConstruction);
 				releaseCallgraph();
 				constructCallgraph();
+				
+				// The new callgraph may contain edges the summaries do not
+				// know about
+				modRefSummaries = computeModRefSummaries();
+				endPhase(AnalysisPhase.CallgraphConstruction);
 			}
 
 			if (config.getCallgraphAlgorithm() != CallgraphAlgorithm.OnDemand)
@@ -289,288 +424,44 @@ public class Infoflow extends AbstractInfoflow {
 				return;
 
 			logger.info("Starting Taint Analysis");
+			beginPhase(AnalysisPhase.ICFGConstruction);
 			IInfoflowCFG iCfg = icfgFactory.buildBiDirICFG(config.getCallgraphAlgorithm(),
 					config.getEnableExceptionTracking());
+			iCfg.setModRefSummaries(modRefSummaries);
+			if (iCfg instanceof IMemoryPressureHandler)
+				memoryWatcher.addPressureHandler((IMemoryPressureHandler) iCfg);
+			sharedMustAliasCache = null;
+			keepMethodCaches = iCfg instanceof InfoflowCFG && warmUpMethodCaches((InfoflowCFG) iCfg);
+			endPhase(AnalysisPhase.ICFGConstruction);
+			results.setInterproceduralCFG(iCfg);
 
 			// Check whether we need to run with one source at a time
 			IOneSourceAtATimeManager oneSourceAtATime = config.getOneSourceAtATime() && sourcesSinks != null
 					&& sourcesSinks instanceof IOneSourceAtATimeManager ? (IOneSourceAtATimeManager) sourcesSinks
 							: null;
 
-			// Reset the current source
-			if (oneSourceAtATime != null)
-				oneSourceAtATime.resetCurrentSource();
-			boolean hasMoreSources = oneSourceAtATime == null || oneSourceAtATime.hasNextSource();
-
-			while (hasMoreSources) {
-				// Fetch the next source
+			if (oneSourceAtATime != null
+					&& (config.getConcurrentSourcePartitions() > 1 || config.getMaxSourcesPerPartition() > 1))
+				runSourcePartitions(sourcesSinks, additionalSeeds, iCfg, oneSourceAtATime);
+			else {
+				// Reset the current source
 				if (oneSourceAtATime != null)
-					oneSourceAtATime.nextSource();
-
-				// Create the executor that takes care of the workers
-				int numThreads = Runtime.getRuntime().availableProcessors();
-				InterruptableExecutor executor = createExecutor(numThreads, true);
-
-				// Initialize the memory manager
-				IMemoryManager<Abstraction, Unit> memoryManager = createMemoryManager();
-
-				// Initialize the data flow manager
-				manager = new InfoflowManager(config, null, iCfg, sourcesSinks, taintWrapper, hierarchy,
-						new AccessPathFactory(config));
-
-				// Initialize the alias analysis
-				IAliasingStrategy aliasingStrategy = createAliasAnalysis(sourcesSinks, iCfg, executor, memoryManager);
-
-				// Get the zero fact
-				Abstraction zeroValue = aliasingStrategy.getSolver() != null
-						? aliasingStrategy.getSolver().getTabulationProblem().createZeroValue() : null;
-
-				// Initialize the aliasing infrastructure
-				Aliasing aliasing = new Aliasing(aliasingStrategy, manager);
-				if (dummyMainMethod != null)
-					aliasing.excludeMethodFromMustAlias(dummyMainMethod);
-
-				// Initialize the data flow problem
-				InfoflowProblem forwardProblem = new InfoflowProblem(manager, aliasingStrategy, aliasing, zeroValue);
-
-				// We need to create the right data flow solver
-				IInfoflowSolver forwardSolver = createForwardSolver(executor, forwardProblem);
-
-				// Set the options
-				manager.setForwardSolver(forwardSolver);
-				if (aliasingStrategy.getSolver() != null)
-					aliasingStrategy.getSolver().getTabulationProblem().getManager().setForwardSolver(forwardSolver);
-
-				memoryWatcher.addSolver((IMemoryBoundedSolver) forwardSolver);
+					oneSourceAtATime.resetCurrentSource();
+				boolean hasMoreSources = oneSourceAtATime == null || oneSourceAtATime.hasNextSource();
 
-				forwardSolver.setMemoryManager(memoryManager);
-				// forwardSolver.setEnableMergePointChecking(true);
+				while (hasMoreSources) {
+					// Fetch the next source
+					if (oneSourceAtATime != null)
+						oneSourceAtATime.nextSource();
 
-				forwardProblem.setTaintPropagationHandler(taintPropagationHandler);
-				forwardProblem.setTaintWrapper(taintWrapper);
-				if (nativeCallHandler != null)
-					forwardProblem.setNativeCallHandler(nativeCallHandler);
-
-				if (aliasingStrategy.getSolver() != null) {
-					aliasingStrategy.getSolver().getTabulationProblem().setActivationUnitsToCallSites(forwardProblem);
-				}
-
-				// Start a thread for enforcing the timeout
-				FlowDroidTimeoutWatcher timeoutWatcher = null;
-				FlowDroidTimeoutWatcher pathTimeoutWatcher = null;
-				if (config.getDataFlowTimeout() > 0) {
-					timeoutWatcher = new FlowDroidTimeoutWatcher(config.getDataFlowTimeout(), results);
-					timeoutWatcher.addSolver((IMemoryBoundedSolver) forwardSolver);
-					if (aliasingStrategy.getSolver() != null)
-						timeoutWatcher.addSolver((IMemoryBoundedSolver) aliasingStrategy.getSolver());
-					timeoutWatcher.start();
-				}
-
-				try {
-					// Print our configuration
-					if (config.getFlowSensitiveAliasing() && !aliasingStrategy.isFlowSensitive())
-						logger.warn("Trying to use a flow-sensitive aliasing with an "
-								+ "aliasing strategy that does not support this feature");
-					if (config.getFlowSensitiveAliasing() && config.getSingleJoinPointAbstraction())
-						logger.warn("Running with a single join point abstraction can break context-"
-								+ "sensitive path builders");
-
-					// We have to look through the complete program to find
-					// sources
-					// which are then taken as seeds.
-					int sinkCount = 0;
-					logger.info("Looking for sources and sinks...");
-
-					for (SootMethod sm : getMethodsForSeeds(iCfg))
-						sinkCount += scanMethodForSourcesSinks(sourcesSinks, forwardProblem, sm);
-
-					// We optionally also allow additional seeds to be specified
-					if (additionalSeeds != null)
-						for (String meth : additionalSeeds) {
-							SootMethod m = Scene.v().getMethod(meth);
-							if (!m.hasActiveBody()) {
-								logger.warn("Seed method {} has no active body", m);
-								continue;
-							}
-							forwardProblem.addInitialSeeds(m.getActiveBody().getUnits().getFirst(),
-									Collections.singleton(forwardProblem.zeroValue()));
-						}
-
-					// Report on the sources and sinks we have found
-					if (!forwardProblem.hasInitialSeeds()) {
-						logger.error("No sources found, aborting analysis");
-						continue;
-					}
-					if (sinkCount == 0) {
-						logger.error("No sinks found, aborting analysis");
-						continue;
-					}
-					logger.info("Source lookup done, found {} sources and {} sinks.",
-							forwardProblem.getInitialSeeds().size(), sinkCount);
-
-					// Initialize the taint wrapper if we have one
-					if (taintWrapper != null)
-						taintWrapper.initialize(manager);
-					if (nativeCallHandler != null)
-						nativeCallHandler.initialize(manager);
-
-					// Register the handler for interim results
-					TaintPropagationResults propagationResults = forwardProblem.getResults();
-					final InterruptableExecutor resultExecutor = createExecutor(numThreads, false);
-					final IAbstractionPathBuilder builder = pathBuilderFactory.createPathBuilder(config, resultExecutor,
-							iCfg);
-
-					// If we want incremental result reporting, we have to
-					// initialize
-					// it before we start the taint tracking
-					if (config.getIncrementalResultReporting())
-						initializeIncrementalResultReporting(propagationResults, builder);
-
-					forwardSolver.solve();
-					maxMemoryConsumption = Math.max(maxMemoryConsumption, getUsedMemory());
-
-					// Not really nice, but sometimes Heros returns before all
-					// executor tasks are actually done. This way, we give it a
-					// chance to terminate gracefully before moving on.
-					int terminateTries = 0;
-					while (terminateTries < 10) {
-						if (executor.getActiveCount() != 0 || !executor.isTerminated()) {
-							terminateTries++;
-							try {
-								Thread.sleep(500);
-							} catch (InterruptedException e) {
-								logger.error("Could not wait for executor termination", e);
-							}
-						} else
-							break;
-					}
-					if (executor.getActiveCount() != 0 || !executor.isTerminated())
-						logger.error("Executor did not terminate gracefully");
-
-					// Print taint wrapper statistics
-					if (taintWrapper != null) {
-						logger.info("Taint wrapper hits: " + taintWrapper.getWrapperHits());
-						logger.info("Taint wrapper misses: " + taintWrapper.getWrapperMisses());
-					}
-
-					// Get the result abstractions
-					Set<AbstractionAtSink> res = propagationResults.getResults();
-					propagationResults = null;
-
-					// We need to prune access paths that are entailed by
-					// another one
-					removeEntailedAbstractions(res);
-
-					// Shut down the native call handler
-					if (nativeCallHandler != null)
-						nativeCallHandler.shutdown();
-
-					logger.info(
-							"IFDS problem with {} forward and {} backward edges solved, " + "processing {} results...",
-							forwardSolver.getPropagationCount(), aliasingStrategy.getSolver() == null ? 0
-									: aliasingStrategy.getSolver().getPropagationCount(),
-							res == null ? 0 : res.size());
-
-					// Force a cleanup. Everything we need is reachable through
-					// the
-					// results set, the other abstractions can be killed now.
-					maxMemoryConsumption = Math.max(maxMemoryConsumption, getUsedMemory());
-					logger.info("Current memory consumption: " + (getUsedMemory() / 1000 / 1000) + " MB");
-
-					if (timeoutWatcher != null)
-						timeoutWatcher.stop();
-					memoryWatcher.removeSolver((IMemoryBoundedSolver) forwardSolver);
-					forwardSolver.cleanup();
-					forwardSolver = null;
-					forwardProblem = null;
-
-					// Remove the alias analysis from memory
-					aliasing = null;
-					if (aliasingStrategy.getSolver() != null)
-						memoryWatcher.removeSolver((IMemoryBoundedSolver) aliasingStrategy.getSolver());
-					aliasingStrategy.cleanup();
-					aliasingStrategy = null;
-
-					if (config.getIncrementalResultReporting())
-						res = null;
-					iCfg.purge();
-					manager = null;
-
-					Runtime.getRuntime().gc();
-					logger.info("Memory consumption after cleanup: " + (getUsedMemory() / 1000 / 1000) + " MB");
-
-					// Apply the timeout to path reconstruction
-					if (config.getPathReconstructionTimeout() > 0) {
-						pathTimeoutWatcher = new FlowDroidTimeoutWatcher(config.getPathReconstructionTimeout(),
-								results);
-						pathTimeoutWatcher.addSolver(builder);
-						pathTimeoutWatcher.start();
-					}
-
-					// Do the normal result computation in the end unless we
-					// have used
-					// incremental path building
-					if (config.getIncrementalResultReporting()) {
-						// After the last intermediate result has been computed,
-						// we need to
-						// re-process those abstractions that received new
-						// neighbors in the
-						// meantime
-						builder.runIncrementalPathCompuation();
-
-						try {
-							resultExecutor.awaitCompletion();
-						} catch (InterruptedException e) {
-							logger.error("Could not wait for executor termination", e);
-						}
-					} else {
-						memoryWatcher.addSolver(builder);
-						builder.computeTaintPaths(res);
-						res = null;
-
-						// Wait for the path builders to terminate
-						try {
-							resultExecutor.awaitCompletion();
-						} catch (InterruptedException e) {
-							logger.error("Could not wait for executor termination", e);
-						}
-
-						// Get the results once the path builder is done
-						if (this.results == null)
-							this.results = builder.getResults();
-						else
-							this.results.addAll(builder.getResults());
-					}
-					resultExecutor.shutdown();
-
-					// If the path builder was aborted, we warn the user
-					if (builder.isKilled())
-						logger.warn("Path reconstruction aborted. The reported results may be incomplete. "
-								+ "You might want to try again with sequential path processing enabled.");
-				} finally {
-					// Make sure to stop the watcher thread
-					if (timeoutWatcher != null)
-						timeoutWatcher.stop();
-					if (pathTimeoutWatcher != null)
-						pathTimeoutWatcher.stop();
+					runSourcePartition(sourcesSinks, additionalSeeds, iCfg, oneSourceAtATime,
+							config.getMaxThreadNum(), false, null, -1);
 
 					// Do we have any more sources?
 					hasMoreSources = oneSourceAtATime != null && oneSourceAtATime.hasNextSource();
-
-					// Shut down the memory watcher
-					memoryWatcher.close();
-
-					// Get rid of all the stuff that's still floating around in
-					// memory
-					forwardProblem = null;
-					forwardSolver = null;
-					manager = null;
 				}
-
-				// Make sure that we are in a sensible state even if we ran out
-				// of memory before
-				Runtime.getRuntime().gc();
-				logger.info("Memory consumption after path building: " + (getUsedMemory() / 1000 / 1000) + " MB");
+				if (keepMethodCaches)
+					iCfg.purge();
 			}
 
 			// Execute the post-processors
@@ -603,13 +494,674 @@ public class Infoflow extends AbstractInfoflow {
 			if (config.getWriteOutputFiles())
 				PackManager.v().writeOutput();
 
-			maxMemoryConsumption = Math.max(maxMemoryConsumption, getUsedMemory());
+			updateMaxMemoryConsumption();
 			System.out.println("Maximum memory consumption: " + maxMemoryConsumption / 1E6 + " MB");
 		} catch (Exception ex) {
 			results.addException(ex.getClass().getName() + ": " + ex.getMessage());
+		} finally {
+			sharedMustAliasCache = null;
+
+			// Shut down the memory watcher
+			if (memoryWatcher != null)
+				memoryWatcher.close();
+			metrics.unregister();
+		}
+	}
+
+	/**
+	 * Runs the data flow solvers and the path reconstruction for the sources
+	 * that the given source/sink manager reports
+	 * 
+	 * @param sourcesSinks
+	 *            The sources and sinks to be used
+	 * @param additionalSeeds
+	 *            Additional seeds at which to create A ZERO fact even if they
+	 *            are not sources
+	 * @param iCfg
+	 *            The interprocedural control flow graph
+	 * @param oneSourceAtATime
+	 *            The manager for running one source at a time, or null if all
+	 *            sources are analyzed together
+	 * @param maxThreadNum
+	 *            The maximum number of threads for the solvers and for the
+	 *            path reconstruction, or -1 for no limit
+	 * @param concurrent
+	 *            True if other source partitions are analyzed at the same time
+	 *            and share the interprocedural control flow graph, otherwise
+	 *            false
+	 * @param partitionSources
+	 *            The sources of this partition if they have already been
+	 *            collected together with the other partitions, or null to scan
+	 *            the program for sources. If the sources are given, the taint
+	 *            wrapper and the native call handler are expected to be
+	 *            initialized already.
+	 * @param partitionSinkCount
+	 *            The number of sinks in the program if the sources are given,
+	 *            otherwise ignored
+	 */
+	private void runSourcePartition(final ISourceSinkManager sourcesSinks, final Set<String> additionalSeeds,
+			IInfoflowCFG iCfg, IOneSourceAtATimeManager oneSourceAtATime, int maxThreadNum, boolean concurrent,
+			Set<Stmt> partitionSources, int partitionSinkCount) {
+		// Create the executor that takes care of the workers
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		InterruptableExecutor executor = createExecutor(numThreads, true, maxThreadNum);
+
+		// Initialize the memory manager
+		IMemoryManager<Abstraction, Unit> memoryManager = createMemoryManager();
+
+		// Partitions that run at the same time need their own metrics, the
+		// shared instance can only track a single pair of solvers
+		final InfoflowMetrics partitionMetrics = concurrent ? new InfoflowMetrics() : metrics;
+		if (concurrent && config.getPublishMetrics())
+			partitionMetrics.register();
+
+		// Initialize the data flow manager
+		final InfoflowManager manager = new InfoflowManager(config, null, iCfg, sourcesSinks, taintWrapper, hierarchy,
+				new AccessPathFactory(config));
+
+		// Initialize the alias analysis
+		IAliasingStrategy aliasingStrategy = createAliasAnalysis(sourcesSinks, manager, iCfg, executor, memoryManager);
+
+		// Get the zero fact
+		Abstraction zeroValue = aliasingStrategy.getSolver() != null
+				? aliasingStrategy.getSolver().getTabulationProblem().createZeroValue() : null;
+
+		// Initialize the aliasing infrastructure
+		Aliasing aliasing = new Aliasing(aliasingStrategy, manager, sharedMustAliasCache);
+		if (dummyMainMethod != null)
+			aliasing.excludeMethodFromMustAlias(dummyMainMethod);
+
+		// Initialize the data flow problem
+		InfoflowProblem forwardProblem = new InfoflowProblem(manager, aliasingStrategy, aliasing, zeroValue);
+
+		// We need to create the right data flow solver
+		IInfoflowSolver forwardSolver = createForwardSolver(executor, forwardProblem);
+
+		// Set the options
+		manager.setForwardSolver(forwardSolver);
+		if (aliasingStrategy.getSolver() != null)
+			aliasingStrategy.getSolver().getTabulationProblem().getManager().setForwardSolver(forwardSolver);
+
+		memoryWatcher.addSolver((IMemoryBoundedSolver) forwardSolver);
+
+		// Register the components that can trade precision for memory. They
+		// belong to this partition and are unregistered when it ends.
+		final List<IMemoryPressureHandler> pressureHandlers = new ArrayList<>();
+		pressureHandlers.add(manager.getAccessPathFactory());
+		if (memoryManager instanceof IMemoryPressureHandler)
+			pressureHandlers.add((IMemoryPressureHandler) memoryManager);
+		addFlowFunctionCacheHandler(forwardSolver, pressureHandlers);
+		addFlowFunctionCacheHandler(aliasingStrategy.getSolver(), pressureHandlers);
+		for (IMemoryPressureHandler handler : pressureHandlers)
+			memoryWatcher.addPressureHandler(handler);
+
+		forwardSolver.setMemoryManager(memoryManager);
+		// forwardSolver.setEnableMergePointChecking(true);
+
+		partitionMetrics.setSolvers(forwardSolver, aliasingStrategy.getSolver(), executor);
+		if (eventRecorder.isEnabled()) {
+			if (forwardSolver instanceof IFDSSolver)
+				((IFDSSolver<?, ?, ?>) forwardSolver).setEventRecorder(eventRecorder, TaskKind.ForwardEdge);
+			if (aliasingStrategy.getSolver() instanceof IFDSSolver)
+				((IFDSSolver<?, ?, ?>) aliasingStrategy.getSolver()).setEventRecorder(eventRecorder,
+						TaskKind.BackwardEdge);
+		}
+		partitionMetrics.setMemoryManager(memoryManager);
+		partitionMetrics.setTaintWrapper(taintWrapper);
+
+		// Evict the state of completed methods from the solvers
+		MethodCompletionTracker<Unit> completionTracker = null;
+		if (config.getEvictCompletedMethods())
+			completionTracker = createCompletionTracker(iCfg, forwardSolver, aliasingStrategy.getSolver());
+
+		forwardProblem.setTaintPropagationHandler(taintPropagationHandler);
+		forwardProblem.setTaintWrapper(taintWrapper);
+		if (nativeCallHandler != null)
+			forwardProblem.setNativeCallHandler(nativeCallHandler);
+
+		if (aliasingStrategy.getSolver() != null) {
+			aliasingStrategy.getSolver().getTabulationProblem().setActivationUnitsToCallSites(forwardProblem);
+		}
+
+		// Start a thread for enforcing the timeout
+		FlowDroidTimeoutWatcher timeoutWatcher = null;
+		FlowDroidTimeoutWatcher budgetWatcher = null;
+		FlowDroidTimeoutWatcher pathTimeoutWatcher = null;
+		SolverCheckpointManager checkpointManager = null;
+
+		// Concurrent partitions must not interfere with each other's
+		// results, so every partition collects its data flows on its own
+		// and merges them into the shared results once it is done
+		InfoflowResults partitionResults = null;
+		if (config.getDataFlowTimeout() > 0) {
+			timeoutWatcher = new FlowDroidTimeoutWatcher(config.getDataFlowTimeout(), results);
+			timeoutWatcher.addSolver((IMemoryBoundedSolver) forwardSolver);
+			if (aliasingStrategy.getSolver() != null)
+				timeoutWatcher.addSolver((IMemoryBoundedSolver) aliasingStrategy.getSolver());
+			timeoutWatcher.start();
+		}
+
+		try {
+			// Print our configuration
+			if (config.getFlowSensitiveAliasing() && !aliasingStrategy.isFlowSensitive())
+				logger.warn("Trying to use a flow-sensitive aliasing with an "
+						+ "aliasing strategy that does not support this feature");
+			if (config.getFlowSensitiveAliasing() && config.getSingleJoinPointAbstraction())
+				logger.warn("Running with a single join point abstraction can break context-"
+						+ "sensitive path builders");
+
+			// We have to look through the complete program to find
+			// sources
+			// which are then taken as seeds.
+			int sinkCount = 0;
+			logger.info("Looking for sources and sinks...");
+
+			beginPhase(AnalysisPhase.SourceSinkScan);
+			if (partitionSources == null) {
+				for (SootMethod sm : getMethodsForSeeds(iCfg))
+					sinkCount += scanMethodForSourcesSinks(sourcesSinks, manager, forwardProblem, sm);
+			} else {
+				// The sources have already been collected for all partitions
+				for (Stmt source : partitionSources)
+					forwardProblem.addInitialSeeds(source, Collections.singleton(forwardProblem.zeroValue()));
+				sinkCount = partitionSinkCount;
+			}
+
+			// We optionally also allow additional seeds to be specified
+			if (additionalSeeds != null)
+				for (String meth : additionalSeeds) {
+					SootMethod m = Scene.v().getMethod(meth);
+					if (!m.hasActiveBody()) {
+						logger.warn("Seed method {} has no active body", m);
+						continue;
+					}
+					forwardProblem.addInitialSeeds(m.getActiveBody().getUnits().getFirst(),
+							Collections.singleton(forwardProblem.zeroValue()));
+				}
+
+			endPhase(AnalysisPhase.SourceSinkScan);
+
+			// Report on the sources and sinks we have found
+			if (!forwardProblem.hasInitialSeeds()) {
+				logger.error("No sources found, aborting analysis");
+				return;
+			}
+			if (sinkCount == 0) {
+				logger.error("No sinks found, aborting analysis");
+				return;
+			}
+			logger.info("Source lookup done, found {} sources and {} sinks.",
+					forwardProblem.getInitialSeeds().size(), sinkCount);
+
+			// Initialize the taint wrapper if we have one. Partitions whose
+			// sources were collected upfront share the instances that
+			// have been initialized before the partitions were started.
+			if (partitionSources == null) {
+				if (taintWrapper != null)
+					taintWrapper.initialize(manager);
+				if (nativeCallHandler != null)
+					nativeCallHandler.initialize(manager);
+			}
+
+			// Register the handler for interim results
+			TaintPropagationResults propagationResults = forwardProblem.getResults();
+			final InterruptableExecutor resultExecutor = createExecutor(numThreads, false,
+					config.getPathBuilderThreadNum() == -1 ? maxThreadNum
+							: config.getPathBuilderThreadNum());
+			final IAbstractionPathBuilder builder = pathBuilderFactory.createPathBuilder(config, resultExecutor,
+					iCfg);
+			partitionMetrics.setPathBuilder(builder, resultExecutor);
+			if (eventRecorder.isEnabled() && builder instanceof ConcurrentAbstractionPathBuilder)
+				((ConcurrentAbstractionPathBuilder) builder).setEventRecorder(eventRecorder);
+
+			// If we want incremental result reporting, we have to
+			// initialize
+			// it before we start the taint tracking
+			if (config.getIncrementalResultReporting()) {
+				partitionResults = new InfoflowResults(iCfg);
+				initializeIncrementalResultReporting(propagationResults, builder, partitionResults);
+			}
+
+			// The data flow timeout also covers the source and sink
+			// scan, so the share of the budget needs a watcher of its
+			// own
+			long solverShare = beginPhase(AnalysisPhase.ForwardSolver);
+			if (solverShare > 0) {
+				budgetWatcher = new FlowDroidTimeoutWatcher(solverShare, results);
+				budgetWatcher.addSolver((IMemoryBoundedSolver) forwardSolver);
+				if (aliasingStrategy.getSolver() != null)
+					budgetWatcher.addSolver((IMemoryBoundedSolver) aliasingStrategy.getSolver());
+				budgetWatcher.start();
+			}
+
+			// Restore the solver state if we resume an earlier run and
+			// periodically save it if requested
+			if (resumeCheckpoint != null || config.getCheckpointDirectory() != null) {
+				checkpointManager = createCheckpointManager(iCfg, oneSourceAtATime, forwardSolver,
+						aliasingStrategy.getSolver());
+				if (checkpointManager != null) {
+					checkpointManager.setResults(propagationResults);
+					if (resumeCheckpoint != null) {
+						try {
+							checkpointManager.restore(resumeCheckpoint);
+						} catch (IOException e) {
+							throw new RuntimeException("Could not resume from checkpoint " + resumeCheckpoint,
+									e);
+						}
+					}
+					if (config.getCheckpointDirectory() != null)
+						checkpointManager.start(config.getCheckpointInterval());
+				}
+			}
+
+			forwardSolver.solve();
+			if (checkpointManager != null)
+				checkpointManager.stop();
+			endPhase(AnalysisPhase.ForwardSolver);
+			updateMaxMemoryConsumption();
+
+			// Not really nice, but sometimes Heros returns before all
+			// executor tasks are actually done. This way, we give it a
+			// chance to terminate gracefully before moving on.
+			int terminateTries = 0;
+			while (terminateTries < 10) {
+				if (executor.getActiveCount() != 0 || !executor.isTerminated()) {
+					terminateTries++;
+					try {
+						Thread.sleep(500);
+					} catch (InterruptedException e) {
+						logger.error("Could not wait for executor termination", e);
+					}
+				} else
+					break;
+			}
+			if (executor.getActiveCount() != 0 || !executor.isTerminated())
+				logger.error("Executor did not terminate gracefully");
+
+			// Record whether the solvers were stopped early due to a
+			// timeout or a lack of memory
+			if (((IMemoryBoundedSolver) forwardSolver).isKilled() || (aliasingStrategy.getSolver() != null
+					&& ((IMemoryBoundedSolver) aliasingStrategy.getSolver()).isKilled()))
+				results.addTruncatedPhase(AnalysisPhase.ForwardSolver);
+
+			// Print taint wrapper statistics
+			if (taintWrapper != null) {
+				logger.info("Taint wrapper hits: " + taintWrapper.getWrapperHits());
+				logger.info("Taint wrapper misses: " + taintWrapper.getWrapperMisses());
+			}
+			if (forwardProblem.getPropagationRules().getStatistics() != null)
+				forwardProblem.getPropagationRules().getStatistics().printSummary();
+			if (completionTracker != null)
+				logger.info("Evicted {} solver entries from {} completed methods",
+						completionTracker.getEvictedEntryCount(), completionTracker.getEvictedMethodCount());
+
+			// Get the result abstractions
+			Set<AbstractionAtSink> res = propagationResults.getResults();
+			propagationResults = null;
+
+			// We need to prune access paths that are entailed by
+			// another one
+			beginPhase(AnalysisPhase.EntailmentPruning);
+			removeEntailedAbstractions(res, maxThreadNum);
+			endPhase(AnalysisPhase.EntailmentPruning);
+
+			// Shut down the native call handler
+			if (nativeCallHandler != null && partitionSources == null)
+				nativeCallHandler.shutdown();
+
+			logger.info(
+					"IFDS problem with {} forward and {} backward edges solved, " + "processing {} results...",
+					forwardSolver.getPropagationCount(), aliasingStrategy.getSolver() == null ? 0
+							: aliasingStrategy.getSolver().getPropagationCount(),
+					res == null ? 0 : res.size());
+
+			// Force a cleanup. Everything we need is reachable through
+			// the
+			// results set, the other abstractions can be killed now.
+			updateMaxMemoryConsumption();
+			logger.info("Current memory consumption: " + (getUsedMemory() / 1000 / 1000) + " MB");
+
+			if (timeoutWatcher != null)
+				timeoutWatcher.stop();
+			if (budgetWatcher != null)
+				budgetWatcher.stop();
+			memoryWatcher.removeSolver((IMemoryBoundedSolver) forwardSolver);
+			forwardSolver.cleanup();
+			forwardSolver = null;
+			forwardProblem = null;
+
+			// Remove the alias analysis from memory
+			aliasing = null;
+			if (aliasingStrategy.getSolver() != null)
+				memoryWatcher.removeSolver((IMemoryBoundedSolver) aliasingStrategy.getSolver());
+			aliasingStrategy.cleanup();
+			aliasingStrategy = null;
+			partitionMetrics.clearSolvers();
+
+			if (config.getIncrementalResultReporting())
+				res = null;
+
+			// Other partitions may still need the caches of the ICFG, and
+			// a full collection would stall them as well. Caches that were
+			// built ahead of time are kept for the next source.
+			if (!concurrent) {
+				if (!keepMethodCaches)
+					iCfg.purge();
+				Runtime.getRuntime().gc();
+				logger.info("Memory consumption after cleanup: " + (getUsedMemory() / 1000 / 1000) + " MB");
+			}
+
+			// Apply the timeout to path reconstruction
+			long pathShare = beginPhase(AnalysisPhase.PathReconstruction);
+			long pathTimeout = getEffectiveTimeout(config.getPathReconstructionTimeout(), pathShare);
+			if (pathTimeout > 0) {
+				pathTimeoutWatcher = new FlowDroidTimeoutWatcher(pathTimeout, results);
+				pathTimeoutWatcher.addSolver(builder);
+				pathTimeoutWatcher.start();
+			}
+
+			// Do the normal result computation in the end unless we
+			// have used
+			// incremental path building
+			if (config.getIncrementalResultReporting()) {
+				// After the last intermediate result has been computed,
+				// we need to
+				// re-process those abstractions that received new
+				// neighbors in the
+				// meantime
+				builder.runIncrementalPathCompuation();
+
+				try {
+					resultExecutor.awaitCompletion();
+				} catch (InterruptedException e) {
+					logger.error("Could not wait for executor termination", e);
+				}
+			} else {
+				memoryWatcher.addSolver(builder);
+				builder.computeTaintPaths(res);
+				res = null;
+
+				// Wait for the path builders to terminate
+				try {
+					resultExecutor.awaitCompletion();
+				} catch (InterruptedException e) {
+					logger.error("Could not wait for executor termination", e);
+				}
+
+				// Get the results once the path builder is done
+				partitionResults = builder.getResults();
+			}
+			resultExecutor.shutdown();
+			memoryWatcher.removeSolver(builder);
+			endPhase(AnalysisPhase.PathReconstruction);
+
+			// If the path builder was aborted, we warn the user
+			if (builder.isKilled()) {
+				logger.warn("Path reconstruction aborted. The reported results may be incomplete. "
+						+ "You might want to try again with sequential path processing enabled.");
+				results.addTruncatedPhase(AnalysisPhase.PathReconstruction);
+			}
+		} finally {
+			// The data flows of a partition that was cut short are still
+			// valid
+			if (partitionResults != null)
+				results.addAll(partitionResults);
+
+			// Make sure to stop the watcher thread
+			if (timeoutWatcher != null)
+				timeoutWatcher.stop();
+			if (budgetWatcher != null)
+				budgetWatcher.stop();
+			if (pathTimeoutWatcher != null)
+				pathTimeoutWatcher.stop();
+			if (checkpointManager != null)
+				checkpointManager.stop();
+
+			// Unregister everything this partition has registered with the
+			// memory watcher, so that the next partition does not keep it
+			// alive
+			for (IMemoryPressureHandler handler : pressureHandlers)
+				memoryWatcher.removePressureHandler(handler);
+			if (forwardSolver != null)
+				memoryWatcher.removeSolver((IMemoryBoundedSolver) forwardSolver);
+			if (aliasingStrategy != null && aliasingStrategy.getSolver() != null)
+				memoryWatcher.removeSolver((IMemoryBoundedSolver) aliasingStrategy.getSolver());
+
+			partitionMetrics.clear();
+			if (concurrent)
+				partitionMetrics.unregister();
+
+			// Get rid of all the stuff that's still floating around in
+			// memory
+			forwardProblem = null;
+			forwardSolver = null;
+		}
+
+		// Make sure that we are in a sensible state even if we ran out
+		// of memory before
+		if (!concurrent) {
+			Runtime.getRuntime().gc();
+			logger.info("Memory consumption after path building: " + (getUsedMemory() / 1000 / 1000) + " MB");
 		}
 	}
 
+	/**
+	 * Analyzes the sources in partitions instead of strictly one at a time.
+	 * Sources that reach the same code are grouped into the same partition if
+	 * partitions may contain more than one source, and several partitions may
+	 * run concurrently. Every partition gets its own solvers and aliasing,
+	 * while all of them share the interprocedural control flow graph and its
+	 * caches.
+	 * 
+	 * @param sourcesSinks
+	 *            The sources and sinks to be used
+	 * @param additionalSeeds
+	 *            Additional seeds at which to create A ZERO fact even if they
+	 *            are not sources
+	 * @param iCfg
+	 *            The interprocedural control flow graph
+	 * @param oneSourceAtATime
+	 *            The source/sink manager for running one source at a time
+	 * @throws InterruptedException
+	 *             Thrown if the current thread was interrupted while waiting
+	 *             for the partitions
+	 */
+	private void runSourcePartitions(final ISourceSinkManager sourcesSinks,
+			final Set<String> additionalSeeds, final IInfoflowCFG iCfg,
+			final IOneSourceAtATimeManager oneSourceAtATime) throws InterruptedException {
+		// The source iterator of the source/sink manager cannot be shared
+		// between threads, so we collect all sources upfront and give every
+		// partition its own view on them
+		boolean oneSourceAtATimeEnabled = oneSourceAtATime.isOneSourceAtATimeEnabled();
+		oneSourceAtATime.setOneSourceAtATimeEnabled(false);
+		try {
+			InfoflowManager scanManager = new InfoflowManager(config, null, iCfg, sourcesSinks, taintWrapper,
+					hierarchy, new AccessPathFactory(config));
+			final Set<Stmt> sinks = new HashSet<>();
+			List<Stmt> sources = new ArrayList<>();
+			beginPhase(AnalysisPhase.SourceSinkScan);
+			for (SootMethod sm : getMethodsForSeeds(iCfg))
+				if (sm.hasActiveBody() && isValidSeedMethod(sm))
+					for (Unit u : sm.getActiveBody().getUnits()) {
+						Stmt s = (Stmt) u;
+						if (sourcesSinks.getSourceInfo(s, scanManager) != null)
+							sources.add(s);
+						if (sourcesSinks.isSink(s, scanManager, null))
+							sinks.add(s);
+					}
+			endPhase(AnalysisPhase.SourceSinkScan);
+			if (sources.isEmpty()) {
+				logger.error("No sources found, aborting analysis");
+				return;
+			}
+			if (sinks.isEmpty()) {
+				logger.error("No sinks found, aborting analysis");
+				return;
+			}
+
+			// Sources that reach the same code share their summaries if they
+			// are analyzed together
+			List<Set<Stmt>> partitions;
+			if (config.getMaxSourcesPerPartition() > 1)
+				partitions = new SourceGroupPlanner(iCfg).plan(sources, config.getMaxSourcesPerPartition());
+			else {
+				partitions = new ArrayList<>(sources.size());
+				for (Stmt source : sources)
+					partitions.add(Collections.singleton(source));
+			}
+
+			// The partitions that run at the same time share the thread budget
+			final int concurrentCount = Math.max(1,
+					Math.min(config.getConcurrentSourcePartitions(), partitions.size()));
+			int totalThreads = config.getMaxThreadNum() == -1 ? Runtime.getRuntime().availableProcessors()
+					: config.getMaxThreadNum();
+			final int threadsPerPartition = concurrentCount == 1 ? config.getMaxThreadNum()
+					: Math.max(1, totalThreads / concurrentCount);
+			logger.info("Analyzing {} sources in {} partitions, {} at a time with {} threads each", sources.size(),
+					partitions.size(), concurrentCount, threadsPerPartition);
+
+			// Concurrent partitions share one iteration of each phase, so
+			// the phases run once per round of partitions
+			if (budgetPlanner != null) {
+				int rounds = (partitions.size() + concurrentCount - 1) / concurrentCount;
+				for (AnalysisPhase phase : PARTITION_PHASES)
+					budgetPlanner.setPhaseIterations(phase, rounds);
+			}
+
+			if (config.getLogSourcesAndSinks()) {
+				if (collectedSources == null) {
+					collectedSources = new HashSet<>();
+					collectedSinks = new HashSet<>();
+				}
+				collectedSources.addAll(sources);
+				collectedSinks.addAll(sinks);
+			}
+
+			// The taint wrapper and the native call handler are shared by all
+			// partitions, so we initialize them only once
+			if (taintWrapper != null)
+				taintWrapper.initialize(scanManager);
+			if (nativeCallHandler != null)
+				nativeCallHandler.initialize(scanManager);
+			memoryWatcher.addPressureHandler(scanManager.getAccessPathFactory());
+
+			InterruptableExecutor partitionExecutor = createExecutor(concurrentCount, false, concurrentCount);
+			for (final Set<Stmt> partition : partitions)
+				partitionExecutor.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							runSourcePartition(new RestrictedSourceSinkManager(sourcesSinks, partition),
+									additionalSeeds, iCfg, oneSourceAtATime, threadsPerPartition,
+									concurrentCount > 1, partition, sinks.size());
+						} catch (RuntimeException ex) {
+							logger.error("Could not analyze the sources " + partition, ex);
+							results.addException(ex.getClass().getName() + ": " + ex.getMessage());
+							results.addTruncatedPhase(AnalysisPhase.ForwardSolver);
+						}
+					}
+
+				});
+			try {
+				partitionExecutor.awaitCompletion();
+			} finally {
+				partitionExecutor.shutdown();
+				memoryWatcher.removePressureHandler(scanManager.getAccessPathFactory());
+
+				// Overlapping partitions may have run in fewer rounds than
+				// planned
+				if (budgetPlanner != null)
+					for (AnalysisPhase phase : PARTITION_PHASES)
+						budgetPlanner.skipPhase(phase);
+			}
+		} finally {
+			oneSourceAtATime.setOneSourceAtATimeEnabled(oneSourceAtATimeEnabled);
+		}
+
+		// Release what the partitions had to share
+		if (nativeCallHandler != null)
+			nativeCallHandler.shutdown();
+		iCfg.purge();
+	}
+
+	/**
+	 * Marks the beginning of the given analysis phase
+	 * 
+	 * @param phase
+	 *            The phase that begins
+	 * @return The time in seconds that the phase may use according to the
+	 *         time budget, or -1 if the analysis is not budgeted
+	 */
+	private long beginPhase(AnalysisPhase phase) {
+		// Concurrent source partitions run through the same phases at the
+		// same time. The phase begins with the first partition and ends with
+		// the last one, all of them share the same budget.
+		synchronized (activePhases) {
+			Integer active = activePhases.get(phase);
+			if (active != null && active > 0) {
+				activePhases.put(phase, active + 1);
+				return activePhaseShares.get(phase);
+			}
+			activePhases.put(phase, 1);
+			eventRecorder.beginPhase(phase);
+			long share = budgetPlanner == null ? -1 : budgetPlanner.beginPhase(phase);
+			activePhaseShares.put(phase, share);
+			return share;
+		}
+	}
+
+	/**
+	 * Marks the end of the given analysis phase
+	 * 
+	 * @param phase
+	 *            The phase that has ended
+	 */
+	private void endPhase(AnalysisPhase phase) {
+		synchronized (activePhases) {
+			Integer active = activePhases.get(phase);
+			if (active != null && active > 1) {
+				activePhases.put(phase, active - 1);
+				return;
+			}
+			activePhases.remove(phase);
+			activePhaseShares.remove(phase);
+			eventRecorder.endPhase(phase);
+			if (budgetPlanner != null)
+				budgetPlanner.endPhase(phase);
+		}
+	}
+
+	/**
+	 * Records the current heap usage if it exceeds the maximum seen so far
+	 */
+	private void updateMaxMemoryConsumption() {
+		long usedMemory = getUsedMemory();
+		synchronized (activePhases) {
+			maxMemoryConsumption = Math.max(maxMemoryConsumption, usedMemory);
+		}
+	}
+
+	/**
+	 * Combines a configured timeout with the share of the time budget that a
+	 * phase may use
+	 * 
+	 * @param configuredTimeout
+	 *            The timeout from the configuration in seconds, or a value
+	 *            smaller than one if there is none
+	 * @param budgetShare
+	 *            The share of the time budget in seconds, or a value smaller
+	 *            than one if the analysis is not budgeted
+	 * @return The stricter of the two timeouts, or 0 if neither is set
+	 */
+	private static long getEffectiveTimeout(long configuredTimeout, long budgetShare) {
+		if (budgetShare <= 0)
+			return Math.max(0, configuredTimeout);
+		if (configuredTimeout <= 0)
+			return budgetShare;
+		return Math.min(configuredTimeout, budgetShare);
+	}
+
 	/**
 	 * Initializes the mechanism for incremental result reporting
 	 * 
@@ -619,12 +1171,14 @@ public class Infoflow extends AbstractInfoflow {
 	 * @param builder
 	 *            The path builder to use for reconstructing the taint
 	 *            propagation paths
+	 * @param partitionResults
+	 *            The object that collects the results of the current source
+	 *            partition
 	 */
 	private void initializeIncrementalResultReporting(TaintPropagationResults propagationResults,
-			final IAbstractionPathBuilder builder) {
+			final IAbstractionPathBuilder builder, final InfoflowResults partitionResults) {
 		// Create the path builder
 		memoryWatcher.addSolver(builder);
-		this.results = new InfoflowResults();
 		propagationResults.addResultAvailableHandler(new OnTaintPropagationResultAdded() {
 
 			@Override
@@ -640,7 +1194,7 @@ public class Infoflow extends AbstractInfoflow {
 								handler2.onSingleResultAvailable(source, sink);
 							}
 						}
-						results.addResult(sink, source);
+						partitionResults.addResult(sink, source);
 					}
 
 				});
@@ -668,6 +1222,10 @@ public class Infoflow extends AbstractInfoflow {
 			logger.warn("Disabled flow-sensitive aliasing because we are running with "
 					+ "a flow-insensitive data flow solver");
 		}
+		if (config.getCheckpointDirectory() != null && config.getOffHeapStorageMode() != OffHeapStorageMode.None) {
+			config.setOffHeapStorageMode(OffHeapStorageMode.None);
+			logger.warn("Disabled off-heap storage because it cannot be combined with solver checkpoints");
+		}
 	}
 
 	/**
@@ -678,19 +1236,12 @@ public class Infoflow extends AbstractInfoflow {
 	 * 
 	 * @param res
 	 *            The result set from which to remove all entailed abstractions
+	 * @param maxThreadNum
+	 *            The maximum number of threads to use, or -1 for no limit
 	 */
-	private void removeEntailedAbstractions(Set<AbstractionAtSink> res) {
-		for (Iterator<AbstractionAtSink> absAtSinkIt = res.iterator(); absAtSinkIt.hasNext();) {
-			AbstractionAtSink curAbs = absAtSinkIt.next();
-			for (AbstractionAtSink checkAbs : res)
-				if (checkAbs != curAbs && checkAbs.getSinkStmt() == curAbs.getSinkStmt()
-						&& checkAbs.getAbstraction().isImplicit() == curAbs.getAbstraction().isImplicit()
-						&& checkAbs.getAbstraction().getSourceContext() == curAbs.getAbstraction().getSourceContext())
-					if (checkAbs.getAbstraction().getAccessPath().entails(curAbs.getAbstraction().getAccessPath())) {
-						absAtSinkIt.remove();
-						break;
-					}
-		}
+	private void removeEntailedAbstractions(Set<AbstractionAtSink> res, int maxThreadNum) {
+		SinkEntailmentIndex.removeEntailed(res, createExecutor(Runtime.getRuntime().availableProcessors(),
+				false, maxThreadNum));
 	}
 
 	/**
@@ -698,6 +1249,8 @@ public class Infoflow extends AbstractInfoflow {
 	 * 
 	 * @param sourcesSinks
 	 *            The set of sources and sinks
+	 * @param manager
+	 *            The data flow manager
 	 * @param iCfg
 	 *            The interprocedural control flow graph
 	 * @param executor
@@ -709,8 +1262,8 @@ public class Infoflow extends AbstractInfoflow {
 	 *         analysis
 	 */
 	@SuppressWarnings("deprecation")
-	private IAliasingStrategy createAliasAnalysis(final ISourceSinkManager sourcesSinks, IInfoflowCFG iCfg,
-			InterruptableExecutor executor, IMemoryManager<Abstraction, Unit> memoryManager) {
+	private IAliasingStrategy createAliasAnalysis(final ISourceSinkManager sourcesSinks, InfoflowManager manager,
+			IInfoflowCFG iCfg, InterruptableExecutor executor, IMemoryManager<Abstraction, Unit> memoryManager) {
 		IAliasingStrategy aliasingStrategy;
 		IInfoflowSolver backSolver = null;
 		BackwardsInfoflowProblem backProblem = null;
@@ -741,6 +1294,7 @@ public class Infoflow extends AbstractInfoflow {
 			backSolver.setJumpPredecessors(!pathBuilderFactory.supportsPathReconstruction());
 			// backSolver.setEnableMergePointChecking(true);
 			backSolver.setSingleJoinPointAbstraction(config.getSingleJoinPointAbstraction());
+			configureOffHeapTier(backSolver);
 			backSolver.setSolverId(false);
 			backProblem.setTaintPropagationHandler(backwardsPropagationHandler);
 			backProblem.setTaintWrapper(taintWrapper);
@@ -788,6 +1342,115 @@ public class Infoflow extends AbstractInfoflow {
 		return memoryManager;
 	}
 
+	/**
+	 * Creates the tracker that finds completed methods and evicts their state
+	 * from the given solvers. All solvers must support state eviction,
+	 * otherwise no tracker is created. Subclasses may override this method to
+	 * tune the tracker, e.g., to look for completed methods more often.
+	 * 
+	 * @param iCfg
+	 *            The interprocedural control flow graph
+	 * @param solvers
+	 *            The solvers from which to evict the state of completed
+	 *            methods. Null entries are ignored.
+	 * @return The new tracker, or null if not all solvers support state
+	 *         eviction
+	 */
+	protected MethodCompletionTracker<Unit> createCompletionTracker(IInfoflowCFG iCfg, IInfoflowSolver... solvers) {
+		// The tracker must see the edges of all solvers, otherwise it might
+		// consider methods as completed that are still being analyzed
+		for (IInfoflowSolver solver : solvers)
+			if (solver != null && !(solver instanceof soot.jimple.infoflow.solver.fastSolver.InfoflowSolver)) {
+				logger.warn("The selected data flow solver does not support evicting completed methods");
+				return null;
+			}
+
+		MethodCompletionTracker<Unit> tracker = new MethodCompletionTracker<>(iCfg);
+		for (IInfoflowSolver solver : solvers)
+			if (solver != null)
+				((soot.jimple.infoflow.solver.fastSolver.InfoflowSolver) solver).setCompletionTracker(tracker);
+		return tracker;
+	}
+
+	/**
+	 * Creates the manager that writes and restores checkpoints of the solver
+	 * state. Subclasses may override this method to write checkpoints at
+	 * specific points of the analysis.
+	 * 
+	 * @param iCfg
+	 *            The interprocedural control flow graph
+	 * @param oneSourceAtATime
+	 *            The manager for running one source at a time, or null if all
+	 *            sources are analyzed together
+	 * @param solvers
+	 *            The solvers whose state shall be saved. Null entries are
+	 *            ignored.
+	 * @return The new checkpoint manager, or null if not all solvers support
+	 *         checkpoints
+	 */
+	protected SolverCheckpointManager createCheckpointManager(IInfoflowCFG iCfg,
+			IOneSourceAtATimeManager oneSourceAtATime, IInfoflowSolver... solvers) {
+		// A checkpoint only covers a single solver run
+		if (oneSourceAtATime != null) {
+			logger.warn("Solver checkpoints cannot be used when running with one source at a time");
+			return null;
+		}
+		for (IInfoflowSolver solver : solvers)
+			if (solver != null && !(solver instanceof soot.jimple.infoflow.solver.fastSolver.InfoflowSolver)) {
+				logger.warn("The selected data flow solver does not support checkpoints");
+				return null;
+			}
+
+		SolverCheckpointManager checkpointManager = new SolverCheckpointManager(
+				config.getCheckpointDirectory() == null ? null : new File(config.getCheckpointDirectory()), config,
+				iCfg);
+		for (IInfoflowSolver solver : solvers)
+			if (solver != null)
+				checkpointManager.addSolver((soot.jimple.infoflow.solver.fastSolver.InfoflowSolver) solver);
+		return checkpointManager;
+	}
+
+	/**
+	 * Registers an off-heap tier with the given solver if the configuration
+	 * asks for one. Subclasses may override this method to get hold of the
+	 * solvers that can move their state off the heap.
+	 * 
+	 * @param solver
+	 *            The solver for which to configure the off-heap tier
+	 */
+	protected void configureOffHeapTier(IInfoflowSolver solver) {
+		if (config.getOffHeapStorageMode() == OffHeapStorageMode.None)
+			return;
+		if (!(solver instanceof soot.jimple.infoflow.solver.fastSolver.InfoflowSolver)) {
+			logger.warn("The selected data flow solver does not support off-heap storage");
+			return;
+		}
+		((soot.jimple.infoflow.solver.fastSolver.InfoflowSolver) solver)
+				.setOffHeapTier(new OffHeapSolverTier<Unit, Abstraction>(
+						config.getOffHeapStorageMode() == OffHeapStorageMode.MemoryMappedFiles));
+	}
+
+	/**
+	 * Adds the flow function cache of the given solver to the given list of
+	 * components that are registered with the memory watcher, so that the
+	 * cache is flushed when memory is getting scarce
+	 *
+	 * @param solver
+	 *            The solver whose flow function cache to register
+	 * @param pressureHandlers
+	 *            The list to which to add the cache
+	 */
+	private void addFlowFunctionCacheHandler(IInfoflowSolver solver,
+			List<IMemoryPressureHandler> pressureHandlers) {
+		IndexedFlowFunctionCache<?, ?> cache = null;
+		if (solver instanceof IFDSSolver)
+			cache = ((IFDSSolver<?, ?, ?>) solver).getFlowFunctionCache();
+		else if (solver instanceof FlowInsensitiveSolver)
+			cache = ((FlowInsensitiveSolver<?, ?, ?>) solver).getFlowFunctionCache();
+		if (cache != null)
+			pressureHandlers.add(cache);
+	}
+
 	/**
 	 * Creates the IFDS solver for the forward data flow problem
 	 * 
@@ -825,6 +1488,7 @@ public class Infoflow extends AbstractInfoflow {
 		forwardSolver.setSolverId(true);
 		forwardSolver.setJumpPredecessors(!pathBuilderFactory.supportsPathReconstruction());
 		forwardSolver.setSingleJoinPointAbstraction(config.getSingleJoinPointAbstraction());
+		configureOffHeapTier(forwardSolver);
 
 		return forwardSolver;
 	}
@@ -840,13 +1504,132 @@ public class Infoflow extends AbstractInfoflow {
 	}
 
 	/**
-	 * Runs all code optimizers
+	 * Computes the mod/ref summaries of all reachable methods if they shall
+	 * be precomputed
+	 * 
+	 * @return The mod/ref summaries, or null if the side effects shall be
+	 *         computed on demand
+	 */
+	private ModRefSummaries computeModRefSummaries() {
+		if (!config.getPrecomputeModRefSummaries() || config.getCallgraphAlgorithm() == CallgraphAlgorithm.OnDemand
+				|| !Scene.v().hasCallGraph())
+			return null;
+
+		ModRefSummaries summaries = new ModRefSummaries(Scene.v().getCallGraph());
+		InterruptableExecutor executor = createExecutor(Runtime.getRuntime().availableProcessors(), false,
+				config.getMaxThreadNum());
+		try {
+			summaries.compute(getReachableMethods(), executor);
+			return summaries;
+		} catch (InterruptedException ex) {
+			logger.error("Could not compute the mod/ref summaries", ex);
+			Thread.currentThread().interrupt();
+			return null;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Gets all methods that are reachable in the callgraph
+	 * 
+	 * @return The reachable methods
+	 */
+	private List<SootMethod> getReachableMethods() {
+		List<SootMethod> methods = new ArrayList<>();
+		for (QueueReader<MethodOrMethodContext> rdr = Scene.v().getReachableMethods().listener(); rdr.hasNext();) {
+			SootMethod sm = rdr.next().method();
+			if (sm != null)
+				methods.add(sm);
+		}
+		return methods;
+	}
+
+	/**
+	 * Builds the per-method caches for all reachable methods once per run, so
+	 * that the solver threads do not contend on the cache locks while filling
+	 * them. The method bodies are created on the current thread first, since
+	 * Soot's body creation is not thread-safe. The remaining caches are built
+	 * in parallel. The must-alias analyses are put into a cache that all
+	 * source partitions share. Caches that are flushed later on, e.g., when
+	 * memory gets scarce, are rebuilt on demand.
+	 * 
+	 * @param icfg
+	 *            The control flow graph whose caches to build
+	 * @return True if the caches have been built, false if the warm-up is
+	 *         disabled
+	 */
+	private boolean warmUpMethodCaches(final InfoflowCFG icfg) {
+		if (!config.getWarmUpMethodCaches() || config.getCallgraphAlgorithm() == CallgraphAlgorithm.OnDemand)
+			return false;
+
+		long beforeWarmUp = System.nanoTime();
+		final boolean includePostdominators = config.getEnableImplicitFlows();
+		List<SootMethod> methods = getReachableMethods();
+		for (SootMethod sm : methods)
+			if (!sm.hasActiveBody() && sm.isConcrete() && !sm.isPhantom()) {
+				try {
+					sm.retrieveActiveBody();
+				} catch (RuntimeException ex) {
+					// The solver will run into the same problem later and
+					// report it there
+					logger.debug("Could not create the body of " + sm, ex);
+				}
+			}
+
+		final LoadingCache<SootMethod, LocalMustAliasAnalysis> mustAliasCache = Aliasing
+				.createMustAliasCache(icfg);
+		InterruptableExecutor executor = createExecutor(Runtime.getRuntime().availableProcessors(), false,
+				config.getMaxThreadNum());
+		try {
+			for (final SootMethod sm : methods)
+				executor.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							icfg.warmUp(sm, includePostdominators);
+							if (sm.hasActiveBody() && sm != dummyMainMethod)
+								mustAliasCache.getUnchecked(sm);
+						} catch (RuntimeException ex) {
+							// The solver will run into the same problem later and
+							// report it there
+							logger.debug("Could not build the caches for " + sm, ex);
+						}
+					}
+
+				});
+			executor.awaitCompletion();
+		} catch (InterruptedException ex) {
+			logger.error("Could not wait for the cache warm-up to finish", ex);
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
+		this.sharedMustAliasCache = mustAliasCache;
+		logger.info("Building the method caches for {} methods took {} seconds", methods.size(),
+				(System.nanoTime() - beforeWarmUp) / 1E9);
+		return true;
+	}
+
+	/**
+	 * Runs all code optimizers. If some of the sources are hidden, the
+	 * optimizers still consider all of them, so that the code is the same for
+	 * every subset of the sources.
 	 * 
 	 * @param sourcesSinks
 	 *            The SourceSinkManager
+	 * @param modRefSummaries
+	 *            The precomputed mod/ref summaries, or null if the side
+	 *            effects shall be computed on demand
 	 */
-	private void eliminateDeadCode(ISourceSinkManager sourcesSinks) {
-		InfoflowManager dceManager = new InfoflowManager(config, null, new InfoflowCFG(), null, null, null,
+	private void eliminateDeadCode(ISourceSinkManager sourcesSinks, ModRefSummaries modRefSummaries) {
+		while (sourcesSinks instanceof IRestrictedSourceSinkManager)
+			sourcesSinks = ((IRestrictedSourceSinkManager) sourcesSinks).getUnrestrictedManager();
+
+		InfoflowCFG dceCfg = new InfoflowCFG();
+		dceCfg.setModRefSummaries(modRefSummaries);
+		InfoflowManager dceManager = new InfoflowManager(config, null, dceCfg, null, null, null,
 				new AccessPathFactory(config));
 
 		ICodeOptimizer dce = new DeadCodeEliminator();
@@ -862,17 +1645,19 @@ public class Infoflow extends AbstractInfoflow {
 	 * @param allowSetSemantics
 	 *            True if the executor shall have thread semantics, i.e., never
 	 *            schedule the same task twice
+	 * @param maxThreadNum
+	 *            The configured upper limit for the number of threads, or -1
+	 *            for no limit
 	 * @return The generated executor
 	 */
-	private InterruptableExecutor createExecutor(int numThreads, boolean allowSetSemantics) {
+	private InterruptableExecutor createExecutor(int numThreads, boolean allowSetSemantics, int maxThreadNum) {
+		int poolSize = maxThreadNum == -1 ? numThreads : Math.min(maxThreadNum, numThreads);
 		if (allowSetSemantics) {
-			return new SetPoolExecutor(
-					config.getMaxThreadNum() == -1 ? numThreads : Math.min(config.getMaxThreadNum(), numThreads),
-					Integer.MAX_VALUE, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+			return new SetPoolExecutor(poolSize, Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>());
 		} else {
-			return new InterruptableExecutor(
-					config.getMaxThreadNum() == -1 ? numThreads : Math.min(config.getMaxThreadNum(), numThreads),
-					Integer.MAX_VALUE, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+			return new InterruptableExecutor(poolSize, Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>());
 		}
 	}
 
@@ -945,14 +1730,16 @@ public class Infoflow extends AbstractInfoflow {
 	 * @param sourcesSinks
 	 *            The SourceSinkManager to be used for identifying sources and
 	 *            sinks
+	 * @param manager
+	 *            The data flow manager
 	 * @param forwardProblem
 	 *            The InfoflowProblem in which to register the sources as seeds
 	 * @param m
 	 *            The method to scan for sources and sinks
 	 * @return The number of sinks found in this method
 	 */
-	private int scanMethodForSourcesSinks(final ISourceSinkManager sourcesSinks, InfoflowProblem forwardProblem,
-			SootMethod m) {
+	private int scanMethodForSourcesSinks(final ISourceSinkManager sourcesSinks, InfoflowManager manager,
+			InfoflowProblem forwardProblem, SootMethod m) {
 		if (getConfig().getLogSourcesAndSinks() && collectedSources == null) {
 			collectedSources = new HashSet<>();
 			collectedSinks = new HashSet<>();
@@ -1052,6 +1839,28 @@ public class Infoflow extends AbstractInfoflow {
 		return this.maxMemoryConsumption;
 	}
 
+	/**
+	 * Gets the live metrics of the data flow analysis. The metrics can be read
+	 * while the analysis is running, e.g., from a different thread. To publish
+	 * them via JMX, use InfoflowConfiguration.setPublishMetrics().
+	 * 
+	 * @return The live metrics of the data flow analysis
+	 */
+	public InfoflowMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Gets the recorder for the timing events of the analysis phases and the
+	 * sampled solver tasks. Register a listener such as the TraceFileWriter
+	 * before starting the analysis to receive the events.
+	 * 
+	 * @return The recorder for the timing events
+	 */
+	public AnalysisEventRecorder getEventRecorder() {
+		return this.eventRecorder;
+	}
+
 	/**
 	 * Gets the concrete set of sources that have been collected in preparation
 	 * for the taint analysis. This method will return null if source and sink
@@ -1,5 +1,9 @@
 package soot.jimple.infoflow;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,9 +14,11 @@ import org.slf4j.LoggerFactory;
  * @author Steven Arzt
  *
  */
-public class InfoflowConfiguration {
+public class InfoflowConfiguration implements Serializable {
+	
+	private static final long serialVersionUID = 3591226495384416826L;
 	
-    protected final Logger logger = LoggerFactory.getLogger(getClass());
+    protected transient Logger logger = LoggerFactory.getLogger(getClass());
     
     /**
 	 * Enumeration containing the callgraph algorithms supported for the use with
@@ -73,6 +79,28 @@ public class InfoflowConfiguration {
 		RemoveSideEffectFreeCode
 	}
 	
+	/**
+	 * Enumeration containing the options for moving solver state out of the
+	 * Java heap when the memory threshold is reached
+	 */
+	public enum OffHeapStorageMode {
+		/**
+		 * Keep all solver state on the heap and terminate the solvers when
+		 * running out of memory
+		 */
+		None,
+		
+		/**
+		 * Move cold solver state into direct buffers
+		 */
+		DirectBuffers,
+		
+		/**
+		 * Move cold solver state into memory-mapped temporary files
+		 */
+		MemoryMappedFiles
+	}
+	
 	/**
 	 * Enumeration containing the supported data flow solvers
 	 */
@@ -139,6 +167,20 @@ public class InfoflowConfiguration {
 	private long dataFlowTimeout = 0;
 	private long pathReconstructionTimeout = 0;
 	private boolean oneSourceAtATime = false;
+	private boolean evictCompletedMethods = false;
+	private OffHeapStorageMode offHeapStorageMode = OffHeapStorageMode.None;
+	private boolean predictiveMemoryWarnings = false;
+	private boolean publishMetrics = false;
+	private boolean collectRuleStatistics = false;
+	private int pathBuilderThreadNum = -1;
+	private long analysisTimeBudget = 0;
+	private long analysisMemoryBudget = 0;
+	private String checkpointDirectory = null;
+	private long checkpointInterval = 600;
+	private int concurrentSourcePartitions = 1;
+	private int maxSourcesPerPartition = 1;
+	private boolean precomputeModRefSummaries = true;
+	private boolean warmUpMethodCaches = false;
 	
 	/**
 	 * Merges the given configuration options into this configuration object
@@ -187,6 +229,20 @@ public class InfoflowConfiguration {
 		this.dataFlowTimeout = config.dataFlowTimeout;
 		this.pathReconstructionTimeout = config.pathReconstructionTimeout;
 		this.oneSourceAtATime = config.oneSourceAtATime;
+		this.evictCompletedMethods = config.evictCompletedMethods;
+		this.offHeapStorageMode = config.offHeapStorageMode;
+		this.predictiveMemoryWarnings = config.predictiveMemoryWarnings;
+		this.publishMetrics = config.publishMetrics;
+		this.collectRuleStatistics = config.collectRuleStatistics;
+		this.pathBuilderThreadNum = config.pathBuilderThreadNum;
+		this.analysisTimeBudget = config.analysisTimeBudget;
+		this.analysisMemoryBudget = config.analysisMemoryBudget;
+		this.checkpointDirectory = config.checkpointDirectory;
+		this.checkpointInterval = config.checkpointInterval;
+		this.concurrentSourcePartitions = config.concurrentSourcePartitions;
+		this.maxSourcesPerPartition = config.maxSourcesPerPartition;
+		this.precomputeModRefSummaries = config.precomputeModRefSummaries;
+		this.warmUpMethodCaches = config.warmUpMethodCaches;
 	}
 	
 	/**
@@ -902,6 +958,326 @@ public class InfoflowConfiguration {
 		this.oneSourceAtATime = oneSourceAtATime;
 	}
 
+	/**
+	 * Gets whether the data flow solvers shall remove the jump functions and
+	 * incoming edges of methods that can no longer receive new edges during
+	 * the analysis
+	 * @return True if the state of completed methods shall be evicted from the
+	 * solvers, otherwise false
+	 */
+	public boolean getEvictCompletedMethods() {
+		return this.evictCompletedMethods;
+	}
+	
+	/**
+	 * Sets whether the data flow solvers shall remove the jump functions and
+	 * incoming edges of methods that can no longer receive new edges during
+	 * the analysis. This reduces the memory consumption, but methods that are
+	 * entered again later on must be re-analyzed.
+	 * @param evictCompletedMethods True if the state of completed methods
+	 * shall be evicted from the solvers, otherwise false
+	 */
+	public void setEvictCompletedMethods(boolean evictCompletedMethods) {
+		this.evictCompletedMethods = evictCompletedMethods;
+	}
+
+	/**
+	 * Gets where the data flow solvers shall move their cold state when the
+	 * memory threshold is reached
+	 * @return The off-heap storage mode for solver state
+	 */
+	public OffHeapStorageMode getOffHeapStorageMode() {
+		return this.offHeapStorageMode;
+	}
+	
+	/**
+	 * Sets where the data flow solvers shall move their cold state when the
+	 * memory threshold is reached. If off-heap storage is enabled, the
+	 * analysis continues past the memory threshold at the cost of slower
+	 * lookups instead of being terminated.
+	 * @param offHeapStorageMode The off-heap storage mode for solver state
+	 */
+	public void setOffHeapStorageMode(OffHeapStorageMode offHeapStorageMode) {
+		this.offHeapStorageMode = offHeapStorageMode;
+	}
+
+	/**
+	 * Gets whether the memory watcher shall forecast when the heap will be
+	 * exhausted and react before the memory threshold is reached
+	 * @return True if predictive memory warnings are enabled, otherwise false
+	 */
+	public boolean getPredictiveMemoryWarnings() {
+		return this.predictiveMemoryWarnings;
+	}
+	
+	/**
+	 * Sets whether the memory watcher shall forecast when the heap will be
+	 * exhausted and react before the memory threshold is reached. The
+	 * forecast is based on the allocation rate and on the growth of the live
+	 * set observed after garbage collections.
+	 * @param predictiveMemoryWarnings True to enable predictive memory
+	 * warnings, otherwise false
+	 */
+	public void setPredictiveMemoryWarnings(boolean predictiveMemoryWarnings) {
+		this.predictiveMemoryWarnings = predictiveMemoryWarnings;
+	}
+
+	/**
+	 * Gets whether live solver metrics shall be published on the platform
+	 * MBean server while the analysis is running
+	 * @return True if live solver metrics shall be published, otherwise false
+	 */
+	public boolean getPublishMetrics() {
+		return this.publishMetrics;
+	}
+	
+	/**
+	 * Sets whether live solver metrics shall be published on the platform
+	 * MBean server while the analysis is running. The metrics include the
+	 * edge rates of the solvers, the state of the executors, the sizes of the
+	 * solver tables, and the progress of the path builder.
+	 * @param publishMetrics True if live solver metrics shall be published,
+	 * otherwise false
+	 */
+	public void setPublishMetrics(boolean publishMetrics) {
+		this.publishMetrics = publishMetrics;
+	}
+
+	/**
+	 * Gets whether statistics on the invocations, running time, and produced
+	 * or killed taints of the individual propagation rules shall be collected
+	 * @return True if propagation rule statistics shall be collected,
+	 * otherwise false
+	 */
+	public boolean getCollectRuleStatistics() {
+		return this.collectRuleStatistics;
+	}
+	
+	/**
+	 * Sets whether statistics on the invocations, running time, and produced
+	 * or killed taints of the individual propagation rules shall be collected.
+	 * A summary is logged at the end of the data flow analysis. Note that
+	 * measuring every rule invocation slows down the analysis.
+	 * @param collectRuleStatistics True if propagation rule statistics shall
+	 * be collected, otherwise false
+	 */
+	public void setCollectRuleStatistics(boolean collectRuleStatistics) {
+		this.collectRuleStatistics = collectRuleStatistics;
+	}
+
+	/**
+	 * Gets the maximum number of threads to be used by the path builder. A
+	 * value of -1 indicates that the path builder shall use the same number of
+	 * threads as the solver.
+	 * @return The maximum number of threads to be used by the path builder,
+	 * or -1 to use the solver's limit
+	 */
+	public int getPathBuilderThreadNum() {
+		return this.pathBuilderThreadNum;
+	}
+	
+	/**
+	 * Sets the maximum number of threads to be used by the path builder. The
+	 * path builder runs after the solvers have finished and has an executor of
+	 * its own, so its thread count can be tuned independently. A value of -1
+	 * indicates that the path builder shall use the same number of threads as
+	 * the solver (see setMaxThreadNum()).
+	 * @param pathBuilderThreadNum The maximum number of threads to be used by
+	 * the path builder, or -1 to use the solver's limit
+	 */
+	public void setPathBuilderThreadNum(int pathBuilderThreadNum) {
+		this.pathBuilderThreadNum = pathBuilderThreadNum;
+	}
+	
+	/**
+	 * Gets the total time budget in seconds for the complete analysis, from
+	 * callgraph construction to path reconstruction
+	 * @return The total time budget in seconds, or 0 if the analysis shall
+	 * not be budgeted
+	 */
+	public long getAnalysisTimeBudget() {
+		return this.analysisTimeBudget;
+	}
+	
+	/**
+	 * Sets the total time budget in seconds for the complete analysis, from
+	 * callgraph construction to path reconstruction. The budget is split
+	 * across the analysis phases and re-planned whenever a phase finishes.
+	 * Phases that can be interrupted are stopped once they have used up
+	 * their share, optional phases are skipped once the budget is exhausted.
+	 * The phases that have been cut short are recorded in the results. If a
+	 * data flow or path reconstruction timeout is set as well, the stricter
+	 * limit applies.
+	 * @param analysisTimeBudget The total time budget in seconds, or 0 if the
+	 * analysis shall not be budgeted
+	 */
+	public void setAnalysisTimeBudget(long analysisTimeBudget) {
+		this.analysisTimeBudget = analysisTimeBudget;
+	}
+	
+	/**
+	 * Gets the maximum amount of heap memory in megabytes that the analysis
+	 * may use before the memory watcher starts reducing the memory
+	 * consumption
+	 * @return The memory budget in megabytes, or 0 to use the default
+	 * threshold of the memory watcher
+	 */
+	public long getAnalysisMemoryBudget() {
+		return this.analysisMemoryBudget;
+	}
+	
+	/**
+	 * Sets the maximum amount of heap memory in megabytes that the analysis
+	 * may use before the memory watcher starts reducing the memory
+	 * consumption. The budget can only lower the default threshold of the
+	 * memory watcher, not raise it.
+	 * @param analysisMemoryBudget The memory budget in megabytes, or 0 to use
+	 * the default threshold of the memory watcher
+	 */
+	public void setAnalysisMemoryBudget(long analysisMemoryBudget) {
+		this.analysisMemoryBudget = analysisMemoryBudget;
+	}
+	
+	/**
+	 * Gets the directory in which the state of the data flow solvers is
+	 * periodically saved, so that an interrupted analysis can be resumed
+	 * @return The checkpoint directory, or null if no checkpoints shall be
+	 * written
+	 */
+	public String getCheckpointDirectory() {
+		return this.checkpointDirectory;
+	}
+	
+	/**
+	 * Sets the directory in which the state of the data flow solvers is
+	 * periodically saved, so that an interrupted analysis can be resumed.
+	 * Checkpoints are only supported for the flow- and context-sensitive
+	 * solver and cannot be combined with off-heap storage.
+	 * @param checkpointDirectory The checkpoint directory, or null if no
+	 * checkpoints shall be written
+	 */
+	public void setCheckpointDirectory(String checkpointDirectory) {
+		this.checkpointDirectory = checkpointDirectory;
+	}
+	
+	/**
+	 * Gets the interval in which the state of the data flow solvers is saved
+	 * @return The checkpoint interval in seconds
+	 */
+	public long getCheckpointInterval() {
+		return this.checkpointInterval;
+	}
+	
+	/**
+	 * Sets the interval in which the state of the data flow solvers is saved.
+	 * The solvers are paused while a checkpoint is being written.
+	 * @param checkpointInterval The checkpoint interval in seconds
+	 */
+	public void setCheckpointInterval(long checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+	
+	/**
+	 * Gets how many source partitions are analyzed concurrently when running
+	 * with one source at a time
+	 * @return The number of source partitions that are analyzed concurrently
+	 */
+	public int getConcurrentSourcePartitions() {
+		return this.concurrentSourcePartitions;
+	}
+	
+	/**
+	 * Sets how many source partitions are analyzed concurrently when running
+	 * with one source at a time. By default, every partition contains a
+	 * single source, see {@link #setMaxSourcesPerPartition(int)}. Every
+	 * partition gets its own solvers, but all of them share the
+	 * interprocedural control flow graph. The maximum number of threads is
+	 * split between the partitions that are analyzed at the same time. This
+	 * option has no effect unless one source at a time is enabled.
+	 * @param concurrentSourcePartitions The number of source partitions to
+	 * analyze concurrently
+	 */
+	public void setConcurrentSourcePartitions(int concurrentSourcePartitions) {
+		this.concurrentSourcePartitions = concurrentSourcePartitions;
+	}
+	
+	/**
+	 * Gets the maximum number of sources that are analyzed together when
+	 * running with one source at a time
+	 * @return The maximum number of sources per partition
+	 */
+	public int getMaxSourcesPerPartition() {
+		return this.maxSourcesPerPartition;
+	}
+	
+	/**
+	 * Sets the maximum number of sources that are analyzed together when
+	 * running with one source at a time. If this value is larger than one,
+	 * sources that reach the same methods in the callgraph are grouped, so
+	 * that they share the summaries of these methods. This option has no
+	 * effect unless one source at a time is enabled.
+	 * @param maxSourcesPerPartition The maximum number of sources per
+	 * partition
+	 */
+	public void setMaxSourcesPerPartition(int maxSourcesPerPartition) {
+		this.maxSourcesPerPartition = maxSourcesPerPartition;
+	}
+	
+	/**
+	 * Gets whether the mod/ref summaries of all methods shall be computed
+	 * once after the callgraph has been constructed
+	 * @return True if the mod/ref summaries shall be precomputed, false if
+	 * the side effects of the methods shall be computed on demand
+	 */
+	public boolean getPrecomputeModRefSummaries() {
+		return this.precomputeModRefSummaries;
+	}
+	
+	/**
+	 * Sets whether the mod/ref summaries of all methods shall be computed
+	 * once after the callgraph has been constructed. The summaries are
+	 * computed in parallel and shared by the code optimizers and the data
+	 * flow solvers. If this option is disabled, every consumer scans the
+	 * transitive callees of a method on demand.
+	 * @param precomputeModRefSummaries True if the mod/ref summaries shall be
+	 * precomputed, false if the side effects of the methods shall be computed
+	 * on demand
+	 */
+	public void setPrecomputeModRefSummaries(boolean precomputeModRefSummaries) {
+		this.precomputeModRefSummaries = precomputeModRefSummaries;
+	}
+	
+	/**
+	 * Gets whether the per-method caches shall be built for all reachable
+	 * methods before the data flow solvers start
+	 * @return True if the per-method caches shall be built ahead of time,
+	 * false if they shall be built on demand
+	 */
+	public boolean getWarmUpMethodCaches() {
+		return this.warmUpMethodCaches;
+	}
+	
+	/**
+	 * Sets whether the per-method caches shall be built for all reachable
+	 * methods before the data flow solvers start. This covers the method
+	 * bodies, the unit graphs, the locals read and written by each method,
+	 * the must-alias analyses and, with implicit flows, the postdominator
+	 * trees. The caches are built once per run and are shared by all source
+	 * partitions. The method bodies are created sequentially, the other
+	 * caches are built in parallel, so that the solver threads do not have to
+	 * wait for each other while the caches are being filled.
+	 * @param warmUpMethodCaches True if the per-method caches shall be built
+	 * ahead of time, false if they shall be built on demand
+	 */
+	public void setWarmUpMethodCaches(boolean warmUpMethodCaches) {
+		this.warmUpMethodCaches = warmUpMethodCaches;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.logger = LoggerFactory.getLogger(getClass());
+	}
+
 	/**
 	 * Prints a summary of this data flow configuration
 	 */
@@ -928,8 +1304,36 @@ public class InfoflowConfiguration {
 		else
 			logger.info("Recursive access path shortening is NOT enabled");
 		logger.info("Taint analysis enabled: " + taintAnalysisEnabled);
-		if (oneSourceAtATime)
+		if (oneSourceAtATime) {
 			logger.info("Running with one source at a time");
+			if (maxSourcesPerPartition > 1)
+				logger.info("Grouping up to {} sources that reach the same code", maxSourcesPerPartition);
+			if (concurrentSourcePartitions > 1)
+				logger.info("Analyzing {} source partitions concurrently", concurrentSourcePartitions);
+		}
+		if (!precomputeModRefSummaries)
+			logger.info("Mod/ref summaries will be computed on demand");
+		if (warmUpMethodCaches)
+			logger.info("Per-method caches will be built before the solvers start");
+		if (evictCompletedMethods)
+			logger.info("Solver state of completed methods will be evicted");
+		if (offHeapStorageMode != OffHeapStorageMode.None)
+			logger.info("Cold solver state will be moved off the heap using " + offHeapStorageMode);
+		if (predictiveMemoryWarnings)
+			logger.info("Predictive memory warnings are enabled");
+		if (publishMetrics)
+			logger.info("Live solver metrics will be published via JMX");
+		if (collectRuleStatistics)
+			logger.info("Propagation rule statistics will be collected");
+		if (pathBuilderThreadNum != -1)
+			logger.info("Path builder limited to {} threads", pathBuilderThreadNum);
+		if (analysisTimeBudget > 0)
+			logger.info("Analysis time budget is {} seconds", analysisTimeBudget);
+		if (analysisMemoryBudget > 0)
+			logger.info("Analysis memory budget is {} MB", analysisMemoryBudget);
+		if (checkpointDirectory != null)
+			logger.info("Solver checkpoints will be written to {} every {} seconds", checkpointDirectory,
+					checkpointInterval);
 		logger.info("Using alias algorithm " + aliasingAlgorithm);
 	}
 	
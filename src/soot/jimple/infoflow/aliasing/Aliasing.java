@@ -15,6 +15,7 @@ import soot.RefLikeType;
 import soot.SootField;
 import soot.SootMethod;
 import soot.Type;
+import soot.Unit;
 import soot.Value;
 import soot.jimple.ArrayRef;
 import soot.jimple.Constant;
@@ -28,6 +29,7 @@ import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.data.AccessPathFactory.BasePair;
 import soot.jimple.infoflow.util.TypeUtils;
+import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 import soot.jimple.toolkits.pointer.LocalMustAliasAnalysis;
 import soot.jimple.toolkits.pointer.StrongLocalMustAliasAnalysis;
 import soot.toolkits.graph.UnitGraph;
@@ -45,19 +47,49 @@ public class Aliasing {
 	
 	private final Set<SootMethod> excludedFromMustAliasAnalysis = new HashSet<>();
 	
-	protected final LoadingCache<SootMethod,LocalMustAliasAnalysis> strongAliasAnalysis =
-			IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,LocalMustAliasAnalysis>() {
-				@Override
-				public LocalMustAliasAnalysis load(SootMethod method) throws Exception {
-					return new StrongLocalMustAliasAnalysis
-							((UnitGraph) manager.getICFG().getOrCreateUnitGraph(method));
-				}
-			});
+	protected final LoadingCache<SootMethod,LocalMustAliasAnalysis> strongAliasAnalysis;
 	
 	public Aliasing(IAliasingStrategy aliasingStrategy, InfoflowManager manager) {
+		this(aliasingStrategy, manager, null);
+	}
+	
+	/**
+	 * Creates a new instance of the {@link Aliasing} class
+	 * @param aliasingStrategy The strategy for finding aliases
+	 * @param manager The data flow manager
+	 * @param mustAliasCache The cache of must-alias analyses to use, or null
+	 * to create a new one for this object. A cache created with
+	 * {@link #createMustAliasCache(BiDiInterproceduralCFG)} can be shared
+	 * between several instances that work on the same control flow graph.
+	 */
+	public Aliasing(IAliasingStrategy aliasingStrategy, final InfoflowManager manager,
+			LoadingCache<SootMethod,LocalMustAliasAnalysis> mustAliasCache) {
 		this.aliasingStrategy = aliasingStrategy;
 		this.implicitFlowAliasingStrategy = new ImplicitFlowAliasStrategy(manager);
 		this.manager = manager;
+		this.strongAliasAnalysis = mustAliasCache != null ? mustAliasCache
+				: IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,LocalMustAliasAnalysis>() {
+					@Override
+					public LocalMustAliasAnalysis load(SootMethod method) throws Exception {
+						return new StrongLocalMustAliasAnalysis
+								((UnitGraph) manager.getICFG().getOrCreateUnitGraph(method));
+					}
+				});
+	}
+	
+	/**
+	 * Creates a cache of must-alias analyses on the given control flow graph
+	 * @param icfg The control flow graph from which to take the method graphs
+	 * @return The new cache
+	 */
+	public static LoadingCache<SootMethod,LocalMustAliasAnalysis> createMustAliasCache(
+			final BiDiInterproceduralCFG<Unit, SootMethod> icfg) {
+		return IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,LocalMustAliasAnalysis>() {
+			@Override
+			public LocalMustAliasAnalysis load(SootMethod method) throws Exception {
+				return new StrongLocalMustAliasAnalysis((UnitGraph) icfg.getOrCreateUnitGraph(method));
+			}
+		});
 	}
 	
 	/**
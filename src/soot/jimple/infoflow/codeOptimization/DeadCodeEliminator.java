@@ -23,7 +23,9 @@ import soot.util.queue.QueueReader;
 
 /**
  * Code optimizer that performs an interprocedural dead-code elimination on all
- * application classes
+ * application classes. The intraprocedural passes use the global Soot
+ * transformers and therefore always run on the calling thread. Only the
+ * inter-procedural constant propagation runs on multiple threads.
  * 
  * @author Steven Arzt
  *
@@ -76,6 +78,10 @@ public class DeadCodeEliminator implements ICodeOptimizer {
 		ipcvp.setRemoveSideEffectFreeMethods(config.getCodeEliminationMode()
 				== CodeEliminationMode.RemoveSideEffectFreeCode && !config.getEnableImplicitFlows());
 		ipcvp.setExcludeSystemClasses(config.getIgnoreFlowsInSystemPackages());
+		if (config.getMaxThreadNum() > 0)
+			ipcvp.setNumThreads(Math.min(config.getMaxThreadNum(),
+					Runtime.getRuntime().availableProcessors()));
+		ipcvp.setModRefSummaries(manager.getICFG().getModRefSummaries());
 		ipcvp.transform();
 		
 		// Get rid of all dead code
@@ -6,10 +6,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,8 +61,11 @@ import soot.jimple.ThrowStmt;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.entryPointCreators.BaseEntryPointCreator;
 import soot.jimple.infoflow.entryPointCreators.IEntryPointCreator;
+import soot.jimple.infoflow.solver.cfg.ModRefSummaries;
 import soot.jimple.infoflow.source.ISourceSinkManager;
 import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
+import soot.jimple.infoflow.util.BottomUpSCCScheduler;
+import soot.jimple.infoflow.util.BottomUpSCCScheduler.IComponentProcessor;
 import soot.jimple.infoflow.util.SystemClassHandler;
 import soot.jimple.internal.JAssignStmt;
 import soot.jimple.toolkits.callgraph.Edge;
@@ -84,11 +92,26 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 	protected final Map<SootMethod, Boolean> methodSinks = new ConcurrentHashMap<>();
 	protected final Map<SootMethod, Boolean> methodFieldReads = new ConcurrentHashMap<>();
 	
-	protected SootClass exceptionClass = null;
+	/**
+	 * The Soot transformers are singletons and the Scene is global, so all
+	 * threads of all propagators must hold this lock while calling a
+	 * transformer or adding classes to the Scene. A thread that holds this
+	 * lock must not wait for the lock of a body.
+	 */
+	private static final Object sootLock = new Object();
+	
+	protected volatile SootClass exceptionClass = null;
 	protected final Map<SootClass, SootMethod> exceptionThrowers = new HashMap<>();
 	
-	private final List<SootMethod> propagationWorklist = new ArrayList<>();
-	private final Set<Pair<SootMethod, Integer>> propagatedParameters = new HashSet<>();
+	private final Set<SootMethod> propagationWorklist = Collections.synchronizedSet(
+			new LinkedHashSet<SootMethod>());
+	private final Set<Pair<SootMethod, Integer>> propagatedParameters = Collections.newSetFromMap(
+			new ConcurrentHashMap<Pair<SootMethod, Integer>, Boolean>());
+	
+	private final ConcurrentHashMap<SootMethod, ReentrantLock> bodyLocks = new ConcurrentHashMap<>();
+	private final Object icfgLock = new Object();
+	private int numThreads = Runtime.getRuntime().availableProcessors();
+	private ModRefSummaries modRefSummaries = null;
 	
 	/**
 	 * Creates a new instance of the {@link InterproceduralConstantValuePropagator}
@@ -144,6 +167,98 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		this.excludeSystemClasses = excludeSystemClasses;
 	}
 	
+	/**
+	 * Sets the number of threads that process independent methods in parallel.
+	 * With a single thread, the methods are processed one after another in the
+	 * order of the worklist.
+	 * @param numThreads The number of threads to use
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = Math.max(1, numThreads);
+	}
+	
+	/**
+	 * Sets the precomputed mod/ref summaries. If summaries are available, the
+	 * side effects of the methods are taken from them instead of scanning
+	 * the callees again.
+	 * @param modRefSummaries The mod/ref summaries, or null to scan the
+	 * callees on demand
+	 */
+	public void setModRefSummaries(ModRefSummaries modRefSummaries) {
+		this.modRefSummaries = modRefSummaries;
+	}
+	
+	/**
+	 * Gets the lock that guards the body of the given method. Every thread
+	 * must hold this lock while reading or modifying the body of a method that
+	 * another thread may modify at the same time. While holding the lock of a
+	 * body, a thread may only wait for the lock of a direct caller or of a
+	 * transitive callee of that method. The methods are processed in the
+	 * bottom-up order of the callgraph, so the thread that owns such a lock
+	 * never waits for the lock of our method.
+	 * @param sm The method whose body to lock
+	 * @return The lock for the body of the given method
+	 */
+	private ReentrantLock getBodyLock(SootMethod sm) {
+		ReentrantLock lock = bodyLocks.get(sm);
+		if (lock == null) {
+			lock = new ReentrantLock();
+			ReentrantLock oldLock = bodyLocks.putIfAbsent(sm, lock);
+			if (oldLock != null)
+				lock = oldLock;
+		}
+		return lock;
+	}
+	
+	/**
+	 * Gets the callers of the given method. Neither the callgraph nor the
+	 * interprocedural CFG are thread-safe, so all accesses to them are
+	 * synchronized.
+	 * @param sm The method for which to get the callers
+	 * @return The call sites that call the given method
+	 */
+	private Collection<Unit> getCallersOf(SootMethod sm) {
+		synchronized (icfgLock) {
+			return new ArrayList<>(manager.getICFG().getCallersOf(sm));
+		}
+	}
+	
+	/**
+	 * Gets the callees of the given call site from the interprocedural CFG
+	 * @param callSite The call site for which to get the callees
+	 * @return The methods that can be called at the given call site
+	 */
+	private Collection<SootMethod> getCalleesOfCallAt(Unit callSite) {
+		synchronized (icfgLock) {
+			return new ArrayList<>(manager.getICFG().getCalleesOfCallAt(callSite));
+		}
+	}
+	
+	/**
+	 * Gets the method that contains the given statement
+	 * @param u The statement for which to get the method
+	 * @return The method containing the given statement
+	 */
+	private SootMethod getMethodOf(Unit u) {
+		synchronized (icfgLock) {
+			return manager.getICFG().getMethodOf(u);
+		}
+	}
+	
+	/**
+	 * Gets the outgoing callgraph edges of the given call site
+	 * @param callSite The call site for which to get the edges
+	 * @return The edges that leave the given call site
+	 */
+	private List<Edge> getEdgesOutOf(Unit callSite) {
+		List<Edge> edges = new ArrayList<>();
+		synchronized (icfgLock) {
+			for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(callSite); edgeIt.hasNext(); )
+				edges.add(edgeIt.next());
+		}
+		return edges;
+	}
+	
 	/**
 	 * Checks whether optimizations are possible for the given method and, if
 	 * so, adds it to the global worklist
@@ -160,10 +275,8 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 				&& SystemClassHandler.isClassInSystemPackage(sm.getDeclaringClass().getName()))
 			return;
 		
-		if (sm.getReturnType() != VoidType.v() || sm.getParameterCount() > 0) {
-			if (!propagationWorklist.contains(sm))
-				propagationWorklist.add(sm);
-		}
+		if (sm.getReturnType() != VoidType.v() || sm.getParameterCount() > 0)
+			propagationWorklist.add(sm);
 	}
 	
 	@Override
@@ -184,84 +297,36 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 			checkAndAddMethod(sm);
 		}
 		
-		while (!propagationWorklist.isEmpty()) {
-			SootMethod sm = propagationWorklist.remove(0);
-			
-			// Propagate constants from caller into callee
-			if (sm.getParameterCount() > 0)
-				propagateConstantsIntoCallee(sm);
+		if (numThreads <= 1) {
+			// Process the worklist one method after another
+			while (!propagationWorklist.isEmpty()) {
+				SootMethod sm;
+				synchronized (propagationWorklist) {
+					Iterator<SootMethod> it = propagationWorklist.iterator();
+					sm = it.next();
+					it.remove();
+				}
+				propagateConstants(sm);
+			}
 			
-			// Propagate constant return values from callee to caller
-			if (typeSupportsConstants(sm.getReturnType()))
-				propagateReturnValueIntoCallers(sm);
+			// Check for calls we can remove altogether
+			if (removeSideEffectFreeMethods)
+				removeSideEffectFreeCalls();
 		}
-		
-		// Check for calls we can remove altogether
-		if (removeSideEffectFreeMethods) {
-			int callEdgesRemoved = 0;
-			for (QueueReader<MethodOrMethodContext> rdr = Scene.v().getReachableMethods().listener();
-					rdr.hasNext(); ) {
-				MethodOrMethodContext mom = rdr.next();
-				SootMethod sm = mom.method();
-				if (sm == null || !sm.hasActiveBody())
-					continue;
+		else {
+			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+			try {
+				propagateConstantsInParallel(executor);
 				
-				// Do not touch excluded methods
-				if (excludedMethods != null && excludedMethods.contains(sm))
-					continue;
-								
-				// Check for call sites
-				for (Iterator<Unit> unitIt = sm.getActiveBody().getUnits().snapshotIterator();
-						unitIt.hasNext(); ) {
-					Stmt s = (Stmt) unitIt.next();
-					if (!sm.getActiveBody().getUnits().contains(s))
-						continue;
-					if (!(s instanceof InvokeStmt))
-						continue;
-					
-					// If this is a fixed exception method, we must keep it
-					if (exceptionClass != null
-							&& ((InvokeExpr) s.getInvokeExpr()).getMethod().getDeclaringClass() == exceptionClass)
-						continue;
-										
-					// If none of our pre-conditions are satisfied, there is no
-					// need to look at concrete callees
-					if (getNonConstParamCount(s) > 0)
-						continue;
-					
-					boolean allCalleesRemoved = true;
-					Set<SootClass> exceptions = new HashSet<SootClass>();
-					for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(s);
-							edgeIt.hasNext(); ) {
-						Edge edge = edgeIt.next();
-						SootMethod callee = edge.tgt();
-						
-						// If this method returns nothing, is side-effect free and does not
-						// call a sink, we can remove it altogether. No data can ever flow
-						// out of it.
-						boolean remove = callee.getReturnType() == VoidType.v()
-								&& !hasSideEffectsOrReadsThis(callee);
-						remove |= !hasSideEffectsOrCallsSink(callee);
-						
-						if (remove) {
-							Scene.v().getCallGraph().removeEdge(edge);
-							callEdgesRemoved++;
-							
-							// If this callee threw an exception, we have to make
-							// up for it
-							fixExceptions(sm, s, exceptions);
-						}
-						else if (!sm.getName().equals("<clinit>"))
-							allCalleesRemoved = false;
-					}
-					
-					// If all call edges have been removed from a call site, we can
-					// kill the call site altogether
-					if (allCalleesRemoved && !isSourceSinkOrTaintWrapped(s))
-						removeCallSite(s, sm);
-				}
+				// Check for calls we can remove altogether
+				if (removeSideEffectFreeMethods)
+					removeSideEffectFreeCalls(executor);
+			} catch (InterruptedException ex) {
+				logger.error("Constant propagation was interrupted", ex);
+				Thread.currentThread().interrupt();
+			} finally {
+				executor.shutdown();
 			}
-			System.out.println("Removed " + callEdgesRemoved + " call edges");
 		}
 		
 		// If we introduced a new class, we have to reset the hierarchy
@@ -272,6 +337,192 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		}
 	}
 	
+	/**
+	 * Propagates constant parameters into the given method and its constant
+	 * return value into its callers
+	 * @param sm The method to process
+	 */
+	private void propagateConstants(SootMethod sm) {
+		// Propagate constants from caller into callee
+		if (sm.getParameterCount() > 0)
+			propagateConstantsIntoCallee(sm);
+		
+		// Propagate constant return values from callee to caller
+		if (typeSupportsConstants(sm.getReturnType()))
+			propagateReturnValueIntoCallers(sm);
+	}
+	
+	/**
+	 * Processes the worklist in rounds. Every round propagates the constants
+	 * in the bottom-up order of the callgraph components. Return values can
+	 * then directly flow further up into the callers. Methods that receive
+	 * new constants from their callers are processed again in the next round.
+	 * @param executor The executor that processes independent components in
+	 * parallel
+	 * @throws InterruptedException Thrown if the current thread was
+	 * interrupted while waiting for the workers
+	 */
+	private void propagateConstantsInParallel(ExecutorService executor) throws InterruptedException {
+		long beforePropagation = System.nanoTime();
+		long busyTime = 0;
+		int rounds = 0;
+		while (!propagationWorklist.isEmpty()) {
+			List<SootMethod> round;
+			synchronized (propagationWorklist) {
+				round = new ArrayList<>(propagationWorklist);
+				propagationWorklist.clear();
+			}
+			BottomUpSCCScheduler scheduler = new BottomUpSCCScheduler(round, Scene.v().getCallGraph());
+			busyTime += scheduler.runBottomUp(executor, new IComponentProcessor() {
+				
+				@Override
+				public void process(List<SootMethod> component) {
+					for (SootMethod sm : component)
+						propagateConstants(sm);
+				}
+				
+			});
+			rounds++;
+		}
+		long wallTime = System.nanoTime() - beforePropagation;
+		logger.info("Constant propagation took {} ms in {} rounds using {} ms of worker time, speedup {}",
+				wallTime / 1000000, rounds, busyTime / 1000000,
+				BottomUpSCCScheduler.formatSpeedup(wallTime, busyTime));
+	}
+	
+	/**
+	 * Removes all calls to methods that have no side effects and do not call
+	 * sinks. The methods are processed one after another on the calling
+	 * thread.
+	 */
+	private void removeSideEffectFreeCalls() {
+		int callEdgesRemoved = 0;
+		for (SootMethod sm : getMethodsForCallRemoval())
+			callEdgesRemoved += removeSideEffectFreeCallsFrom(sm);
+		System.out.println("Removed " + callEdgesRemoved + " call edges");
+	}
+	
+	/**
+	 * Gets the reachable methods from which side-effect free calls may be
+	 * removed
+	 * @return The methods with a body that are not excluded
+	 */
+	private List<SootMethod> getMethodsForCallRemoval() {
+		List<SootMethod> methods = new ArrayList<>();
+		for (QueueReader<MethodOrMethodContext> rdr = Scene.v().getReachableMethods().listener();
+				rdr.hasNext(); ) {
+			MethodOrMethodContext mom = rdr.next();
+			SootMethod sm = mom.method();
+			if (sm == null || !sm.hasActiveBody())
+				continue;
+			
+			// Do not touch excluded methods
+			if (excludedMethods != null && excludedMethods.contains(sm))
+				continue;
+			methods.add(sm);
+		}
+		return methods;
+	}
+	
+	/**
+	 * Removes all calls to methods that have no side effects and do not call
+	 * sinks. The methods are processed in the bottom-up order of the callgraph
+	 * components, so the bodies of all callees have reached their final state
+	 * when their side effects are checked.
+	 * @param executor The executor that processes independent components in
+	 * parallel
+	 * @throws InterruptedException Thrown if the current thread was
+	 * interrupted while waiting for the workers
+	 */
+	private void removeSideEffectFreeCalls(ExecutorService executor) throws InterruptedException {
+		List<SootMethod> methods = getMethodsForCallRemoval();
+		final AtomicInteger callEdgesRemoved = new AtomicInteger();
+		long beforeRemoval = System.nanoTime();
+		BottomUpSCCScheduler scheduler = new BottomUpSCCScheduler(methods, Scene.v().getCallGraph());
+		long busyTime = scheduler.runBottomUp(executor, new IComponentProcessor() {
+			
+			@Override
+			public void process(List<SootMethod> component) {
+				for (SootMethod sm : component) {
+					ReentrantLock lock = getBodyLock(sm);
+					lock.lock();
+					try {
+						callEdgesRemoved.addAndGet(removeSideEffectFreeCallsFrom(sm));
+					} finally {
+						lock.unlock();
+					}
+				}
+			}
+			
+		});
+		long wallTime = System.nanoTime() - beforeRemoval;
+		logger.info("Removing side-effect free calls took {} ms using {} ms of worker time, speedup {}",
+				wallTime / 1000000, busyTime / 1000000, BottomUpSCCScheduler.formatSpeedup(wallTime, busyTime));
+		System.out.println("Removed " + callEdgesRemoved.get() + " call edges");
+	}
+	
+	/**
+	 * Removes all calls to methods that have no side effects and do not call
+	 * sinks from the given method
+	 * @param sm The method from which to remove the calls
+	 * @return The number of call edges that have been removed
+	 */
+	private int removeSideEffectFreeCallsFrom(SootMethod sm) {
+		int callEdgesRemoved = 0;
+		
+		// Check for call sites
+		for (Iterator<Unit> unitIt = sm.getActiveBody().getUnits().snapshotIterator();
+				unitIt.hasNext(); ) {
+			Stmt s = (Stmt) unitIt.next();
+			if (!sm.getActiveBody().getUnits().contains(s))
+				continue;
+			if (!(s instanceof InvokeStmt))
+				continue;
+			
+			// If this is a fixed exception method, we must keep it
+			if (exceptionClass != null
+					&& ((InvokeExpr) s.getInvokeExpr()).getMethod().getDeclaringClass() == exceptionClass)
+				continue;
+			
+			// If none of our pre-conditions are satisfied, there is no
+			// need to look at concrete callees
+			if (getNonConstParamCount(s) > 0)
+				continue;
+			
+			boolean allCalleesRemoved = true;
+			Set<SootClass> exceptions = new HashSet<SootClass>();
+			for (Edge edge : getEdgesOutOf(s)) {
+				SootMethod callee = edge.tgt();
+				
+				// If this method returns nothing, is side-effect free and does not
+				// call a sink, we can remove it altogether. No data can ever flow
+				// out of it.
+				boolean remove = callee.getReturnType() == VoidType.v()
+						&& !hasSideEffectsOrReadsThis(callee);
+				remove |= !hasSideEffectsOrCallsSink(callee);
+				
+				if (remove) {
+					synchronized (icfgLock) {
+						Scene.v().getCallGraph().removeEdge(edge);
+					}
+					callEdgesRemoved++;
+					
+					// If this callee threw an exception, we have to make
+					// up for it
+					fixExceptions(sm, s, exceptions);
+				}
+				else if (!sm.getName().equals("<clinit>"))
+					allCalleesRemoved = false;
+			}
+			
+			// If all call edges have been removed from a call site, we can
+			// kill the call site altogether
+			if (allCalleesRemoved && !isSourceSinkOrTaintWrapped(s))
+				removeCallSite(s, sm);
+		}
+		return callEdgesRemoved;
+	}
+	
 	/**
 	 * Gets the number of non-constant arguments to the given method call
 	 * @param s A call site
@@ -340,7 +591,9 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		
 		// Fix the callgraph
 		if (Scene.v().hasCallGraph())
-			Scene.v().getCallGraph().removeAllEdgesOutOf(callSite);
+			synchronized (icfgLock) {
+				Scene.v().getCallGraph().removeAllEdgesOutOf(callSite);
+			}
 	}
 
 	/**
@@ -369,87 +622,169 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 	 * @param sm The method whose value to propagate
 	 */
 	private void propagateReturnValueIntoCallers(SootMethod sm) {		
+		Constant value = getConstantReturnValue(sm);
+		if (value == null)
+			return;
+		
+		// Collect the call sites into which we can propagate the value
+		List<AssignStmt> assigns = new ArrayList<>();
+		for (Unit callSite : getCallersOf(sm))
+			if (callSite instanceof AssignStmt) {
+				AssignStmt assign = (AssignStmt) callSite;
+				
+				// If we have a taint wrapper, we need to keep the stub untouched since we
+				// don't know what artificial taint the wrapper will come up with
+				if (taintWrapper != null && taintWrapper.supportsCallee(assign))
+					continue;
+				
+				// If this is a call to a source method, we do not propagate
+				// constants out of the callee for not destroying data flows
+				if (sourceSinkManager != null
+						&& sourceSinkManager.getSourceInfo(assign, manager) != null)
+					continue;
+				
+				assigns.add(assign);
+			}
+		if (assigns.isEmpty())
+			return;
+		
+		// The side effects must be known before we lock the callee, since the
+		// check needs to look into other bodies
+		boolean hasSideEffects = hasSideEffectsOrCallsSink(sm);
+		
+		// Propagate the return value into the callers. The return value
+		// must not change while we do so.
+		ReentrantLock lock = getBodyLock(sm);
+		lock.lock();
+		try {
+			if (!value.equals(getConstantReturnValue(sm)))
+				return;
+			
+			for (AssignStmt assign : assigns) {
+				SootMethod caller = getMethodOf(assign);
+				ReentrantLock callerLock = getBodyLock(caller);
+				callerLock.lock();
+				try {
+					propagateReturnValueIntoCaller(sm, caller, assign, value, hasSideEffects);
+				} finally {
+					callerLock.unlock();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Gets the constant value that the given method returns
+	 * @param sm The method whose return value to get
+	 * @return The constant that all exit nodes of the given method agree on,
+	 * or null if there is no such constant
+	 */
+	private Constant getConstantReturnValue(SootMethod sm) {
 		// We need to make sure that all exit nodes agree on the same
 		// constant value
 		Constant value = null;
-		for (Unit retSite : manager.getICFG().getEndPointsOf(sm)) {
-			// Skip exceptional exits
-			if (!(retSite instanceof ReturnStmt))
-				continue;
+		ReentrantLock lock = getBodyLock(sm);
+		lock.lock();
+		try {
+			Collection<Unit> endPoints;
+			synchronized (icfgLock) {
+				endPoints = new ArrayList<>(manager.getICFG().getEndPointsOf(sm));
+			}
+			for (Unit retSite : endPoints) {
+				// Skip exceptional exits
+				if (!(retSite instanceof ReturnStmt))
+					continue;
+				
+				ReturnStmt retStmt = (ReturnStmt) retSite;
+				if (!(retStmt.getOp() instanceof Constant))
+					return null;
+				
+				if (value != null && retStmt.getOp() != value)
+					return null;
+				value = (Constant) retStmt.getOp();
+			}
+			return value;
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Propagates the constant return value of a method into a single call
+	 * site. The caller must hold the locks on the bodies of the called and
+	 * the calling method.
+	 * @param sm The method whose value to propagate
+	 * @param caller The method that contains the call site
+	 * @param assign The call site that assigns the return value
+	 * @param value The constant return value
+	 * @param hasSideEffects True if the method or one of its transitive
+	 * callees has side effects or calls a sink, otherwise false
+	 */
+	private void propagateReturnValueIntoCaller(SootMethod sm, SootMethod caller, AssignStmt assign,
+			Constant value, boolean hasSideEffects) {
+		// Make sure that we don't access anything we have already removed
+		if (!caller.getActiveBody().getUnits().contains(assign))
+			return;
+		
+		// If the call site has multiple callees, we cannot propagate a
+		// single constant
+		if (getCalleesOfCallAt(assign).size() > 1)
+			return;
+		
+		// If the call has no side effects, we can remove it altogether,
+		// otherwise we can just propagate the return value
+		Unit assignConst = Jimple.v().newAssignStmt(assign.getLeftOp(), value);
+		if (!hasSideEffects) {
+			// If this method threw an exception, we have to make up for it
+			fixExceptions(caller, assign);
 			
-			ReturnStmt retStmt = (ReturnStmt) retSite;
-			if (!(retStmt.getOp() instanceof Constant))
-				return;
+			// We don't have side effects, so we can just change
+			// a = b.foo() into a = 0.
+			caller.getActiveBody().getUnits().swapWith(assign, assignConst);
+			if (excludedMethods == null || !excludedMethods.contains(caller)) {
+				foldConstants(caller.getActiveBody());
+				checkAndAddMethod(caller);
+			}
 			
-			if (value != null && retStmt.getOp() != value)
-				return;
-			value = (Constant) retStmt.getOp();
+			// Fix the callgraph
+			if (Scene.v().hasCallGraph())
+				synchronized (icfgLock) {
+					Scene.v().getCallGraph().removeAllEdgesOutOf(assign);
+				}
 		}
-		
-		// Propagate the return value into the callers
-		if (value != null)
-			for (Unit callSite : manager.getICFG().getCallersOf(sm))
-				if (callSite instanceof AssignStmt) {
-					AssignStmt assign = (AssignStmt) callSite;
-					
-					// If we have a taint wrapper, we need to keep the stub untouched since we
-					// don't know what artificial taint the wrapper will come up with
-					if (taintWrapper != null && taintWrapper.supportsCallee(assign))
-						continue;
-					
-					// If this is a call to a source method, we do not propagate
-					// constants out of the callee for not destroying data flows
-					if (sourceSinkManager != null
-							&& sourceSinkManager.getSourceInfo(assign, manager) != null)
-						continue;
-					
-					// Make sure that we don't access anything we have already removed
-					SootMethod caller = manager.getICFG().getMethodOf(assign);
-					if (!caller.getActiveBody().getUnits().contains(assign))
-						continue;
-					
-					// If the call site has multiple callees, we cannot propagate a
-					// single constant
-					if (manager.getICFG().getCalleesOfCallAt(callSite).size() > 1)
-						continue;
-					
-					// If the call has no side effects, we can remove it altogether,
-					// otherwise we can just propagate the return value
-					Unit assignConst = Jimple.v().newAssignStmt(assign.getLeftOp(), value);
-					if (!hasSideEffectsOrCallsSink(sm)) {
-						// If this method threw an exception, we have to make up for it
-						fixExceptions(caller, callSite);
-						
-						// We don't have side effects, so we can just change
-						// a = b.foo() into a = 0.
-						caller.getActiveBody().getUnits().swapWith(assign, assignConst);
-						if (excludedMethods == null || !excludedMethods.contains(caller)) {
-							ConstantPropagatorAndFolder.v().transform(caller.getActiveBody());
-							checkAndAddMethod(caller);
-						}
-						
-						// Fix the callgraph
-						if (Scene.v().hasCallGraph())
-							Scene.v().getCallGraph().removeAllEdgesOutOf(assign);
-					}
-					else {
-						// We have side effects, so we need to keep the method call. Change
-						// a = b.foo() into b.foo(); a = 0;
-						caller.getActiveBody().getUnits().insertAfter(assignConst, assign);
-						if (excludedMethods == null || !excludedMethods.contains(caller)) {
-							ConstantPropagatorAndFolder.v().transform(caller.getActiveBody());
-							checkAndAddMethod(caller);
-						}
-						caller.getActiveBody().getUnits().remove(assignConst);
-						
-						Stmt inv = Jimple.v().newInvokeStmt(assign.getInvokeExpr());
-						caller.getActiveBody().getUnits().swapWith(assign, inv);
-						
-						// Fix the callgraph
-						if (Scene.v().hasCallGraph())
-							Scene.v().getCallGraph().swapEdgesOutOf(assign, inv);
-					}
+		else {
+			// We have side effects, so we need to keep the method call. Change
+			// a = b.foo() into b.foo(); a = 0;
+			caller.getActiveBody().getUnits().insertAfter(assignConst, assign);
+			if (excludedMethods == null || !excludedMethods.contains(caller)) {
+				foldConstants(caller.getActiveBody());
+				checkAndAddMethod(caller);
+			}
+			caller.getActiveBody().getUnits().remove(assignConst);
+			
+			Stmt inv = Jimple.v().newInvokeStmt(assign.getInvokeExpr());
+			caller.getActiveBody().getUnits().swapWith(assign, inv);
+			
+			// Fix the callgraph
+			if (Scene.v().hasCallGraph())
+				synchronized (icfgLock) {
+					Scene.v().getCallGraph().swapEdgesOutOf(assign, inv);
 				}
+		}
+	}
+	
+	/**
+	 * Runs the intraprocedural constant propagation on the given body. The
+	 * Soot transformer is a singleton, so only one thread may run it at a
+	 * time.
+	 * @param body The body in which to propagate constants
+	 */
+	private void foldConstants(Body body) {
+		synchronized (sootLock) {
+			ConstantPropagatorAndFolder.v().transform(body);
+		}
 	}
 	
 	private void fixExceptions(SootMethod caller, Unit callSite) {
@@ -464,66 +799,7 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		for (final Trap t : caller.getActiveBody().getTraps())
 			if (doneSet.add(t.getException())
 					&& throwSet.catchableAs(t.getException().getType())) {
-				SootMethod thrower = exceptionThrowers.get(t.getException());
-				if (thrower == null) {
-					if (exceptionClass == null) {
-						exceptionClass = new SootClass("FLOWDROID_EXCEPTIONS", Modifier.PUBLIC);
-						Scene.v().addClass(exceptionClass);
-					}
-					
-					// Create the new method
-					thrower = Scene.v().makeSootMethod("throw" + exceptionThrowers.size(),
-							Collections.<Type>emptyList(), VoidType.v());
-					thrower.setModifiers(Modifier.PUBLIC | Modifier.STATIC);
-					
-					final Body body = Jimple.v().newBody(thrower);
-					thrower.setActiveBody(body);
-					final SootMethod meth = thrower;
-					
-					IEntryPointCreator epc = new BaseEntryPointCreator() {
-		
-						@Override
-						public Collection<String> getRequiredClasses() {
-							return Collections.emptySet();
-						}
-		
-						@Override
-						protected SootMethod createDummyMainInternal(SootMethod emptySootMethod) {
-					 		LocalGenerator generator = new LocalGenerator(body);
-							
-					 		// Create the counter used for the opaque predicate
-							int conditionCounter = 0;
-							Value intCounter = generator.generateLocal(IntType.v());
-							AssignStmt assignStmt = new JAssignStmt(intCounter, IntConstant.v(conditionCounter));
-							body.getUnits().add(assignStmt);
-							
-							Stmt afterEx = Jimple.v().newNopStmt();
-							IfStmt ifStmt = Jimple.v().newIfStmt(Jimple.v().newEqExpr(intCounter,
-									IntConstant.v(conditionCounter)), afterEx);
-							body.getUnits().add(ifStmt);
-							conditionCounter++;
-							
-							Local lcEx = generator.generateLocal(t.getException().getType());
-							AssignStmt assignNewEx = Jimple.v().newAssignStmt(lcEx,
-									Jimple.v().newNewExpr(t.getException().getType()));
-							body.getUnits().add(assignNewEx);
-	
-							InvokeStmt consNewEx = Jimple.v().newInvokeStmt(Jimple.v().newVirtualInvokeExpr(lcEx,
-									Scene.v().makeConstructorRef(exceptionClass, Collections.<Type>emptyList())));
-							body.getUnits().add(consNewEx);
-							
-							ThrowStmt throwNewEx = Jimple.v().newThrowStmt(lcEx);
-							body.getUnits().add(throwNewEx);
-							
-							body.getUnits().add(afterEx);
-							return meth;
-						}
-										
-					};
-					epc.createDummyMain(thrower);
-					exceptionThrowers.put(t.getException(), thrower);
-					exceptionClass.addMethod(thrower);
-				}
+				SootMethod thrower = getExceptionThrower(t);
 				
 				// Call the exception thrower after the old call site
 				Stmt throwCall = Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr(thrower.makeRef()));
@@ -531,6 +807,81 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 			}
 	}
 
+	/**
+	 * Gets the method that throws an exception which is caught by the given
+	 * trap, creating it if necessary. All callers that remove a call site
+	 * share the same thrower methods. Creating a thrower modifies the Scene,
+	 * so only one thread at a time may do so.
+	 * @param t The trap whose exception to throw
+	 * @return The method that throws the exception caught by the given trap
+	 */
+	private SootMethod getExceptionThrower(final Trap t) {
+		synchronized (sootLock) {
+			SootMethod thrower = exceptionThrowers.get(t.getException());
+			if (thrower == null) {
+				if (exceptionClass == null) {
+					exceptionClass = new SootClass("FLOWDROID_EXCEPTIONS", Modifier.PUBLIC);
+					Scene.v().addClass(exceptionClass);
+				}
+				
+				// Create the new method
+				thrower = Scene.v().makeSootMethod("throw" + exceptionThrowers.size(),
+						Collections.<Type>emptyList(), VoidType.v());
+				thrower.setModifiers(Modifier.PUBLIC | Modifier.STATIC);
+				
+				final Body body = Jimple.v().newBody(thrower);
+				thrower.setActiveBody(body);
+				final SootMethod meth = thrower;
+				
+				IEntryPointCreator epc = new BaseEntryPointCreator() {
+	
+					@Override
+					public Collection<String> getRequiredClasses() {
+						return Collections.emptySet();
+					}
+	
+					@Override
+					protected SootMethod createDummyMainInternal(SootMethod emptySootMethod) {
+				 		LocalGenerator generator = new LocalGenerator(body);
+						
+				 		// Create the counter used for the opaque predicate
+						int conditionCounter = 0;
+						Value intCounter = generator.generateLocal(IntType.v());
+						AssignStmt assignStmt = new JAssignStmt(intCounter, IntConstant.v(conditionCounter));
+						body.getUnits().add(assignStmt);
+						
+						Stmt afterEx = Jimple.v().newNopStmt();
+						IfStmt ifStmt = Jimple.v().newIfStmt(Jimple.v().newEqExpr(intCounter,
+								IntConstant.v(conditionCounter)), afterEx);
+						body.getUnits().add(ifStmt);
+						conditionCounter++;
+						
+						Local lcEx = generator.generateLocal(t.getException().getType());
+						AssignStmt assignNewEx = Jimple.v().newAssignStmt(lcEx,
+								Jimple.v().newNewExpr(t.getException().getType()));
+						body.getUnits().add(assignNewEx);
+
+						InvokeStmt consNewEx = Jimple.v().newInvokeStmt(Jimple.v().newVirtualInvokeExpr(lcEx,
+								Scene.v().makeConstructorRef(exceptionClass, Collections.<Type>emptyList())));
+						body.getUnits().add(consNewEx);
+						
+						ThrowStmt throwNewEx = Jimple.v().newThrowStmt(lcEx);
+						body.getUnits().add(throwNewEx);
+						
+						body.getUnits().add(afterEx);
+						return meth;
+					}
+									
+				};
+				epc.createDummyMain(thrower);
+				exceptionThrowers.put(t.getException(), thrower);
+				exceptionClass.addMethod(thrower);
+			}
+			
+			return thrower;
+		}
+	}
+	
 	/**
 	 * Checks whether the given method or one of its transitive callees has
 	 * side-effects or calls a sink method
@@ -570,52 +921,69 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		// Do not process the same method twice
 		if (!runList.add(method))
 			return false;
-				
-		// If this is an Android stub method that just throws a stub exception,
-		// this will never happen in practice and can be removed
-		if (methodIsAndroidStub(method)) {
-			methodSideEffects.put(method, false);
-			return false;
-		}
 		
-		// Scan for references to this variable
-		for (Unit u : method.getActiveBody().getUnits()) {
-			if (u instanceof AssignStmt) {
-				AssignStmt assign = (AssignStmt) u;
-				if (assign.getLeftOp() instanceof FieldRef
-						|| assign.getLeftOp() instanceof ArrayRef) {
-					methodSideEffects.put(method, true);
-					return true;
-				}
+		// Another thread might be changing this body, so we only hold the
+		// lock while scanning it, but not while looking at the callees
+		List<Unit> callSites = new ArrayList<>();
+		ReentrantLock lock = getBodyLock(method);
+		lock.lock();
+		try {
+			// If this is an Android stub method that just throws a stub exception,
+			// this will never happen in practice and can be removed
+			if (methodIsAndroidStub(method)) {
+				methodSideEffects.put(method, false);
+				return false;
 			}
 			
-			Stmt s = (Stmt) u;
-			
-			// If this method calls another method for which we have a taint
-			// wrapper, we need to conservatively assume that the taint wrapper
-			// can do anything
-			if (taintWrapper != null && taintWrapper.supportsCallee(s)) {
+			// The shared summaries already know about the side effects, but
+			// not about sinks
+			if (modRefSummaries != null && modRefSummaries.hasSummary(method)
+					&& modRefSummaries.writesHeap(method)) {
 				methodSideEffects.put(method, true);
 				return true;
 			}
 			
-			if (s.containsInvokeExpr()) {
-				// If this method calls a sink, we need to keep it
-				if (sourceSinkManager != null
-						&& sourceSinkManager.isSink((Stmt) u, manager, null)) {
-					methodSinks.put(method, true);
+			// Scan for references to this variable
+			for (Unit u : method.getActiveBody().getUnits()) {
+				if (u instanceof AssignStmt) {
+					AssignStmt assign = (AssignStmt) u;
+					if (assign.getLeftOp() instanceof FieldRef
+							|| assign.getLeftOp() instanceof ArrayRef) {
+						methodSideEffects.put(method, true);
+						return true;
+					}
+				}
+				
+				Stmt s = (Stmt) u;
+				
+				// If this method calls another method for which we have a taint
+				// wrapper, we need to conservatively assume that the taint wrapper
+				// can do anything
+				if (taintWrapper != null && taintWrapper.supportsCallee(s)) {
+					methodSideEffects.put(method, true);
 					return true;
 				}
 				
-				// Check the callees
-				for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(u); edgeIt.hasNext(); ) {
-					Edge e = edgeIt.next();
-						if (hasSideEffectsOrCallsSink(e.getTgt().method(), runList))
-							return true;
+				if (s.containsInvokeExpr()) {
+					// If this method calls a sink, we need to keep it
+					if (sourceSinkManager != null
+							&& sourceSinkManager.isSink((Stmt) u, manager, null)) {
+						methodSinks.put(method, true);
+						return true;
+					}
+					callSites.add(u);
 				}
 			}
+		} finally {
+			lock.unlock();
 		}
 		
+		// Check the callees
+		for (Unit u : callSites)
+			for (Edge e : getEdgesOutOf(u))
+				if (hasSideEffectsOrCallsSink(e.getTgt().method(), runList))
+					return true;
+		
 		// Variable is not read
 		methodSideEffects.put(method, false);
 		return false;
@@ -657,44 +1025,63 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		if (!runList.add(method))
 			return false;
 		
-		// If this is an Android stub method that just throws a stub exception,
-		// this will never happen in practice and can be removed
-		if (methodIsAndroidStub(method)) {
-			methodSideEffects.put(method, false);
-			return false;
-		}
-		
-		// Scan for references to this variable
-		Local thisLocal = method.isStatic() ? null : method.getActiveBody().getThisLocal();
-		for (Unit u : method.getActiveBody().getUnits()) {
-			if (u instanceof AssignStmt) {
-				AssignStmt assign = (AssignStmt) u;
-				if (assign.getLeftOp() instanceof FieldRef
-						|| assign.getLeftOp() instanceof ArrayRef) {
-					methodSideEffects.put(method, true);
-					return true;
-				}
+		// Another thread might be changing this body, so we only hold the
+		// lock while scanning it, but not while looking at the callees
+		List<Unit> callSites = new ArrayList<>();
+		ReentrantLock lock = getBodyLock(method);
+		lock.lock();
+		try {
+			// If this is an Android stub method that just throws a stub exception,
+			// this will never happen in practice and can be removed
+			if (methodIsAndroidStub(method)) {
+				methodSideEffects.put(method, false);
+				return false;
 			}
 			
-			Stmt s = (Stmt) u;
-			
-			// If this statement uses the "this" local, we have to
-			// conservatively assume that is can read data
-			if (thisLocal != null)
-				for (ValueBox vb : s.getUseBoxes())
-					if (vb.getValue() == thisLocal)
-						return true;
+			// The shared summaries already know about the side effects
+			if (modRefSummaries != null && modRefSummaries.hasSummary(method)) {
+				boolean writesHeap = modRefSummaries.writesHeap(method);
+				if (writesHeap)
+					methodSideEffects.put(method, true);
+				else if (!modRefSummaries.readsThis(method))
+					methodSideEffects.put(method, false);
+				return writesHeap || modRefSummaries.readsThis(method);
+			}
 			
-			if (s.containsInvokeExpr()) {
-				// Check the callees
-				for (Iterator<Edge> edgeIt = Scene.v().getCallGraph().edgesOutOf(u); edgeIt.hasNext(); ) {
-					Edge e = edgeIt.next();
-					if (hasSideEffectsOrReadsThis(e.getTgt().method(), runList))
+			// Scan for references to this variable
+			Local thisLocal = method.isStatic() ? null : method.getActiveBody().getThisLocal();
+			for (Unit u : method.getActiveBody().getUnits()) {
+				if (u instanceof AssignStmt) {
+					AssignStmt assign = (AssignStmt) u;
+					if (assign.getLeftOp() instanceof FieldRef
+							|| assign.getLeftOp() instanceof ArrayRef) {
+						methodSideEffects.put(method, true);
 						return true;
+					}
 				}
+				
+				Stmt s = (Stmt) u;
+				
+				// If this statement uses the "this" local, we have to
+				// conservatively assume that is can read data
+				if (thisLocal != null)
+					for (ValueBox vb : s.getUseBoxes())
+						if (vb.getValue() == thisLocal)
+							return true;
+				
+				if (s.containsInvokeExpr())
+					callSites.add(u);
 			}
+		} finally {
+			lock.unlock();
 		}
 		
+		// Check the callees
+		for (Unit u : callSites)
+			for (Edge e : getEdgesOutOf(u))
+				if (hasSideEffectsOrReadsThis(e.getTgt().method(), runList))
+					return true;
+		
 		// Variable is not read
 		methodSideEffects.put(method, false);
 		return false;
@@ -747,7 +1134,7 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 	 * @param sm The method for which to look for call sites.
 	 */
 	private void propagateConstantsIntoCallee(SootMethod sm) {		
-		Collection<Unit> callSites = manager.getICFG().getCallersOf(sm);
+		Collection<Unit> callSites = getCallersOf(sm);
 		if (callSites.isEmpty())
 			return;
 		
@@ -759,69 +1146,95 @@ public class InterproceduralConstantValuePropagator extends SceneTransformer {
 		// Do all of our callees agree on one constant value?
 		boolean hasCallSites = false;
 		for (Unit callSite : callSites) {
+			SootMethod caller = null;
+			synchronized (icfgLock) {
+				if (manager.getICFG().isReachable(callSite))
+					caller = manager.getICFG().getMethodOf(callSite);
+			}
+			
 			// If this call site is in an excluded method, we ignore it
 			if (excludedMethods != null
-					&& manager.getICFG().isReachable(callSite)
-					&& excludedMethods.contains(manager.getICFG().getMethodOf(callSite)))
+					&& caller != null
+					&& excludedMethods.contains(caller))
 				continue;
 			
-			InvokeExpr iiExpr = ((Stmt) callSite).getInvokeExpr();
-			hasCallSites = true;
-			
-			// If we have a reflective call site, we never have constant arguments, because
-			// they are always passed in using an array
-			if (manager.getICFG().isReflectiveCallSite(callSite)) {
-				for (int i = 0; i < isConstant.length; i++)
-					isConstant[i] = false;
-			}
-			else {
-				// Check whether we have constant parameter values
-				for (int i = 0; i < iiExpr.getArgCount(); i++) {
-					if (isConstant[i]) {
-						final Value argVal = iiExpr.getArg(i);
-						if (argVal instanceof Constant) {
-							// If we already have a value for this argument and the
-							// new one does not agree, this parameter is not globally
-							// constant.
-							if (values[i] != null && !values[i].equals(argVal))
-								isConstant[i] = false;
+			// The caller might be changed by another thread while we read its
+			// arguments
+			ReentrantLock callerLock = caller == null ? null : getBodyLock(caller);
+			if (callerLock != null)
+				callerLock.lock();
+			try {
+				InvokeExpr iiExpr = ((Stmt) callSite).getInvokeExpr();
+				hasCallSites = true;
+				
+				// If we have a reflective call site, we never have constant arguments, because
+				// they are always passed in using an array
+				boolean isReflective;
+				synchronized (icfgLock) {
+					isReflective = manager.getICFG().isReflectiveCallSite(callSite);
+				}
+				if (isReflective) {
+					for (int i = 0; i < isConstant.length; i++)
+						isConstant[i] = false;
+				}
+				else {
+					// Check whether we have constant parameter values
+					for (int i = 0; i < iiExpr.getArgCount(); i++) {
+						if (isConstant[i]) {
+							final Value argVal = iiExpr.getArg(i);
+							if (argVal instanceof Constant) {
+								// If we already have a value for this argument and the
+								// new one does not agree, this parameter is not globally
+								// constant.
+								if (values[i] != null && !values[i].equals(argVal))
+									isConstant[i] = false;
+								else
+									values[i] = (Constant) argVal;
+							}
 							else
-								values[i] = (Constant) argVal;
+								isConstant[i] = false;
 						}
-						else
-							isConstant[i] = false;
 					}
 				}
+			} finally {
+				if (callerLock != null)
+					callerLock.unlock();
 			}
 		}
 		
 		if (hasCallSites) {
-			// Get the constant parameters
-			List<Unit> inserted = null;
-			for (int i = 0; i < isConstant.length; i++) {
-				if (isConstant[i] && propagatedParameters.add(new Pair<>(sm, i))) {
-					// Propagate the constant into the callee
-					Local paramLocal = sm.getActiveBody().getParameterLocal(i);
-					Unit point = getFirstNonIdentityStmt(sm);
-					Unit assignConst = Jimple.v().newAssignStmt(paramLocal, values[i]);
-					sm.getActiveBody().getUnits().insertBefore(assignConst, point);
-					
-					if (inserted == null)
-						inserted = new ArrayList<Unit>();
-					inserted.add(assignConst);
+			ReentrantLock lock = getBodyLock(sm);
+			lock.lock();
+			try {
+				// Get the constant parameters
+				List<Unit> inserted = null;
+				for (int i = 0; i < isConstant.length; i++) {
+					if (isConstant[i] && propagatedParameters.add(new Pair<>(sm, i))) {
+						// Propagate the constant into the callee
+						Local paramLocal = sm.getActiveBody().getParameterLocal(i);
+						Unit point = getFirstNonIdentityStmt(sm);
+						Unit assignConst = Jimple.v().newAssignStmt(paramLocal, values[i]);
+						sm.getActiveBody().getUnits().insertBefore(assignConst, point);
+						
+						if (inserted == null)
+							inserted = new ArrayList<Unit>();
+						inserted.add(assignConst);
+					}
 				}
-			}
-			
-			// Propagate the constant inside the callee
-			if (inserted != null) {
-				ConstantPropagatorAndFolder.v().transform(sm.getActiveBody());
-				for (Unit u : inserted)
-					sm.getActiveBody().getUnits().remove(u);
 				
-				// This might lead to more opportunities of constant propagation
-				for (Unit u : sm.getActiveBody().getUnits())
-					for (SootMethod callee : manager.getICFG().getCalleesOfCallAt(u))
-						checkAndAddMethod(callee);
+				// Propagate the constant inside the callee
+				if (inserted != null) {
+					foldConstants(sm.getActiveBody());
+					for (Unit u : inserted)
+						sm.getActiveBody().getUnits().remove(u);
+					
+					// This might lead to more opportunities of constant propagation
+					for (Unit u : sm.getActiveBody().getUnits())
+						for (SootMethod callee : getCalleesOfCallAt(u))
+							checkAndAddMethod(callee);
+				}
+			} finally {
+				lock.unlock();
 			}
 		}
 	}
@@ -0,0 +1,101 @@
+package soot.jimple.infoflow.collect;
+
+import java.util.Map;
+
+/**
+ * Thread-safe class that assigns consecutive integer numbers to objects based
+ * on object identity. Numbers are never reused, the numberer keeps a strong
+ * reference to every object it has numbered.
+ *
+ * @param <T> The type of the objects to number
+ */
+public class IdentityNumberer<T> {
+
+	private static final int CHUNK_SIZE = 4096;
+
+	private final Map<T, Integer> objectToNumber = new ConcurrentIdentityHashMap<>();
+	private volatile Object[][] chunks = new Object[16][];
+	private int size = 0;
+
+	/**
+	 * Gets the number of the given object. If the object has not been numbered
+	 * yet, a new number is assigned.
+	 * @param obj The object for which to get the number
+	 * @return The number of the given object
+	 */
+	public int getOrAddNumber(T obj) {
+		Integer number = objectToNumber.get(obj);
+		if (number != null)
+			return number;
+		return addNumber(obj);
+	}
+
+	/**
+	 * Assigns a new number to the given object unless some other thread has
+	 * already done so
+	 * @param obj The object to number
+	 * @return The number of the given object
+	 */
+	private synchronized int addNumber(T obj) {
+		Integer number = objectToNumber.get(obj);
+		if (number != null)
+			return number;
+
+		int chunkIdx = size / CHUNK_SIZE;
+		Object[][] curChunks = chunks;
+		if (chunkIdx >= curChunks.length) {
+			Object[][] newChunks = new Object[curChunks.length * 2][];
+			System.arraycopy(curChunks, 0, newChunks, 0, curChunks.length);
+			curChunks = newChunks;
+		}
+		if (curChunks[chunkIdx] == null)
+			curChunks[chunkIdx] = new Object[CHUNK_SIZE];
+		curChunks[chunkIdx][size % CHUNK_SIZE] = obj;
+		chunks = curChunks;
+
+		// Publishing the number through the concurrent map makes the object
+		// visible to all threads that look up the number
+		int newNumber = size++;
+		objectToNumber.put(obj, newNumber);
+		return newNumber;
+	}
+
+	/**
+	 * Gets the number of the given object without assigning a new one
+	 * @param obj The object for which to get the number
+	 * @return The number of the given object, or -1 if the object has not been
+	 * numbered yet
+	 */
+	public int getNumber(T obj) {
+		Integer number = objectToNumber.get(obj);
+		return number == null ? -1 : number;
+	}
+
+	/**
+	 * Gets the object with the given number
+	 * @param number The number of the object to retrieve
+	 * @return The object with the given number
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int number) {
+		return (T) chunks[number / CHUNK_SIZE][number % CHUNK_SIZE];
+	}
+
+	/**
+	 * Gets the number of objects that have been numbered
+	 * @return The number of objects that have been numbered
+	 */
+	public int size() {
+		return objectToNumber.size();
+	}
+
+	/**
+	 * Removes all objects from this numberer
+	 */
+	public synchronized void clear() {
+		objectToNumber.clear();
+		chunks = new Object[16][];
+		size = 0;
+	}
+
+}
@@ -0,0 +1,291 @@
+package soot.jimple.infoflow.collect;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Hash-based multi-set of fixed-size integer records that are stored outside
+ * of the Java heap, either in direct buffers or in memory-mapped temporary
+ * files. Records are looked up by a hash code supplied by the caller. All
+ * records with the same hash code are handed to a visitor that decides which
+ * of them actually match. Records cannot be removed individually, but all
+ * records that satisfy some condition can be removed in one pass.
+ *
+ * Note that direct buffers are limited by the JVM's
+ * <code>-XX:MaxDirectMemorySize</code> setting.
+ */
+public class OffHeapRecordStore {
+
+	/**
+	 * Callback that is invoked for every record that matches a given hash code
+	 */
+	public interface RecordVisitor {
+
+		/**
+		 * Method that is called for every record with the requested hash code
+		 * @param record The fields of the record. The array is only valid
+		 * during the callback.
+		 * @return True to stop visiting further records, false to continue
+		 */
+		public boolean visit(int[] record);
+
+	}
+
+	private static final int NUM_SEGMENTS = 16;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int MAX_LOAD_PERCENT = 60;
+
+	private final int arity;
+	private final int slotSize;
+	private final boolean memoryMapped;
+	private final Segment[] segments = new Segment[NUM_SEGMENTS];
+
+	/**
+	 * One independently locked hash table with open addressing. Every slot
+	 * holds the hash code followed by the record fields. A hash code of zero
+	 * marks an empty slot.
+	 */
+	private class Segment {
+
+		private ByteBuffer buffer = null;
+		private int capacity = 0;
+		private int size = 0;
+
+		private synchronized void add(int hash, int[] fields) {
+			if (buffer == null || (size + 1) * 100L > capacity * (long) MAX_LOAD_PERCENT)
+				grow();
+			insert(buffer, capacity, hash, fields);
+			size++;
+		}
+
+		private void grow() {
+			int newCapacity = capacity == 0 ? INITIAL_CAPACITY : capacity * 2;
+			if ((long) newCapacity * slotSize > Integer.MAX_VALUE)
+				throw new RuntimeException("Off-heap segment capacity exceeded");
+			rehash(newCapacity, null);
+		}
+
+		/**
+		 * Copies all records into a new buffer of the given capacity
+		 * @param newCapacity The capacity of the new buffer
+		 * @param filter The filter that decides which records to drop, or null
+		 * to keep all records
+		 * @return The number of records that have been dropped
+		 */
+		private int rehash(int newCapacity, RecordVisitor filter) {
+			ByteBuffer newBuffer = allocate(newCapacity * slotSize);
+			int dropped = 0;
+			if (buffer != null) {
+				int[] fields = new int[arity];
+				for (int i = 0; i < capacity; i++) {
+					int base = i * slotSize;
+					int hash = buffer.getInt(base);
+					if (hash != 0) {
+						for (int j = 0; j < arity; j++)
+							fields[j] = buffer.getInt(base + 4 + j * 4);
+						if (filter != null && filter.visit(fields))
+							dropped++;
+						else
+							insert(newBuffer, newCapacity, hash, fields);
+					}
+				}
+			}
+			buffer = newBuffer;
+			capacity = newCapacity;
+			return dropped;
+		}
+
+		private synchronized int removeAll(RecordVisitor filter) {
+			if (buffer == null)
+				return 0;
+
+			// Count the remaining records first, so that we can shrink the
+			// buffer to the smallest capacity that fits them
+			int remaining = 0;
+			int[] fields = new int[arity];
+			for (int i = 0; i < capacity; i++) {
+				int base = i * slotSize;
+				if (buffer.getInt(base) != 0) {
+					for (int j = 0; j < arity; j++)
+						fields[j] = buffer.getInt(base + 4 + j * 4);
+					if (!filter.visit(fields))
+						remaining++;
+				}
+			}
+			if (remaining == size)
+				return 0;
+
+			int newCapacity = INITIAL_CAPACITY;
+			while (remaining * 100L > newCapacity * (long) MAX_LOAD_PERCENT)
+				newCapacity *= 2;
+			int dropped = rehash(newCapacity, filter);
+			size -= dropped;
+			return dropped;
+		}
+
+		private void insert(ByteBuffer buf, int cap, int hash, int[] fields) {
+			int idx = hash & (cap - 1);
+			while (buf.getInt(idx * slotSize) != 0)
+				idx = (idx + 1) & (cap - 1);
+			int base = idx * slotSize;
+			buf.putInt(base, hash);
+			for (int j = 0; j < arity; j++)
+				buf.putInt(base + 4 + j * 4, fields[j]);
+		}
+
+		private synchronized boolean visit(int hash, RecordVisitor visitor) {
+			if (buffer == null)
+				return false;
+			int[] fields = new int[arity];
+			int idx = hash & (capacity - 1);
+			int storedHash;
+			while ((storedHash = buffer.getInt(idx * slotSize)) != 0) {
+				if (storedHash == hash) {
+					int base = idx * slotSize;
+					for (int j = 0; j < arity; j++)
+						fields[j] = buffer.getInt(base + 4 + j * 4);
+					if (visitor.visit(fields))
+						return true;
+				}
+				idx = (idx + 1) & (capacity - 1);
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * Creates a new instance of the {@link OffHeapRecordStore} class
+	 * @param arity The number of integer fields per record
+	 * @param memoryMapped True to store the records in memory-mapped temporary
+	 * files, false to use direct buffers
+	 */
+	public OffHeapRecordStore(int arity, boolean memoryMapped) {
+		this.arity = arity;
+		this.slotSize = 4 * (arity + 1);
+		this.memoryMapped = memoryMapped;
+		for (int i = 0; i < NUM_SEGMENTS; i++)
+			segments[i] = new Segment();
+	}
+
+	/**
+	 * Allocates a new zero-initialized buffer outside of the Java heap
+	 * @param size The size of the new buffer in bytes
+	 * @return The new buffer
+	 */
+	private ByteBuffer allocate(int size) {
+		if (!memoryMapped)
+			return ByteBuffer.allocateDirect(size);
+
+		try {
+			File file = File.createTempFile("flowdroid", ".offheap");
+			file.deleteOnExit();
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(size);
+				return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			}
+			finally {
+				// The mapping remains valid after the file has been deleted on
+				// most platforms, otherwise we clean up on exit
+				file.delete();
+			}
+		}
+		catch (IOException ex) {
+			throw new RuntimeException("Could not create memory-mapped off-heap buffer", ex);
+		}
+	}
+
+	/**
+	 * Spreads the bits of the given hash code. Zero is reserved for empty
+	 * slots.
+	 * @param hash The original hash code
+	 * @return The hash code to store
+	 */
+	private static int spread(int hash) {
+		int h = hash ^ (hash >>> 16);
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		return h == 0 ? 1 : h;
+	}
+
+	/**
+	 * Adds a new record to this store. Duplicates are not detected.
+	 * @param hash The hash code under which to store the record
+	 * @param fields The fields of the record
+	 */
+	public void add(int hash, int... fields) {
+		if (fields.length != arity)
+			throw new IllegalArgumentException("Invalid record size");
+		int h = spread(hash);
+		segments[h >>> 28].add(h, fields);
+	}
+
+	/**
+	 * Hands all records with the given hash code to the given visitor
+	 * @param hash The hash code to look for
+	 * @param visitor The visitor to invoke for every record with the given hash
+	 * code
+	 * @return True if the visitor has stopped the lookup, otherwise false
+	 */
+	public boolean visit(int hash, RecordVisitor visitor) {
+		int h = spread(hash);
+		return segments[h >>> 28].visit(h, visitor);
+	}
+
+	/**
+	 * Removes all records for which the given filter returns true and
+	 * releases the space they occupied. The filter may be called more than
+	 * once for the same record.
+	 * @param filter The filter that decides which records to remove
+	 * @return The number of records that have been removed
+	 */
+	public long removeAll(RecordVisitor filter) {
+		long removed = 0;
+		for (Segment segment : segments)
+			removed += segment.removeAll(filter);
+		return removed;
+	}
+
+	/**
+	 * Gets the number of records in this store
+	 * @return The number of records in this store
+	 */
+	public long size() {
+		long size = 0;
+		for (Segment segment : segments)
+			synchronized (segment) {
+				size += segment.size;
+			}
+		return size;
+	}
+
+	/**
+	 * Gets the number of bytes this store has allocated outside of the heap
+	 * @return The number of bytes allocated by this store
+	 */
+	public long getMemoryFootprint() {
+		long bytes = 0;
+		for (Segment segment : segments)
+			synchronized (segment) {
+				bytes += (long) segment.capacity * slotSize;
+			}
+		return bytes;
+	}
+
+	/**
+	 * Removes all records from this store. The buffers are released once they
+	 * are garbage-collected.
+	 */
+	public void clear() {
+		for (Segment segment : segments)
+			synchronized (segment) {
+				segment.buffer = null;
+				segment.capacity = 0;
+				segment.size = 0;
+			}
+	}
+
+}
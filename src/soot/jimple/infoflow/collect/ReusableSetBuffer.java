@@ -0,0 +1,256 @@
+package soot.jimple.infoflow.collect;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Array-backed set for collecting the results of a flow function. Every
+ * thread owns one buffer that is reused across flow functions, so that
+ * collecting the results does not allocate. Once all results have been
+ * added, {@link #toSet()} copies them into a set of exactly the right size,
+ * i.e., an empty set, a singleton, a {@link MutableTwoElementSet} or a
+ * {@link HashSet}. Singletons are immutable and are shared through a small
+ * per-buffer cache, so that the common case of a flow function with at most
+ * one result does not allocate at all.
+ *
+ * <p>
+ * A buffer must be released after use. If a flow function is entered again
+ * on the same thread while the thread's buffer is still in use, acquire()
+ * hands out a fresh buffer instead.
+ *
+ * @param <E> The type of the elements in the set
+ */
+public class ReusableSetBuffer<E> extends AbstractSet<E> {
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	/**
+	 * The number of elements up to which we look up elements with a linear
+	 * scan. Larger buffers get an additional hash index.
+	 */
+	private static final int LINEAR_SCAN_LIMIT = 16;
+
+	/**
+	 * The largest capacity we keep when a buffer is released. Larger arrays
+	 * are dropped, so that a single large result does not pin memory.
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 256;
+
+	/**
+	 * The number of slots in the direct-mapped cache of singleton sets. Must
+	 * be a power of two.
+	 */
+	private static final int SINGLETON_CACHE_SIZE = 64;
+
+	private static final ThreadLocal<ReusableSetBuffer<Object>> buffers = new ThreadLocal<ReusableSetBuffer<Object>>() {
+
+		@Override
+		protected ReusableSetBuffer<Object> initialValue() {
+			return new ReusableSetBuffer<Object>();
+		}
+
+	};
+
+	private Object[] elements = new Object[INITIAL_CAPACITY];
+	private int[] hashes = new int[INITIAL_CAPACITY];
+	private int size = 0;
+	private Set<Object> index = null;
+	private boolean inUse = false;
+
+	private Object[] singletonKeys = null;
+	private Set<?>[] singletonSets = null;
+
+	/**
+	 * Gets a buffer for the current thread. The buffer is empty and must be
+	 * released using {@link #release()} when it is no longer needed.
+	 * @return An empty buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> ReusableSetBuffer<E> acquire() {
+		ReusableSetBuffer<Object> buffer = buffers.get();
+		if (buffer.inUse)
+			buffer = new ReusableSetBuffer<Object>();
+		buffer.inUse = true;
+		return (ReusableSetBuffer<E>) buffer;
+	}
+
+	/**
+	 * Clears this buffer and returns it to the current thread for reuse
+	 */
+	public void release() {
+		clear();
+		if (elements.length > MAX_RETAINED_CAPACITY) {
+			elements = new Object[INITIAL_CAPACITY];
+			hashes = new int[INITIAL_CAPACITY];
+		}
+		inUse = false;
+	}
+
+	/**
+	 * Computes the union of the two given sets without modifying either of
+	 * them. If one of the sets is empty, the other one is returned as-is.
+	 * @param first The first set
+	 * @param second The second set
+	 * @return The union of the two sets
+	 */
+	public static <E> Set<E> union(Set<E> first, Set<E> second) {
+		if (first == null || first.isEmpty())
+			return second;
+		if (second == null || second.isEmpty())
+			return first;
+
+		ReusableSetBuffer<E> buffer = acquire();
+		try {
+			buffer.addAll(first);
+			buffer.addAll(second);
+			return buffer.toSet();
+		} finally {
+			buffer.release();
+		}
+	}
+
+	/**
+	 * Copies the contents of this buffer into a new set of exactly the
+	 * required size. The buffer itself remains unchanged.
+	 * @return A set with the contents of this buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public Set<E> toSet() {
+		switch (size) {
+		case 0:
+			return Collections.emptySet();
+		case 1:
+			return getSingleton((E) elements[0]);
+		case 2:
+			if (elements[0] != null && elements[1] != null)
+				return new MutableTwoElementSet<E>((E) elements[0], (E) elements[1]);
+			// fall through
+		default:
+			return new HashSet<E>(this);
+		}
+	}
+
+	/**
+	 * Gets an immutable singleton set for the given element. Sets are cached
+	 * by the identity of their element, so a flow function that passes the
+	 * same object on multiple times reuses the same set.
+	 * @param e The element for which to get a singleton set
+	 * @return The singleton set that contains the given element
+	 */
+	@SuppressWarnings("unchecked")
+	private Set<E> getSingleton(E e) {
+		if (singletonKeys == null) {
+			singletonKeys = new Object[SINGLETON_CACHE_SIZE];
+			singletonSets = new Set<?>[SINGLETON_CACHE_SIZE];
+		}
+		final int slot = System.identityHashCode(e) & (SINGLETON_CACHE_SIZE - 1);
+		if (singletonKeys[slot] == e && singletonSets[slot] != null)
+			return (Set<E>) singletonSets[slot];
+
+		Set<E> set = Collections.singleton(e);
+		singletonKeys[slot] = e;
+		singletonSets[slot] = set;
+		return set;
+	}
+
+	private int indexOf(Object o, int hash) {
+		for (int i = 0; i < size; i++) {
+			Object e = elements[i];
+			if (e == o || (hashes[i] == hash && o != null && o.equals(e)))
+				return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (index != null)
+			return index.contains(o);
+		return indexOf(o, o == null ? 0 : o.hashCode()) >= 0;
+	}
+
+	@Override
+	public boolean add(E e) {
+		int hash = e == null ? 0 : e.hashCode();
+		if (index != null) {
+			if (!index.add(e))
+				return false;
+		}
+		else if (indexOf(e, hash) >= 0)
+			return false;
+
+		if (size == elements.length) {
+			Object[] newElements = new Object[size * 2];
+			int[] newHashes = new int[size * 2];
+			System.arraycopy(elements, 0, newElements, 0, size);
+			System.arraycopy(hashes, 0, newHashes, 0, size);
+			elements = newElements;
+			hashes = newHashes;
+		}
+		elements[size] = e;
+		hashes[size] = hash;
+		size++;
+
+		// Build the hash index once the linear scan gets too expensive
+		if (index == null && size > LINEAR_SCAN_LIMIT) {
+			index = new HashSet<Object>(size * 2);
+			for (int i = 0; i < size; i++)
+				index.add(elements[i]);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c) {
+		boolean changed = false;
+		for (E e : c)
+			changed |= add(e);
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			elements[i] = null;
+		size = 0;
+		index = null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+
+			private int pos = 0;
+
+			@Override
+			public boolean hasNext() {
+				return pos < size;
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public E next() {
+				if (pos >= size)
+					throw new NoSuchElementException();
+				return (E) elements[pos++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+		};
+	}
+
+}
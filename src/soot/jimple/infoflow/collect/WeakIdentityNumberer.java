@@ -0,0 +1,191 @@
+package soot.jimple.infoflow.collect;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe class that assigns consecutive integer numbers to objects based
+ * on object identity. In contrast to {@link IdentityNumberer}, this numberer
+ * only keeps weak references to the numbered objects. Objects that are no
+ * longer referenced elsewhere are garbage-collected, and their numbers then
+ * resolve to null. Numbers are never reused.
+ *
+ * @param <T> The type of the objects to number
+ */
+public class WeakIdentityNumberer<T> {
+
+	private static final int CHUNK_SIZE = 4096;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Weak reference to a numbered object that is also the entry in the
+	 * collision chain of the hash table
+	 */
+	private static class Entry<T> extends WeakReference<T> {
+
+		private final int hash;
+		private final int number;
+		private Entry<T> next;
+
+		private Entry(T obj, int hash, int number, ReferenceQueue<? super T> queue) {
+			super(obj, queue);
+			this.hash = hash;
+			this.number = number;
+		}
+
+	}
+
+	private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+	// guarded by this
+	private Entry<T>[] table = newTable(INITIAL_CAPACITY);
+	private int size = 0;
+	private int nextNumber = 0;
+
+	// read without holding the lock
+	private volatile AtomicReferenceArray<Entry<T>>[] chunks = newChunks(16);
+
+	@SuppressWarnings("unchecked")
+	private static <T> Entry<T>[] newTable(int capacity) {
+		return new Entry[capacity];
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> AtomicReferenceArray<Entry<T>>[] newChunks(int count) {
+		return new AtomicReferenceArray[count];
+	}
+
+	/**
+	 * Gets the number of the given object. If the object has not been numbered
+	 * yet, a new number is assigned.
+	 * @param obj The object for which to get the number
+	 * @return The number of the given object
+	 */
+	public synchronized int getOrAddNumber(T obj) {
+		expungeCollected();
+
+		int hash = System.identityHashCode(obj);
+		for (Entry<T> e = table[hash & (table.length - 1)]; e != null; e = e.next)
+			if (e.get() == obj)
+				return e.number;
+
+		if (nextNumber == Integer.MAX_VALUE)
+			throw new IllegalStateException("No more numbers available");
+		int number = nextNumber++;
+		Entry<T> entry = new Entry<>(obj, hash, number, queue);
+		int idx = hash & (table.length - 1);
+		entry.next = table[idx];
+		table[idx] = entry;
+		if (++size * 4L > table.length * 3L)
+			resize();
+
+		int chunkIdx = number / CHUNK_SIZE;
+		AtomicReferenceArray<Entry<T>>[] curChunks = chunks;
+		if (chunkIdx >= curChunks.length) {
+			AtomicReferenceArray<Entry<T>>[] newChunks = newChunks(curChunks.length * 2);
+			System.arraycopy(curChunks, 0, newChunks, 0, curChunks.length);
+			curChunks = newChunks;
+		}
+		if (curChunks[chunkIdx] == null)
+			curChunks[chunkIdx] = new AtomicReferenceArray<Entry<T>>(CHUNK_SIZE);
+		curChunks[chunkIdx].set(number % CHUNK_SIZE, entry);
+		chunks = curChunks;
+		return number;
+	}
+
+	/**
+	 * Gets the number of the given object without assigning a new one
+	 * @param obj The object for which to get the number
+	 * @return The number of the given object, or -1 if the object has not been
+	 * numbered yet
+	 */
+	public synchronized int getNumber(T obj) {
+		int hash = System.identityHashCode(obj);
+		for (Entry<T> e = table[hash & (table.length - 1)]; e != null; e = e.next)
+			if (e.get() == obj)
+				return e.number;
+		return -1;
+	}
+
+	/**
+	 * Gets the object with the given number
+	 * @param number The number of the object to retrieve
+	 * @return The object with the given number, or null if the object has
+	 * been garbage-collected
+	 */
+	public T get(int number) {
+		AtomicReferenceArray<Entry<T>>[] curChunks = chunks;
+		int chunkIdx = number / CHUNK_SIZE;
+		if (number < 0 || chunkIdx >= curChunks.length || curChunks[chunkIdx] == null)
+			return null;
+		Entry<T> entry = curChunks[chunkIdx].get(number % CHUNK_SIZE);
+		return entry == null ? null : entry.get();
+	}
+
+	/**
+	 * Doubles the size of the hash table
+	 */
+	private void resize() {
+		Entry<T>[] newTable = newTable(table.length * 2);
+		for (Entry<T> head : table) {
+			Entry<T> e = head;
+			while (e != null) {
+				Entry<T> next = e.next;
+				int idx = e.hash & (newTable.length - 1);
+				e.next = newTable[idx];
+				newTable[idx] = e;
+				e = next;
+			}
+		}
+		table = newTable;
+	}
+
+	/**
+	 * Removes the entries of all objects that have been garbage-collected
+	 */
+	@SuppressWarnings("unchecked")
+	private void expungeCollected() {
+		Entry<T> collected;
+		while ((collected = (Entry<T>) queue.poll()) != null) {
+			int idx = collected.hash & (table.length - 1);
+			Entry<T> prev = null;
+			for (Entry<T> e = table[idx]; e != null; prev = e, e = e.next)
+				if (e == collected) {
+					if (prev == null)
+						table[idx] = e.next;
+					else
+						prev.next = e.next;
+					size--;
+					break;
+				}
+
+			AtomicReferenceArray<Entry<T>>[] curChunks = chunks;
+			int chunkIdx = collected.number / CHUNK_SIZE;
+			if (chunkIdx < curChunks.length && curChunks[chunkIdx] != null)
+				curChunks[chunkIdx].compareAndSet(collected.number % CHUNK_SIZE, collected, null);
+		}
+	}
+
+	/**
+	 * Gets the number of objects that have been numbered and are still alive
+	 * @return The number of live objects in this numberer
+	 */
+	public synchronized int size() {
+		expungeCollected();
+		return size;
+	}
+
+	/**
+	 * Removes all objects from this numberer
+	 */
+	public synchronized void clear() {
+		while (queue.poll() != null)
+			;
+		table = newTable(INITIAL_CAPACITY);
+		chunks = newChunks(16);
+		size = 0;
+		nextNumber = 0;
+	}
+
+}
@@ -99,6 +99,31 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 		this.currentStmt = sourceContext == null ? null : sourceContext.getStmt();
 	}
 
+	/**
+	 * Creates an abstraction from a checkpoint. The predecessor and the
+	 * neighbors are restored separately using
+	 * {@link #restoreLinks(Abstraction, Set)}.
+	 */
+	Abstraction(AccessPath accessPath,
+			SourceContext sourceContext,
+			Stmt currentStmt,
+			Stmt correspondingCallSite,
+			Unit activationUnit,
+			boolean exceptionThrown,
+			List<UnitContainer> postdominators,
+			boolean isImplicit,
+			boolean dependsOnCutAP) {
+		this.accessPath = accessPath;
+		this.sourceContext = sourceContext;
+		this.currentStmt = currentStmt;
+		this.correspondingCallSite = correspondingCallSite;
+		this.activationUnit = activationUnit;
+		this.exceptionThrown = exceptionThrown;
+		this.postdominators = postdominators;
+		this.isImplicit = isImplicit;
+		this.dependsOnCutAP = dependsOnCutAP;
+	}
+
 	/**
 	 * Creates an abstraction as a copy of an existing abstraction,
 	 * only exchanging the access path. -> only used by AbstractionWithPath
@@ -569,6 +594,30 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 		this.currentStmt = currentStmt;
 	}
 	
+	/**
+	 * Gets the postdominators we need to pass in order to leave the current
+	 * conditional branch. For internal use by checkpoints only.
+	 */
+	List<UnitContainer> getPostdominators() {
+		return this.postdominators;
+	}
+	
+	/**
+	 * Restores the links to other abstractions when reading a checkpoint
+	 * @param predecessor The predecessor of this abstraction
+	 * @param neighbors The neighbors of this abstraction, or null if it has
+	 * none
+	 */
+	void restoreLinks(Abstraction predecessor, Set<Abstraction> neighbors) {
+		this.predecessor = predecessor;
+		if (neighbors == null)
+			this.neighbors = null;
+		else {
+			this.neighbors = Sets.newIdentityHashSet();
+			this.neighbors.addAll(neighbors);
+		}
+	}
+	
 	@Override
 	public void setCallingContext(Abstraction callingContext) {
 	}
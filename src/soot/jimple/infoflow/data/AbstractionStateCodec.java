@@ -0,0 +1,617 @@
+package soot.jimple.infoflow.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Sets;
+
+import soot.Body;
+import soot.Local;
+import soot.NullType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.AccessPath.ArrayTaintType;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG.UnitContainer;
+import soot.jimple.infoflow.solver.fastSolver.ISolverStateCodec;
+
+/**
+ * Codec for writing abstractions and the Soot objects they reference to a
+ * solver checkpoint or to another JVM that has loaded the same scene. Methods and fields are identified by their signatures,
+ * statements by their position in the body of their method, and locals by
+ * their name within the body of their method. Every object is only written
+ * once, all further occurrences are written as back-references.
+ *
+ * <p>
+ * Abstractions are written together with their predecessors and neighbors,
+ * so that the propagation paths can still be reconstructed after resuming.
+ * The user data of source contexts is only retained if it is
+ * {@link Serializable}.
+ *
+ * <p>
+ * A codec instance must either be used for writing or for reading a single
+ * checkpoint or message, not both.
+ *
+ */
+public class AbstractionStateCodec implements ISolverStateCodec<Unit, Abstraction> {
+
+	private static final Logger logger = LoggerFactory.getLogger(AbstractionStateCodec.class);
+
+	private static final int REF_NULL = 0;
+	private static final int REF_NEW = 1;
+	private static final int REF_OFFSET = 2;
+
+	private static final int AP_EMPTY = 0;
+	private static final int AP_ZERO = 1;
+	private static final int AP_REGULAR = 2;
+
+	private static final int FLAG_EXCEPTION_THROWN = 1;
+	private static final int FLAG_IMPLICIT = 2;
+	private static final int FLAG_DEPENDS_ON_CUT_AP = 4;
+
+	private static final int AP_FLAG_TAINT_SUB_FIELDS = 1;
+	private static final int AP_FLAG_CUT_OFF = 2;
+	private static final int AP_FLAG_IMMUTABLE_ALIASES = 4;
+
+	private final IInfoflowCFG icfg;
+
+	// state for writing
+	private final Map<Object, Integer> objectIds = new IdentityHashMap<>();
+	private final Map<Abstraction, Integer> factIds = new IdentityHashMap<>();
+	private final Queue<Abstraction> unwrittenFacts = new ArrayDeque<>();
+	private int nextFactId;
+	private final Map<SootMethod, Map<Unit, Integer>> unitIndices = new HashMap<>();
+	private Map<Local, SootMethod> localOwners = null;
+	private boolean userDataDropped = false;
+
+	// state for reading
+	private final List<Object> objects = new ArrayList<>();
+	private final List<Abstraction> facts = new ArrayList<>();
+	private final Map<SootMethod, Unit[]> units = new HashMap<>();
+
+	/**
+	 * Creates a new instance of the {@link AbstractionStateCodec} class
+	 * @param icfg The interprocedural control flow graph for finding the
+	 * methods that contain the statements
+	 * @param knownFacts Facts that are not written to the checkpoint, but
+	 * replaced with their counterparts in the reading JVM, e.g., the zero
+	 * values of the solvers. Reader and writer must pass the corresponding
+	 * facts in the same order.
+	 */
+	public AbstractionStateCodec(IInfoflowCFG icfg, Abstraction... knownFacts) {
+		this.icfg = icfg;
+		for (Abstraction known : knownFacts) {
+			if (!factIds.containsKey(known))
+				factIds.put(known, facts.size());
+			facts.add(known);
+		}
+		this.nextFactId = knownFacts.length;
+	}
+
+	private static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Malformed number in checkpoint");
+	}
+
+	/**
+	 * Writes a reference to the given object
+	 * @return True if the object has not been written before and the caller
+	 * must write its definition now, otherwise false
+	 */
+	private boolean writeReference(DataOutput out, Object obj) throws IOException {
+		if (obj == null) {
+			writeVarInt(out, REF_NULL);
+			return false;
+		}
+		Integer id = objectIds.get(obj);
+		if (id != null) {
+			writeVarInt(out, id + REF_OFFSET);
+			return false;
+		}
+		objectIds.put(obj, objectIds.size());
+		writeVarInt(out, REF_NEW);
+		return true;
+	}
+
+	/**
+	 * Reads a reference to an object
+	 * @return The index of the referenced object, -1 for null, or -2 if the
+	 * definition of a new object follows. In the latter case, the caller must
+	 * read the definition and register the object using
+	 * {@link #defineObject(int, Object)} at the index returned by
+	 * {@link #reserveObject()}.
+	 */
+	private int readReference(DataInput in) throws IOException {
+		int ref = readVarInt(in);
+		if (ref == REF_NULL)
+			return -1;
+		if (ref == REF_NEW)
+			return -2;
+		if (ref - REF_OFFSET >= objects.size())
+			throw new IOException("Invalid object reference in checkpoint");
+		return ref - REF_OFFSET;
+	}
+
+	private int reserveObject() {
+		objects.add(null);
+		return objects.size() - 1;
+	}
+
+	private <T> T defineObject(int slot, T obj) {
+		objects.set(slot, obj);
+		return obj;
+	}
+
+	@Override
+	public void writeMethod(DataOutput out, SootMethod method) throws IOException {
+		if (writeReference(out, method))
+			out.writeUTF(method.getSignature());
+	}
+
+	@Override
+	public SootMethod readMethod(DataInput in) throws IOException {
+		int ref = readReference(in);
+		if (ref == -1)
+			return null;
+		if (ref >= 0)
+			return (SootMethod) objects.get(ref);
+
+		int slot = reserveObject();
+		String signature = in.readUTF();
+		if (!Scene.v().containsMethod(signature))
+			throw new IOException("Method " + signature + " from checkpoint not found in scene");
+		return defineObject(slot, Scene.v().getMethod(signature));
+	}
+
+	@Override
+	public void writeNode(DataOutput out, Unit node) throws IOException {
+		if (!writeReference(out, node))
+			return;
+
+		SootMethod method = icfg.getMethodOf(node);
+		if (method == null)
+			throw new IOException("Statement " + node + " is not part of any method");
+		Map<Unit, Integer> indices = unitIndices.get(method);
+		if (indices == null) {
+			indices = new IdentityHashMap<>();
+			int idx = 0;
+			for (Unit u : method.getActiveBody().getUnits())
+				indices.put(u, idx++);
+			unitIndices.put(method, indices);
+		}
+		Integer idx = indices.get(node);
+		if (idx == null)
+			throw new IOException("Statement " + node + " is not part of the body of " + method);
+
+		writeMethod(out, method);
+		writeVarInt(out, idx);
+	}
+
+	@Override
+	public Unit readNode(DataInput in) throws IOException {
+		int ref = readReference(in);
+		if (ref == -1)
+			return null;
+		if (ref >= 0)
+			return (Unit) objects.get(ref);
+
+		int slot = reserveObject();
+		SootMethod method = readMethod(in);
+		int idx = readVarInt(in);
+		Unit[] methodUnits = units.get(method);
+		if (methodUnits == null) {
+			if (!method.hasActiveBody())
+				throw new IOException("Method " + method + " from checkpoint has no body");
+			methodUnits = method.getActiveBody().getUnits().toArray(new Unit[0]);
+			units.put(method, methodUnits);
+		}
+		if (idx >= methodUnits.length)
+			throw new IOException("Body of " + method + " does not match the checkpoint");
+		return defineObject(slot, methodUnits[idx]);
+	}
+
+	/**
+	 * Finds the method whose body declares the given local. The index of all
+	 * locals is built when it is first needed.
+	 */
+	private SootMethod getOwner(Local local) {
+		if (localOwners == null) {
+			localOwners = new IdentityHashMap<>();
+			for (SootClass sc : new ArrayList<>(Scene.v().getClasses()))
+				for (SootMethod sm : new ArrayList<>(sc.getMethods()))
+					if (sm.hasActiveBody())
+						for (Local l : sm.getActiveBody().getLocals())
+							localOwners.put(l, sm);
+		}
+		return localOwners.get(local);
+	}
+
+	private void writeLocal(DataOutput out, Local local) throws IOException {
+		if (!writeReference(out, local))
+			return;
+
+		SootMethod method = getOwner(local);
+		if (method == null)
+			throw new IOException("Local " + local + " is not part of any method body");
+		writeMethod(out, method);
+		out.writeUTF(local.getName());
+	}
+
+	private Local readLocal(DataInput in) throws IOException {
+		int ref = readReference(in);
+		if (ref == -1)
+			return null;
+		if (ref >= 0)
+			return (Local) objects.get(ref);
+
+		int slot = reserveObject();
+		SootMethod method = readMethod(in);
+		String name = in.readUTF();
+		Body body = method.getActiveBody();
+		for (Local local : body.getLocals())
+			if (local.getName().equals(name))
+				return defineObject(slot, local);
+		throw new IOException("Local " + name + " from checkpoint not found in " + method);
+	}
+
+	private void writeField(DataOutput out, SootField field) throws IOException {
+		if (writeReference(out, field))
+			out.writeUTF(field.getSignature());
+	}
+
+	private SootField readField(DataInput in) throws IOException {
+		int ref = readReference(in);
+		if (ref == -1)
+			return null;
+		if (ref >= 0)
+			return (SootField) objects.get(ref);
+
+		int slot = reserveObject();
+		String signature = in.readUTF();
+		SootField field = Scene.v().grabField(signature);
+		if (field == null)
+			throw new IOException("Field " + signature + " from checkpoint not found in scene");
+		return defineObject(slot, field);
+	}
+
+	private void writeType(DataOutput out, Type type) throws IOException {
+		if (writeReference(out, type))
+			out.writeUTF(type.toString());
+	}
+
+	private Type readType(DataInput in) throws IOException {
+		int ref = readReference(in);
+		if (ref == -1)
+			return null;
+		if (ref >= 0)
+			return (Type) objects.get(ref);
+
+		int slot = reserveObject();
+		String name = in.readUTF();
+		if (name.equals(NullType.v().toString()))
+			return defineObject(slot, NullType.v());
+		return defineObject(slot, Scene.v().getType(name));
+	}
+
+	/**
+	 * Writes the given access path
+	 * @param out The output to write to
+	 * @param ap The access path to write
+	 * @throws IOException Thrown if the access path cannot be written
+	 */
+	public void writeAccessPath(DataOutput out, AccessPath ap) throws IOException {
+		if (!writeReference(out, ap))
+			return;
+
+		if (ap == AccessPath.getZeroAccessPath()) {
+			out.writeByte(AP_ZERO);
+			return;
+		}
+		if (ap == AccessPath.getEmptyAccessPath()) {
+			out.writeByte(AP_EMPTY);
+			return;
+		}
+
+		out.writeByte(AP_REGULAR);
+		writeLocal(out, ap.getPlainValue());
+		SootField[] fields = ap.getFields();
+		writeVarInt(out, fields == null ? 0 : fields.length + 1);
+		if (fields != null)
+			for (SootField field : fields)
+				writeField(out, field);
+		writeType(out, ap.getBaseType());
+		Type[] fieldTypes = ap.getFieldTypes();
+		writeVarInt(out, fieldTypes == null ? 0 : fieldTypes.length + 1);
+		if (fieldTypes != null)
+			for (Type fieldType : fieldTypes)
+				writeType(out, fieldType);
+		out.writeByte((ap.getTaintSubFields() ? AP_FLAG_TAINT_SUB_FIELDS : 0)
+				| (ap.isCutOffApproximation() ? AP_FLAG_CUT_OFF : 0)
+				| (ap.getCanHaveImmutableAliases() ? AP_FLAG_IMMUTABLE_ALIASES : 0));
+		out.writeByte(ap.getArrayTaintType().ordinal());
+	}
+
+	/**
+	 * Reads an access path that was written with
+	 * {@link #writeAccessPath(DataOutput, AccessPath)}
+	 * @param in The input to read from
+	 * @return The access path that was read
+	 * @throws IOException Thrown if the access path cannot be read or refers
+	 * to objects that do not exist in the current scene
+	 */
+	public AccessPath readAccessPath(DataInput in) throws IOException {
+		int ref = readReference(in);
+		if (ref == -1)
+			return null;
+		if (ref >= 0)
+			return (AccessPath) objects.get(ref);
+
+		int slot = reserveObject();
+		int kind = in.readByte();
+		if (kind == AP_ZERO)
+			return defineObject(slot, AccessPath.getZeroAccessPath());
+		if (kind == AP_EMPTY)
+			return defineObject(slot, AccessPath.getEmptyAccessPath());
+
+		Local value = readLocal(in);
+		SootField[] fields = null;
+		int fieldCount = readVarInt(in);
+		if (fieldCount > 0) {
+			fields = new SootField[fieldCount - 1];
+			for (int i = 0; i < fields.length; i++)
+				fields[i] = readField(in);
+		}
+		Type baseType = readType(in);
+		Type[] fieldTypes = null;
+		int fieldTypeCount = readVarInt(in);
+		if (fieldTypeCount > 0) {
+			fieldTypes = new Type[fieldTypeCount - 1];
+			for (int i = 0; i < fieldTypes.length; i++)
+				fieldTypes[i] = readType(in);
+		}
+		int flags = in.readByte();
+		ArrayTaintType arrayTaintType = ArrayTaintType.values()[in.readByte()];
+		return defineObject(slot, new AccessPath(value, fields, baseType, fieldTypes,
+				(flags & AP_FLAG_TAINT_SUB_FIELDS) != 0, (flags & AP_FLAG_CUT_OFF) != 0, arrayTaintType,
+				(flags & AP_FLAG_IMMUTABLE_ALIASES) != 0));
+	}
+
+	private void writeSourceContext(DataOutput out, SourceContext context) throws IOException {
+		if (!writeReference(out, context))
+			return;
+
+		writeAccessPath(out, context.getAccessPath());
+		writeNode(out, context.getStmt());
+		writeUserData(out, context.getUserData());
+	}
+
+	/**
+	 * Writes the user data of a source. User data that is not
+	 * {@link Serializable} is replaced with null.
+	 * @param out The output to write to
+	 * @param userData The user data to write
+	 * @throws IOException Thrown if the user data cannot be written
+	 */
+	public void writeUserData(DataOutput out, Object userData) throws IOException {
+		// We can only retain user data that can be serialized
+		if (userData instanceof Serializable) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+				oos.writeObject(userData);
+			}
+			byte[] data = bos.toByteArray();
+			writeVarInt(out, data.length + 1);
+			out.write(data);
+		} else {
+			if (userData != null && !userDataDropped) {
+				logger.warn("User data of type {} cannot be serialized and is not retained",
+						userData.getClass().getName());
+				userDataDropped = true;
+			}
+			writeVarInt(out, 0);
+		}
+	}
+
+	private SourceContext readSourceContext(DataInput in) throws IOException {
+		int ref = readReference(in);
+		if (ref == -1)
+			return null;
+		if (ref >= 0)
+			return (SourceContext) objects.get(ref);
+
+		int slot = reserveObject();
+		AccessPath ap = readAccessPath(in);
+		Stmt stmt = (Stmt) readNode(in);
+		Object userData = readUserData(in);
+		return defineObject(slot, new SourceContext(ap, stmt, userData));
+	}
+
+	/**
+	 * Reads user data that was written with
+	 * {@link #writeUserData(DataOutput, Object)}
+	 * @param in The input to read from
+	 * @return The user data that was read
+	 * @throws IOException Thrown if the user data cannot be read
+	 */
+	public Object readUserData(DataInput in) throws IOException {
+		int dataLength = readVarInt(in);
+		if (dataLength == 0)
+			return null;
+
+		byte[] data = new byte[dataLength - 1];
+		in.readFully(data);
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+			return ois.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Could not restore user data", e);
+		}
+	}
+
+	/**
+	 * Gets the number of the given fact. Facts that have not been seen before
+	 * are queued for writing.
+	 */
+	private int getFactId(Abstraction fact) {
+		Integer id = factIds.get(fact);
+		if (id == null) {
+			id = nextFactId++;
+			factIds.put(fact, id);
+			unwrittenFacts.add(fact);
+		}
+		return id;
+	}
+
+	private void writeFactReference(DataOutput out, Abstraction fact) throws IOException {
+		writeVarInt(out, fact == null ? 0 : getFactId(fact) + 1);
+	}
+
+	@Override
+	public void writeFact(DataOutput out, Abstraction fact) throws IOException {
+		writeFactReference(out, fact);
+
+		// Write all facts that have been referenced, but not written so far.
+		// Every fact record may reference further facts, which are appended
+		// to the queue. Since the numbers are assigned in queue order, the
+		// records are written in the order of their numbers.
+		while (!unwrittenFacts.isEmpty()) {
+			Abstraction abs = unwrittenFacts.poll();
+			out.writeBoolean(true);
+
+			out.writeByte((abs.getExceptionThrown() ? FLAG_EXCEPTION_THROWN : 0)
+					| (abs.isImplicit() ? FLAG_IMPLICIT : 0)
+					| (abs.dependsOnCutAP() ? FLAG_DEPENDS_ON_CUT_AP : 0));
+			writeAccessPath(out, abs.getAccessPath());
+			writeSourceContext(out, abs.getSourceContext());
+			writeNode(out, abs.getCurrentStmt());
+			writeNode(out, abs.getCorrespondingCallSite());
+			writeNode(out, abs.getActivationUnit());
+
+			List<UnitContainer> postdominators = abs.getPostdominators();
+			writeVarInt(out, postdominators == null ? 0 : postdominators.size() + 1);
+			if (postdominators != null)
+				for (UnitContainer postdom : postdominators) {
+					writeNode(out, postdom.getUnit());
+					writeMethod(out, postdom.getMethod());
+				}
+
+			writeFactReference(out, abs.getPredecessor());
+			Set<Abstraction> neighbors = abs.getNeighbors();
+			if (neighbors == null)
+				writeVarInt(out, 0);
+			else {
+				// Neighbors can only be added while edges are being processed,
+				// so we take a snapshot to be safe
+				List<Abstraction> nbs;
+				synchronized (abs) {
+					nbs = new ArrayList<>(neighbors);
+				}
+				writeVarInt(out, nbs.size() + 1);
+				for (Abstraction nb : nbs)
+					writeFactReference(out, nb);
+			}
+		}
+		out.writeBoolean(false);
+	}
+
+	@Override
+	public Abstraction readFact(DataInput in) throws IOException {
+		int factRef = readVarInt(in);
+
+		// Read the records of the new facts. Their links may point to facts
+		// whose records come later in this batch, so we resolve them at the
+		// end.
+		int firstNew = facts.size();
+		List<int[]> links = new ArrayList<>();
+		while (in.readBoolean()) {
+			int flags = in.readByte();
+			AccessPath ap = readAccessPath(in);
+			SourceContext sourceContext = readSourceContext(in);
+			Stmt currentStmt = (Stmt) readNode(in);
+			Stmt correspondingCallSite = (Stmt) readNode(in);
+			Unit activationUnit = readNode(in);
+
+			List<UnitContainer> postdominators = null;
+			int postdomCount = readVarInt(in);
+			if (postdomCount > 0) {
+				postdominators = new ArrayList<>(postdomCount - 1);
+				for (int i = 0; i < postdomCount - 1; i++) {
+					Unit unit = readNode(in);
+					SootMethod method = readMethod(in);
+					postdominators.add(unit != null ? new UnitContainer(unit) : new UnitContainer(method));
+				}
+			}
+
+			// The predecessor comes first, followed by the neighbors
+			int predecessor = readVarInt(in);
+			int neighborCount = readVarInt(in);
+			int[] factLinks = new int[neighborCount == 0 ? 1 : neighborCount];
+			factLinks[0] = predecessor;
+			for (int i = 1; i < factLinks.length; i++)
+				factLinks[i] = readVarInt(in);
+			links.add(factLinks);
+
+			facts.add(new Abstraction(ap, sourceContext, currentStmt, correspondingCallSite, activationUnit,
+					(flags & FLAG_EXCEPTION_THROWN) != 0, postdominators, (flags & FLAG_IMPLICIT) != 0,
+					(flags & FLAG_DEPENDS_ON_CUT_AP) != 0));
+		}
+
+		// Restore the predecessors and neighbors
+		for (int i = 0; i < links.size(); i++) {
+			int[] factLinks = links.get(i);
+			Abstraction predecessor = getFact(factLinks[0]);
+			Set<Abstraction> neighbors = null;
+			if (factLinks.length > 1) {
+				neighbors = Sets.newIdentityHashSet();
+				for (int j = 1; j < factLinks.length; j++)
+					neighbors.add(getFact(factLinks[j]));
+			}
+			facts.get(firstNew + i).restoreLinks(predecessor, neighbors);
+		}
+		return getFact(factRef);
+	}
+
+	private Abstraction getFact(int ref) throws IOException {
+		if (ref == 0)
+			return null;
+		if (ref - 1 >= facts.size())
+			throw new IOException("Invalid fact reference in checkpoint");
+		return facts.get(ref - 1);
+	}
+
+}
@@ -19,11 +19,13 @@ import soot.jimple.infoflow.InfoflowConfiguration;
 import soot.jimple.infoflow.collect.ConcurrentHashSet;
 import soot.jimple.infoflow.collect.MyConcurrentHashMap;
 import soot.jimple.infoflow.data.AccessPath.ArrayTaintType;
+import soot.jimple.infoflow.memory.IMemoryPressureHandler;
 import soot.jimple.infoflow.util.TypeUtils;
 
-public class AccessPathFactory {
+public class AccessPathFactory implements IMemoryPressureHandler {
 	
 	private final InfoflowConfiguration config;
+	private volatile int accessPathLengthLimit = -1;
 	
 	/**
 	 * Specialized pair class for field bases
@@ -97,6 +99,31 @@ public class AccessPathFactory {
 		this.config = config;
 	}
 	
+	/**
+	 * Gets the maximum access path length to use for new access paths. This
+	 * may be shorter than the configured one if the memory watcher has asked
+	 * for a reduction.
+	 * @return The maximum length of new access paths
+	 */
+	public int getEffectiveAccessPathLength() {
+		int configLength = config.getAccessPathLength();
+		return accessPathLengthLimit < 0 ? configLength : Math.min(configLength, accessPathLengthLimit);
+	}
+	
+	@Override
+	public String reduceMemoryConsumption(MemoryReductionStep step) {
+		if (step != MemoryReductionStep.ReduceAccessPathLength)
+			return null;
+		
+		// We never go below one field, because a length of zero disables the
+		// field tracking altogether
+		int curLength = getEffectiveAccessPathLength();
+		if (curLength <= 1)
+			return null;
+		accessPathLengthLimit = Math.max(1, curLength / 2);
+		return "Reduced the access path length from " + curLength + " to " + accessPathLengthLimit;
+	}
+	
 	private MyConcurrentHashMap<Type, Set<BasePair>> baseRegister
 			= new MyConcurrentHashMap<Type, Set<BasePair>>();
 	
@@ -196,7 +223,7 @@ public class AccessPathFactory {
 		
 		// If we don't want to track fields at all, we can cut the field
 		// processing short
-		if (config.getAccessPathLength() == 0) {
+		if (getEffectiveAccessPathLength() == 0) {
 			fields = null;
 			fieldTypes = null;
 		}
@@ -384,7 +411,7 @@ public class AccessPathFactory {
 		// Cut the fields at the maximum access path length. If this happens,
 		// we must always add a star
 		if (fields != null) {
-			int fieldNum = Math.min(config.getAccessPathLength(), fields.length);
+			int fieldNum = Math.min(getEffectiveAccessPathLength(), fields.length);
 			if (fields.length > fieldNum) {
 				taintSubFields = true;
 				cutOffApproximation = true;
@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import soot.Unit;
 import soot.jimple.ReturnStmt;
 import soot.jimple.ReturnVoidStmt;
+import soot.jimple.infoflow.memory.IMemoryPressureHandler;
 import soot.jimple.infoflow.solver.memory.IMemoryManager;
 
 /**
@@ -18,7 +19,8 @@ import soot.jimple.infoflow.solver.memory.IMemoryManager;
  * @author Steven Arzt
  *
  */
-public class FlowDroidMemoryManager implements IMemoryManager<Abstraction, Unit> {
+public class FlowDroidMemoryManager implements IMemoryManager<Abstraction, Unit>,
+		IMemoryPressureHandler {
 	
     private final Logger logger = LoggerFactory.getLogger(getClass());
     
@@ -78,7 +80,7 @@ public class FlowDroidMemoryManager implements IMemoryManager<Abstraction, Unit>
 	private AtomicInteger reuseCounter = new AtomicInteger();
 	
 	private final boolean tracingEnabled;
-	private final PathDataErasureMode erasePathData;
+	private volatile PathDataErasureMode erasePathData;
 	private boolean useAbstractionCache = false;
 	
 	/**
@@ -278,6 +280,23 @@ public class FlowDroidMemoryManager implements IMemoryManager<Abstraction, Unit>
 		this.useAbstractionCache = useAbstractionCache;
 	}
 
+	@Override
+	public String reduceMemoryConsumption(MemoryReductionStep step) {
+		switch (step) {
+		case FlushCaches:
+			apCache.clear();
+			absCache.clear();
+			return "Flushed the access path and abstraction caches";
+		case ErasePathData:
+			if (erasePathData == PathDataErasureMode.EraseAll)
+				return null;
+			erasePathData = PathDataErasureMode.EraseAll;
+			return "Erasing path data from new abstractions";
+		default:
+			return null;
+		}
+	}
+
 	@Override
 	public boolean isEssentialJoinPoint(Abstraction abs, Unit relatedCallSite) {
 		return relatedCallSite != null && erasePathData != PathDataErasureMode.EraseAll;
@@ -0,0 +1,395 @@
+package soot.jimple.infoflow.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.Local;
+import soot.SootField;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
+
+/**
+ * Index for finding abstractions at sinks whose access paths entail each
+ * other. Only abstractions that reach the same sink statement, have the same
+ * implicit flag, and come from the same source context can entail each
+ * other, so the index keeps a separate group for every such combination.
+ * Every group stores its abstractions in a prefix tree over the base value
+ * and the fields of their access paths. The candidates are looked up in the
+ * tree, but the final decision is always taken by
+ * {@link AccessPath#entails(AccessPath)}.
+ *
+ */
+public class SinkEntailmentIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(SinkEntailmentIndex.class);
+
+	/**
+	 * The key that identifies a group of abstractions that can entail each
+	 * other. The key uses the same equality as {@link AbstractionAtSink}, so
+	 * equal abstractions at sinks always end up in the same group.
+	 */
+	private static class GroupKey {
+
+		private final Stmt sinkStmt;
+		private final boolean implicit;
+		private final SourceContext sourceContext;
+
+		private GroupKey(AbstractionAtSink abs) {
+			this.sinkStmt = abs.getSinkStmt();
+			this.implicit = abs.getAbstraction().isImplicit();
+			this.sourceContext = abs.getAbstraction().getSourceContext();
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + ((sinkStmt == null) ? 0 : sinkStmt.hashCode());
+			result = prime * result + (implicit ? 1231 : 1237);
+			result = prime * result + ((sourceContext == null) ? 0 : sourceContext.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			GroupKey other = (GroupKey) obj;
+			if (implicit != other.implicit)
+				return false;
+			if (sinkStmt == null) {
+				if (other.sinkStmt != null)
+					return false;
+			} else if (!sinkStmt.equals(other.sinkStmt))
+				return false;
+			if (sourceContext == null) {
+				if (other.sourceContext != null)
+					return false;
+			} else if (!sourceContext.equals(other.sourceContext))
+				return false;
+			return true;
+		}
+
+	}
+
+	/**
+	 * Checks whether the first abstraction entails the second one. Only
+	 * abstractions with the very same source context object can entail each
+	 * other, equal source contexts from different sources are kept apart.
+	 * @param entailing The abstraction that may entail the other one
+	 * @param entailed The abstraction that may be entailed
+	 * @return True if the first abstraction entails the second one, otherwise
+	 * false
+	 */
+	private static boolean entails(AbstractionAtSink entailing, AbstractionAtSink entailed) {
+		return entailing != entailed
+				&& entailing.getAbstraction().getSourceContext() == entailed.getAbstraction().getSourceContext()
+				&& entailing.getAbstraction().getAccessPath().entails(entailed.getAbstraction().getAccessPath());
+	}
+
+	/**
+	 * A node in the prefix tree of a group. The node holds all abstractions
+	 * whose access path ends at this node.
+	 */
+	private static class Node {
+
+		private Map<SootField, Node> children = null;
+		private List<AbstractionAtSink> entries = null;
+
+		private Node getOrCreateChild(SootField field) {
+			if (children == null)
+				children = new HashMap<>();
+			Node child = children.get(field);
+			if (child == null) {
+				child = new Node();
+				children.put(field, child);
+			}
+			return child;
+		}
+
+		private Node getChild(SootField field) {
+			return children == null ? null : children.get(field);
+		}
+
+		/**
+		 * Collects all abstractions in the subtree rooted at this node
+		 * @param collected The list that receives the abstractions
+		 */
+		private void collectSubtree(List<AbstractionAtSink> collected) {
+			if (entries != null)
+				collected.addAll(entries);
+			if (children != null)
+				for (Node child : children.values())
+					child.collectSubtree(collected);
+		}
+
+	}
+
+	/**
+	 * A group of abstractions that can entail each other. Groups are not
+	 * thread-safe. Callers must synchronize on the group object.
+	 */
+	public static class Group {
+
+		private final Map<Local, Node> roots = new HashMap<>();
+		private int size = 0;
+
+		/**
+		 * Finds the node at which the access path of the given abstraction
+		 * ends
+		 * @param abs The abstraction to look up
+		 * @param create True if missing nodes shall be created, otherwise false
+		 * @return The node for the given abstraction, or null if no such node
+		 * exists and create is false
+		 */
+		private Node getNode(AbstractionAtSink abs, boolean create) {
+			AccessPath ap = abs.getAbstraction().getAccessPath();
+			Node node = roots.get(ap.getPlainValue());
+			if (node == null) {
+				if (!create)
+					return null;
+				node = new Node();
+				roots.put(ap.getPlainValue(), node);
+			}
+			if (ap.getFields() != null)
+				for (SootField field : ap.getFields()) {
+					node = create ? node.getOrCreateChild(field) : node.getChild(field);
+					if (node == null)
+						return null;
+				}
+			return node;
+		}
+
+		/**
+		 * Adds the given abstraction to this group
+		 * @param abs The abstraction to add
+		 */
+		public void add(AbstractionAtSink abs) {
+			// Empty access paths neither entail nor are entailed
+			if (abs.getAbstraction().getAccessPath().isEmpty())
+				return;
+
+			Node node = getNode(abs, true);
+			if (node.entries == null)
+				node.entries = new ArrayList<>(2);
+			node.entries.add(abs);
+			size++;
+		}
+
+		/**
+		 * Removes the given abstraction from this group
+		 * @param abs The abstraction to remove
+		 * @return True if the abstraction was part of this group, otherwise
+		 * false
+		 */
+		public boolean remove(AbstractionAtSink abs) {
+			Node node = getNode(abs, false);
+			if (node == null || node.entries == null)
+				return false;
+			for (int i = 0; i < node.entries.size(); i++)
+				if (node.entries.get(i) == abs) {
+					node.entries.remove(i);
+					size--;
+					return true;
+				}
+			return false;
+		}
+
+		/**
+		 * Finds an abstraction in this group whose access path entails the
+		 * access path of the given abstraction
+		 * @param abs The abstraction for which to find an entailing one
+		 * @return An abstraction other than the given one that entails it, or
+		 * null if there is no such abstraction
+		 */
+		public AbstractionAtSink findEntailing(AbstractionAtSink abs) {
+			AccessPath ap = abs.getAbstraction().getAccessPath();
+			if (ap.isEmpty())
+				return null;
+			Node node = roots.get(ap.getPlainValue());
+			if (node == null)
+				return null;
+
+			// Without fields, every access path on the same base is a
+			// candidate. Otherwise, only the prefixes of our own access path
+			// can entail it.
+			List<AbstractionAtSink> candidates = new ArrayList<>();
+			if (ap.getFields() == null)
+				node.collectSubtree(candidates);
+			else {
+				if (node.entries != null)
+					candidates.addAll(node.entries);
+				for (SootField field : ap.getFields()) {
+					node = node.getChild(field);
+					if (node == null)
+						break;
+					if (node.entries != null)
+						candidates.addAll(node.entries);
+				}
+			}
+
+			for (AbstractionAtSink candidate : candidates)
+				if (entails(candidate, abs))
+					return candidate;
+			return null;
+		}
+
+		/**
+		 * Removes all abstractions from this group whose access paths are
+		 * entailed by the access path of the given abstraction
+		 * @param abs The abstraction that may entail others
+		 * @return The abstractions that have been removed
+		 */
+		public List<AbstractionAtSink> removeEntailedBy(AbstractionAtSink abs) {
+			AccessPath ap = abs.getAbstraction().getAccessPath();
+			if (ap.isEmpty())
+				return Collections.emptyList();
+			Node root = roots.get(ap.getPlainValue());
+			if (root == null)
+				return Collections.emptyList();
+
+			// Access paths without fields are candidates for everything, and
+			// everything below our own node is a candidate for us
+			List<AbstractionAtSink> candidates = new ArrayList<>();
+			if (ap.getFieldCount() == 0)
+				root.collectSubtree(candidates);
+			else {
+				if (root.entries != null)
+					candidates.addAll(root.entries);
+				Node node = getNode(abs, false);
+				if (node != null)
+					node.collectSubtree(candidates);
+			}
+
+			List<AbstractionAtSink> removed = null;
+			for (AbstractionAtSink candidate : candidates)
+				if (entails(abs, candidate)) {
+					remove(candidate);
+					if (removed == null)
+						removed = new ArrayList<>();
+					removed.add(candidate);
+				}
+			return removed == null ? Collections.<AbstractionAtSink>emptyList() : removed;
+		}
+
+		/**
+		 * Gets the number of abstractions in this group
+		 * @return The number of abstractions in this group
+		 */
+		public int size() {
+			return size;
+		}
+
+	}
+
+	private final ConcurrentMap<GroupKey, Group> groups = new ConcurrentHashMap<>();
+
+	/**
+	 * Gets the group into which the given abstraction belongs. Callers must
+	 * synchronize on the group before accessing it.
+	 * @param abs The abstraction for which to get the group
+	 * @return The group of the given abstraction
+	 */
+	public Group getGroup(AbstractionAtSink abs) {
+		GroupKey key = new GroupKey(abs);
+		Group group = groups.get(key);
+		if (group == null) {
+			Group newGroup = new Group();
+			group = groups.putIfAbsent(key, newGroup);
+			if (group == null)
+				group = newGroup;
+		}
+		return group;
+	}
+
+	/**
+	 * Removes all abstractions from the given set that are entailed by another
+	 * abstraction in the set. The abstractions are checked in the iteration
+	 * order of the set. An abstraction is removed if one of the abstractions
+	 * that have not been removed so far entails it. The groups are independent
+	 * of each other and are pruned in parallel.
+	 * @param res The set from which to remove the entailed abstractions
+	 * @param executor The executor in which to prune the groups, or null to
+	 * prune them on the current thread. The executor is always shut down
+	 * afterwards, even if there is nothing to prune.
+	 */
+	public static void removeEntailed(Set<AbstractionAtSink> res, InterruptableExecutor executor) {
+		try {
+			if (res == null || res.size() < 2)
+				return;
+
+			// Split the results into groups
+			Map<GroupKey, List<AbstractionAtSink>> groupedResults = new HashMap<>();
+			for (AbstractionAtSink abs : res) {
+				GroupKey key = new GroupKey(abs);
+				List<AbstractionAtSink> members = groupedResults.get(key);
+				if (members == null) {
+					members = new ArrayList<>();
+					groupedResults.put(key, members);
+				}
+				members.add(abs);
+			}
+
+			// Prune the groups
+			final Set<AbstractionAtSink> entailed = Collections.newSetFromMap(
+					new ConcurrentHashMap<AbstractionAtSink, Boolean>());
+			for (final List<AbstractionAtSink> members : groupedResults.values()) {
+				if (members.size() < 2)
+					continue;
+				Runnable task = new Runnable() {
+
+					@Override
+					public void run() {
+						pruneGroup(members, entailed);
+					}
+
+				};
+				if (executor == null)
+					task.run();
+				else
+					executor.execute(task);
+			}
+			if (executor != null) {
+				try {
+					executor.awaitCompletion();
+				} catch (InterruptedException e) {
+					logger.error("Could not wait for entailment pruning to complete", e);
+				}
+			}
+
+			for (AbstractionAtSink abs : entailed)
+				res.remove(abs);
+		} finally {
+			if (executor != null)
+				executor.shutdown();
+		}
+	}
+
+	/**
+	 * Finds the entailed abstractions in a single group
+	 * @param members The abstractions in the group
+	 * @param entailed The set that receives the entailed abstractions
+	 */
+	private static void pruneGroup(List<AbstractionAtSink> members, Set<AbstractionAtSink> entailed) {
+		Group group = new Group();
+		for (AbstractionAtSink abs : members)
+			group.add(abs);
+		for (AbstractionAtSink abs : members)
+			if (group.findEntailing(abs) != null) {
+				group.remove(abs);
+				entailed.add(abs);
+			}
+	}
+
+}
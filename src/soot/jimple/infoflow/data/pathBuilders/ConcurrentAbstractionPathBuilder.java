@@ -3,20 +3,28 @@ package soot.jimple.infoflow.data.pathBuilders;
 import java.util.HashSet;
 import java.util.Set;
 
+import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowConfiguration;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
+import soot.jimple.infoflow.metrics.AnalysisEventRecorder;
+import soot.jimple.infoflow.metrics.IAnalysisEventListener.TaskKind;
 import soot.jimple.infoflow.results.InfoflowResults;
 import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
 import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
 
 public abstract class ConcurrentAbstractionPathBuilder extends AbstractAbstractionPathBuilder {
 	
-    protected final InfoflowResults results = new InfoflowResults();
+    protected final InfoflowResults results = new InfoflowResults(icfg);
 
     private final InterruptableExecutor executor;
 	private Set<IMemoryBoundedSolverStatusNotification> notificationListeners = new HashSet<>();
 	private boolean killFlag = false;
+	
+	private AnalysisEventRecorder eventRecorder = null;
+	
+	private volatile int sinkAbstractionCount = 0;
+	private volatile int scheduledSinkAbstractionCount = 0;
 
     public ConcurrentAbstractionPathBuilder(IInfoflowCFG icfg, InfoflowConfiguration config, 
     		InterruptableExecutor executor, boolean reconstructPaths) {
@@ -38,6 +46,8 @@ public abstract class ConcurrentAbstractionPathBuilder extends AbstractAbstracti
 			return;
 		
     	logger.info("Obtainted {} connections between sources and sinks", res.size());
+    	sinkAbstractionCount = res.size();
+    	scheduledSinkAbstractionCount = 0;
     	
 		// Notify the listeners that the solver has been started
 		for (IMemoryBoundedSolverStatusNotification listener : notificationListeners)
@@ -55,6 +65,7 @@ public abstract class ConcurrentAbstractionPathBuilder extends AbstractAbstracti
     		
     		// Schedule the main abstraction
     		logger.info("Building path " + ++curResIdx + "..");
+    		scheduledSinkAbstractionCount = curResIdx;
     		Runnable task = getTaintPathTask(abs);
     		if (task != null)
     			executor.execute(task);
@@ -101,6 +112,24 @@ public abstract class ConcurrentAbstractionPathBuilder extends AbstractAbstracti
 	public InfoflowResults getResults() {
 		return this.results;
 	}
+	
+	/**
+	 * Gets the number of abstractions at sinks for which paths are being built
+	 * in the current run
+	 * @return The number of abstractions at sinks to process
+	 */
+	public int getSinkAbstractionCount() {
+		return this.sinkAbstractionCount;
+	}
+	
+	/**
+	 * Gets the number of abstractions at sinks for which the path building
+	 * has already been scheduled in the current run
+	 * @return The number of abstractions at sinks that have been scheduled
+	 */
+	public int getScheduledSinkAbstractionCount() {
+		return this.scheduledSinkAbstractionCount;
+	}
 
 	@Override
 	public void forceTerminate() {
@@ -109,6 +138,37 @@ public abstract class ConcurrentAbstractionPathBuilder extends AbstractAbstracti
 		logger.warn("Path reconstruction terminated due to low memory");
 	}
 	
+	/**
+	 * Sets the recorder that shall receive sampled events for the path
+	 * reconstruction tasks
+	 * @param eventRecorder The recorder for the task events
+	 */
+	public void setEventRecorder(AnalysisEventRecorder eventRecorder) {
+		this.eventRecorder = eventRecorder;
+	}
+	
+	/**
+	 * Decides whether the path reconstruction task that is about to run shall
+	 * be sampled
+	 * @return True if the task shall be sampled, otherwise false
+	 */
+	protected boolean sampleTask() {
+		return eventRecorder != null && eventRecorder.sampleTask();
+	}
+	
+	/**
+	 * Records a sampled path reconstruction task
+	 * @param abs The abstraction that was processed by the task
+	 * @param newPaths The number of new paths the task has found
+	 * @param startTime The time at which the task has started, as given by
+	 * System.nanoTime()
+	 */
+	protected void recordSampledTask(Abstraction abs, int newPaths, long startTime) {
+		Stmt stmt = abs.getCurrentStmt();
+		eventRecorder.taskSampled(TaskKind.SourceFinding, stmt == null ? null : icfg.getMethodOf(stmt),
+				newPaths, startTime);
+	}
+	
 	/**
 	 * Schedules the given task for execution
 	 * @param task The task to execute
@@ -51,24 +51,33 @@ public class ContextInsensitivePathBuilder extends ConcurrentAbstractionPathBuil
 		
 		@Override
 		public void run() {
+			final long startTime = sampleTask() ? System.nanoTime() : -1;
 			final Set<SourceContextAndPath> paths = pathCache.get(abstraction);
 			final Abstraction pred = abstraction.getPredecessor();
 			
+			int newPaths = 0;
 			if (pred != null) {
 				for (SourceContextAndPath scap : paths) {						
 					// Process the predecessor
-					if (processPredecessor(scap, pred))
+					if (processPredecessor(scap, pred)) {
 						// Schedule the predecessor
 						scheduleDependentTask(new SourceFindingTask(pred));
+						newPaths++;
+					}
 					
 					// Process the predecessor's neighbors
 					if (pred.getNeighbors() != null)
 						for (Abstraction neighbor : pred.getNeighbors())
-							if (processPredecessor(scap, neighbor))
+							if (processPredecessor(scap, neighbor)) {
 								// Schedule the predecessor
 								scheduleDependentTask(new SourceFindingTask(neighbor));
+								newPaths++;
+							}
 				}
 			}
+			
+			if (startTime >= 0)
+				recordSampledTask(abstraction, newPaths, startTime);
 		}
 
 		private boolean processPredecessor(SourceContextAndPath scap, Abstraction pred) {
@@ -23,7 +23,7 @@ import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
  */
 public class RecursivePathBuilder extends AbstractAbstractionPathBuilder {
 
-    private final InfoflowResults results = new InfoflowResults();
+    private final InfoflowResults results = new InfoflowResults(icfg);
 	private final CountingThreadPoolExecutor executor;
     
 	private static int lastTaskId = 0;
@@ -46,7 +46,8 @@ public interface TaintPropagationHandler {
 	 * @param d1 The abstraction at the beginning of the current method
 	 * @param incoming The original abstraction from which the outgoing ones
 	 * were computed
-	 * @param outgoing The set of taints being propagated
+	 * @param outgoing The set of taints being propagated. This is a mutable
+	 * copy owned by the handler, so it may be modified and returned.
 	 * @param cfg The interprocedural control flow graph containing the current
 	 * method
 	 * @param type The type of data flow edge being processed
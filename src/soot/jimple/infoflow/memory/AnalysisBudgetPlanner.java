@@ -0,0 +1,201 @@
+package soot.jimple.infoflow.memory;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.infoflow.metrics.AnalysisPhase;
+
+/**
+ * Splits a total time budget across the phases of a data flow analysis.
+ * Every phase receives a share of the remaining budget that is proportional
+ * to its weight among the phases that have not run yet. Since the shares are
+ * always computed from the time that is actually left, the plan adapts
+ * whenever a phase finishes early or overruns its share.
+ * Phases that run repeatedly, e.g., once per source partition, split their
+ * share across the iterations that are still outstanding.
+ *
+ * <p>
+ * The planner only computes the shares. It is up to the caller to enforce
+ * them, e.g., with a {@link FlowDroidTimeoutWatcher}, and to record the
+ * phases that were cut short.
+ *
+ */
+public class AnalysisBudgetPlanner {
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final long totalBudget;
+	private final Map<AnalysisPhase, Integer> weights = new EnumMap<>(AnalysisPhase.class);
+	private final Set<AnalysisPhase> pendingPhases = EnumSet.noneOf(AnalysisPhase.class);
+	private final Map<AnalysisPhase, Integer> pendingIterations = new EnumMap<>(AnalysisPhase.class);
+
+	private long startTime = -1;
+	private final Map<AnalysisPhase, Long> phaseStartTimes = new EnumMap<>(AnalysisPhase.class);
+	private final Map<AnalysisPhase, Long> phaseShares = new EnumMap<>(AnalysisPhase.class);
+
+	/**
+	 * Creates a new instance of the {@link AnalysisBudgetPlanner} class
+	 * @param totalBudget The total time budget in seconds
+	 */
+	public AnalysisBudgetPlanner(long totalBudget) {
+		this.totalBudget = totalBudget * 1000;
+
+		// The solvers usually dominate the runtime, the remaining phases get
+		// what they typically need
+		weights.put(AnalysisPhase.CallgraphConstruction, 15);
+		weights.put(AnalysisPhase.ConstantPropagation, 10);
+		weights.put(AnalysisPhase.ICFGConstruction, 3);
+		weights.put(AnalysisPhase.SourceSinkScan, 2);
+		weights.put(AnalysisPhase.ForwardSolver, 50);
+		weights.put(AnalysisPhase.EntailmentPruning, 2);
+		weights.put(AnalysisPhase.PathReconstruction, 18);
+	}
+
+	/**
+	 * Sets the relative weight of the given phase. Phases with a weight of
+	 * zero are not planned and may use whatever budget is left.
+	 * @param phase The phase for which to set the weight
+	 * @param weight The relative weight of the phase
+	 */
+	public void setPhaseWeight(AnalysisPhase phase, int weight) {
+		if (weight < 0)
+			throw new IllegalArgumentException("Phase weights must not be negative");
+		weights.put(phase, weight);
+	}
+
+	/**
+	 * Starts the clock. All phases with a positive weight are planned.
+	 */
+	public synchronized void start() {
+		startTime = System.currentTimeMillis();
+		pendingPhases.clear();
+		pendingIterations.clear();
+		phaseStartTimes.clear();
+		phaseShares.clear();
+		for (AnalysisPhase phase : weights.keySet())
+			if (weights.get(phase) > 0)
+				pendingPhases.add(phase);
+	}
+
+	/**
+	 * Removes a phase from the plan, because it will not run. Its share is
+	 * distributed among the remaining phases.
+	 * @param phase The phase that will not run
+	 */
+	public synchronized void skipPhase(AnalysisPhase phase) {
+		pendingPhases.remove(phase);
+		pendingIterations.remove(phase);
+	}
+
+	/**
+	 * Announces that the given phase will run the given number of times from
+	 * now on, e.g., once per source partition. The phase is planned again,
+	 * and its share of the remaining budget is split evenly across the
+	 * iterations that are still outstanding.
+	 * @param phase The phase that will run repeatedly
+	 * @param iterations The number of times the phase will still run
+	 */
+	public synchronized void setPhaseIterations(AnalysisPhase phase, int iterations) {
+		Integer weight = weights.get(phase);
+		if (iterations <= 0 || weight == null || weight == 0) {
+			skipPhase(phase);
+			return;
+		}
+		pendingPhases.add(phase);
+		pendingIterations.put(phase, iterations);
+	}
+
+	/**
+	 * Gets the budget in milliseconds that is still left
+	 * @return The remaining budget in milliseconds. This value is never
+	 * negative.
+	 */
+	private long getRemainingMillis() {
+		if (startTime < 0)
+			return totalBudget;
+		return Math.max(0, totalBudget - (System.currentTimeMillis() - startTime));
+	}
+
+	/**
+	 * Gets the budget in seconds that is still left
+	 * @return The remaining budget in seconds
+	 */
+	public synchronized long getRemainingBudget() {
+		return getRemainingMillis() / 1000;
+	}
+
+	/**
+	 * Gets whether the complete budget has been used up
+	 * @return True if no time is left, otherwise false
+	 */
+	public synchronized boolean isExhausted() {
+		return getRemainingMillis() == 0;
+	}
+
+	/**
+	 * Notifies the planner that the given phase starts and computes the share
+	 * of the remaining budget that the phase may use. A phase that runs more
+	 * often than planned gets the share it would have if it were still
+	 * pending, so that it cannot take the budget of the phases that follow.
+	 * @param phase The phase that starts
+	 * @return The time in seconds the phase may use. This value is at least
+	 * one second, so that it can be used as a timeout directly.
+	 */
+	public synchronized long beginPhase(AnalysisPhase phase) {
+		final long remaining = getRemainingMillis();
+		long share = remaining;
+		Integer weight = weights.get(phase);
+		if (weight != null && weight > 0) {
+			int totalWeight = 0;
+			for (AnalysisPhase pending : pendingPhases)
+				totalWeight += weights.get(pending);
+			if (!pendingPhases.contains(phase))
+				totalWeight += weight;
+			share = remaining * weight / totalWeight;
+
+			// The share of the phase covers all of its outstanding iterations
+			Integer iterations = pendingIterations.get(phase);
+			if (iterations != null && iterations > 1)
+				share /= iterations;
+		}
+		phaseStartTimes.put(phase, System.currentTimeMillis());
+		phaseShares.put(phase, share);
+
+		logger.info("Phase {} may use {} of the remaining {} seconds", phase, share / 1000, remaining / 1000);
+		return Math.max(1, share / 1000);
+	}
+
+	/**
+	 * Notifies the planner that the given phase has finished. The time the
+	 * phase did not use, or used in excess of its share, changes the shares
+	 * of the phases that follow.
+	 * @param phase The phase that has finished
+	 */
+	public synchronized void endPhase(AnalysisPhase phase) {
+		Integer iterations = pendingIterations.get(phase);
+		if (iterations != null && iterations > 1)
+			pendingIterations.put(phase, iterations - 1);
+		else {
+			pendingPhases.remove(phase);
+			pendingIterations.remove(phase);
+		}
+		Long phaseStart = phaseStartTimes.remove(phase);
+		Long share = phaseShares.remove(phase);
+		if (phaseStart == null || share == null)
+			return;
+
+		long duration = System.currentTimeMillis() - phaseStart;
+		if (duration > share)
+			logger.warn("Phase {} exceeded its share of {} seconds by {} seconds", phase, share / 1000,
+					(duration - share) / 1000);
+		else
+			logger.info("Phase {} finished {} seconds ahead of plan, {} seconds left in total", phase,
+					(share - duration) / 1000, getRemainingMillis() / 1000);
+	}
+
+}
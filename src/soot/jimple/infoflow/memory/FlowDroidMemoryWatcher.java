@@ -1,16 +1,23 @@
 package soot.jimple.infoflow.memory;
 
 import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import soot.jimple.infoflow.collect.ConcurrentHashSet;
+import soot.jimple.infoflow.memory.IMemoryPressureHandler.MemoryReductionStep;
 import soot.jimple.infoflow.memory.MemoryWarningSystem.OnMemoryThresholdReached;
 import soot.jimple.infoflow.results.InfoflowResults;
 
 /**
- * FlowDroid's implementation of a handler for the memory warning system
+ * FlowDroid's implementation of a handler for the memory warning system. When
+ * the memory threshold is reached, the watcher first tries to move solver
+ * state out of the heap. If that is not enough, it escalates through the
+ * steps defined in {@link MemoryReductionStep}, and only terminates the
+ * solvers as a last resort.
  * 
  * @author Steven Arzt
  *
@@ -20,9 +27,34 @@ public class FlowDroidMemoryWatcher {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 	private final MemoryWarningSystem warningSystem = new MemoryWarningSystem();
 	
+	/**
+	 * The time in milliseconds to wait after a reduction step before checking
+	 * whether it was effective
+	 */
+	private static final long RECHECK_DELAY = 5000;
+	
+	/**
+	 * The interval in milliseconds in which the heap is sampled for
+	 * predictive warnings
+	 */
+	private static final long PREDICTION_SAMPLE_INTERVAL = 250;
+	
+	/**
+	 * The fraction of the heap at which the watcher starts reducing the
+	 * memory consumption by default
+	 */
+	private static final double DEFAULT_WARNING_THRESHOLD = 0.9d;
+	
 	private final Set<IMemoryBoundedSolver> solvers = new ConcurrentHashSet<>();
+	private final Set<IMemoryPressureHandler> pressureHandlers = new ConcurrentHashSet<>();
 	private final InfoflowResults results;
 	
+	private int nextStep = 0;
+	private long heapBeforeDemotion = -1;
+	private Timer recheckTimer = null;
+	private boolean closed = false;
+	private double previousThreshold = -1;
+	
 	/**
 	 * Creates a new instance of the {@link FlowDroidMemoryWatcher} class
 	 */
@@ -40,21 +72,159 @@ public class FlowDroidMemoryWatcher {
 			
 			@Override
 			public void onThresholdReached(long usedMemory, long maxMemory) {
-				// Add the incident to the result object
-				if (results != null)
-					results.addException("Memory threshold reached");
-				
-				// We stop the data flow analysis
-				for (IMemoryBoundedSolver solver : solvers)
-					solver.forceTerminate();
-				logger.warn("Running out of memory, solvers terminated");
+				onMemoryPressure();
 			}
 		
 		});
-		MemoryWarningSystem.setWarningThreshold(0.9d);
+		MemoryWarningSystem.setWarningThreshold(DEFAULT_WARNING_THRESHOLD);
 		this.results = res;
 	}
 	
+	/**
+	 * Enables predictive warnings. The memory watcher then starts with its
+	 * corrective measures when the heap is forecast to be exhausted soon,
+	 * instead of waiting for the memory threshold to be reached. The solvers
+	 * are still only terminated once the threshold has actually been reached.
+	 */
+	public void enablePredictiveWarnings() {
+		warningSystem.enablePredictiveWarnings(PREDICTION_SAMPLE_INTERVAL);
+	}
+	
+	/**
+	 * Limits the heap memory that the analysis may use. The warning threshold
+	 * is lowered to the fraction of the maximum heap size that corresponds to
+	 * the given budget, but it is never raised above its default. The warning
+	 * threshold is global, so the previous value is restored when this memory
+	 * watcher is closed.
+	 * @param budget The memory budget in bytes
+	 */
+	public synchronized void setMemoryBudget(long budget) {
+		double fraction = Math.min(DEFAULT_WARNING_THRESHOLD,
+				(double) budget / Runtime.getRuntime().maxMemory());
+		if (fraction > 0) {
+			if (previousThreshold < 0)
+				previousThreshold = MemoryWarningSystem.getWarningThreshold();
+			MemoryWarningSystem.setWarningThreshold(fraction);
+		}
+	}
+	
+	/**
+	 * Reacts on the memory threshold being reached. This method escalates
+	 * through the available measures until the memory consumption is below
+	 * the threshold again.
+	 */
+	private synchronized void onMemoryPressure() {
+		if (closed)
+			return;
+		
+		// If we can move solver state out of the heap, we try that first,
+		// because it does not affect the precision. Whether this was enough
+		// is checked again later, once the JVM has had a chance to collect
+		// the demoted entries.
+		if (demoteColdEntries()) {
+			scheduleRecheck();
+			return;
+		}
+		
+		// Try the next reduction step that at least one component supports
+		MemoryReductionStep[] steps = MemoryReductionStep.values();
+		while (nextStep < steps.length) {
+			if (applyReductionStep(steps[nextStep++])) {
+				scheduleRecheck();
+				return;
+			}
+		}
+		
+		// If this was an early warning from the forecast, we are not out of
+		// memory yet, so we just keep watching
+		if (!MemoryWarningSystem.isWarningThresholdExceeded()) {
+			logger.warn("No further memory reduction steps available, waiting for the memory threshold");
+			scheduleRecheck();
+			return;
+		}
+		
+		// Add the incident to the result object
+		if (results != null)
+			results.addException("Memory threshold reached");
+		
+		// We stop the data flow analysis
+		for (IMemoryBoundedSolver solver : solvers)
+			solver.forceTerminate();
+		logger.warn("Running out of memory, solvers terminated");
+	}
+	
+	/**
+	 * Applies the given memory reduction step to all registered components
+	 * @param step The step to apply
+	 * @return True if at least one component has applied the step, otherwise
+	 * false
+	 */
+	private boolean applyReductionStep(MemoryReductionStep step) {
+		boolean applied = false;
+		for (IMemoryPressureHandler handler : pressureHandlers) {
+			String description = handler.reduceMemoryConsumption(step);
+			if (description != null) {
+				logger.warn("Running out of memory: {}", description);
+				
+				// Flushed caches are re-computed on demand, so only the
+				// other steps degrade the results
+				if (results != null)
+					results.addDegradation(description, step != MemoryReductionStep.FlushCaches);
+				applied = true;
+			}
+		}
+		return applied;
+	}
+	
+	/**
+	 * Checks again after some time whether the last reduction step was
+	 * sufficient. The memory warning system only notifies us when the
+	 * threshold is crossed, so we would not hear about it if the memory
+	 * consumption never went down. The check relies on the usage after the
+	 * last collection that the JVM has performed on its own, so that garbage
+	 * which has not been collected yet does not count.
+	 */
+	private void scheduleRecheck() {
+		if (recheckTimer == null)
+			recheckTimer = new Timer("FlowDroid memory watcher", true);
+		recheckTimer.schedule(new TimerTask() {
+			
+			@Override
+			public void run() {
+				if (MemoryWarningSystem.isWarningThresholdExceededAfterCollection())
+					onMemoryPressure();
+			}
+			
+		}, RECHECK_DELAY);
+	}
+	
+	/**
+	 * Moves the cold state of all solvers that support it out of the Java heap
+	 * @return True if solver state has been moved out of the heap, false if
+	 * there was nothing to move or if the previous demotion did not reduce
+	 * the memory consumption
+	 */
+	private boolean demoteColdEntries() {
+		// If the heap has not shrunk since the last demotion, the demoted
+		// entries are kept alive by other references and we need to escalate
+		long usedHeap = MemoryWarningSystem.getUsedMemoryAfterCollection();
+		if (heapBeforeDemotion >= 0 && usedHeap >= heapBeforeDemotion) {
+			logger.warn("Moving solver entries off the heap did not reduce the memory consumption");
+			return false;
+		}
+		
+		long demoted = 0;
+		for (IMemoryBoundedSolver solver : solvers)
+			if (solver instanceof IOffHeapCapableSolver)
+				demoted += ((IOffHeapCapableSolver) solver).demoteColdEntries();
+		if (demoted == 0)
+			return false;
+		
+		heapBeforeDemotion = usedHeap;
+		logger.info("Moved {} solver entries off the heap", demoted);
+		return true;
+	}
+	
 	/**
 	 * Adds a solver that shall be terminated when the memory threshold is reached
 	 * @param solver A solver that shall be terminated when the memory threshold
@@ -64,6 +234,25 @@ public class FlowDroidMemoryWatcher {
 		this.solvers.add(solver);
 	}
 	
+	/**
+	 * Adds a component that shall be asked to reduce its memory consumption
+	 * before the solvers are terminated
+	 * @param handler The component that can reduce its memory consumption
+	 */
+	public void addPressureHandler(IMemoryPressureHandler handler) {
+		this.pressureHandlers.add(handler);
+	}
+	
+	/**
+	 * Removes the given component from the list of components that are asked
+	 * to reduce their memory consumption
+	 * @param handler The component to remove
+	 * @return True if the given component was registered, otherwise false
+	 */
+	public boolean removePressureHandler(IMemoryPressureHandler handler) {
+		return this.pressureHandlers.remove(handler);
+	}
+	
 	/**
 	 * Removes the given solver from the watch list. The given solver will no
 	 * longer ne notified when the memory threshold is reached.
@@ -80,12 +269,23 @@ public class FlowDroidMemoryWatcher {
 	 */
 	public void clearSolvers() {
 		this.solvers.clear();
+		this.pressureHandlers.clear();
 	}
 	
 	/**
 	 * Shuts down the memory watcher and frees all resources associated with it
 	 */
 	public void close() {
+		synchronized (this) {
+			closed = true;
+			if (recheckTimer != null) {
+				recheckTimer.cancel();
+				recheckTimer = null;
+			}
+			if (previousThreshold > 0)
+				MemoryWarningSystem.setWarningThreshold(Math.min(1.0d, previousThreshold));
+			previousThreshold = -1;
+		}
 		clearSolvers();
 		warningSystem.close();
 	}
@@ -0,0 +1,338 @@
+package soot.jimple.infoflow.memory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import soot.jimple.infoflow.memory.MemoryForecast.PressureLevel;
+
+/**
+ * Monitor that forecasts when the heap will be exhausted. The monitor samples
+ * the heap at a fixed interval and whenever the garbage collector has run. It
+ * estimates the allocation rate from the samples and the growth of the live
+ * set from the memory that remains in the tenured pool after each collection.
+ * Whenever the pressure level derived from the forecast changes, the callback
+ * is notified.
+ *
+ */
+public class HeapPressureMonitor {
+
+	/**
+	 * Callback that is invoked when the pressure level changes
+	 */
+	interface IPressureLevelCallback {
+
+		/**
+		 * Method that is called when the pressure level has changed
+		 * @param previousLevel The previous pressure level
+		 * @param forecast The current forecast including the new pressure level
+		 */
+		public void onPressureLevelChanged(PressureLevel previousLevel, MemoryForecast forecast);
+
+	}
+
+	/**
+	 * Notification type of the HotSpot garbage collection notifications. We do
+	 * not reference the com.sun classes directly, so that the monitor still
+	 * works on JVMs without them and simply falls back to periodic sampling.
+	 */
+	private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+	private static final long DEFAULT_SAMPLE_INTERVAL = 250;
+	private static final int LIVE_SET_WINDOW = 8;
+	private static final double SMOOTHING_FACTOR = 0.3;
+
+	private final MemoryPoolMXBean tenuredGenPool;
+	private final IPressureLevelCallback callback;
+	private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+	private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+	private final List<GarbageCollectorMXBean> tenuredGcBeans = new ArrayList<>();
+	private final NotificationListener gcListener;
+
+	private long criticalHorizon = 2000;
+	private long highHorizon = 10000;
+	private long elevatedHorizon = 30000;
+
+	private double criticalRatio = 0.95;
+	private double highRatio = 0.85;
+	private double elevatedRatio = 0.7;
+
+	// Sampling state, guarded by "this"
+	private long lastSampleTime = -1;
+	private long lastHeapUsed = 0;
+	private long lastGcCount = 0;
+	private long lastTenuredUsed = 0;
+	private long lastTenuredGcCount = 0;
+	private double allocationRate = 0;
+	private double tenuredFillRate = 0;
+	private final long[] liveTimes = new long[LIVE_SET_WINDOW];
+	private final long[] liveSizes = new long[LIVE_SET_WINDOW];
+	private int liveObservations = 0;
+	private PressureLevel level = PressureLevel.Normal;
+	private MemoryForecast lastForecast = null;
+
+	private Timer timer = null;
+
+	/**
+	 * Creates a new instance of the {@link HeapPressureMonitor} class
+	 * @param tenuredGenPool The memory pool that holds the long-lived objects
+	 * @param callback The callback to notify when the pressure level changes
+	 */
+	HeapPressureMonitor(MemoryPoolMXBean tenuredGenPool, IPressureLevelCallback callback) {
+		this.tenuredGenPool = tenuredGenPool;
+		this.callback = callback;
+
+		// Find the collectors that clean up the tenured pool. Their collections
+		// tell us how large the live set is.
+		for (GarbageCollectorMXBean gcBean : gcBeans)
+			if (Arrays.asList(gcBean.getMemoryPoolNames()).contains(tenuredGenPool.getName()))
+				tenuredGcBeans.add(gcBean);
+
+		this.gcListener = new NotificationListener() {
+
+			@Override
+			public void handleNotification(Notification notification, Object handback) {
+				if (notification.getType().equals(GC_NOTIFICATION))
+					sample();
+			}
+
+		};
+	}
+
+	/**
+	 * Starts sampling the heap
+	 * @param sampleInterval The interval between two samples in milliseconds
+	 */
+	synchronized void start(long sampleInterval) {
+		if (timer != null)
+			return;
+
+		for (GarbageCollectorMXBean gcBean : gcBeans)
+			if (gcBean instanceof NotificationEmitter)
+				((NotificationEmitter) gcBean).addNotificationListener(gcListener, null, null);
+
+		timer = new Timer("FlowDroid heap pressure monitor", true);
+		timer.schedule(new TimerTask() {
+
+			@Override
+			public void run() {
+				sample();
+			}
+
+		}, 0, sampleInterval > 0 ? sampleInterval : DEFAULT_SAMPLE_INTERVAL);
+	}
+
+	/**
+	 * Stops sampling the heap
+	 */
+	synchronized void stop() {
+		if (timer == null)
+			return;
+		timer.cancel();
+		timer = null;
+
+		for (GarbageCollectorMXBean gcBean : gcBeans)
+			if (gcBean instanceof NotificationEmitter) {
+				try {
+					((NotificationEmitter) gcBean).removeNotificationListener(gcListener);
+				} catch (ListenerNotFoundException e) {
+					// Doesn't matter, we wanted to get rid of it anyway
+				}
+			}
+	}
+
+	/**
+	 * Takes a new sample of the heap, updates the forecast, and notifies the
+	 * callback if the pressure level has changed
+	 */
+	void sample() {
+		PressureLevel previousLevel;
+		MemoryForecast forecast;
+		synchronized (this) {
+			previousLevel = level;
+			forecast = updateForecast();
+			level = forecast.getLevel();
+			lastForecast = forecast;
+		}
+
+		// Do not call out while holding the lock, the callback may take a
+		// while to free memory
+		if (forecast.getLevel() != previousLevel)
+			callback.onPressureLevelChanged(previousLevel, forecast);
+	}
+
+	/**
+	 * Updates the sampling state with the current heap usage and computes a
+	 * new forecast. The caller must hold the lock on this object.
+	 * @return The new forecast
+	 */
+	private MemoryForecast updateForecast() {
+		long now = System.currentTimeMillis();
+		long heapUsed = memoryBean.getHeapMemoryUsage().getUsed();
+		MemoryUsage tenuredUsage = tenuredGenPool.getUsage();
+		long tenuredUsed = tenuredUsage.getUsed();
+		long maxMemory = tenuredUsage.getMax();
+		if (maxMemory < 0)
+			maxMemory = Runtime.getRuntime().maxMemory();
+
+		long gcCount = getCollectionCount(gcBeans);
+		long tenuredGcCount = getCollectionCount(tenuredGcBeans);
+
+		if (lastSampleTime >= 0 && now > lastSampleTime) {
+			double seconds = (now - lastSampleTime) / 1000d;
+
+			// Without a collection in between, the growth of the heap is what
+			// has been allocated. Otherwise, we cannot tell how much garbage
+			// has been freed and skip this interval.
+			if (gcCount == lastGcCount && heapUsed >= lastHeapUsed)
+				allocationRate = smooth(allocationRate, (heapUsed - lastHeapUsed) / seconds);
+
+			// Objects are promoted into the tenured pool until it is collected
+			if (tenuredGcCount == lastTenuredGcCount)
+				tenuredFillRate = smooth(tenuredFillRate, Math.max(0, tenuredUsed - lastTenuredUsed) / seconds);
+		}
+
+		// A collection of the tenured pool gives us a new observation of the
+		// live set
+		if (tenuredGcCount != lastTenuredGcCount) {
+			MemoryUsage collectionUsage = tenuredGenPool.getCollectionUsage();
+			if (collectionUsage != null)
+				addLiveObservation(now, collectionUsage.getUsed());
+			tenuredFillRate = 0;
+		}
+
+		lastSampleTime = now;
+		lastHeapUsed = heapUsed;
+		lastGcCount = gcCount;
+		lastTenuredUsed = tenuredUsed;
+		lastTenuredGcCount = tenuredGcCount;
+
+		// Without collections of the tenured pool, everything in there is
+		// considered live
+		long liveMemory = liveObservations > 0 ? liveSizes[(liveObservations - 1) % LIVE_SET_WINDOW] : tenuredUsed;
+		double liveGrowthRate = liveObservations >= 2 ? getLiveGrowthRate() : tenuredFillRate;
+
+		long timeToExhaustion = MemoryForecast.NO_EXHAUSTION;
+		if (liveGrowthRate > 0) {
+			double remaining = (maxMemory - liveMemory) / liveGrowthRate * 1000d;
+			if (liveObservations > 0)
+				remaining -= now - liveTimes[(liveObservations - 1) % LIVE_SET_WINDOW];
+			timeToExhaustion = (long) Math.max(0, remaining);
+		}
+
+		PressureLevel newLevel = getPressureLevel((double) liveMemory / maxMemory, timeToExhaustion);
+		return new MemoryForecast(newLevel, tenuredUsed, liveMemory, maxMemory, (long) allocationRate,
+				(long) liveGrowthRate, timeToExhaustion);
+	}
+
+	/**
+	 * Derives the pressure level from the share of the tenured pool that is
+	 * live and the time to exhaustion
+	 * @param liveRatio The share of the tenured pool that is live
+	 * @param timeToExhaustion The estimated time until the heap is exhausted
+	 * @return The pressure level
+	 */
+	private PressureLevel getPressureLevel(double liveRatio, long timeToExhaustion) {
+		if (liveRatio >= criticalRatio || timeToExhaustion < criticalHorizon)
+			return PressureLevel.Critical;
+		if (liveRatio >= highRatio || timeToExhaustion < highHorizon)
+			return PressureLevel.High;
+		if (liveRatio >= elevatedRatio || timeToExhaustion < elevatedHorizon)
+			return PressureLevel.Elevated;
+		return PressureLevel.Normal;
+	}
+
+	private void addLiveObservation(long time, long size) {
+		int idx = liveObservations % LIVE_SET_WINDOW;
+		liveTimes[idx] = time;
+		liveSizes[idx] = size;
+		liveObservations++;
+	}
+
+	/**
+	 * Computes the growth rate of the live set as the slope of a least-squares
+	 * fit over the recent observations
+	 * @return The growth rate of the live set in bytes per second
+	 */
+	private double getLiveGrowthRate() {
+		int n = Math.min(liveObservations, LIVE_SET_WINDOW);
+		long baseTime = liveTimes[(liveObservations - n) % LIVE_SET_WINDOW];
+		double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+		for (int i = 0; i < n; i++) {
+			double x = (liveTimes[i] - baseTime) / 1000d;
+			double y = liveSizes[i];
+			sumX += x;
+			sumY += y;
+			sumXY += x * y;
+			sumXX += x * x;
+		}
+		double denominator = n * sumXX - sumX * sumX;
+		if (denominator <= 0)
+			return 0;
+		return (n * sumXY - sumX * sumY) / denominator;
+	}
+
+	private static double smooth(double oldValue, double newValue) {
+		return SMOOTHING_FACTOR * newValue + (1 - SMOOTHING_FACTOR) * oldValue;
+	}
+
+	private static long getCollectionCount(List<GarbageCollectorMXBean> beans) {
+		long count = 0;
+		for (GarbageCollectorMXBean bean : beans)
+			count += Math.max(0, bean.getCollectionCount());
+		return count;
+	}
+
+	/**
+	 * Gets the most recent forecast
+	 * @return The most recent forecast, or null if no sample has been taken
+	 * yet
+	 */
+	public synchronized MemoryForecast getLastForecast() {
+		return this.lastForecast;
+	}
+
+	/**
+	 * Sets the time horizons for the graded warnings. If the heap is expected
+	 * to be exhausted within one of these horizons, the respective pressure
+	 * level is reported.
+	 * @param elevatedHorizon The horizon for the elevated level in milliseconds
+	 * @param highHorizon The horizon for the high level in milliseconds
+	 * @param criticalHorizon The horizon for the critical level in milliseconds
+	 */
+	public synchronized void setHorizons(long elevatedHorizon, long highHorizon, long criticalHorizon) {
+		if (criticalHorizon > highHorizon || highHorizon > elevatedHorizon)
+			throw new IllegalArgumentException("Horizons must be descending");
+		this.elevatedHorizon = elevatedHorizon;
+		this.highHorizon = highHorizon;
+		this.criticalHorizon = criticalHorizon;
+	}
+
+	/**
+	 * Sets the shares of the tenured pool that must be live for the graded
+	 * warnings, regardless of the forecast
+	 * @param elevatedRatio The live share for the elevated level
+	 * @param highRatio The live share for the high level
+	 * @param criticalRatio The live share for the critical level
+	 */
+	public synchronized void setLiveRatios(double elevatedRatio, double highRatio, double criticalRatio) {
+		if (elevatedRatio > highRatio || highRatio > criticalRatio || criticalRatio > 1.0)
+			throw new IllegalArgumentException("Ratios must be ascending and at most 1.0");
+		this.elevatedRatio = elevatedRatio;
+		this.highRatio = highRatio;
+		this.criticalRatio = criticalRatio;
+	}
+
+}
@@ -0,0 +1,42 @@
+package soot.jimple.infoflow.memory;
+
+/**
+ * Interface for components that can reduce their memory consumption when the
+ * memory watcher detects that memory is getting scarce. Such reductions
+ * usually come at the cost of performance or precision.
+ *
+ */
+public interface IMemoryPressureHandler {
+	
+	/**
+	 * Escalating steps for reducing the memory consumption, ordered from the
+	 * least to the most invasive one
+	 */
+	public enum MemoryReductionStep {
+		/**
+		 * Flush all caches that can be re-computed on demand
+		 */
+		FlushCaches,
+		
+		/**
+		 * Erase the path data from all new abstractions
+		 */
+		ErasePathData,
+		
+		/**
+		 * Use a shorter access path length for all new derivations
+		 */
+		ReduceAccessPathLength
+	}
+	
+	/**
+	 * Reduces the memory consumption of this component according to the
+	 * given step
+	 * @param step The step to apply
+	 * @return A human-readable description of what has been changed, or null
+	 * if this component does not support the given step or has already
+	 * applied it
+	 */
+	public String reduceMemoryConsumption(MemoryReductionStep step);
+
+}
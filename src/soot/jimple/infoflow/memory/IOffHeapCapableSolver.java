@@ -0,0 +1,18 @@
+package soot.jimple.infoflow.memory;
+
+/**
+ * Interface for solvers that can move parts of their state out of the Java
+ * heap when memory is getting scarce
+ *
+ */
+public interface IOffHeapCapableSolver extends IMemoryBoundedSolver {
+	
+	/**
+	 * Moves the solver state that has not been touched recently out of the
+	 * Java heap
+	 * @return The number of entries that have been moved out of the heap. If
+	 * this value is zero, the solver could not free any heap memory.
+	 */
+	public long demoteColdEntries();
+
+}
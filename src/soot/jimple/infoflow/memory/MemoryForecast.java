@@ -0,0 +1,143 @@
+package soot.jimple.infoflow.memory;
+
+/**
+ * Snapshot of the heap state together with a forecast of when the heap will
+ * be exhausted if the current trend continues
+ *
+ */
+public class MemoryForecast {
+
+	/**
+	 * Graded levels of memory pressure, ordered from the least to the most
+	 * severe one
+	 */
+	public enum PressureLevel {
+		/**
+		 * There is no indication that the heap will be exhausted soon
+		 */
+		Normal,
+
+		/**
+		 * The heap is filling up, but there is still time left
+		 */
+		Elevated,
+
+		/**
+		 * The heap will be exhausted soon unless memory is freed
+		 */
+		High,
+
+		/**
+		 * The heap is about to be exhausted
+		 */
+		Critical
+	}
+
+	/**
+	 * Constant for the time to exhaustion if the heap is not growing
+	 */
+	public static final long NO_EXHAUSTION = Long.MAX_VALUE;
+
+	private final PressureLevel level;
+	private final long usedMemory;
+	private final long liveMemory;
+	private final long maxMemory;
+	private final long allocationRate;
+	private final long liveGrowthRate;
+	private final long timeToExhaustion;
+
+	MemoryForecast(PressureLevel level, long usedMemory, long liveMemory, long maxMemory,
+			long allocationRate, long liveGrowthRate, long timeToExhaustion) {
+		this.level = level;
+		this.usedMemory = usedMemory;
+		this.liveMemory = liveMemory;
+		this.maxMemory = maxMemory;
+		this.allocationRate = allocationRate;
+		this.liveGrowthRate = liveGrowthRate;
+		this.timeToExhaustion = timeToExhaustion;
+	}
+
+	/**
+	 * Gets the pressure level derived from this forecast
+	 * @return The pressure level derived from this forecast
+	 */
+	public PressureLevel getLevel() {
+		return this.level;
+	}
+
+	/**
+	 * Gets the amount of memory currently in use in the tenured pool,
+	 * including garbage that has not been collected yet
+	 * @return The amount of memory currently in use in bytes
+	 */
+	public long getUsedMemory() {
+		return this.usedMemory;
+	}
+
+	/**
+	 * Gets the amount of memory that was still in use in the tenured pool
+	 * after the last garbage collection
+	 * @return The size of the live set in bytes
+	 */
+	public long getLiveMemory() {
+		return this.liveMemory;
+	}
+
+	/**
+	 * Gets the maximum size of the tenured pool
+	 * @return The maximum size of the tenured pool in bytes
+	 */
+	public long getMaxMemory() {
+		return this.maxMemory;
+	}
+
+	/**
+	 * Gets the rate at which the application currently allocates memory
+	 * @return The allocation rate in bytes per second
+	 */
+	public long getAllocationRate() {
+		return this.allocationRate;
+	}
+
+	/**
+	 * Gets the rate at which the live set in the tenured pool grows
+	 * @return The growth rate of the live set in bytes per second. Negative
+	 * values denote a shrinking live set.
+	 */
+	public long getLiveGrowthRate() {
+		return this.liveGrowthRate;
+	}
+
+	/**
+	 * Gets the estimated time until the heap is exhausted
+	 * @return The estimated time until the heap is exhausted in milliseconds,
+	 * or {@link #NO_EXHAUSTION} if the heap is not growing
+	 */
+	public long getTimeToExhaustion() {
+		return this.timeToExhaustion;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(level);
+		sb.append(": ");
+		sb.append(usedMemory / 1000 / 1000);
+		sb.append(" MB used, ");
+		sb.append(liveMemory / 1000 / 1000);
+		sb.append(" MB live of ");
+		sb.append(maxMemory / 1000 / 1000);
+		sb.append(" MB, allocating ");
+		sb.append(allocationRate / 1000 / 1000);
+		sb.append(" MB/s, live set growing by ");
+		sb.append(liveGrowthRate / 1000 / 1000);
+		sb.append(" MB/s");
+		if (timeToExhaustion != NO_EXHAUSTION) {
+			sb.append(", exhausted in ");
+			sb.append(timeToExhaustion / 1000d);
+			sb.append(" s");
+		}
+		return sb.toString();
+	}
+
+}
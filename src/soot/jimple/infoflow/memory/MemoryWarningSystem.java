@@ -5,8 +5,9 @@ import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryNotificationInfo;
 import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.MemoryType;
-import java.util.HashSet;
+import java.lang.management.MemoryUsage;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import javax.management.ListenerNotFoundException;
 import javax.management.Notification;
@@ -17,13 +18,17 @@ import javax.management.NotificationListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import soot.jimple.infoflow.memory.HeapPressureMonitor.IPressureLevelCallback;
+import soot.jimple.infoflow.memory.MemoryForecast.PressureLevel;
+
 /**
  * Notification system that triggers a callback when the JVM is about to run out
  * of memory. Inspired by code from http://www.javaspecialists.eu/archive/Issue092.html.
  * 
  * Be careful, because memory allocation is usually fast. There might not be a
  * lot of time left to perform corrective measures if the warning threshold is
- * reached.
+ * reached. Predictive warnings that are raised before the threshold is
+ * reached can be enabled using enablePredictiveWarnings().
  * 
  * @author Steven Arzt
  *
@@ -49,10 +54,28 @@ public class MemoryWarningSystem {
 		
 	}
 	
+	/**
+	 * Interface that is invoked when the predicted memory pressure changes.
+	 * This is only used if predictive warnings have been enabled.
+	 */
+	public interface OnMemoryPressureForecast {
+		
+		/**
+		 * Method that is called when the pressure level of the memory
+		 * forecast has changed
+		 * @param previousLevel The previous pressure level
+		 * @param forecast The current memory forecast
+		 */
+		public void onPressureLevelChanged(PressureLevel previousLevel, MemoryForecast forecast);
+		
+	}
+	
 	private static final MemoryPoolMXBean tenuredGenPool = findTenuredGenPool();
 	
-	private final Set<OnMemoryThresholdReached> listeners = new HashSet<>();
+	private final Set<OnMemoryThresholdReached> listeners = new CopyOnWriteArraySet<>();
+	private final Set<OnMemoryPressureForecast> forecastListeners = new CopyOnWriteArraySet<>();
 	private final NotificationListener memoryListener;
+	private HeapPressureMonitor pressureMonitor = null;
 	private boolean isClosed = false;
 	
 	/**
@@ -106,6 +129,51 @@ public class MemoryWarningSystem {
 	public void addListener(OnMemoryThresholdReached listener) {
 		this.listeners.add(listener);
 	}
+	
+	/**
+	 * Adds a listener that is called when the predicted memory pressure
+	 * changes. Note that predictive warnings must be enabled using
+	 * enablePredictiveWarnings().
+	 * @param listener The listener to add
+	 */
+	public void addForecastListener(OnMemoryPressureForecast listener) {
+		this.forecastListeners.add(listener);
+	}
+	
+	/**
+	 * Enables predictive warnings. The heap is sampled periodically and after
+	 * every garbage collection to forecast when it will be exhausted. The
+	 * forecast listeners are notified whenever the pressure level changes.
+	 * When the pressure rises to {@link PressureLevel#High} or above, the
+	 * threshold listeners are notified as well, usually well before the
+	 * usage threshold is reached.
+	 * @param sampleInterval The interval between two samples in milliseconds
+	 * @return The monitor that produces the forecasts
+	 */
+	public synchronized HeapPressureMonitor enablePredictiveWarnings(long sampleInterval) {
+		if (isClosed)
+			throw new IllegalStateException("Memory warning system has already been closed");
+		if (pressureMonitor == null) {
+			pressureMonitor = new HeapPressureMonitor(tenuredGenPool, new IPressureLevelCallback() {
+				
+				@Override
+				public void onPressureLevelChanged(PressureLevel previousLevel, MemoryForecast forecast) {
+					logger.info("Memory pressure changed from " + previousLevel + " to " + forecast);
+					for (OnMemoryPressureForecast listener : forecastListeners)
+						listener.onPressureLevelChanged(previousLevel, forecast);
+					
+					// Raise an early warning if the pressure is getting worse
+					if (forecast.getLevel().compareTo(previousLevel) > 0
+							&& forecast.getLevel().compareTo(PressureLevel.High) >= 0)
+						for (OnMemoryThresholdReached listener : listeners)
+							listener.onThresholdReached(forecast.getUsedMemory(), forecast.getMaxMemory());
+				}
+				
+			});
+			pressureMonitor.start(sampleInterval);
+		}
+		return pressureMonitor;
+	}
 
 	/**
 	 * Tenured Space Pool can be determined by it being of type HEAP and by it
@@ -137,6 +205,53 @@ public class MemoryWarningSystem {
 		tenuredGenPool.setUsageThreshold(warningThreshold);
 	}
 	
+	/**
+	 * Gets the global warning threshold for memory usage
+	 * @return The fraction of the overall tenured pool at which the registered
+	 * handlers are invoked, or zero if no threshold has been set
+	 */
+	public static double getWarningThreshold() {
+		long maxMemory = tenuredGenPool.getUsage().getMax();
+		if (maxMemory <= 0)
+			return 0;
+		return (double) tenuredGenPool.getUsageThreshold() / maxMemory;
+	}
+	
+	/**
+	 * Checks whether the memory usage is currently above the global warning
+	 * threshold
+	 * @return True if the memory usage is currently above the warning
+	 * threshold, otherwise false
+	 */
+	public static boolean isWarningThresholdExceeded() {
+		return tenuredGenPool.isUsageThresholdExceeded();
+	}
+	
+	/**
+	 * Gets the amount of memory in the tenured pool that was still in use
+	 * after the most recent garbage collection the JVM has performed. This
+	 * does not count garbage that simply has not been collected yet.
+	 * @return The amount of memory in use after the last collection in bytes.
+	 * If the JVM does not report this value, the current usage is returned.
+	 */
+	public static long getUsedMemoryAfterCollection() {
+		MemoryUsage usage = tenuredGenPool.isCollectionUsageThresholdSupported()
+				? tenuredGenPool.getCollectionUsage() : null;
+		if (usage == null)
+			usage = tenuredGenPool.getUsage();
+		return usage.getUsed();
+	}
+	
+	/**
+	 * Checks whether the memory usage after the most recent garbage
+	 * collection is above the global warning threshold
+	 * @return True if the memory that survived the last collection exceeds
+	 * the warning threshold, otherwise false
+	 */
+	public static boolean isWarningThresholdExceededAfterCollection() {
+		return getUsedMemoryAfterCollection() >= tenuredGenPool.getUsageThreshold();
+	}
+	
 	/**
 	 * Closes this warning system instance. It will no longer notify any
 	 * listeners of memory shortages.
@@ -148,6 +263,13 @@ public class MemoryWarningSystem {
 		isClosed = true;
 		logger.info("Shutting down the memory warning system...");
 		
+		synchronized (this) {
+			if (pressureMonitor != null) {
+				pressureMonitor.stop();
+				pressureMonitor = null;
+			}
+		}
+		
 		MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
 		try {
 			((NotificationEmitter) memoryBean).removeNotificationListener(memoryListener);
@@ -0,0 +1,117 @@
+package soot.jimple.infoflow.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import soot.SootMethod;
+import soot.jimple.infoflow.metrics.IAnalysisEventListener.TaskKind;
+
+/**
+ * Central class for recording the timing events of a data flow analysis run.
+ * Phase events are always forwarded to the listeners. Task events are only
+ * recorded for a random sample of the tasks to keep the overhead low. If no
+ * listener is registered, recording is disabled entirely.
+ *
+ */
+public class AnalysisEventRecorder {
+
+	/**
+	 * The default number of tasks out of which one is sampled
+	 */
+	public static final int DEFAULT_TASK_SAMPLING_INTERVAL = 1000;
+
+	private final List<IAnalysisEventListener> listeners = new CopyOnWriteArrayList<>();
+	private final Map<AnalysisPhase, Long> phaseStartTimes = new ConcurrentHashMap<>();
+	private volatile boolean enabled = false;
+	private volatile int taskSamplingInterval = DEFAULT_TASK_SAMPLING_INTERVAL;
+
+	/**
+	 * Adds a listener that shall receive the analysis events
+	 * @param listener The listener to add
+	 */
+	public void addListener(IAnalysisEventListener listener) {
+		this.listeners.add(listener);
+		this.enabled = true;
+	}
+
+	/**
+	 * Removes a listener from this recorder
+	 * @param listener The listener to remove
+	 */
+	public void removeListener(IAnalysisEventListener listener) {
+		this.listeners.remove(listener);
+		this.enabled = !listeners.isEmpty();
+	}
+
+	/**
+	 * Gets whether any listener is registered with this recorder
+	 * @return True if events are being recorded, otherwise false
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Sets out of how many tasks one is sampled on average
+	 * @param taskSamplingInterval The sampling interval. Values of zero or
+	 * less disable task sampling.
+	 */
+	public void setTaskSamplingInterval(int taskSamplingInterval) {
+		this.taskSamplingInterval = taskSamplingInterval;
+	}
+
+	/**
+	 * Records the start of the given phase
+	 * @param phase The phase that has started
+	 */
+	public void beginPhase(AnalysisPhase phase) {
+		if (!enabled)
+			return;
+		phaseStartTimes.put(phase, System.nanoTime());
+		for (IAnalysisEventListener listener : listeners)
+			listener.onPhaseStarted(phase);
+	}
+
+	/**
+	 * Records the end of the given phase. If the start of the phase has not
+	 * been recorded, this method does nothing.
+	 * @param phase The phase that has finished
+	 */
+	public void endPhase(AnalysisPhase phase) {
+		Long startTime = phaseStartTimes.remove(phase);
+		if (startTime == null)
+			return;
+		long duration = System.nanoTime() - startTime;
+		for (IAnalysisEventListener listener : listeners)
+			listener.onPhaseFinished(phase, startTime, duration);
+	}
+
+	/**
+	 * Decides whether the task that is about to run shall be sampled
+	 * @return True if the task shall be sampled, otherwise false
+	 */
+	public boolean sampleTask() {
+		if (!enabled)
+			return false;
+		int interval = taskSamplingInterval;
+		return interval > 0 && ThreadLocalRandom.current().nextInt(interval) == 0;
+	}
+
+	/**
+	 * Records a sampled task
+	 * @param kind The kind of task
+	 * @param method The method in which the task was executed. May be null.
+	 * @param factCount The number of new facts the task has produced
+	 * @param startTime The time at which the task has started, as given by
+	 * System.nanoTime()
+	 */
+	public void taskSampled(TaskKind kind, SootMethod method, int factCount, long startTime) {
+		long duration = System.nanoTime() - startTime;
+		for (IAnalysisEventListener listener : listeners)
+			listener.onTaskSampled(kind, method, factCount, startTime, duration);
+	}
+
+}
@@ -0,0 +1,54 @@
+package soot.jimple.infoflow.metrics;
+
+/**
+ * The phases of a data flow analysis run for which timing events are
+ * recorded
+ *
+ */
+public enum AnalysisPhase {
+	/**
+	 * Setting up Soot and loading the classes
+	 */
+	SootInitialization,
+
+	/**
+	 * Constructing the callgraph
+	 */
+	CallgraphConstruction,
+
+	/**
+	 * Propagating constants and removing dead code
+	 */
+	ConstantPropagation,
+
+	/**
+	 * Building the interprocedural control flow graph
+	 */
+	ICFGConstruction,
+
+	/**
+	 * Scanning the methods for sources and sinks
+	 */
+	SourceSinkScan,
+
+	/**
+	 * Running the forward data flow solver. The alias solver runs interleaved
+	 * with the forward solver and is therefore part of this phase.
+	 */
+	ForwardSolver,
+
+	/**
+	 * Removing result abstractions that are entailed by other ones
+	 */
+	EntailmentPruning,
+
+	/**
+	 * Reconstructing the paths between sources and sinks
+	 */
+	PathReconstruction,
+
+	/**
+	 * Writing out the results
+	 */
+	ResultSerialization
+}
@@ -0,0 +1,61 @@
+package soot.jimple.infoflow.metrics;
+
+import soot.SootMethod;
+
+/**
+ * Interface for listeners that receive the timing events of a data flow
+ * analysis run. Listeners are called on the analysis threads, so they must be
+ * thread-safe and fast.
+ *
+ */
+public interface IAnalysisEventListener {
+
+	/**
+	 * The kinds of tasks for which sampled events are recorded
+	 */
+	public enum TaskKind {
+		/**
+		 * An edge processed by the forward solver
+		 */
+		ForwardEdge,
+
+		/**
+		 * An edge processed by the backward (alias) solver
+		 */
+		BackwardEdge,
+
+		/**
+		 * A step of the path reconstruction
+		 */
+		SourceFinding
+	}
+
+	/**
+	 * Method that is called when an analysis phase starts
+	 * @param phase The phase that has started
+	 */
+	public void onPhaseStarted(AnalysisPhase phase);
+
+	/**
+	 * Method that is called when an analysis phase has finished
+	 * @param phase The phase that has finished
+	 * @param startTime The time at which the phase has started, as given by
+	 * System.nanoTime()
+	 * @param duration The duration of the phase in nanoseconds
+	 */
+	public void onPhaseFinished(AnalysisPhase phase, long startTime, long duration);
+
+	/**
+	 * Method that is called for every task that has been selected for
+	 * sampling
+	 * @param kind The kind of task
+	 * @param method The method in which the task was executed. May be null if
+	 * the method is not known.
+	 * @param factCount The number of new facts the task has produced
+	 * @param startTime The time at which the task has started, as given by
+	 * System.nanoTime()
+	 * @param duration The duration of the task in nanoseconds
+	 */
+	public void onTaskSampled(TaskKind kind, SootMethod method, int factCount, long startTime, long duration);
+
+}
@@ -0,0 +1,353 @@
+package soot.jimple.infoflow.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.infoflow.data.FlowDroidMemoryManager;
+import soot.jimple.infoflow.data.pathBuilders.ConcurrentAbstractionPathBuilder;
+import soot.jimple.infoflow.data.pathBuilders.IAbstractionPathBuilder;
+import soot.jimple.infoflow.solver.IInfoflowSolver;
+import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
+import soot.jimple.infoflow.solver.fastSolver.IFDSSolver;
+import soot.jimple.infoflow.solver.memory.IMemoryManager;
+import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
+
+/**
+ * Live telemetry of a running data flow analysis. The components of the
+ * current run are bound to this object as they are created, and all values
+ * are computed on demand. The metrics can be read directly or published as
+ * an MXBean on the platform MBean server under the domain
+ * <code>soot.jimple.infoflow</code>.
+ *
+ */
+public class InfoflowMetrics implements InfoflowMetricsMXBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(InfoflowMetrics.class);
+
+	private static final String DOMAIN = "soot.jimple.infoflow";
+	private static final AtomicInteger instanceCounter = new AtomicInteger();
+
+	/**
+	 * The minimum time in milliseconds between two updates of an edge rate.
+	 * Reads within this window return the previous rate, so that multiple
+	 * monitoring clients do not distort each other's measurements.
+	 */
+	private static final long RATE_WINDOW = 1000;
+
+	/**
+	 * Class that derives a rate from a monotonically growing counter
+	 */
+	private static class RateTracker {
+
+		private long lastCount = 0;
+		private long lastTime = -1;
+		private double rate = 0;
+
+		private synchronized double update(long count) {
+			long now = System.currentTimeMillis();
+			if (lastTime < 0 || count < lastCount) {
+				lastTime = now;
+				lastCount = count;
+				rate = 0;
+			}
+			else if (now - lastTime >= RATE_WINDOW) {
+				rate = (count - lastCount) * 1000d / (now - lastTime);
+				lastTime = now;
+				lastCount = count;
+			}
+			return rate;
+		}
+
+	}
+
+	private final ObjectName objectName;
+	private boolean registered = false;
+
+	private volatile IInfoflowSolver forwardSolver = null;
+	private volatile IInfoflowSolver backwardSolver = null;
+	private volatile InterruptableExecutor solverExecutor = null;
+	private volatile IMemoryManager<?, ?> memoryManager = null;
+	private volatile ITaintPropagationWrapper taintWrapper = null;
+	private volatile IAbstractionPathBuilder pathBuilder = null;
+	private volatile InterruptableExecutor pathExecutor = null;
+
+	private volatile long lastForwardPropagationCount = -1;
+	private volatile long lastBackwardPropagationCount = -1;
+	private final RateTracker forwardRate = new RateTracker();
+	private final RateTracker backwardRate = new RateTracker();
+
+	/**
+	 * Creates a new instance of the {@link InfoflowMetrics} class
+	 */
+	public InfoflowMetrics() {
+		try {
+			this.objectName = new ObjectName(DOMAIN + ":type=InfoflowMetrics,id="
+					+ instanceCounter.incrementAndGet());
+		} catch (JMException ex) {
+			throw new RuntimeException("Could not create the metrics object name", ex);
+		}
+	}
+
+	/**
+	 * Publishes these metrics on the platform MBean server. If the metrics
+	 * have already been published, this method does nothing.
+	 */
+	public synchronized void register() {
+		if (registered)
+			return;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, objectName);
+			registered = true;
+			logger.info("Publishing live solver metrics as {}", objectName);
+		} catch (JMException ex) {
+			logger.error("Could not publish the solver metrics", ex);
+		}
+	}
+
+	/**
+	 * Removes these metrics from the platform MBean server
+	 */
+	public synchronized void unregister() {
+		if (!registered)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException ex) {
+			// Doesn't matter, we wanted to get rid of it anyway
+		}
+		registered = false;
+	}
+
+	/**
+	 * Gets the name under which these metrics are published
+	 * @return The object name of these metrics
+	 */
+	public ObjectName getObjectName() {
+		return this.objectName;
+	}
+
+	/**
+	 * Binds the data flow solvers of the current run
+	 * @param forwardSolver The forward solver
+	 * @param backwardSolver The backward (alias) solver. May be null.
+	 * @param executor The executor shared by the solvers
+	 */
+	public void setSolvers(IInfoflowSolver forwardSolver, IInfoflowSolver backwardSolver,
+			InterruptableExecutor executor) {
+		this.forwardSolver = forwardSolver;
+		this.backwardSolver = backwardSolver;
+		this.solverExecutor = executor;
+		this.lastForwardPropagationCount = -1;
+		this.lastBackwardPropagationCount = -1;
+	}
+
+	/**
+	 * Releases the data flow solvers so that they can be garbage-collected.
+	 * The final propagation counts are retained.
+	 */
+	public void clearSolvers() {
+		IInfoflowSolver fwSolver = this.forwardSolver;
+		IInfoflowSolver bwSolver = this.backwardSolver;
+		if (fwSolver != null)
+			lastForwardPropagationCount = fwSolver.getPropagationCount();
+		if (bwSolver != null)
+			lastBackwardPropagationCount = bwSolver.getPropagationCount();
+		this.forwardSolver = null;
+		this.backwardSolver = null;
+		this.solverExecutor = null;
+		this.memoryManager = null;
+	}
+
+	/**
+	 * Binds the memory manager of the current run
+	 * @param memoryManager The memory manager
+	 */
+	public void setMemoryManager(IMemoryManager<?, ?> memoryManager) {
+		this.memoryManager = memoryManager;
+	}
+
+	/**
+	 * Binds the taint wrapper of the current run
+	 * @param taintWrapper The taint wrapper. May be null.
+	 */
+	public void setTaintWrapper(ITaintPropagationWrapper taintWrapper) {
+		this.taintWrapper = taintWrapper;
+	}
+
+	/**
+	 * Binds the path builder of the current run
+	 * @param pathBuilder The path builder
+	 * @param executor The executor in which the path builder runs its tasks
+	 */
+	public void setPathBuilder(IAbstractionPathBuilder pathBuilder, InterruptableExecutor executor) {
+		this.pathBuilder = pathBuilder;
+		this.pathExecutor = executor;
+	}
+
+	/**
+	 * Releases all components of the current run
+	 */
+	public void clear() {
+		clearSolvers();
+		this.taintWrapper = null;
+		this.pathBuilder = null;
+		this.pathExecutor = null;
+	}
+
+	@Override
+	public long getForwardPropagationCount() {
+		IInfoflowSolver solver = forwardSolver;
+		return solver == null ? lastForwardPropagationCount : solver.getPropagationCount();
+	}
+
+	@Override
+	public double getForwardEdgesPerSecond() {
+		IInfoflowSolver solver = forwardSolver;
+		return solver == null ? 0 : forwardRate.update(solver.getPropagationCount());
+	}
+
+	@Override
+	public long getBackwardPropagationCount() {
+		IInfoflowSolver solver = backwardSolver;
+		return solver == null ? lastBackwardPropagationCount : solver.getPropagationCount();
+	}
+
+	@Override
+	public double getBackwardEdgesPerSecond() {
+		IInfoflowSolver solver = backwardSolver;
+		return solver == null ? 0 : backwardRate.update(solver.getPropagationCount());
+	}
+
+	@Override
+	public int getSolverQueueDepth() {
+		return getQueueDepth(solverExecutor);
+	}
+
+	@Override
+	public int getSolverActiveWorkers() {
+		InterruptableExecutor executor = solverExecutor;
+		return executor == null ? -1 : executor.getActiveCount();
+	}
+
+	@Override
+	public int getSolverPoolSize() {
+		InterruptableExecutor executor = solverExecutor;
+		return executor == null ? -1 : executor.getPoolSize();
+	}
+
+	@Override
+	public int getForwardJumpFunctionCount() {
+		IFDSSolver<?, ?, ?> solver = getFastSolver(forwardSolver);
+		return solver == null ? -1 : solver.getJumpFunctionCount();
+	}
+
+	@Override
+	public int getForwardIncomingCount() {
+		IFDSSolver<?, ?, ?> solver = getFastSolver(forwardSolver);
+		return solver == null ? -1 : solver.getIncomingCount();
+	}
+
+	@Override
+	public int getForwardEndSummaryCount() {
+		IFDSSolver<?, ?, ?> solver = getFastSolver(forwardSolver);
+		return solver == null ? -1 : solver.getEndSummaryCount();
+	}
+
+	@Override
+	public int getBackwardJumpFunctionCount() {
+		IFDSSolver<?, ?, ?> solver = getFastSolver(backwardSolver);
+		return solver == null ? -1 : solver.getJumpFunctionCount();
+	}
+
+	@Override
+	public int getBackwardIncomingCount() {
+		IFDSSolver<?, ?, ?> solver = getFastSolver(backwardSolver);
+		return solver == null ? -1 : solver.getIncomingCount();
+	}
+
+	@Override
+	public int getBackwardEndSummaryCount() {
+		IFDSSolver<?, ?, ?> solver = getFastSolver(backwardSolver);
+		return solver == null ? -1 : solver.getEndSummaryCount();
+	}
+
+	@Override
+	public long getOffHeapEntryCount() {
+		IFDSSolver<?, ?, ?> fwSolver = getFastSolver(forwardSolver);
+		IFDSSolver<?, ?, ?> bwSolver = getFastSolver(backwardSolver);
+		if (fwSolver == null && bwSolver == null)
+			return -1;
+		return (fwSolver == null ? 0 : fwSolver.getOffHeapEntryCount())
+				+ (bwSolver == null ? 0 : bwSolver.getOffHeapEntryCount());
+	}
+
+	@Override
+	public int getMemoryManagerReuseCount() {
+		IMemoryManager<?, ?> manager = memoryManager;
+		if (manager instanceof FlowDroidMemoryManager)
+			return ((FlowDroidMemoryManager) manager).getReuseCount();
+		return -1;
+	}
+
+	@Override
+	public int getTaintWrapperHits() {
+		ITaintPropagationWrapper wrapper = taintWrapper;
+		return wrapper == null ? -1 : wrapper.getWrapperHits();
+	}
+
+	@Override
+	public int getTaintWrapperMisses() {
+		ITaintPropagationWrapper wrapper = taintWrapper;
+		return wrapper == null ? -1 : wrapper.getWrapperMisses();
+	}
+
+	@Override
+	public int getPathBuilderSinkAbstractions() {
+		IAbstractionPathBuilder builder = pathBuilder;
+		if (builder instanceof ConcurrentAbstractionPathBuilder)
+			return ((ConcurrentAbstractionPathBuilder) builder).getSinkAbstractionCount();
+		return -1;
+	}
+
+	@Override
+	public int getPathBuilderScheduledSinkAbstractions() {
+		IAbstractionPathBuilder builder = pathBuilder;
+		if (builder instanceof ConcurrentAbstractionPathBuilder)
+			return ((ConcurrentAbstractionPathBuilder) builder).getScheduledSinkAbstractionCount();
+		return -1;
+	}
+
+	@Override
+	public long getPathBuilderCompletedTasks() {
+		InterruptableExecutor executor = pathExecutor;
+		return executor == null ? -1 : executor.getCompletedTaskCount();
+	}
+
+	@Override
+	public int getPathBuilderQueueDepth() {
+		return getQueueDepth(pathExecutor);
+	}
+
+	@Override
+	public int getPathBuilderActiveWorkers() {
+		InterruptableExecutor executor = pathExecutor;
+		return executor == null ? -1 : executor.getActiveCount();
+	}
+
+	private static int getQueueDepth(InterruptableExecutor executor) {
+		return executor == null ? -1 : executor.getQueue().size();
+	}
+
+	private static IFDSSolver<?, ?, ?> getFastSolver(IInfoflowSolver solver) {
+		return solver instanceof IFDSSolver ? (IFDSSolver<?, ?, ?>) solver : null;
+	}
+
+}
@@ -0,0 +1,155 @@
+package soot.jimple.infoflow.metrics;
+
+/**
+ * Management interface for the live telemetry of a running data flow
+ * analysis. All values are read on demand from the components of the current
+ * run. Values that are not available, e.g., because the respective component
+ * does not exist in the current configuration or phase, are reported as -1.
+ *
+ */
+public interface InfoflowMetricsMXBean {
+
+	/**
+	 * Gets the number of edges scheduled by the forward solver
+	 * @return The number of edges scheduled by the forward solver
+	 */
+	public long getForwardPropagationCount();
+
+	/**
+	 * Gets the number of edges the forward solver currently schedules per
+	 * second
+	 * @return The current edge rate of the forward solver
+	 */
+	public double getForwardEdgesPerSecond();
+
+	/**
+	 * Gets the number of edges scheduled by the backward (alias) solver
+	 * @return The number of edges scheduled by the backward solver
+	 */
+	public long getBackwardPropagationCount();
+
+	/**
+	 * Gets the number of edges the backward (alias) solver currently
+	 * schedules per second
+	 * @return The current edge rate of the backward solver
+	 */
+	public double getBackwardEdgesPerSecond();
+
+	/**
+	 * Gets the number of tasks waiting in the queue of the solver executor
+	 * @return The queue depth of the solver executor
+	 */
+	public int getSolverQueueDepth();
+
+	/**
+	 * Gets the number of workers of the solver executor that are currently
+	 * processing a task
+	 * @return The number of active solver workers
+	 */
+	public int getSolverActiveWorkers();
+
+	/**
+	 * Gets the number of worker threads of the solver executor
+	 * @return The number of solver worker threads
+	 */
+	public int getSolverPoolSize();
+
+	/**
+	 * Gets the number of jump functions of the forward solver
+	 * @return The number of jump functions of the forward solver
+	 */
+	public int getForwardJumpFunctionCount();
+
+	/**
+	 * Gets the number of method contexts with incoming edges in the forward
+	 * solver
+	 * @return The size of the incoming map of the forward solver
+	 */
+	public int getForwardIncomingCount();
+
+	/**
+	 * Gets the number of method contexts with end summaries in the forward
+	 * solver
+	 * @return The size of the end summary map of the forward solver
+	 */
+	public int getForwardEndSummaryCount();
+
+	/**
+	 * Gets the number of jump functions of the backward solver
+	 * @return The number of jump functions of the backward solver
+	 */
+	public int getBackwardJumpFunctionCount();
+
+	/**
+	 * Gets the number of method contexts with incoming edges in the backward
+	 * solver
+	 * @return The size of the incoming map of the backward solver
+	 */
+	public int getBackwardIncomingCount();
+
+	/**
+	 * Gets the number of method contexts with end summaries in the backward
+	 * solver
+	 * @return The size of the end summary map of the backward solver
+	 */
+	public int getBackwardEndSummaryCount();
+
+	/**
+	 * Gets the number of solver entries that have been moved out of the heap
+	 * @return The number of off-heap entries of both solvers
+	 */
+	public long getOffHeapEntryCount();
+
+	/**
+	 * Gets the number of abstractions that the memory manager has replaced by
+	 * an existing equivalent one
+	 * @return The reuse count of the memory manager
+	 */
+	public int getMemoryManagerReuseCount();
+
+	/**
+	 * Gets the number of calls that the taint wrapper has handled
+	 * @return The number of taint wrapper hits
+	 */
+	public int getTaintWrapperHits();
+
+	/**
+	 * Gets the number of calls that the taint wrapper could not handle
+	 * @return The number of taint wrapper misses
+	 */
+	public int getTaintWrapperMisses();
+
+	/**
+	 * Gets the number of abstractions at sinks for which the path builder
+	 * shall reconstruct paths
+	 * @return The number of abstractions at sinks to process
+	 */
+	public int getPathBuilderSinkAbstractions();
+
+	/**
+	 * Gets the number of abstractions at sinks for which the path builder has
+	 * already scheduled the reconstruction
+	 * @return The number of scheduled abstractions at sinks
+	 */
+	public int getPathBuilderScheduledSinkAbstractions();
+
+	/**
+	 * Gets the number of path reconstruction tasks that have been completed
+	 * @return The number of completed path reconstruction tasks
+	 */
+	public long getPathBuilderCompletedTasks();
+
+	/**
+	 * Gets the number of path reconstruction tasks waiting in the queue
+	 * @return The queue depth of the path builder executor
+	 */
+	public int getPathBuilderQueueDepth();
+
+	/**
+	 * Gets the number of path builder workers that are currently processing a
+	 * task
+	 * @return The number of active path builder workers
+	 */
+	public int getPathBuilderActiveWorkers();
+
+}
@@ -0,0 +1,111 @@
+package soot.jimple.infoflow.metrics;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.SootMethod;
+
+/**
+ * Listener that writes the analysis events into a file in the Chrome trace
+ * event format. The file can be opened in chrome://tracing or in Perfetto.
+ * Phases are shown on a separate track, sampled tasks on the track of the
+ * thread that executed them.
+ *
+ */
+public class TraceFileWriter implements IAnalysisEventListener, Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(TraceFileWriter.class);
+
+	private static final long PHASE_TRACK = 0;
+
+	private final Writer writer;
+	private final long baseTime = System.nanoTime();
+	private boolean first = true;
+	private boolean closed = false;
+
+	/**
+	 * Creates a new instance of the {@link TraceFileWriter} class
+	 * @param fileName The name of the trace file to write
+	 * @throws IOException Thrown if the trace file cannot be created
+	 */
+	public TraceFileWriter(String fileName) throws IOException {
+		this.writer = new BufferedWriter(new FileWriter(fileName));
+		this.writer.write("[\n");
+	}
+
+	@Override
+	public void onPhaseStarted(AnalysisPhase phase) {
+		// We write complete events once the phase has finished
+	}
+
+	@Override
+	public void onPhaseFinished(AnalysisPhase phase, long startTime, long duration) {
+		writeEvent(phase.name(), "phase", PHASE_TRACK, startTime, duration, null);
+
+		// Phases are rare, so we make sure that they reach the disk even if the
+		// analysis dies later on
+		synchronized (this) {
+			try {
+				if (!closed)
+					writer.flush();
+			} catch (IOException ex) {
+				logger.error("Could not write trace file", ex);
+			}
+		}
+	}
+
+	@Override
+	public void onTaskSampled(TaskKind kind, SootMethod method, int factCount, long startTime, long duration) {
+		StringBuilder args = new StringBuilder();
+		args.append("{\"method\":\"");
+		args.append(escape(method == null ? "" : method.getSignature()));
+		args.append("\",\"facts\":");
+		args.append(factCount);
+		args.append("}");
+		writeEvent(kind.name(), "task", Thread.currentThread().getId(), startTime, duration, args.toString());
+	}
+
+	private synchronized void writeEvent(String name, String category, long track, long startTime,
+			long duration, String args) {
+		if (closed)
+			return;
+
+		StringBuilder sb = new StringBuilder();
+		if (!first)
+			sb.append(",\n");
+		first = false;
+		sb.append("{\"name\":\"").append(name);
+		sb.append("\",\"cat\":\"").append(category);
+		sb.append("\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(track);
+		sb.append(",\"ts\":").append((startTime - baseTime) / 1000);
+		sb.append(",\"dur\":").append(duration / 1000);
+		if (args != null)
+			sb.append(",\"args\":").append(args);
+		sb.append("}");
+		try {
+			writer.write(sb.toString());
+		} catch (IOException ex) {
+			logger.error("Could not write trace file", ex);
+		}
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		writer.write("\n]\n");
+		writer.close();
+	}
+
+}
@@ -244,7 +244,9 @@ public abstract class AbstractInfoflowProblem extends DefaultJimpleIFDSTabulatio
 	
 	/**
 	 * Notifies the outbound flow handlers, if any, about the computed
-	 * result abstractions for the current flow function
+	 * result abstractions for the current flow function. Flow functions may
+	 * return immutable or fixed-size sets, so the handlers receive a mutable
+	 * copy.
 	 * @param d1 The abstraction at the beginning of the method
 	 * @param stmt The statement that has just been processed
 	 * @param incoming The incoming abstraction from which the outbound
@@ -262,8 +264,8 @@ public abstract class AbstractInfoflowProblem extends DefaultJimpleIFDSTabulatio
 		if (taintPropagationHandler != null
 				&& outgoing != null
 				&& !outgoing.isEmpty())
-			outgoing = taintPropagationHandler.notifyFlowOut(stmt, d1, incoming, outgoing,
-						interproceduralCFG(), functionType);
+			outgoing = taintPropagationHandler.notifyFlowOut(stmt, d1, incoming,
+						new HashSet<Abstraction>(outgoing), interproceduralCFG(), functionType);
 		return outgoing;
 	}
 	
@@ -46,6 +46,7 @@ import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.aliasing.IAliasingStrategy;
+import soot.jimple.infoflow.collect.ReusableSetBuffer;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.data.AccessPath.ArrayTaintType;
@@ -346,13 +347,17 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 										&& !newSource.getAccessPath().getCanHaveImmutableAliases())))
 					return Collections.singleton(newSource);
 				
-				Set<Abstraction> res = new HashSet<Abstraction>();
-				Abstraction targetAB = mappedAP.equals(newSource.getAccessPath())
-						? newSource : newSource.deriveNewAbstraction(mappedAP, null);							
-				addTaintViaStmt(d1, assignStmt, targetAB, res, cutFirstField,
-						interproceduralCFG().getMethodOf(assignStmt), targetType);
-				res.add(newSource);
-				return res;
+				ReusableSetBuffer<Abstraction> res = ReusableSetBuffer.acquire();
+				try {
+					Abstraction targetAB = mappedAP.equals(newSource.getAccessPath())
+							? newSource : newSource.deriveNewAbstraction(mappedAP, null);							
+					addTaintViaStmt(d1, assignStmt, targetAB, res, cutFirstField,
+							interproceduralCFG().getMethodOf(assignStmt), targetType);
+					res.add(newSource);
+					return res.toSet();
+				} finally {
+					res.release();
+				}
 			}
 
 			@Override
@@ -389,14 +394,8 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 							// Create the new taints that may be created by this assignment
 							Set<Abstraction> resAssign = createNewTaintOnAssignment(assignStmt,
 									rightVals, d1, newSource);
-							if (resAssign != null && !resAssign.isEmpty()) {
-								if (res != null) {
-									res.addAll(resAssign);
-									return res;
-								}
-								else
-									res = resAssign;
-							}
+							if (resAssign != null && !resAssign.isEmpty())
+								res = ReusableSetBuffer.union(res, resAssign);
 						}
 						
 						// Return what we have so far
@@ -479,32 +478,36 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 							return res == null || res.isEmpty() ? Collections.<Abstraction>emptySet() : res;
 						
 						// Translate the access paths into abstractions
-						Set<Abstraction> resAbs = new HashSet<Abstraction>(resMapping.size());
-						if (res != null && !res.isEmpty())
-							resAbs.addAll(res);
-						for (AccessPath ap : resMapping) {
-							if (ap != null) {
-								if (ap.isStaticFieldRef()) {
-									// Do not propagate static fields that are not read inside the callee
-									if (aliasingStrategy.isLazyAnalysis()
-											|| interproceduralCFG().isStaticFieldRead(dest, ap.getFirstField())) {
+						ReusableSetBuffer<Abstraction> resAbs = ReusableSetBuffer.acquire();
+						try {
+							if (res != null && !res.isEmpty())
+								resAbs.addAll(res);
+							for (AccessPath ap : resMapping) {
+								if (ap != null) {
+									if (ap.isStaticFieldRef()) {
+										// Do not propagate static fields that are not read inside the callee
+										if (aliasingStrategy.isLazyAnalysis()
+												|| interproceduralCFG().isStaticFieldRead(dest, ap.getFirstField())) {
+											Abstraction newAbs = source.deriveNewAbstraction(ap, stmt);
+											if (newAbs != null)
+												resAbs.add(newAbs);
+										}
+									}
+									// If the variable is never read in the callee, there is no
+									// need to propagate it through
+									else if (aliasingStrategy.isLazyAnalysis() || source.isImplicit()
+											|| interproceduralCFG().methodReadsValue(dest, ap.getPlainValue())) {
 										Abstraction newAbs = source.deriveNewAbstraction(ap, stmt);
 										if (newAbs != null)
 											resAbs.add(newAbs);
 									}
 								}
-								// If the variable is never read in the callee, there is no
-								// need to propagate it through
-								else if (aliasingStrategy.isLazyAnalysis() || source.isImplicit()
-										|| interproceduralCFG().methodReadsValue(dest, ap.getPlainValue())) {
-									Abstraction newAbs = source.deriveNewAbstraction(ap, stmt);
-									if (newAbs != null)
-										resAbs.add(newAbs);
-								}
 							}
+							
+							return resAbs.toSet();
+						} finally {
+							resAbs.release();
 						}
-						
-						return resAbs;
 					}
 				};
 			}
@@ -576,19 +579,41 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 							return Collections.emptySet();
 						
 						ByReferenceBoolean killAll = new ByReferenceBoolean();
-						Set<Abstraction> res = propagationRules.applyReturnFlowFunction(callerD1s,
+						Set<Abstraction> ruleOut = propagationRules.applyReturnFlowFunction(callerD1s,
 								newSource, (Stmt) exitStmt, (Stmt) retSite, (Stmt) callSite,
 								killAll);
 						if (killAll.value)
 							return Collections.emptySet();
-						if (res == null)
-							res = new HashSet<Abstraction>();
 						
 						// If we have no caller, we have nowhere to propagate. This
 						// can happen when leaving the main method.
 						if (callSite == null)
 							return Collections.emptySet();
 						
+						ReusableSetBuffer<Abstraction> res = ReusableSetBuffer.acquire();
+						try {
+							if (ruleOut != null)
+								res.addAll(ruleOut);
+							computeCallerTaints(source, newSource, callerD1s, callerD1sConditional, res);
+							return res.toSet();
+						} finally {
+							res.release();
+						}
+					}
+					
+					/**
+					 * Maps the given taint from the callee back into the caller
+					 * @param source The taint that reaches the exit statement
+					 * @param newSource The taint that reaches the exit statement,
+					 * activated if the call site activates it
+					 * @param callerD1s The context abstractions at the caller side
+					 * @param callerD1sConditional True if one of the callers is
+					 * conditionally called
+					 * @param res The set that receives the caller-side taints
+					 */
+					private void computeCallerTaints(Abstraction source, Abstraction newSource,
+							Collection<Abstraction> callerD1s, boolean callerD1sConditional,
+							Set<Abstraction> res) {
 						// Do we need to retain all the taints?
 						if (aliasingStrategy.isLazyAnalysis() && Aliasing.canHaveAliases(newSource.getAccessPath()))
 							res.add(newSource);
@@ -761,7 +786,6 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 								abs.setCorrespondingCallSite(iCallStmt);
 							}
 						}
-						return res;
 					}
 
 				};
@@ -832,14 +856,35 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 						if (source == getZeroValue())
 							return res == null || res.isEmpty() ? Collections.<Abstraction>emptySet() : res;
 						
-						// Initialize the result set
-						if (res == null)
-							res = new HashSet<>();
-						
 						if (newSource.getTopPostdominator() != null
 								&& newSource.getTopPostdominator().getUnit() == null)
 							return Collections.singleton(newSource);
 						
+						// Initialize the result set
+						ReusableSetBuffer<Abstraction> resBuffer = ReusableSetBuffer.acquire();
+						try {
+							if (res != null)
+								resBuffer.addAll(res);
+							computeCallToReturnTaints(d1, source, newSource, passOn, resBuffer);
+							return resBuffer.toSet();
+						} finally {
+							resBuffer.release();
+						}
+					}
+					
+					/**
+					 * Computes the taints that are passed over the call site
+					 * without going through the callee
+					 * @param d1 The context abstraction
+					 * @param source The taint that reaches the call site
+					 * @param newSource The taint that reaches the call site,
+					 * activated if the call site activates it
+					 * @param passOn True if the taint shall be passed on unless
+					 * the callee takes care of it
+					 * @param res The set that receives the outgoing taints
+					 */
+					private void computeCallToReturnTaints(Abstraction d1, Abstraction source,
+							Abstraction newSource, boolean passOn, Set<Abstraction> res) {
 						// Static taints must always go through the callee
 						if (newSource.getAccessPath().isStaticFieldRef())
 							passOn = false;
@@ -936,8 +981,6 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 						for (Abstraction abs : res)
 							if (abs != newSource)
 								abs.setCorrespondingCallSite(iCallStmt);
-						
-						return res;
 					}
 				};
 			}
@@ -1060,5 +1103,13 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
     public TaintPropagationResults getResults(){
    		return this.results;
 	}
+    
+	/**
+	 * Gets the manager that applies the propagation rules of this problem
+	 * @return The manager for the propagation rules
+	 */
+	public PropagationRuleManager getPropagationRules() {
+		return this.propagationRules;
+	}
         
 }
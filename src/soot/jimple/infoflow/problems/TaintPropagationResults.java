@@ -8,6 +8,7 @@ import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.collect.MyConcurrentHashMap;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
+import soot.jimple.infoflow.data.SinkEntailmentIndex;
 import soot.jimple.infoflow.solver.memory.IMemoryManager;
 import soot.jimple.infoflow.util.SystemClassHandler;
 
@@ -37,6 +38,7 @@ public class TaintPropagationResults {
 	protected final InfoflowManager manager;
 	protected final MyConcurrentHashMap<AbstractionAtSink, Abstraction> results =
 			new MyConcurrentHashMap<AbstractionAtSink, Abstraction>();
+	protected final SinkEntailmentIndex entailmentIndex = new SinkEntailmentIndex();
 	
 	protected final Set<OnTaintPropagationResultAdded> resultAddedHandlers = new HashSet<>();
 
@@ -74,14 +76,28 @@ public class TaintPropagationResults {
 				return true;
 		}
 		
-		// Record the result
+		// Record the result. Results whose access path is entailed by another
+		// result at the same sink are not recorded, and a new result replaces
+		// all results it entails. Equal results always share the same group,
+		// so the group lock covers all updates for the given key.
 		resultAbs = new AbstractionAtSink(abs, resultAbs.getSinkStmt());
-		Abstraction newAbs = this.results.putIfAbsentElseGet
-				(resultAbs, resultAbs.getAbstraction());
-		if (newAbs != resultAbs.getAbstraction())
-			newAbs.addNeighbor(resultAbs.getAbstraction());
+		SinkEntailmentIndex.Group group = entailmentIndex.getGroup(resultAbs);
+		synchronized (group) {
+			Abstraction newAbs = this.results.putIfAbsentElseGet
+					(resultAbs, resultAbs.getAbstraction());
+			if (newAbs != resultAbs.getAbstraction())
+				newAbs.addNeighbor(resultAbs.getAbstraction());
+			else if (group.findEntailing(resultAbs) != null)
+				this.results.remove(resultAbs);
+			else {
+				group.add(resultAbs);
+				for (AbstractionAtSink entailed : group.removeEntailedBy(resultAbs))
+					this.results.remove(entailed);
+			}
+		}
 		
-		// Notify the handlers
+		// Notify the handlers. This also happens for entailed results, since
+		// they still constitute a flow from a source to the sink.
 		boolean continueAnalysis = true;
 		for (OnTaintPropagationResultAdded handler : resultAddedHandlers)
 			if (!handler.onResultAvailable(resultAbs))
@@ -1,9 +1,13 @@
 package soot.jimple.infoflow.problems.rules;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 
 /**
  * Abstract base class for all taint propagation rules
@@ -28,6 +32,17 @@ public abstract class AbstractTaintPropagationRule implements
 		this.results = results;
 	}
 	
+	/**
+	 * Gets the shapes of the statements to which this rule applies. By
+	 * default, a rule is applied to all statements. Rules that only handle
+	 * some statements should override this method to keep the rule manager
+	 * from invoking them needlessly.
+	 */
+	@Override
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind) {
+		return EnumSet.allOf(StatementShape.class);
+	}
+	
 	protected InfoflowManager getManager() {
 		return this.manager;
 	}
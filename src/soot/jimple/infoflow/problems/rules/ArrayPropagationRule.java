@@ -1,6 +1,8 @@
 package soot.jimple.infoflow.problems.rules;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -20,6 +22,7 @@ import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.data.AccessPath.ArrayTaintType;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
 /**
@@ -35,6 +38,13 @@ public class ArrayPropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind) {
+		if (kind == FlowFunctionKind.Normal)
+			return EnumSet.of(StatementShape.ArrayOperation);
+		return EnumSet.noneOf(StatementShape.class);
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
@@ -108,13 +118,16 @@ public class ArrayPropagationRule extends AbstractTaintPropagationRule {
 		if (newAbs == null)
 			return null;
 		
+		// Without aliases, the new taint is all we have
+		if (!Aliasing.canHaveAliases(assignStmt, leftVal, newAbs))
+			return Collections.singleton(newAbs);
+		
 		Set<Abstraction> res = new HashSet<>();
 		res.add(newAbs);
 		
 		// Compute the aliases
-		if (Aliasing.canHaveAliases(assignStmt, leftVal, newAbs))
-			getAliasing().computeAliases(d1, assignStmt, leftVal, res,
-					getManager().getICFG().getMethodOf(assignStmt), newAbs);
+		getAliasing().computeAliases(d1, assignStmt, leftVal, res,
+				getManager().getICFG().getMethodOf(assignStmt), newAbs);
 		
 		return res;
 	}
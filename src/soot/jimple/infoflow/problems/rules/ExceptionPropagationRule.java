@@ -2,6 +2,8 @@ package soot.jimple.infoflow.problems.rules;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 import soot.SootMethod;
 import soot.jimple.CaughtExceptionRef;
@@ -13,6 +15,7 @@ import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
 /**
@@ -28,6 +31,18 @@ public class ExceptionPropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind) {
+		switch (kind) {
+		case Normal:
+			return EnumSet.of(StatementShape.CaughtException, StatementShape.Throw);
+		case Return:
+			return EnumSet.of(StatementShape.Throw);
+		default:
+			return EnumSet.noneOf(StatementShape.class);
+		}
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
@@ -1,10 +1,12 @@
 package soot.jimple.infoflow.problems.rules;
 
 import java.util.Collection;
+import java.util.Set;
 
 import soot.SootMethod;
 import soot.jimple.Stmt;
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
 /**
@@ -15,6 +17,17 @@ import soot.jimple.infoflow.util.ByReferenceBoolean;
  */
 public interface ITaintPropagationRule {
 	
+	/**
+	 * Gets the shapes of the statements on which this rule can have any
+	 * effect in the given kind of flow function. The rule manager only invokes
+	 * the rule on statements that have at least one of these shapes. For all
+	 * other statements, the rule must always return null without changing the
+	 * kill flags or its own state.
+	 * @param kind The kind of flow function
+	 * @return The shapes of the statements to which this rule applies
+	 */
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind);
+	
 	/**
 	 * Propagates a flow along a normal statement this is not a call or return
 	 * site
@@ -2,20 +2,26 @@ package soot.jimple.infoflow.problems.rules;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import soot.SootMethod;
 import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
+import soot.jimple.infoflow.collect.ReusableSetBuffer;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
 /**
- * Manager class for all propagation rules
+ * Manager class for all propagation rules. Every rule declares the shapes of
+ * the statements it handles. The manager looks up the rules that apply to
+ * the shape of the current statement in a dispatch table and only invokes
+ * those.
  * 
  * @author Steven Arzt
  *
@@ -27,6 +33,21 @@ public class PropagationRuleManager {
 	protected final Abstraction zeroValue;
 	protected final TaintPropagationResults results;
 	private final ITaintPropagationRule[] rules;
+	private final PropagationRuleStatistics statistics;
+	
+	private static final int NUM_KINDS = FlowFunctionKind.values().length;
+	
+	/**
+	 * The shape masks of the rules, indexed by rule index * NUM_KINDS + kind
+	 */
+	private final int[] ruleShapes;
+	
+	/**
+	 * The indices of the applicable rules, indexed by the kind of flow
+	 * function and the shape mask of the statement. The entries are filled
+	 * lazily.
+	 */
+	private final AtomicReferenceArray<int[]> dispatchTable;
 	
 	public PropagationRuleManager(InfoflowManager manager, Aliasing aliasing,
 			Abstraction zeroValue, TaintPropagationResults results) {
@@ -53,6 +74,60 @@ public class PropagationRuleManager {
 		ruleList.add(new SkipSystemClassRule(manager, aliasing, zeroValue, results));
 		
 		this.rules = ruleList.toArray(new ITaintPropagationRule[ruleList.size()]);
+		this.statistics = manager.getConfig().getCollectRuleStatistics()
+				? new PropagationRuleStatistics(rules) : null;
+		
+		this.ruleShapes = new int[rules.length * NUM_KINDS];
+		for (int i = 0; i < rules.length; i++)
+			for (FlowFunctionKind kind : FlowFunctionKind.values())
+				ruleShapes[i * NUM_KINDS + kind.ordinal()] = StatementShape.toMask(
+						rules[i].getApplicableShapes(kind));
+		this.dispatchTable = new AtomicReferenceArray<>(NUM_KINDS << StatementShape.SHAPE_COUNT);
+	}
+	
+	/**
+	 * Gets the rules that apply to the given statement in the given kind of
+	 * flow function
+	 * @param kind The kind of flow function
+	 * @param stmt The statement to which to apply the rules
+	 * @return The indices of the applicable rules in ascending order
+	 */
+	private int[] getApplicableRules(FlowFunctionKind kind, Stmt stmt) {
+		final int shapes = StatementShape.getShapes(stmt);
+		final int idx = (kind.ordinal() << StatementShape.SHAPE_COUNT) | shapes;
+		int[] applicable = dispatchTable.get(idx);
+		if (applicable == null) {
+			// If two threads get here at the same time, they compute the same
+			// entry, so we do not need to synchronize
+			int count = 0;
+			int[] candidates = new int[rules.length];
+			for (int i = 0; i < rules.length; i++)
+				if ((ruleShapes[i * NUM_KINDS + kind.ordinal()] & shapes) != 0)
+					candidates[count++] = i;
+			applicable = new int[count];
+			System.arraycopy(candidates, 0, applicable, 0, count);
+			dispatchTable.set(idx, applicable);
+		}
+		return applicable;
+	}
+	
+	/**
+	 * Gets the statistics on the individual propagation rules
+	 * @return The statistics on the propagation rules, or null if collecting
+	 * rule statistics has not been enabled in the configuration
+	 */
+	public PropagationRuleStatistics getStatistics() {
+		return this.statistics;
+	}
+	
+	/**
+	 * Copies the contents of the given buffer into the set that is handed back
+	 * to the caller
+	 * @param res The buffer that holds the outgoing taints
+	 * @return The outgoing taints, or null if there are none
+	 */
+	private static Set<Abstraction> toResultSet(ReusableSetBuffer<Abstraction> res) {
+		return res.isEmpty() ? null : res.toSet();
 	}
 	
 	/**
@@ -80,38 +155,42 @@ public class PropagationRuleManager {
 	 * incoming taint abstraction shall be killed
 	 * @param killAll Outgoing value that receives whether all taints shall be
 	 * killed and nothing shall be propagated onwards
-	 * @return The collection of outgoing taints
+	 * @return The collection of outgoing taints. The returned set has exactly
+	 * the required size and cannot grow beyond it.
 	 */
 	public Set<Abstraction> applyNormalFlowFunction(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
 			ByReferenceBoolean killSource,
 			ByReferenceBoolean killAll) {
-		Set<Abstraction> res = null;
 		if (killSource == null)
 			killSource = new ByReferenceBoolean();
-		for (ITaintPropagationRule rule : rules) {
-			Collection<Abstraction> ruleOut = rule.propagateNormalFlow(d1,
-					source, stmt, destStmt, killSource, killAll);
-			if (killAll != null && killAll.value)
-				return null;
-			if (ruleOut != null && !ruleOut.isEmpty()) {
-				if (res == null)
-					res = new HashSet<Abstraction>(ruleOut);
-				else
+		ReusableSetBuffer<Abstraction> res = ReusableSetBuffer.acquire();
+		try {
+			for (int i : getApplicableRules(FlowFunctionKind.Normal, stmt)) {
+				long startTime = statistics == null ? 0 : System.nanoTime();
+				boolean killedBefore = killSource.value;
+				Collection<Abstraction> ruleOut = rules[i].propagateNormalFlow(d1,
+						source, stmt, destStmt, killSource, killAll);
+				boolean killedAll = killAll != null && killAll.value;
+				if (statistics != null)
+					statistics.record(i, FlowFunctionKind.Normal, startTime, ruleOut == null ? 0 : ruleOut.size(),
+							killedAll || (!killedBefore && killSource.value));
+				if (killedAll)
+					return null;
+				if (ruleOut != null && !ruleOut.isEmpty())
 					res.addAll(ruleOut);
 			}
-		}
-		
-		// Do we need to retain the source value?
-		if ((killAll == null || !killAll.value) && !killSource.value) {
-			if (res == null) {
-				res = new HashSet<>();
+			
+			// Do we need to retain the source value?
+			if ((killAll == null || !killAll.value) && !killSource.value) {
+				if (res.isEmpty())
+					return Collections.singleton(source);
 				res.add(source);
 			}
-			else
-				res.add(source);
+			return toResultSet(res);
+		} finally {
+			res.release();
 		}
-		return res;
 	}
 	
 	/**
@@ -126,20 +205,24 @@ public class PropagationRuleManager {
 	 */
 	public Set<Abstraction> applyCallFlowFunction(Abstraction d1,
 			Abstraction source, Stmt stmt, SootMethod dest, ByReferenceBoolean killAll) {
-		Set<Abstraction> res = null;
-		for (ITaintPropagationRule rule : rules) {
-			Collection<Abstraction> ruleOut = rule.propagateCallFlow(
-					d1, source, stmt, dest, killAll);
-			if (killAll.value)
-				return null;
-			if (ruleOut != null && !ruleOut.isEmpty()) {
-				if (res == null)
-					res = new HashSet<Abstraction>(ruleOut);
-				else
+		ReusableSetBuffer<Abstraction> res = ReusableSetBuffer.acquire();
+		try {
+			for (int i : getApplicableRules(FlowFunctionKind.Call, stmt)) {
+				long startTime = statistics == null ? 0 : System.nanoTime();
+				Collection<Abstraction> ruleOut = rules[i].propagateCallFlow(
+						d1, source, stmt, dest, killAll);
+				if (statistics != null)
+					statistics.record(i, FlowFunctionKind.Call, startTime, ruleOut == null ? 0 : ruleOut.size(),
+							killAll.value);
+				if (killAll.value)
+					return null;
+				if (ruleOut != null && !ruleOut.isEmpty())
 					res.addAll(ruleOut);
 			}
+			return toResultSet(res);
+		} finally {
+			res.release();
 		}
-		return res;
 	}
 	
 	/**
@@ -168,30 +251,33 @@ public class PropagationRuleManager {
 			Abstraction source, Stmt stmt, ByReferenceBoolean killSource,
 			ByReferenceBoolean killAll,
 			boolean noAddSource) {
-		Set<Abstraction> res = null;
-		for (ITaintPropagationRule rule : rules) {
-			Collection<Abstraction> ruleOut = rule.propagateCallToReturnFlow(
-					d1, source, stmt, killSource, killAll);
-			if (killAll != null && killAll.value)
-				return null;
-			if (ruleOut != null && !ruleOut.isEmpty()) {
-				if (res == null)
-					res = new HashSet<Abstraction>(ruleOut);
-				else
+		ReusableSetBuffer<Abstraction> res = ReusableSetBuffer.acquire();
+		try {
+			for (int i : getApplicableRules(FlowFunctionKind.CallToReturn, stmt)) {
+				long startTime = statistics == null ? 0 : System.nanoTime();
+				boolean killedBefore = killSource.value;
+				Collection<Abstraction> ruleOut = rules[i].propagateCallToReturnFlow(
+						d1, source, stmt, killSource, killAll);
+				boolean killedAll = killAll != null && killAll.value;
+				if (statistics != null)
+					statistics.record(i, FlowFunctionKind.CallToReturn, startTime,
+							ruleOut == null ? 0 : ruleOut.size(), killedAll || (!killedBefore && killSource.value));
+				if (killedAll)
+					return null;
+				if (ruleOut != null && !ruleOut.isEmpty())
 					res.addAll(ruleOut);
 			}
-		}
-		
-		// Do we need to retain the source value?
-		if (!noAddSource && !killSource.value) {
-			if (res == null) {
-				res = new HashSet<>();
+			
+			// Do we need to retain the source value?
+			if (!noAddSource && !killSource.value) {
+				if (res.isEmpty())
+					return Collections.singleton(source);
 				res.add(source);
 			}
-			else
-				res.add(source);
+			return toResultSet(res);
+		} finally {
+			res.release();
 		}
-		return res;
 	}
 	
 	/**
@@ -209,20 +295,25 @@ public class PropagationRuleManager {
 	public Set<Abstraction> applyReturnFlowFunction(
 			Collection<Abstraction> callerD1s, Abstraction source, Stmt stmt,
 			Stmt retSite, Stmt callSite, ByReferenceBoolean killAll) {
-		Set<Abstraction> res = null;
-		for (ITaintPropagationRule rule : rules) {
-			Collection<Abstraction> ruleOut = rule.propagateReturnFlow(callerD1s,
-					source, stmt, retSite, callSite, killAll);
-			if (killAll != null && killAll.value)
-				return null;
-			if (ruleOut != null && !ruleOut.isEmpty()) {
-				if (res == null)
-					res = new HashSet<Abstraction>(ruleOut);
-				else
+		ReusableSetBuffer<Abstraction> res = ReusableSetBuffer.acquire();
+		try {
+			for (int i : getApplicableRules(FlowFunctionKind.Return, stmt)) {
+				long startTime = statistics == null ? 0 : System.nanoTime();
+				Collection<Abstraction> ruleOut = rules[i].propagateReturnFlow(callerD1s,
+						source, stmt, retSite, callSite, killAll);
+				boolean killedAll = killAll != null && killAll.value;
+				if (statistics != null)
+					statistics.record(i, FlowFunctionKind.Return, startTime, ruleOut == null ? 0 : ruleOut.size(),
+							killedAll);
+				if (killedAll)
+					return null;
+				if (ruleOut != null && !ruleOut.isEmpty())
 					res.addAll(ruleOut);
 			}
+			return toResultSet(res);
+		} finally {
+			res.release();
 		}
-		return res;
 	}
 	
 }
@@ -0,0 +1,163 @@
+package soot.jimple.infoflow.problems.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Statistics on how often each propagation rule is invoked, how much time it
+ * takes, and how many taints it produces or kills. The statistics are kept
+ * separately for each kind of flow function.
+ *
+ */
+public class PropagationRuleStatistics {
+
+	private static final Logger logger = LoggerFactory.getLogger(PropagationRuleStatistics.class);
+
+	/**
+	 * The kinds of flow functions to which the propagation rules are applied
+	 */
+	public enum FlowFunctionKind {
+		Normal,
+		Call,
+		CallToReturn,
+		Return
+	}
+
+	private static final int NUM_KINDS = FlowFunctionKind.values().length;
+
+	private final ITaintPropagationRule[] rules;
+	private final AtomicLongArray invocations;
+	private final AtomicLongArray nanos;
+	private final AtomicLongArray produced;
+	private final AtomicLongArray killed;
+
+	/**
+	 * Creates a new instance of the {@link PropagationRuleStatistics} class
+	 * @param rules The rules for which to record statistics. The index of a
+	 * rule in this array is used to identify it when recording.
+	 */
+	public PropagationRuleStatistics(ITaintPropagationRule[] rules) {
+		this.rules = rules;
+		this.invocations = new AtomicLongArray(rules.length * NUM_KINDS);
+		this.nanos = new AtomicLongArray(rules.length * NUM_KINDS);
+		this.produced = new AtomicLongArray(rules.length * NUM_KINDS);
+		this.killed = new AtomicLongArray(rules.length * NUM_KINDS);
+	}
+
+	/**
+	 * Records a single invocation of a propagation rule
+	 * @param ruleIdx The index of the rule
+	 * @param kind The kind of flow function
+	 * @param startTime The time at which the rule was invoked, as given by
+	 * System.nanoTime()
+	 * @param producedTaints The number of taints the rule has produced
+	 * @param killedTaint True if the rule has killed the incoming taint or all
+	 * taints, otherwise false
+	 */
+	void record(int ruleIdx, FlowFunctionKind kind, long startTime, int producedTaints, boolean killedTaint) {
+		long duration = System.nanoTime() - startTime;
+		int idx = ruleIdx * NUM_KINDS + kind.ordinal();
+		invocations.incrementAndGet(idx);
+		nanos.addAndGet(idx, duration);
+		if (producedTaints > 0)
+			produced.addAndGet(idx, producedTaints);
+		if (killedTaint)
+			killed.incrementAndGet(idx);
+	}
+
+	private int indexOf(Class<? extends ITaintPropagationRule> ruleClass, FlowFunctionKind kind) {
+		for (int i = 0; i < rules.length; i++)
+			if (rules[i].getClass() == ruleClass)
+				return i * NUM_KINDS + kind.ordinal();
+		return -1;
+	}
+
+	/**
+	 * Gets how often the given rule was invoked for the given kind of flow
+	 * function
+	 * @param ruleClass The class of the rule
+	 * @param kind The kind of flow function
+	 * @return The number of invocations
+	 */
+	public long getInvocationCount(Class<? extends ITaintPropagationRule> ruleClass, FlowFunctionKind kind) {
+		int idx = indexOf(ruleClass, kind);
+		return idx < 0 ? 0 : invocations.get(idx);
+	}
+
+	/**
+	 * Gets how much time the given rule has spent in the given kind of flow
+	 * function
+	 * @param ruleClass The class of the rule
+	 * @param kind The kind of flow function
+	 * @return The cumulative time in nanoseconds
+	 */
+	public long getTotalTime(Class<? extends ITaintPropagationRule> ruleClass, FlowFunctionKind kind) {
+		int idx = indexOf(ruleClass, kind);
+		return idx < 0 ? 0 : nanos.get(idx);
+	}
+
+	/**
+	 * Gets how many taints the given rule has produced in the given kind of
+	 * flow function
+	 * @param ruleClass The class of the rule
+	 * @param kind The kind of flow function
+	 * @return The number of produced taints
+	 */
+	public long getProducedCount(Class<? extends ITaintPropagationRule> ruleClass, FlowFunctionKind kind) {
+		int idx = indexOf(ruleClass, kind);
+		return idx < 0 ? 0 : produced.get(idx);
+	}
+
+	/**
+	 * Gets how often the given rule has killed the incoming taint in the given
+	 * kind of flow function
+	 * @param ruleClass The class of the rule
+	 * @param kind The kind of flow function
+	 * @return The number of kills
+	 */
+	public long getKilledCount(Class<? extends ITaintPropagationRule> ruleClass, FlowFunctionKind kind) {
+		int idx = indexOf(ruleClass, kind);
+		return idx < 0 ? 0 : killed.get(idx);
+	}
+
+	/**
+	 * Writes a summary of the statistics to the log. The rules are ordered by
+	 * the time they took, the most expensive one first.
+	 */
+	public void printSummary() {
+		List<Integer> indices = new ArrayList<>();
+		long totalNanos = 0;
+		for (int i = 0; i < invocations.length(); i++) {
+			if (invocations.get(i) > 0)
+				indices.add(i);
+			totalNanos += nanos.get(i);
+		}
+		Collections.sort(indices, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Long.compare(nanos.get(o2), nanos.get(o1));
+			}
+
+		});
+
+		logger.info("Propagation rule statistics ({} ms in total):", totalNanos / 1000000);
+		logger.info(String.format("%-30s %-12s %12s %10s %10s %12s %12s", "Rule", "Flow function",
+				"Invocations", "Time (ms)", "Share", "Produced", "Killed"));
+		for (int idx : indices) {
+			ITaintPropagationRule rule = rules[idx / NUM_KINDS];
+			FlowFunctionKind kind = FlowFunctionKind.values()[idx % NUM_KINDS];
+			logger.info(String.format("%-30s %-12s %12d %10d %9.1f%% %12d %12d",
+					rule.getClass().getSimpleName(), kind, invocations.get(idx), nanos.get(idx) / 1000000,
+					totalNanos == 0 ? 0d : nanos.get(idx) * 100d / totalNanos, produced.get(idx),
+					killed.get(idx)));
+		}
+	}
+
+}
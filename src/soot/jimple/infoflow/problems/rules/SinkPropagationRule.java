@@ -1,6 +1,8 @@
 package soot.jimple.infoflow.problems.rules;
 
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
 
 import soot.SootMethod;
 import soot.Value;
@@ -17,6 +19,7 @@ import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.util.BaseSelector;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
@@ -34,6 +37,16 @@ public class SinkPropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind) {
+		// The other flow functions check for the kill state, so they must run
+		// on every statement
+		if (kind == FlowFunctionKind.Normal)
+			return EnumSet.of(StatementShape.Return, StatementShape.If, StatementShape.Switch,
+					StatementShape.Assign);
+		return super.getApplicableShapes(kind);
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
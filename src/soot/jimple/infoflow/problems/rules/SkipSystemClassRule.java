@@ -2,6 +2,8 @@ package soot.jimple.infoflow.problems.rules;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 import soot.Scene;
 import soot.SootMethod;
@@ -10,6 +12,7 @@ import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
 /**
@@ -37,6 +40,13 @@ public class SkipSystemClassRule extends AbstractTaintPropagationRule {
 		this.threadCons = Scene.v().grabMethod("<java.lang.Thread: void <init>()>");
 	}
 
+	@Override
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind) {
+		if (kind == FlowFunctionKind.Call || kind == FlowFunctionKind.CallToReturn)
+			return super.getApplicableShapes(kind);
+		return EnumSet.noneOf(StatementShape.class);
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
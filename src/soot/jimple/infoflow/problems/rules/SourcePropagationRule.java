@@ -1,6 +1,7 @@
 package soot.jimple.infoflow.problems.rules;
 
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -12,6 +13,7 @@ import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.source.SourceInfo;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 import soot.jimple.infoflow.util.TypeUtils;
@@ -29,6 +31,15 @@ public class SourcePropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind) {
+		// Zero facts are killed on every statement, so we cannot restrict the
+		// statements except for the return flow
+		if (kind == FlowFunctionKind.Return)
+			return EnumSet.noneOf(StatementShape.class);
+		return super.getApplicableShapes(kind);
+	}
+
 	private Collection<Abstraction> propagate(Abstraction d1,
 			Abstraction source, Stmt stmt, ByReferenceBoolean killSource,
 			ByReferenceBoolean killAll) {
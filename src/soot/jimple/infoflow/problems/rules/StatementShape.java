@@ -0,0 +1,160 @@
+package soot.jimple.infoflow.problems.rules;
+
+import java.util.Set;
+
+import soot.Value;
+import soot.jimple.ArrayRef;
+import soot.jimple.AssignStmt;
+import soot.jimple.CastExpr;
+import soot.jimple.CaughtExceptionRef;
+import soot.jimple.DefinitionStmt;
+import soot.jimple.IdentityStmt;
+import soot.jimple.IfStmt;
+import soot.jimple.LengthExpr;
+import soot.jimple.LookupSwitchStmt;
+import soot.jimple.NewArrayExpr;
+import soot.jimple.ReturnStmt;
+import soot.jimple.ReturnVoidStmt;
+import soot.jimple.Stmt;
+import soot.jimple.TableSwitchStmt;
+import soot.jimple.ThrowStmt;
+
+/**
+ * The shapes of statements that propagation rules can declare interest in.
+ * A statement can have more than one shape, e.g., an assignment with a cast
+ * on its right side is both an {@link #Assign} and a {@link #Cast}. Every
+ * statement has at least one shape.
+ *
+ */
+public enum StatementShape {
+	/**
+	 * An assignment, i.e., x = y in any of its forms
+	 */
+	Assign,
+
+	/**
+	 * An identity statement, e.g., x := @parameter0
+	 */
+	Identity,
+
+	/**
+	 * A statement that contains a method invocation
+	 */
+	Invoke,
+
+	/**
+	 * A return statement with a value
+	 */
+	Return,
+
+	/**
+	 * A return statement without a value
+	 */
+	ReturnVoid,
+
+	/**
+	 * A throw statement
+	 */
+	Throw,
+
+	/**
+	 * A conditional jump
+	 */
+	If,
+
+	/**
+	 * A lookup or table switch
+	 */
+	Switch,
+
+	/**
+	 * An assignment whose right side reads an array element, takes the
+	 * length of an array, or creates a new array
+	 */
+	ArrayOperation,
+
+	/**
+	 * A definition whose right side is the caught exception
+	 */
+	CaughtException,
+
+	/**
+	 * A definition whose right side is a type cast
+	 */
+	Cast,
+
+	/**
+	 * Any statement that has none of the other shapes, e.g., a goto or a
+	 * monitor statement
+	 */
+	Other;
+
+	/**
+	 * The number of shapes, i.e., the number of bits in a shape mask
+	 */
+	public static final int SHAPE_COUNT = values().length;
+
+	/**
+	 * The mask that contains all shapes
+	 */
+	public static final int ALL_SHAPES = (1 << SHAPE_COUNT) - 1;
+
+	/**
+	 * Gets the bit that represents this shape in a shape mask
+	 * @return The bit of this shape
+	 */
+	public int getBit() {
+		return 1 << ordinal();
+	}
+
+	/**
+	 * Converts the given set of shapes into a shape mask
+	 * @param shapes The shapes to convert
+	 * @return The shape mask that contains exactly the given shapes
+	 */
+	public static int toMask(Set<StatementShape> shapes) {
+		int mask = 0;
+		for (StatementShape shape : shapes)
+			mask |= shape.getBit();
+		return mask;
+	}
+
+	/**
+	 * Computes the shapes of the given statement
+	 * @param stmt The statement to classify
+	 * @return The shape mask of the given statement. The mask is never zero.
+	 */
+	public static int getShapes(Stmt stmt) {
+		int mask = 0;
+		if (stmt instanceof DefinitionStmt) {
+			Value rightOp = ((DefinitionStmt) stmt).getRightOp();
+			if (stmt instanceof AssignStmt) {
+				mask |= Assign.getBit();
+				if (rightOp instanceof ArrayRef || rightOp instanceof LengthExpr
+						|| rightOp instanceof NewArrayExpr)
+					mask |= ArrayOperation.getBit();
+			}
+			else if (stmt instanceof IdentityStmt)
+				mask |= Identity.getBit();
+			if (rightOp instanceof CaughtExceptionRef)
+				mask |= CaughtException.getBit();
+			else if (rightOp instanceof CastExpr)
+				mask |= Cast.getBit();
+		}
+		else if (stmt instanceof ReturnStmt)
+			mask |= Return.getBit();
+		else if (stmt instanceof ReturnVoidStmt)
+			mask |= ReturnVoid.getBit();
+		else if (stmt instanceof ThrowStmt)
+			mask |= Throw.getBit();
+		else if (stmt instanceof IfStmt)
+			mask |= If.getBit();
+		else if (stmt instanceof LookupSwitchStmt || stmt instanceof TableSwitchStmt)
+			mask |= Switch.getBit();
+
+		if (stmt.containsInvokeExpr())
+			mask |= Invoke.getBit();
+		return mask == 0 ? Other.getBit() : mask;
+	}
+
+}
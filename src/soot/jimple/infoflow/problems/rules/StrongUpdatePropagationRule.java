@@ -1,6 +1,8 @@
 package soot.jimple.infoflow.problems.rules;
 
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
 
 import soot.Local;
 import soot.SootMethod;
@@ -14,6 +16,7 @@ import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
 /**
@@ -29,6 +32,13 @@ public class StrongUpdatePropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind) {
+		if (kind == FlowFunctionKind.Normal || kind == FlowFunctionKind.CallToReturn)
+			return EnumSet.of(StatementShape.Assign);
+		return EnumSet.noneOf(StatementShape.class);
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
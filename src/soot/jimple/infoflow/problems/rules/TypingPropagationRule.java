@@ -1,6 +1,8 @@
 package soot.jimple.infoflow.problems.rules;
 
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
 
 import soot.SootMethod;
 import soot.jimple.CastExpr;
@@ -10,6 +12,7 @@ import soot.jimple.infoflow.InfoflowManager;
 import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 
 /**
@@ -25,6 +28,13 @@ public class TypingPropagationRule extends AbstractTaintPropagationRule {
 		super(manager, aliasing, zeroValue, results);
 	}
 
+	@Override
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind) {
+		if (kind == FlowFunctionKind.Normal)
+			return EnumSet.of(StatementShape.Cast);
+		return EnumSet.noneOf(StatementShape.class);
+	}
+
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
 			Abstraction source, Stmt stmt, Stmt destStmt,
@@ -1,6 +1,7 @@
 package soot.jimple.infoflow.problems.rules;
 
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -14,6 +15,7 @@ import soot.jimple.infoflow.aliasing.Aliasing;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.problems.rules.PropagationRuleStatistics.FlowFunctionKind;
 import soot.jimple.infoflow.source.SourceInfo;
 import soot.jimple.infoflow.util.ByReferenceBoolean;
 import soot.jimple.infoflow.util.TypeUtils;
@@ -30,6 +32,13 @@ public class WrapperPropagationRule extends AbstractTaintPropagationRule {
 			Aliasing aliasing, Abstraction zeroValue, TaintPropagationResults results) {
 		super(manager, aliasing, zeroValue, results);
 	}
+
+	@Override
+	public Set<StatementShape> getApplicableShapes(FlowFunctionKind kind) {
+		if (kind == FlowFunctionKind.Call || kind == FlowFunctionKind.CallToReturn)
+			return super.getApplicableShapes(kind);
+		return EnumSet.noneOf(StatementShape.class);
+	}
 	
 	@Override
 	public Collection<Abstraction> propagateNormalFlow(Abstraction d1,
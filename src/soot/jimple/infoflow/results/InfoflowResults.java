@@ -14,6 +14,8 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
@@ -21,25 +23,69 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import heros.solver.Pair;
-import soot.jimple.InvokeExpr;
+import soot.SootMethod;
 import soot.jimple.Stmt;
+import soot.jimple.infoflow.collect.ConcurrentHashSet;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.metrics.AnalysisPhase;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
 import soot.util.ConcurrentHashMultiMap;
 import soot.util.MultiMap;
 
 /**
- * Class for collecting information flow results
+ * Class for collecting information flow results. Besides the results
+ * themselves, this class maintains secondary indexes that are updated
+ * whenever a result is added, so that the common queries do not need to
+ * scan all results. Results must therefore only be added through this class
+ * and never through the map returned by {@link #getResults()}.
  * 
  * @author Steven Arzt
  */
 public class InfoflowResults {
 	
+	/**
+	 * Estimated number of bytes for a key in one of the secondary indexes,
+	 * i.e., a node in the outer map and the inner map that holds the values
+	 */
+	private static final int INDEX_BYTES_PER_KEY = 96;
+	
+	/**
+	 * Estimated number of bytes for a value in one of the secondary indexes
+	 */
+	private static final int INDEX_BYTES_PER_VALUE = 48;
+	
+	/**
+	 * Estimated number of bytes for a pair of method signatures, including
+	 * the pair object
+	 */
+	private static final int INDEX_BYTES_PER_PAIR = 80;
+	
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 		
 	private final MultiMap<ResultSinkInfo, ResultSourceInfo> results =
 			new ConcurrentHashMultiMap<ResultSinkInfo, ResultSourceInfo>();
 	
+	// secondary indexes over the results
+	private final MultiMap<Stmt, ResultSinkInfo> sinksByStmt =
+			new ConcurrentHashMultiMap<Stmt, ResultSinkInfo>();
+	private final MultiMap<String, ResultSinkInfo> sinksByBaseName =
+			new ConcurrentHashMultiMap<String, ResultSinkInfo>();
+	private final MultiMap<String, ResultSinkInfo> sinksByMethodSignature =
+			new ConcurrentHashMultiMap<String, ResultSinkInfo>();
+	private final MultiMap<String, ResultSourceInfo> sourcesByMethodSignature =
+			new ConcurrentHashMultiMap<String, ResultSourceInfo>();
+	private final Set<Pair<String, String>> sinkSourceMethodPairs =
+			new ConcurrentHashSet<Pair<String, String>>();
+	private final MultiMap<SootMethod, ResultSinkInfo> sinksByContainingMethod =
+			new ConcurrentHashMultiMap<SootMethod, ResultSinkInfo>();
+	private final MultiMap<SootMethod, ResultSourceInfo> sourcesByContainingMethod =
+			new ConcurrentHashMultiMap<SootMethod, ResultSourceInfo>();
+	
+	// the control flow graph for looking up the methods that contain the
+	// sources and sinks
+	private IInfoflowCFG icfg = null;
+	
 	// here we keep the names of all exceptions that occurred during the analysis
 	// in order to serialize them
 	private List<String> exceptions = new ArrayList<String>();
@@ -48,14 +94,128 @@ public class InfoflowResults {
 		return exceptions;
 	}
 	
-	public void addException (String ex){
+	public synchronized void addException (String ex){
 		exceptions.add(ex);
 	}
 	
+	// here we keep the measures that were taken to reduce the memory
+	// consumption, and separately the ones that came at the cost of precision
+	private List<String> degradations = new ArrayList<String>();
+	private List<String> precisionDegradations = new ArrayList<String>();
+	
+	/**
+	 * Gets all measures that were taken during the analysis to reduce the
+	 * memory consumption, including the ones that did not affect the
+	 * precision, e.g., flushing caches
+	 * @return The measures taken to reduce the memory consumption
+	 */
+	public List<String> getDegradations() {
+		return degradations;
+	}
+	
+	/**
+	 * Gets the measures that were taken during the analysis to reduce the
+	 * memory consumption at the cost of precision
+	 * @return The measures taken to reduce the memory consumption that may
+	 * have made the results less precise
+	 */
+	public List<String> getPrecisionDegradations() {
+		return precisionDegradations;
+	}
+	
+	/**
+	 * Records that the analysis has reduced its precision to save memory
+	 * @param degradation A description of the measure that was taken
+	 */
+	public void addDegradation(String degradation) {
+		addDegradation(degradation, true);
+	}
+	
+	/**
+	 * Records that the analysis has taken a measure to save memory
+	 * @param degradation A description of the measure that was taken
+	 * @param reducesPrecision True if the measure may make the results less
+	 * precise, false if it only costs performance
+	 */
+	public synchronized void addDegradation(String degradation, boolean reducesPrecision) {
+		degradations.add(degradation);
+		if (reducesPrecision)
+			precisionDegradations.add(degradation);
+	}
+	
+	// here we keep the analysis phases that did not run to completion, e.g.,
+	// because they ran out of time or memory
+	private final Set<AnalysisPhase> truncatedPhases = Collections.synchronizedSet(
+			EnumSet.noneOf(AnalysisPhase.class));
+	
+	/**
+	 * Gets the analysis phases that did not run to completion. If the data
+	 * flow analysis was truncated, the results may lack flows. If the path
+	 * reconstruction was truncated, the results may lack paths or flows.
+	 * @return The analysis phases that did not run to completion
+	 */
+	public Set<AnalysisPhase> getTruncatedPhases() {
+		return truncatedPhases;
+	}
+	
+	/**
+	 * Records that the given analysis phase did not run to completion
+	 * @param phase The phase that was cut short or skipped
+	 */
+	public void addTruncatedPhase(AnalysisPhase phase) {
+		truncatedPhases.add(phase);
+	}
+	
+	/**
+	 * Gets whether all analysis phases have run to completion
+	 * @return True if no phase has been truncated, otherwise false
+	 */
+	public boolean isComplete() {
+		return truncatedPhases.isEmpty();
+	}
+	
 	public InfoflowResults() {
 		
 	}
 	
+	/**
+	 * Creates a new instance of the {@link InfoflowResults} class that also
+	 * indexes the results by the methods that contain their sources and sinks
+	 * @param icfg The interprocedural control flow graph
+	 */
+	public InfoflowResults(IInfoflowCFG icfg) {
+		this.icfg = icfg;
+	}
+	
+	/**
+	 * Sets the interprocedural control flow graph that is used for indexing
+	 * the results by the methods that contain their sources and sinks. The
+	 * results that have already been added are indexed immediately.
+	 * @param icfg The interprocedural control flow graph
+	 */
+	public synchronized void setInterproceduralCFG(IInfoflowCFG icfg) {
+		if (this.icfg == icfg)
+			return;
+		this.icfg = icfg;
+		
+		this.sinksByContainingMethod.clear();
+		this.sourcesByContainingMethod.clear();
+		if (icfg != null)
+			for (ResultSinkInfo sink : this.results.keySet())
+				for (ResultSourceInfo source : this.results.get(sink))
+					indexContainingMethods(sink, source);
+	}
+	
+	/**
+	 * Gets the interprocedural control flow graph that is used for indexing
+	 * the results by the methods that contain their sources and sinks
+	 * @return The interprocedural control flow graph, or null if none has
+	 * been set
+	 */
+	public IInfoflowCFG getInterproceduralCFG() {
+		return this.icfg;
+	}
+	
 	/**
 	 * Gets the number of entries in this result object
 	 * @return The number of entries in this result object
@@ -95,10 +255,7 @@ public class InfoflowResults {
 	 * false.
 	 */
 	public boolean containsSink(Stmt sink) {
-		for (ResultSinkInfo si : this.results.keySet())
-			if (si.getSink().equals(sink))
-				return true;
-		return false;
+		return !isNullOrEmpty(this.sinksByStmt.get(sink));
 	}
 	
 	/**
@@ -157,25 +314,110 @@ public class InfoflowResults {
 	 * @param sink The sink at which the taint arrived
 	 * @param source The source from which the taint originated
 	 */
-	public void addResult(ResultSinkInfo sink, ResultSourceInfo source) {
-		this.results.put(sink, source);
+	public synchronized void addResult(ResultSinkInfo sink, ResultSourceInfo source) {
+		if (!this.results.put(sink, source))
+			return;
+		
+		// Update the secondary indexes
+		this.sinksByStmt.put(sink.getSink(), sink);
+		if (sink.getAccessPath().getPlainValue() != null)
+			this.sinksByBaseName.put(sink.getAccessPath().getPlainValue().toString(), sink);
+		String sinkSignature = getCalleeSignature(sink.getSink());
+		if (sinkSignature != null)
+			this.sinksByMethodSignature.put(sinkSignature, sink);
+		String sourceSignature = getCalleeSignature(source.getSource());
+		if (sourceSignature != null) {
+			this.sourcesByMethodSignature.put(sourceSignature, source);
+			if (sinkSignature != null)
+				this.sinkSourceMethodPairs.add(new Pair<String, String>(sinkSignature, sourceSignature));
+		}
+		if (this.icfg != null)
+			indexContainingMethods(sink, source);
+	}
+	
+	/**
+	 * Adds the given result to the indexes by containing method
+	 * @param sink The sink at which the taint arrived
+	 * @param source The source from which the taint originated
+	 */
+	private void indexContainingMethods(ResultSinkInfo sink, ResultSourceInfo source) {
+		SootMethod sinkMethod = icfg.getMethodOf(sink.getSink());
+		if (sinkMethod != null)
+			this.sinksByContainingMethod.put(sinkMethod, sink);
+		if (source.getSource() != null) {
+			SootMethod sourceMethod = icfg.getMethodOf(source.getSource());
+			if (sourceMethod != null)
+				this.sourcesByContainingMethod.put(sourceMethod, source);
+		}
+	}
+	
+	/**
+	 * Gets the signature of the method that is invoked by the given statement
+	 * @param stmt The statement to check
+	 * @return The signature of the callee, or null if the given statement does
+	 * not contain a method invocation
+	 */
+	private static String getCalleeSignature(Stmt stmt) {
+		if (stmt == null || !stmt.containsInvokeExpr())
+			return null;
+		return stmt.getInvokeExpr().getMethod().getSignature();
+	}
+	
+	private static boolean isNullOrEmpty(Set<?> set) {
+		return set == null || set.isEmpty();
 	}
 	
 	/**
-	 * Adds all results from the given data structure to this one
+	 * Adds all results from the given data structure to this one, together
+	 * with the exceptions, degradations and truncated phases recorded there.
+	 * The merge is atomic with respect to the other methods that modify this
+	 * object.
 	 * @param results The data structure from which to copy the results
 	 */
 	public void addAll(InfoflowResults results) {
-		if (results == null || results.isEmpty())
+		if (results == null || results == this)
 			return;
 		
-		for (ResultSinkInfo sink : results.getResults().keySet())
-			for (ResultSourceInfo source : results.getResults().get(sink))
-				addResult(sink, source);
+		// Take a snapshot first, so that we never hold both locks at the same
+		// time
+		List<Pair<ResultSinkInfo, ResultSourceInfo>> newResults = new ArrayList<>();
+		List<String> newExceptions;
+		List<String> newDegradations;
+		List<String> newPrecisionDegradations;
+		Set<AnalysisPhase> newTruncatedPhases;
+		IInfoflowCFG newIcfg;
+		synchronized (results) {
+			for (ResultSinkInfo sink : results.getResults().keySet())
+				for (ResultSourceInfo source : results.getResults().get(sink))
+					newResults.add(new Pair<ResultSinkInfo, ResultSourceInfo>(sink, source));
+			newExceptions = new ArrayList<>(results.exceptions);
+			newDegradations = new ArrayList<>(results.degradations);
+			newPrecisionDegradations = new ArrayList<>(results.precisionDegradations);
+			synchronized (results.truncatedPhases) {
+				newTruncatedPhases = EnumSet.noneOf(AnalysisPhase.class);
+				newTruncatedPhases.addAll(results.truncatedPhases);
+			}
+			newIcfg = results.icfg;
+		}
+		
+		synchronized (this) {
+			// Take over the control flow graph if we do not have one yet
+			if (this.icfg == null && newIcfg != null)
+				setInterproceduralCFG(newIcfg);
+			
+			for (Pair<ResultSinkInfo, ResultSourceInfo> pair : newResults)
+				addResult(pair.getO1(), pair.getO2());
+			this.exceptions.addAll(newExceptions);
+			this.degradations.addAll(newDegradations);
+			this.precisionDegradations.addAll(newPrecisionDegradations);
+			this.truncatedPhases.addAll(newTruncatedPhases);
+		}
 	}
 
 	/**
-	 * Gets all results in this object as a hash map.
+	 * Gets all results in this object as a hash map. The map must not be
+	 * modified, use {@link #addResult(ResultSinkInfo, ResultSourceInfo)}
+	 * instead.
 	 * @return All results in this object as a hash map.
 	 */
 	public MultiMap<ResultSinkInfo, ResultSourceInfo> getResults() {
@@ -190,13 +432,10 @@ public class InfoflowResults {
 	 * otherwise
 	 */
 	public boolean isPathBetween(Stmt sink, Stmt source) {
-		Set<ResultSourceInfo> sources = null;
-		for(ResultSinkInfo sI : this.results.keySet()){
-			if(sI.getSink().equals(sink)){
-				sources = this.results.get(sI);
-				break;
-			}
-		}
+		Set<ResultSinkInfo> sinks = this.sinksByStmt.get(sink);
+		if (isNullOrEmpty(sinks))
+			return false;
+		Set<ResultSourceInfo> sources = this.results.get(sinks.iterator().next());
 		if (sources == null)
 			return false;
 		for (ResultSourceInfo src : sources)
@@ -213,12 +452,14 @@ public class InfoflowResults {
 	 * otherwise
 	 */
 	public boolean isPathBetween(String sink, String source) {
-		for (ResultSinkInfo si : this.results.keySet())
-			if (si.getAccessPath().getPlainValue().toString().equals(sink)) {
-				Set<ResultSourceInfo> sources = this.results.get(si);
-				for (ResultSourceInfo src : sources)
-					if (src.getSource().toString().contains(source))
-						return true;
+		Set<ResultSinkInfo> sinks = this.sinksByBaseName.get(sink);
+		if (isNullOrEmpty(sinks))
+			return false;
+		for (ResultSinkInfo si : sinks) {
+			Set<ResultSourceInfo> sources = this.results.get(si);
+			for (ResultSourceInfo src : sources)
+				if (src.getSource().toString().contains(source))
+					return true;
 		}
 		return false;
 	}
@@ -232,36 +473,77 @@ public class InfoflowResults {
 	 * otherwise
 	 */
 	public boolean isPathBetweenMethods(String sinkSignature, String sourceSignature) {
-		List<ResultSinkInfo> sinkVals = findSinkByMethodSignature(sinkSignature);
-		for (ResultSinkInfo si : sinkVals) {
-			Set<ResultSourceInfo> sources = this.results.get(si);
-			if (sources == null)
-				return false;
-			for (ResultSourceInfo src : sources)
-				if (src.getSource().containsInvokeExpr()) {
-					InvokeExpr expr = src.getSource().getInvokeExpr();
-					if (expr.getMethod().getSignature().equals(sourceSignature))
-						return true;
-				}
-		}
-		return false;
+		return this.sinkSourceMethodPairs.contains(new Pair<String, String>(sinkSignature,
+				sourceSignature));
 	}
 
 	/**
-	 * Finds the entry for a sink method with the given signature
+	 * Finds the sinks that call the method with the given signature
 	 * @param sinkSignature The sink's method signature to look for
-	 * @return The key of the entry with the given method signature if such an
-	 * entry has been found, otherwise null.
-	 */
-	private List<ResultSinkInfo> findSinkByMethodSignature(String sinkSignature) {
-		List<ResultSinkInfo> sinkVals = new ArrayList<ResultSinkInfo>();
-		for (ResultSinkInfo si : this.results.keySet())
-			if (si.getSink().containsInvokeExpr()) {
-				InvokeExpr expr = si.getSink().getInvokeExpr();
-				if (expr.getMethod().getSignature().equals(sinkSignature))
-					sinkVals.add(si);
-			}
-		return sinkVals;
+	 * @return The sinks that call the method with the given signature. If
+	 * there are no such sinks, an empty set is returned.
+	 */
+	public Set<ResultSinkInfo> findSinkByMethodSignature(String sinkSignature) {
+		return nullToEmpty(this.sinksByMethodSignature.get(sinkSignature));
+	}
+	
+	/**
+	 * Finds the sources that call the method with the given signature
+	 * @param sourceSignature The source's method signature to look for
+	 * @return The sources that call the method with the given signature. If
+	 * there are no such sources, an empty set is returned.
+	 */
+	public Set<ResultSourceInfo> findSourceByMethodSignature(String sourceSignature) {
+		return nullToEmpty(this.sourcesByMethodSignature.get(sourceSignature));
+	}
+	
+	/**
+	 * Finds the sinks that are located in the given method. This requires the
+	 * results to know the interprocedural control flow graph.
+	 * @param method The method that contains the sinks
+	 * @return The sinks inside the given method. If there are no such sinks,
+	 * or the control flow graph is not known, an empty set is returned.
+	 */
+	public Set<ResultSinkInfo> findSinksInMethod(SootMethod method) {
+		return nullToEmpty(this.sinksByContainingMethod.get(method));
+	}
+	
+	/**
+	 * Finds the sources that are located in the given method. This requires
+	 * the results to know the interprocedural control flow graph.
+	 * @param method The method that contains the sources
+	 * @return The sources inside the given method. If there are no such
+	 * sources, or the control flow graph is not known, an empty set is
+	 * returned.
+	 */
+	public Set<ResultSourceInfo> findSourcesInMethod(SootMethod method) {
+		return nullToEmpty(this.sourcesByContainingMethod.get(method));
+	}
+	
+	private static <T> Set<T> nullToEmpty(Set<T> set) {
+		return set == null ? Collections.<T>emptySet() : set;
+	}
+	
+	/**
+	 * Gets an estimate of the memory consumed by the secondary indexes of
+	 * this result object. The results themselves are not included.
+	 * @return The estimated size of the indexes in bytes
+	 */
+	public long getIndexMemoryFootprint() {
+		long footprint = getIndexMemoryFootprint(sinksByStmt)
+				+ getIndexMemoryFootprint(sinksByBaseName)
+				+ getIndexMemoryFootprint(sinksByMethodSignature)
+				+ getIndexMemoryFootprint(sourcesByMethodSignature)
+				+ getIndexMemoryFootprint(sinksByContainingMethod)
+				+ getIndexMemoryFootprint(sourcesByContainingMethod);
+		return footprint + (long) sinkSourceMethodPairs.size() * INDEX_BYTES_PER_PAIR;
+	}
+	
+	private static long getIndexMemoryFootprint(MultiMap<?, ?> index) {
+		long footprint = 0;
+		for (Object key : index.keySet())
+			footprint += INDEX_BYTES_PER_KEY + (long) index.get(key).size() * INDEX_BYTES_PER_VALUE;
+		return footprint;
 	}
 
 	/**
@@ -297,8 +579,15 @@ public class InfoflowResults {
 	/**
 	 * Removes all results from the data structure
 	 */
-	public void clear() {
+	public synchronized void clear() {
 		this.results.clear();
+		this.sinksByStmt.clear();
+		this.sinksByBaseName.clear();
+		this.sinksByMethodSignature.clear();
+		this.sourcesByMethodSignature.clear();
+		this.sinkSourceMethodPairs.clear();
+		this.sinksByContainingMethod.clear();
+		this.sourcesByContainingMethod.clear();
 	}
 	
 	@Override
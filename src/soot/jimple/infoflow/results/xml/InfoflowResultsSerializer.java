@@ -13,6 +13,8 @@ import javax.xml.stream.XMLStreamWriter;
 import soot.jimple.Stmt;
 import soot.jimple.infoflow.InfoflowConfiguration;
 import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.metrics.AnalysisEventRecorder;
+import soot.jimple.infoflow.metrics.AnalysisPhase;
 import soot.jimple.infoflow.results.InfoflowResults;
 import soot.jimple.infoflow.results.ResultSinkInfo;
 import soot.jimple.infoflow.results.ResultSourceInfo;
@@ -33,6 +35,7 @@ public class InfoflowResultsSerializer {
 	protected IInfoflowCFG icfg;
 	protected InfoflowConfiguration config;
 	protected long startTime = 0;
+	protected AnalysisEventRecorder eventRecorder = null;
 	
 	/**
 	 * Creates a new instance of the InfoflowResultsSerializer class
@@ -62,22 +65,30 @@ public class InfoflowResultsSerializer {
 	public void serialize(InfoflowResults results, String fileName)
 			throws FileNotFoundException, XMLStreamException {
 		this.startTime = System.currentTimeMillis();
+		if (eventRecorder != null)
+			eventRecorder.beginPhase(AnalysisPhase.ResultSerialization);
 		
-		OutputStream out = new FileOutputStream(fileName);
-		XMLOutputFactory factory = XMLOutputFactory.newInstance();
-		XMLStreamWriter writer = factory.createXMLStreamWriter(out, "UTF-8");
-		
-		writer.writeStartDocument("UTF-8", "1.0");
-		writer.writeStartElement(XmlConstants.Tags.root);
-		writer.writeAttribute(XmlConstants.Attributes.fileFormatVersion,
-				FILE_FORMAT_VERSION + "");
-		
-		writer.writeStartElement(XmlConstants.Tags.results);		
-		writeDataFlows(results, writer);
-		writer.writeEndElement();
-		
-		writer.writeEndDocument();
-		writer.close();
+		try {
+			OutputStream out = new FileOutputStream(fileName);
+			XMLOutputFactory factory = XMLOutputFactory.newInstance();
+			XMLStreamWriter writer = factory.createXMLStreamWriter(out, "UTF-8");
+			
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement(XmlConstants.Tags.root);
+			writer.writeAttribute(XmlConstants.Attributes.fileFormatVersion,
+					FILE_FORMAT_VERSION + "");
+			
+			writer.writeStartElement(XmlConstants.Tags.results);		
+			writeDataFlows(results, writer);
+			writer.writeEndElement();
+			
+			writer.writeEndDocument();
+			writer.close();
+		}
+		finally {
+			if (eventRecorder != null)
+				eventRecorder.endPhase(AnalysisPhase.ResultSerialization);
+		}
 	}
 	
 	/**
@@ -213,6 +224,16 @@ public class InfoflowResultsSerializer {
 		this.serializeTaintPath = serialize;
 	}
 	
+	/**
+	 * Sets the recorder that shall receive the timing event of the
+	 * serialization
+	 * @param eventRecorder The recorder for the timing events, e.g., the one
+	 * of the data flow analysis
+	 */
+	public void setEventRecorder(AnalysisEventRecorder eventRecorder) {
+		this.eventRecorder = eventRecorder;
+	}
+	
 	
 
 }
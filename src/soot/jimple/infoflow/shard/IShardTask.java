@@ -0,0 +1,36 @@
+package soot.jimple.infoflow.shard;
+
+import soot.jimple.infoflow.IInfoflow;
+
+/**
+ * Task that runs one shard of a data flow analysis that is distributed across
+ * several JVMs by the {@link ShardCoordinator}. The coordinator and every
+ * worker JVM create their own instance of the task, so implementations must
+ * provide a public constructor without arguments and must set up the
+ * analysis in exactly the same way in every JVM.
+ *
+ */
+public interface IShardTask {
+
+	/**
+	 * Creates the data flow engine, including its taint wrapper and all other
+	 * components that are not part of the {@link soot.jimple.infoflow.InfoflowConfiguration}.
+	 * The configuration of the engine is replaced with the one of the
+	 * coordinator afterwards.
+	 * @return The data flow engine to use for this shard
+	 */
+	public IInfoflow createInfoflow();
+
+	/**
+	 * Runs the data flow analysis for the given partition of the sources.
+	 * Implementations must pass their source/sink manager through
+	 * {@link SourcePartition#apply(soot.jimple.infoflow.source.ISourceSinkManager)}
+	 * and then call one of the <code>computeInfoflow</code> methods of the
+	 * given data flow engine.
+	 * @param infoflow The data flow engine to use
+	 * @param partition The partition of the sources to analyze
+	 * @throws Exception Thrown if the analysis cannot be run
+	 */
+	public void run(IInfoflow infoflow, SourcePartition partition) throws Exception;
+
+}
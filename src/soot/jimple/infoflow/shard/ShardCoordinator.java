@@ -0,0 +1,272 @@
+package soot.jimple.infoflow.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.metrics.AnalysisPhase;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+
+/**
+ * Class for distributing a data flow analysis across several local JVMs.
+ * Every worker JVM has its own heap and analyzes one partition of the
+ * sources. The coordinator sends the configuration to the workers over a
+ * local socket, collects their results, and merges them into a single
+ * {@link InfoflowResults} object.
+ *
+ * <p>
+ * To map the results of the workers back to Soot objects, the coordinator
+ * builds the callgraph and the interprocedural control flow graph itself
+ * while the workers are running, but does not analyze any source. The
+ * workers must therefore load exactly the same scene as the coordinator.
+ *
+ */
+public class ShardCoordinator {
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final InfoflowConfiguration config;
+	private final Class<? extends IShardTask> taskClass;
+	private final int shardCount;
+
+	private String javaExecutable = System.getProperty("java.home") + File.separator + "bin" + File.separator
+			+ "java";
+	private String classpath = System.getProperty("java.class.path");
+	private List<String> jvmOptions = Collections.emptyList();
+
+	/**
+	 * Creates a new instance of the {@link ShardCoordinator} class
+	 * @param config The configuration of the data flow analysis in all JVMs
+	 * @param taskClass The task that sets up and runs the analysis in every
+	 * JVM
+	 * @param shardCount The number of worker JVMs
+	 */
+	public ShardCoordinator(InfoflowConfiguration config, Class<? extends IShardTask> taskClass, int shardCount) {
+		if (shardCount < 1)
+			throw new IllegalArgumentException("There must be at least one shard");
+		this.config = config;
+		this.taskClass = taskClass;
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * Sets the Java executable with which to start the worker JVMs
+	 * @param javaExecutable The Java executable. The default is the one of
+	 * the current JVM.
+	 */
+	public void setJavaExecutable(String javaExecutable) {
+		this.javaExecutable = javaExecutable;
+	}
+
+	/**
+	 * Sets the classpath of the worker JVMs
+	 * @param classpath The classpath of the worker JVMs. The default is the
+	 * classpath of the current JVM.
+	 */
+	public void setClasspath(String classpath) {
+		this.classpath = classpath;
+	}
+
+	/**
+	 * Sets additional options for the worker JVMs, e.g., their maximum heap
+	 * size
+	 * @param jvmOptions The additional options for the worker JVMs
+	 */
+	public void setJvmOptions(List<String> jvmOptions) {
+		this.jvmOptions = jvmOptions;
+	}
+
+	/**
+	 * Runs the data flow analysis in the worker JVMs and merges their results
+	 * @return The merged results of all workers. If a worker failed, the
+	 * results contain an exception for it and are marked as incomplete.
+	 * @throws IOException Thrown if the workers cannot be started
+	 * @throws InterruptedException Thrown if the current thread was
+	 * interrupted while waiting for the workers
+	 */
+	public InfoflowResults run() throws IOException, InterruptedException {
+		final byte[][] shardResults = new byte[shardCount][];
+		final String[] shardFailures = new String[shardCount];
+		final List<Thread> handlers = Collections.synchronizedList(new ArrayList<Thread>());
+
+		List<Process> workers = new ArrayList<>(shardCount);
+		try (final ServerSocket serverSocket = new ServerSocket(0, shardCount, InetAddress.getLoopbackAddress())) {
+			// Start the workers
+			for (int i = 0; i < shardCount; i++)
+				workers.add(startWorker(serverSocket.getLocalPort(), i));
+
+			// Accept the connections of the workers in the background
+			Thread acceptor = new Thread("FlowDroid Shard Acceptor") {
+
+				@Override
+				public void run() {
+					try {
+						while (handlers.size() < shardCount) {
+							final Socket socket = serverSocket.accept();
+							Thread handler = new Thread("FlowDroid Shard Handler") {
+
+								@Override
+								public void run() {
+									handleWorker(socket, shardResults, shardFailures);
+								}
+
+							};
+							handler.setDaemon(true);
+							handlers.add(handler);
+							handler.start();
+						}
+					} catch (SocketException ex) {
+						// The socket was closed after all workers terminated
+					} catch (IOException ex) {
+						logger.error("Could not accept worker connection", ex);
+					}
+				}
+
+			};
+			acceptor.setDaemon(true);
+			acceptor.start();
+
+			// Build the scene in this JVM while the workers are running
+			IInfoflowCFG icfg = null;
+			InfoflowResults localResults = null;
+			try {
+				IShardTask task = taskClass.newInstance();
+				IInfoflow infoflow = task.createInfoflow();
+				infoflow.setConfig(config);
+				task.run(infoflow, SourcePartition.noSources());
+				localResults = infoflow.getResults();
+				if (localResults != null)
+					icfg = localResults.getInterproceduralCFG();
+			} catch (Exception ex) {
+				throw new IOException("Could not build the scene in the coordinator", ex);
+			}
+
+			// Wait for all workers to terminate
+			for (int i = 0; i < shardCount; i++) {
+				int exitCode = workers.get(i).waitFor();
+				if (exitCode != 0)
+					logger.warn("Shard {} terminated with exit code {}", i, exitCode);
+			}
+			serverSocket.close();
+			acceptor.join();
+			synchronized (handlers) {
+				for (Thread handler : handlers)
+					handler.join();
+			}
+
+			// Merge the results
+			InfoflowResults results = new InfoflowResults(icfg);
+			if (localResults != null)
+				results.addAll(localResults);
+			for (int i = 0; i < shardCount; i++) {
+				if (shardFailures[i] == null && shardResults[i] == null)
+					shardFailures[i] = "Worker did not report any results";
+				if (shardFailures[i] == null) {
+					try {
+						ShardProtocol.decodeResults(shardResults[i], icfg, results);
+					} catch (IOException ex) {
+						logger.error("Could not decode the results of shard " + i, ex);
+						shardFailures[i] = ex.getClass().getName() + ": " + ex.getMessage();
+					}
+				}
+				if (shardFailures[i] != null) {
+					results.addException("Shard " + i + " failed: " + shardFailures[i]);
+					results.addTruncatedPhase(AnalysisPhase.ForwardSolver);
+				}
+			}
+			logger.info("Merged the results of {} shards, found {} connections", shardCount,
+					results.numConnections());
+			return results;
+		} finally {
+			for (Process worker : workers)
+				worker.destroy();
+		}
+	}
+
+	/**
+	 * Starts the worker JVM for the given shard
+	 * @param port The port on which the coordinator waits for the workers
+	 * @param shardIndex The index of the shard to analyze
+	 * @return The process of the new worker JVM
+	 * @throws IOException Thrown if the worker JVM cannot be started
+	 */
+	private Process startWorker(int port, int shardIndex) throws IOException {
+		List<String> command = new ArrayList<>();
+		command.add(javaExecutable);
+		command.addAll(jvmOptions);
+		command.add("-cp");
+		command.add(classpath);
+		command.add(ShardWorker.class.getName());
+		command.add(InetAddress.getLoopbackAddress().getHostAddress());
+		command.add(Integer.toString(port));
+		command.add(Integer.toString(shardIndex));
+		command.add(Integer.toString(shardCount));
+		command.add(taskClass.getName());
+
+		logger.info("Starting worker for shard {} of {}", shardIndex, shardCount);
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.inheritIO();
+		return builder.start();
+	}
+
+	/**
+	 * Exchanges the configuration and the results with a single worker
+	 * @param socket The connection to the worker
+	 * @param shardResults The array in which to store the encoded results of
+	 * the workers
+	 * @param shardFailures The array in which to store the reasons why
+	 * workers failed
+	 */
+	private void handleWorker(Socket socket, byte[][] shardResults, String[] shardFailures) {
+		int shardIndex = -1;
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			if (in.readInt() != ShardProtocol.MAGIC)
+				throw new IOException("Unexpected connection from " + socket.getRemoteSocketAddress());
+			shardIndex = in.readInt();
+			if (shardIndex < 0 || shardIndex >= shardCount)
+				throw new IOException("Invalid shard index " + shardIndex);
+
+			ShardProtocol.writeConfiguration(out, config);
+			out.flush();
+
+			// The worker only answers once it has finished its analysis
+			int status = in.readByte();
+			if (status == ShardProtocol.STATUS_OK) {
+				byte[] data = new byte[in.readInt()];
+				in.readFully(data);
+				shardResults[shardIndex] = data;
+				logger.info("Received results of shard {}", shardIndex);
+			} else
+				shardFailures[shardIndex] = in.readUTF();
+		} catch (IOException ex) {
+			logger.error("Could not communicate with shard " + shardIndex, ex);
+			if (shardIndex >= 0)
+				shardFailures[shardIndex] = ex.getClass().getName() + ": " + ex.getMessage();
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException ex) {
+				logger.error("Could not close the connection to shard " + shardIndex, ex);
+			}
+		}
+	}
+
+}
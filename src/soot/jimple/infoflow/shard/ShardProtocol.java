@@ -0,0 +1,205 @@
+package soot.jimple.infoflow.shard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.data.AbstractionStateCodec;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.metrics.AnalysisPhase;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+
+/**
+ * Messages that are exchanged between the {@link ShardCoordinator} and its
+ * {@link ShardWorker}s. A worker connects to the coordinator and sends its
+ * shard index, the coordinator answers with the configuration, and the
+ * worker finally sends either its results or the reason why it failed.
+ *
+ */
+class ShardProtocol {
+
+	static final int MAGIC = 0x46445348;
+
+	static final int STATUS_OK = 0;
+	static final int STATUS_FAILED = 1;
+
+	private ShardProtocol() {
+	}
+
+	/**
+	 * Writes the given configuration, including the options that are kept in
+	 * static fields
+	 * @param out The output to write to
+	 * @param config The configuration to write
+	 * @throws IOException Thrown if the configuration cannot be written
+	 */
+	static void writeConfiguration(DataOutput out, InfoflowConfiguration config) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(config);
+		}
+		byte[] data = bos.toByteArray();
+		out.writeInt(data.length);
+		out.write(data);
+
+		out.writeBoolean(InfoflowConfiguration.getPathAgnosticResults());
+		out.writeBoolean(InfoflowConfiguration.getOneResultPerAccessPath());
+		out.writeBoolean(InfoflowConfiguration.getMergeNeighbors());
+	}
+
+	/**
+	 * Reads a configuration that was written with
+	 * {@link #writeConfiguration(DataOutput, InfoflowConfiguration)}. The
+	 * options that are kept in static fields are applied immediately.
+	 * @param in The input to read from
+	 * @return The configuration that was read
+	 * @throws IOException Thrown if the configuration cannot be read
+	 */
+	static InfoflowConfiguration readConfiguration(DataInput in) throws IOException {
+		byte[] data = new byte[in.readInt()];
+		in.readFully(data);
+		InfoflowConfiguration config;
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+			config = (InfoflowConfiguration) ois.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Could not read the configuration", e);
+		}
+
+		InfoflowConfiguration.setPathAgnosticResults(in.readBoolean());
+		InfoflowConfiguration.setOneResultPerAccessPath(in.readBoolean());
+		InfoflowConfiguration.setMergeNeighbors(in.readBoolean());
+		return config;
+	}
+
+	/**
+	 * Encodes the given results, so that they can be decoded in a JVM that has
+	 * loaded the same scene
+	 * @param results The results to encode
+	 * @return The encoded results
+	 * @throws IOException Thrown if the results cannot be encoded
+	 */
+	static byte[] encodeResults(InfoflowResults results) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bos)) {
+			writeStrings(out, results.getExceptions());
+			writeStrings(out, results.getDegradations());
+			writeStrings(out, results.getPrecisionDegradations());
+			Set<AnalysisPhase> truncatedPhases = results.getTruncatedPhases();
+			out.writeInt(truncatedPhases.size());
+			for (AnalysisPhase phase : truncatedPhases)
+				out.writeUTF(phase.name());
+
+			AbstractionStateCodec codec = new AbstractionStateCodec(results.getInterproceduralCFG());
+			Set<ResultSinkInfo> sinks = results.getResults().keySet();
+			out.writeInt(sinks.size());
+			for (ResultSinkInfo sink : sinks) {
+				codec.writeAccessPath(out, sink.getAccessPath());
+				codec.writeNode(out, sink.getSink());
+
+				Set<ResultSourceInfo> sources = results.getResults().get(sink);
+				out.writeInt(sources.size());
+				for (ResultSourceInfo source : sources) {
+					codec.writeAccessPath(out, source.getAccessPath());
+					codec.writeNode(out, source.getSource());
+					codec.writeUserData(out, source.getUserData());
+
+					Stmt[] path = source.getPath();
+					out.writeInt(path == null ? 0 : path.length);
+					if (path != null)
+						for (Stmt stmt : path)
+							codec.writeNode(out, stmt);
+					AccessPath[] pathAPs = source.getPathAccessPaths();
+					out.writeInt(pathAPs == null ? 0 : pathAPs.length);
+					if (pathAPs != null)
+						for (AccessPath ap : pathAPs)
+							codec.writeAccessPath(out, ap);
+				}
+			}
+		}
+		return bos.toByteArray();
+	}
+
+	/**
+	 * Decodes results that were encoded with
+	 * {@link #encodeResults(InfoflowResults)} and adds them to the given
+	 * result object
+	 * @param data The encoded results
+	 * @param icfg The interprocedural control flow graph of the current scene
+	 * @param results The result object to which to add the decoded results
+	 * @throws IOException Thrown if the results cannot be decoded
+	 */
+	static void decodeResults(byte[] data, IInfoflowCFG icfg, InfoflowResults results) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			for (String exception : readStrings(in))
+				results.addException(exception);
+			// The degradations that cost precision are a subsequence of all
+			// degradations
+			List<String> degradations = readStrings(in);
+			List<String> precisionDegradations = readStrings(in);
+			int precisionIdx = 0;
+			for (String degradation : degradations) {
+				boolean reducesPrecision = precisionIdx < precisionDegradations.size()
+						&& precisionDegradations.get(precisionIdx).equals(degradation);
+				if (reducesPrecision)
+					precisionIdx++;
+				results.addDegradation(degradation, reducesPrecision);
+			}
+			int truncatedCount = in.readInt();
+			for (int i = 0; i < truncatedCount; i++)
+				results.addTruncatedPhase(AnalysisPhase.valueOf(in.readUTF()));
+
+			AbstractionStateCodec codec = new AbstractionStateCodec(icfg);
+			int sinkCount = in.readInt();
+			for (int i = 0; i < sinkCount; i++) {
+				ResultSinkInfo sink = new ResultSinkInfo(codec.readAccessPath(in), (Stmt) codec.readNode(in));
+
+				int sourceCount = in.readInt();
+				for (int j = 0; j < sourceCount; j++) {
+					AccessPath sourceAP = codec.readAccessPath(in);
+					Stmt sourceStmt = (Stmt) codec.readNode(in);
+					Object userData = codec.readUserData(in);
+
+					int pathLength = in.readInt();
+					List<Stmt> path = new ArrayList<>(pathLength);
+					for (int k = 0; k < pathLength; k++)
+						path.add((Stmt) codec.readNode(in));
+					int pathAPCount = in.readInt();
+					List<AccessPath> pathAPs = new ArrayList<>(pathAPCount);
+					for (int k = 0; k < pathAPCount; k++)
+						pathAPs.add(codec.readAccessPath(in));
+
+					results.addResult(sink, new ResultSourceInfo(sourceAP, sourceStmt, userData, path, pathAPs));
+				}
+			}
+		}
+	}
+
+	private static void writeStrings(DataOutput out, List<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (String s : strings)
+			out.writeUTF(s);
+	}
+
+	private static List<String> readStrings(DataInput in) throws IOException {
+		int count = in.readInt();
+		List<String> strings = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+			strings.add(in.readUTF());
+		return strings;
+	}
+
+}
@@ -0,0 +1,97 @@
+package soot.jimple.infoflow.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.InfoflowConfiguration;
+
+/**
+ * Entry point of the worker JVMs that are started by the
+ * {@link ShardCoordinator}. A worker analyzes a single partition of the
+ * sources and sends its results back to the coordinator.
+ *
+ */
+public class ShardWorker {
+
+	private static final Logger logger = LoggerFactory.getLogger(ShardWorker.class);
+
+	/**
+	 * Runs a single shard of the data flow analysis
+	 * @param args The host and port of the coordinator, the index of the
+	 * shard, the number of shards, and the name of the {@link IShardTask}
+	 * class
+	 */
+	public static void main(String[] args) {
+		if (args.length != 5) {
+			System.err.println("Usage: ShardWorker <host> <port> <shard index> <shard count> <task class>");
+			System.exit(1);
+		}
+		String host = args[0];
+		int port = Integer.parseInt(args[1]);
+		int shardIndex = Integer.parseInt(args[2]);
+		int shardCount = Integer.parseInt(args[3]);
+		String taskClass = args[4];
+
+		try (Socket socket = new Socket(host, port)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out.writeInt(ShardProtocol.MAGIC);
+			out.writeInt(shardIndex);
+			out.flush();
+
+			InfoflowConfiguration config = ShardProtocol.readConfiguration(in);
+			byte[] results = null;
+			String failure = null;
+			try {
+				results = runShard(config, new SourcePartition(shardIndex, shardCount), taskClass);
+			} catch (Exception ex) {
+				logger.error("Shard " + shardIndex + " failed", ex);
+				failure = ex.getClass().getName() + ": " + ex.getMessage();
+			}
+
+			if (results != null) {
+				out.writeByte(ShardProtocol.STATUS_OK);
+				out.writeInt(results.length);
+				out.write(results);
+			} else {
+				out.writeByte(ShardProtocol.STATUS_FAILED);
+				out.writeUTF(String.valueOf(failure));
+			}
+			out.flush();
+		} catch (IOException ex) {
+			logger.error("Could not communicate with the coordinator", ex);
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Runs the analysis for the given partition of the sources
+	 * @param config The configuration of the data flow analysis
+	 * @param partition The partition of the sources to analyze
+	 * @param taskClass The name of the {@link IShardTask} class
+	 * @return The encoded results of the analysis
+	 * @throws Exception Thrown if the analysis fails or its results cannot be
+	 * encoded
+	 */
+	private static byte[] runShard(InfoflowConfiguration config, SourcePartition partition, String taskClass)
+			throws Exception {
+		logger.info("Analyzing {}", partition);
+		IShardTask task = (IShardTask) Class.forName(taskClass).newInstance();
+		IInfoflow infoflow = task.createInfoflow();
+		infoflow.setConfig(config);
+		task.run(infoflow, partition);
+		if (infoflow.getResults() == null)
+			throw new IllegalStateException("The task did not run the data flow analysis");
+		return ShardProtocol.encodeResults(infoflow.getResults());
+	}
+
+}
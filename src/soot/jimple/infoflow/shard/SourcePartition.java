@@ -0,0 +1,155 @@
+package soot.jimple.infoflow.shard;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.InfoflowManager;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.source.IRestrictedSourceSinkManager;
+import soot.jimple.infoflow.source.ISourceSinkManager;
+import soot.jimple.infoflow.source.SourceInfo;
+
+/**
+ * One of several disjoint partitions of the sources in a program. A source
+ * statement is assigned to a partition based on the signature of its method
+ * and its position in the method body, so every JVM that loads the same
+ * scene assigns it to the same partition without any coordination.
+ *
+ */
+public class SourcePartition {
+
+	private final int shardIndex;
+	private final int shardCount;
+
+	/**
+	 * Creates a new instance of the {@link SourcePartition} class
+	 * @param shardIndex The index of this partition, starting at zero
+	 * @param shardCount The total number of partitions
+	 */
+	public SourcePartition(int shardIndex, int shardCount) {
+		if (shardCount < 1)
+			throw new IllegalArgumentException("There must be at least one partition");
+		if (shardIndex < -1 || shardIndex >= shardCount)
+			throw new IllegalArgumentException("Invalid partition index " + shardIndex);
+		this.shardIndex = shardIndex;
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * Gets a partition that does not contain any source. Analyzing it only
+	 * builds the callgraph and the interprocedural control flow graph.
+	 * @return A partition that does not contain any source
+	 */
+	public static SourcePartition noSources() {
+		return new SourcePartition(-1, 1);
+	}
+
+	/**
+	 * Gets the index of this partition
+	 * @return The index of this partition, or -1 if this partition does not
+	 * contain any source
+	 */
+	public int getShardIndex() {
+		return this.shardIndex;
+	}
+
+	/**
+	 * Gets the total number of partitions
+	 * @return The total number of partitions
+	 */
+	public int getShardCount() {
+		return this.shardCount;
+	}
+
+	/**
+	 * Checks whether the given source statement belongs to this partition
+	 * @param stmt The source statement to check
+	 * @param method The method that contains the source statement
+	 * @return True if the given source statement belongs to this partition,
+	 * otherwise false
+	 */
+	public boolean contains(Stmt stmt, SootMethod method) {
+		if (shardIndex < 0)
+			return false;
+		if (shardCount == 1)
+			return true;
+
+		int index = 0;
+		for (Unit u : method.getActiveBody().getUnits()) {
+			if (u == stmt)
+				break;
+			index++;
+		}
+
+		// Spread similar signatures across the partitions
+		int hash = (method.getSignature() + ":" + index).hashCode();
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		return ((hash % shardCount) + shardCount) % shardCount == shardIndex;
+	}
+
+	/**
+	 * Restricts the sources of the given source/sink manager to the ones in
+	 * this partition. The sinks are not changed. The code optimizers still see
+	 * all sources, so every JVM ends up with the same method bodies.
+	 * @param sourcesSinks The source/sink manager to restrict
+	 * @return A source/sink manager that only reports the sources in this
+	 * partition
+	 */
+	public ISourceSinkManager apply(ISourceSinkManager sourcesSinks) {
+		return new PartitionedSourceSinkManager(sourcesSinks);
+	}
+
+	@Override
+	public String toString() {
+		return shardIndex < 0 ? "no sources" : "partition " + shardIndex + " of " + shardCount;
+	}
+
+	/**
+	 * Source/sink manager that hides all sources outside of this partition
+	 */
+	private class PartitionedSourceSinkManager implements IRestrictedSourceSinkManager {
+
+		private final ISourceSinkManager sourcesSinks;
+		private final ConcurrentMap<Stmt, Boolean> partitionCache = new ConcurrentHashMap<>();
+
+		public PartitionedSourceSinkManager(ISourceSinkManager sourcesSinks) {
+			this.sourcesSinks = sourcesSinks;
+		}
+
+		@Override
+		public void initialize() {
+			sourcesSinks.initialize();
+		}
+
+		@Override
+		public SourceInfo getSourceInfo(Stmt sCallSite, InfoflowManager manager) {
+			SourceInfo sourceInfo = sourcesSinks.getSourceInfo(sCallSite, manager);
+			if (sourceInfo == null)
+				return null;
+
+			Boolean inPartition = partitionCache.get(sCallSite);
+			if (inPartition == null) {
+				inPartition = contains(sCallSite, manager.getICFG().getMethodOf(sCallSite));
+				partitionCache.put(sCallSite, inPartition);
+			}
+			return inPartition ? sourceInfo : null;
+		}
+
+		@Override
+		public ISourceSinkManager getUnrestrictedManager() {
+			return sourcesSinks;
+		}
+
+		@Override
+		public boolean isSink(Stmt sCallSite, InfoflowManager manager, AccessPath ap) {
+			return sourcesSinks.isSink(sCallSite, manager, ap);
+		}
+
+	}
+
+}
@@ -21,4 +21,15 @@ public class BackwardsInfoflowCFG extends InfoflowCFG {
 		return this.baseCFG;
 	}
 	
+	@Override
+	public void setModRefSummaries(ModRefSummaries summaries) {
+		baseCFG.setModRefSummaries(summaries);
+	}
+	
+	@Override
+	public ModRefSummaries getModRefSummaries() {
+		// The summaries do not depend on the direction of the graph
+		return baseCFG.getModRefSummaries();
+	}
+	
 }
@@ -124,6 +124,21 @@ public interface IInfoflowCFG extends BiDiInterproceduralCFG<Unit,SootMethod> {
      */
     public boolean hasSideEffects(SootMethod method);
     
+    /**
+     * Sets the precomputed mod/ref summaries. If summaries are available, the
+     * static field and side-effect queries are answered from them instead of
+     * scanning the callees on demand.
+     * @param summaries The mod/ref summaries, or null to scan the callees on
+     * demand
+     */
+    public void setModRefSummaries(ModRefSummaries summaries);
+    
+    /**
+     * Gets the precomputed mod/ref summaries
+     * @return The mod/ref summaries, or null if no summaries have been set
+     */
+    public ModRefSummaries getModRefSummaries();
+    
     /**
      * Re-initializes the mapping betwween statements and owning methods after a
      * method has changed.
@@ -37,12 +37,12 @@ import soot.jimple.InvokeExpr;
 import soot.jimple.StaticFieldRef;
 import soot.jimple.Stmt;
 import soot.jimple.VirtualInvokeExpr;
+import soot.jimple.infoflow.memory.IMemoryPressureHandler;
 import soot.jimple.toolkits.callgraph.Edge;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
 import soot.toolkits.graph.DirectedGraph;
 import soot.toolkits.graph.ExceptionalUnitGraph;
-import soot.toolkits.graph.MHGPostDominatorsFinder;
 
 /**
  * Interprocedural control-flow graph for the infoflow solver
@@ -50,7 +50,7 @@ import soot.toolkits.graph.MHGPostDominatorsFinder;
  * @author Steven Arzt
  * @author Eric Bodden
  */
-public class InfoflowCFG implements IInfoflowCFG {
+public class InfoflowCFG implements IInfoflowCFG, IMemoryPressureHandler {
 	
 	private static enum StaticFieldUse {
 		Unknown,
@@ -66,19 +66,13 @@ public class InfoflowCFG implements IInfoflowCFG {
 			new ConcurrentHashMap<SootMethod, Boolean>();
 	
 	protected final BiDiInterproceduralCFG<Unit, SootMethod> delegate; 
+	protected volatile ModRefSummaries modRefSummaries = null;
 	
-	protected final LoadingCache<Unit,UnitContainer> unitToPostdominator =
-			IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<Unit,UnitContainer>() {
+	protected final LoadingCache<SootMethod,PostdominatorTree> methodToPostdominators =
+			IDESolver.DEFAULT_CACHE_BUILDER.build( new CacheLoader<SootMethod,PostdominatorTree>() {
 				@Override
-				public UnitContainer load(Unit unit) throws Exception {
-					SootMethod method = getMethodOf(unit);
-					DirectedGraph<Unit> graph = delegate.getOrCreateUnitGraph(method);
-					MHGPostDominatorsFinder<Unit> postdominatorFinder = new MHGPostDominatorsFinder<Unit>(graph);
-					Unit postdom = postdominatorFinder.getImmediateDominator(unit);
-					if (postdom == null)
-						return new UnitContainer(method);
-					else
-						return new UnitContainer(postdom);
+				public PostdominatorTree load(SootMethod method) throws Exception {
+					return new PostdominatorTree(method, delegate.getOrCreateUnitGraph(method));
 				}
 			});
 	
@@ -140,7 +134,7 @@ public class InfoflowCFG implements IInfoflowCFG {
 	
 	@Override
 	public UnitContainer getPostdominatorOf(Unit u) {
-		return unitToPostdominator.getUnchecked(u);
+		return methodToPostdominators.getUnchecked(getMethodOf(u)).getPostdominatorOf(u);
 	}
 	
 	//delegate methods follow
@@ -245,13 +239,29 @@ public class InfoflowCFG implements IInfoflowCFG {
 		return delegate.isReturnSite(n);
 	}
 	
+	@Override
+	public void setModRefSummaries(ModRefSummaries summaries) {
+		this.modRefSummaries = summaries;
+	}
+	
+	@Override
+	public ModRefSummaries getModRefSummaries() {
+		return modRefSummaries;
+	}
+	
 	@Override
 	public boolean isStaticFieldRead(SootMethod method, SootField variable) {
+		ModRefSummaries summaries = getModRefSummaries();
+		if (summaries != null && summaries.hasSummary(method))
+			return summaries.isStaticFieldRead(method, variable);
 		return isStaticFieldUsed(method, variable, new HashSet<SootMethod>(), true);
 	}
 	
 	@Override
 	public boolean isStaticFieldUsed(SootMethod method, SootField variable) {
+		ModRefSummaries summaries = getModRefSummaries();
+		if (summaries != null && summaries.hasSummary(method))
+			return summaries.isStaticFieldUsed(method, variable);
 		return isStaticFieldUsed(method, variable, new HashSet<SootMethod>(), false);
 	}
 	
@@ -351,6 +361,9 @@ public class InfoflowCFG implements IInfoflowCFG {
 
 	@Override
 	public boolean hasSideEffects(SootMethod method) {
+		ModRefSummaries summaries = getModRefSummaries();
+		if (summaries != null && summaries.hasSummary(method))
+			return summaries.writesFields(method);
 		return hasSideEffects(method, new HashSet<SootMethod>());
 	}
 	
@@ -418,6 +431,27 @@ public class InfoflowCFG implements IInfoflowCFG {
 		return false;
 	}
 
+	/**
+	 * Builds the per-method data of this control flow graph for the given
+	 * method ahead of time. This includes the unit graph and the locals that
+	 * are read and written. The solver threads then only read from the caches
+	 * instead of contending on their locks. Methods without an active body are
+	 * skipped, since Soot cannot safely create bodies on several threads.
+	 * @param method The method for which to build the data
+	 * @param includePostdominators True if the postdominator tree of the
+	 * method shall be built as well, otherwise false
+	 */
+	public void warmUp(SootMethod method, boolean includePostdominators) {
+		if (!method.hasActiveBody())
+			return;
+		
+		getOrCreateUnitGraph(method);
+		methodToUsedLocals.getUnchecked(method);
+		methodToWrittenLocals.getUnchecked(method);
+		if (includePostdominators)
+			methodToPostdominators.getUnchecked(method);
+	}
+	
 	@Override
 	public boolean isExceptionalEdgeBetween(Unit u1, Unit u2) {
 		SootMethod m1 = getMethodOf(u1);
@@ -504,6 +538,16 @@ public class InfoflowCFG implements IInfoflowCFG {
 		return false;
 	}
 
+	@Override
+	public String reduceMemoryConsumption(MemoryReductionStep step) {
+		if (step != MemoryReductionStep.FlushCaches)
+			return null;
+		
+		// All of our caches are re-computed on demand
+		purge();
+		return "Flushed the control flow graph caches";
+	}
+
 	@Override
 	public void purge() {
 		methodSideEffects.clear();
@@ -515,8 +559,8 @@ public class InfoflowCFG implements IInfoflowCFG {
 		methodToWrittenLocals.invalidateAll();
 		methodToWrittenLocals.cleanUp();
 		
-		unitToPostdominator.invalidateAll();
-		unitToPostdominator.cleanUp();
+		methodToPostdominators.invalidateAll();
+		methodToPostdominators.cleanUp();
 	}
 	
 }
@@ -0,0 +1,440 @@
+package soot.jimple.infoflow.solver.cfg;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.Local;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.ValueBox;
+import soot.jimple.ArrayRef;
+import soot.jimple.AssignStmt;
+import soot.jimple.InstanceFieldRef;
+import soot.jimple.InstanceInvokeExpr;
+import soot.jimple.InvokeExpr;
+import soot.jimple.StaticFieldRef;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.util.BottomUpSCCScheduler;
+import soot.jimple.infoflow.util.BottomUpSCCScheduler.IComponentProcessor;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * Whole-program mod/ref summaries of all methods. The summaries are computed
+ * once in the bottom-up order of the strongly connected components of the
+ * callgraph, so every method is scanned exactly once and the facts of its
+ * callees are reused. All facts include the transitive callees.
+ *
+ * <p>
+ * The summaries only become smaller when code is removed, so summaries that
+ * were computed before a code optimization remain a sound over-approximation
+ * afterwards. They must be recomputed when new call edges are added.
+ *
+ */
+public class ModRefSummaries {
+
+	/**
+	 * The parameter index that denotes the "this" local
+	 */
+	public static final int THIS_INDEX = -1;
+
+	private static final int WRITES_INSTANCE_FIELD = 1;
+	private static final int WRITES_STATIC_FIELD = 2;
+	private static final int WRITES_ARRAY = 4;
+	private static final int READS_THIS = 8;
+
+	/**
+	 * The mod/ref facts of a single method. Empty sets are represented as
+	 * null to keep the summaries of methods that do not touch static fields
+	 * small.
+	 */
+	private static class Summary {
+
+		private BitSet staticReads;
+		private BitSet staticWrites;
+		private int flags;
+		private BitSet parameterReads;
+		private BitSet parameterWrites;
+
+	}
+
+	/**
+	 * A call site inside a method along with the parameters of the calling
+	 * method that are passed to the callee
+	 */
+	private static class CallSite {
+
+		private final Unit unit;
+		private final int baseParameter;
+		private final int[] argParameters;
+
+		private CallSite(Unit unit, int baseParameter, int[] argParameters) {
+			this.unit = unit;
+			this.baseParameter = baseParameter;
+			this.argParameters = argParameters;
+		}
+
+	}
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final CallGraph callGraph;
+	private final Map<SootMethod, Summary> summaries = new ConcurrentHashMap<>();
+	private final Map<SootField, Integer> fieldIndices = new ConcurrentHashMap<>();
+	private final AtomicInteger nextFieldIndex = new AtomicInteger();
+
+	/**
+	 * Creates a new instance of the {@link ModRefSummaries} class
+	 * @param callGraph The callgraph along which to combine the facts of the
+	 * callees
+	 */
+	public ModRefSummaries(CallGraph callGraph) {
+		this.callGraph = callGraph;
+	}
+
+	/**
+	 * Computes the summaries for the given methods. Methods without an active
+	 * body are treated as if they had no effects.
+	 * @param methods The methods for which to compute the summaries
+	 * @param executor The executor that processes independent components of
+	 * the callgraph in parallel
+	 * @throws InterruptedException Thrown if the current thread was
+	 * interrupted while waiting for the workers
+	 */
+	public void compute(Collection<SootMethod> methods, ExecutorService executor) throws InterruptedException {
+		List<SootMethod> withBodies = new ArrayList<>(methods.size());
+		for (SootMethod sm : methods)
+			if (sm.hasActiveBody())
+				withBodies.add(sm);
+
+		long beforeSummaries = System.nanoTime();
+		BottomUpSCCScheduler scheduler = new BottomUpSCCScheduler(withBodies, callGraph);
+		long busyTime = scheduler.runBottomUp(executor, new IComponentProcessor() {
+
+			@Override
+			public void process(List<SootMethod> component) {
+				summarizeComponent(component);
+			}
+
+		});
+		long wallTime = System.nanoTime() - beforeSummaries;
+		logger.info("Computed mod/ref summaries for {} methods in {} components in {} ms, speedup {}",
+				withBodies.size(), scheduler.getComponents().size(), wallTime / 1000000,
+				BottomUpSCCScheduler.formatSpeedup(wallTime, busyTime));
+	}
+
+	/**
+	 * Computes the summaries of all methods in a strongly connected component
+	 * of the callgraph. The summaries of all callees outside of the component
+	 * must already be available.
+	 * @param component The methods of the component
+	 */
+	private void summarizeComponent(List<SootMethod> component) {
+		// Every method in the component reaches all other ones, so they share
+		// the same static field and side-effect facts
+		Map<SootMethod, Summary> componentSummaries = new HashMap<>(component.size());
+		Map<SootMethod, List<CallSite>> callSites = new HashMap<>(component.size());
+		BitSet staticReads = new BitSet();
+		BitSet staticWrites = new BitSet();
+		int flags = 0;
+		for (SootMethod sm : component) {
+			List<CallSite> methodCallSites = new ArrayList<>();
+			Summary summary = scanMethod(sm, staticReads, staticWrites, methodCallSites);
+			componentSummaries.put(sm, summary);
+			callSites.put(sm, methodCallSites);
+			flags |= summary.flags;
+
+			// Include the callees outside of this component
+			for (CallSite cs : methodCallSites)
+				for (Iterator<Edge> edgeIt = callGraph.edgesOutOf(cs.unit); edgeIt.hasNext();) {
+					Summary calleeSummary = summaries.get(edgeIt.next().tgt());
+					if (calleeSummary != null) {
+						if (calleeSummary.staticReads != null)
+							staticReads.or(calleeSummary.staticReads);
+						if (calleeSummary.staticWrites != null)
+							staticWrites.or(calleeSummary.staticWrites);
+						flags |= calleeSummary.flags;
+					}
+				}
+		}
+
+		// The parameter effects depend on which parameters are passed to
+		// which callee, so we need a fixpoint inside the component
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (SootMethod sm : component) {
+				Summary summary = componentSummaries.get(sm);
+				for (CallSite cs : callSites.get(sm))
+					for (Iterator<Edge> edgeIt = callGraph.edgesOutOf(cs.unit); edgeIt.hasNext();) {
+						SootMethod callee = edgeIt.next().tgt();
+						Summary calleeSummary = componentSummaries.get(callee);
+						if (calleeSummary == null)
+							calleeSummary = summaries.get(callee);
+						if (calleeSummary == null || calleeSummary.parameterWrites == null)
+							continue;
+
+						if (cs.baseParameter != Integer.MIN_VALUE
+								&& calleeSummary.parameterWrites.get(toBit(THIS_INDEX)))
+							changed |= addParameterWrite(summary, cs.baseParameter);
+						for (int i = 0; i < cs.argParameters.length; i++)
+							if (cs.argParameters[i] != Integer.MIN_VALUE
+									&& calleeSummary.parameterWrites.get(toBit(i)))
+								changed |= addParameterWrite(summary, cs.argParameters[i]);
+					}
+			}
+		}
+
+		BitSet sharedReads = staticReads.isEmpty() ? null : staticReads;
+		BitSet sharedWrites = staticWrites.isEmpty() ? null : staticWrites;
+		for (SootMethod sm : component) {
+			Summary summary = componentSummaries.get(sm);
+			summary.staticReads = sharedReads;
+			summary.staticWrites = sharedWrites;
+			summary.flags = flags;
+			summaries.put(sm, summary);
+		}
+	}
+
+	/**
+	 * Scans the body of a single method for its own effects
+	 * @param sm The method to scan
+	 * @param staticReads The set to which to add the static fields read by
+	 * the method
+	 * @param staticWrites The set to which to add the static fields written
+	 * by the method
+	 * @param callSites The list to which to add the call sites of the method
+	 * @return The summary with the parameter effects and the flags of the
+	 * method itself
+	 */
+	private Summary scanMethod(SootMethod sm, BitSet staticReads, BitSet staticWrites, List<CallSite> callSites) {
+		Summary summary = new Summary();
+
+		// Get the parameter locals of this method
+		Map<Local, Integer> parameterLocals = new HashMap<>();
+		for (int i = 0; i < sm.getParameterCount(); i++)
+			parameterLocals.put(sm.getActiveBody().getParameterLocal(i), i);
+		Local thisLocal = sm.isStatic() ? null : sm.getActiveBody().getThisLocal();
+		if (thisLocal != null)
+			parameterLocals.put(thisLocal, THIS_INDEX);
+
+		for (Unit u : sm.getActiveBody().getUnits()) {
+			for (ValueBox vb : u.getUseBoxes()) {
+				Integer param = parameterLocals.get(vb.getValue());
+				if (param != null) {
+					if (summary.parameterReads == null)
+						summary.parameterReads = new BitSet();
+					summary.parameterReads.set(toBit(param));
+					if (param == THIS_INDEX)
+						summary.flags |= READS_THIS;
+				}
+			}
+
+			if (u instanceof AssignStmt) {
+				AssignStmt assign = (AssignStmt) u;
+				Value leftOp = assign.getLeftOp();
+				if (leftOp instanceof StaticFieldRef) {
+					staticWrites.set(getFieldIndex(((StaticFieldRef) leftOp).getField()));
+					summary.flags |= WRITES_STATIC_FIELD;
+				} else if (leftOp instanceof InstanceFieldRef) {
+					summary.flags |= WRITES_INSTANCE_FIELD;
+					addParameterWrite(summary, parameterLocals.get(((InstanceFieldRef) leftOp).getBase()));
+				} else if (leftOp instanceof ArrayRef) {
+					summary.flags |= WRITES_ARRAY;
+					addParameterWrite(summary, parameterLocals.get(((ArrayRef) leftOp).getBase()));
+				}
+
+				if (assign.getRightOp() instanceof StaticFieldRef)
+					staticReads.set(getFieldIndex(((StaticFieldRef) assign.getRightOp()).getField()));
+			}
+
+			// Record which parameters are passed to callees
+			if (((Stmt) u).containsInvokeExpr()) {
+				InvokeExpr iexpr = ((Stmt) u).getInvokeExpr();
+				int baseParameter = Integer.MIN_VALUE;
+				if (iexpr instanceof InstanceInvokeExpr) {
+					Integer param = parameterLocals.get(((InstanceInvokeExpr) iexpr).getBase());
+					if (param != null)
+						baseParameter = param;
+				}
+				int[] argParameters = new int[iexpr.getArgCount()];
+				for (int i = 0; i < argParameters.length; i++) {
+					Integer param = parameterLocals.get(iexpr.getArg(i));
+					argParameters[i] = param == null ? Integer.MIN_VALUE : param;
+				}
+				callSites.add(new CallSite(u, baseParameter, argParameters));
+			}
+		}
+		return summary;
+	}
+
+	/**
+	 * Marks the given parameter as written
+	 * @param summary The summary in which to mark the parameter
+	 * @param param The index of the parameter, or null if the written object
+	 * is not a parameter
+	 * @return True if the parameter was not marked before, otherwise false
+	 */
+	private boolean addParameterWrite(Summary summary, Integer param) {
+		if (param == null)
+			return false;
+		if (summary.parameterWrites == null)
+			summary.parameterWrites = new BitSet();
+		else if (summary.parameterWrites.get(toBit(param)))
+			return false;
+		summary.parameterWrites.set(toBit(param));
+		return true;
+	}
+
+	private static int toBit(int parameterIndex) {
+		return parameterIndex + 1;
+	}
+
+	/**
+	 * Gets the compact index of the given field in the static field sets
+	 * @param field The field for which to get the index
+	 * @return The index of the given field
+	 */
+	private int getFieldIndex(SootField field) {
+		Integer index = fieldIndices.get(field);
+		if (index == null) {
+			synchronized (fieldIndices) {
+				index = fieldIndices.get(field);
+				if (index == null) {
+					index = nextFieldIndex.getAndIncrement();
+					fieldIndices.put(field, index);
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Checks whether there is a summary for the given method
+	 * @param method The method to check
+	 * @return True if a summary has been computed for the given method,
+	 * otherwise false. Methods without a summary must be analyzed on demand.
+	 */
+	public boolean hasSummary(SootMethod method) {
+		return summaries.containsKey(method);
+	}
+
+	private static boolean containsField(BitSet fields, Integer index) {
+		return fields != null && index != null && fields.get(index);
+	}
+
+	/**
+	 * Checks whether the given static field is read inside the given method
+	 * or one of its transitive callees
+	 * @param method The method to check
+	 * @param field The static field to check
+	 * @return True if the given static field is read, otherwise false
+	 */
+	public boolean isStaticFieldRead(SootMethod method, SootField field) {
+		Summary summary = summaries.get(method);
+		return summary != null && containsField(summary.staticReads, fieldIndices.get(field));
+	}
+
+	/**
+	 * Checks whether the given static field is written inside the given
+	 * method or one of its transitive callees
+	 * @param method The method to check
+	 * @param field The static field to check
+	 * @return True if the given static field is written, otherwise false
+	 */
+	public boolean isStaticFieldWritten(SootMethod method, SootField field) {
+		Summary summary = summaries.get(method);
+		return summary != null && containsField(summary.staticWrites, fieldIndices.get(field));
+	}
+
+	/**
+	 * Checks whether the given static field is read or written inside the
+	 * given method or one of its transitive callees
+	 * @param method The method to check
+	 * @param field The static field to check
+	 * @return True if the given static field is used, otherwise false
+	 */
+	public boolean isStaticFieldUsed(SootMethod method, SootField field) {
+		return isStaticFieldRead(method, field) || isStaticFieldWritten(method, field);
+	}
+
+	/**
+	 * Checks whether the given method or one of its transitive callees writes
+	 * to an instance or static field
+	 * @param method The method to check
+	 * @return True if the given method writes to a field, otherwise false
+	 */
+	public boolean writesFields(SootMethod method) {
+		Summary summary = summaries.get(method);
+		return summary != null && (summary.flags & (WRITES_INSTANCE_FIELD | WRITES_STATIC_FIELD)) != 0;
+	}
+
+	/**
+	 * Checks whether the given method or one of its transitive callees writes
+	 * to a field or an array element
+	 * @param method The method to check
+	 * @return True if the given method writes to the heap, otherwise false
+	 */
+	public boolean writesHeap(SootMethod method) {
+		Summary summary = summaries.get(method);
+		return summary != null
+				&& (summary.flags & (WRITES_INSTANCE_FIELD | WRITES_STATIC_FIELD | WRITES_ARRAY)) != 0;
+	}
+
+	/**
+	 * Checks whether the given method or one of its transitive callees reads
+	 * its own "this" local
+	 * @param method The method to check
+	 * @return True if the given method or one of its callees reads its "this"
+	 * local, otherwise false
+	 */
+	public boolean readsThis(SootMethod method) {
+		Summary summary = summaries.get(method);
+		return summary != null && (summary.flags & READS_THIS) != 0;
+	}
+
+	/**
+	 * Checks whether the given method reads the given parameter
+	 * @param method The method to check
+	 * @param parameterIndex The index of the parameter, or {@link #THIS_INDEX}
+	 * for the "this" local
+	 * @return True if the given method reads the given parameter, otherwise
+	 * false
+	 */
+	public boolean isParameterRead(SootMethod method, int parameterIndex) {
+		Summary summary = summaries.get(method);
+		return summary != null && summary.parameterReads != null
+				&& summary.parameterReads.get(toBit(parameterIndex));
+	}
+
+	/**
+	 * Checks whether the given method or one of its transitive callees
+	 * modifies the object that is passed in the given parameter. Only writes
+	 * through the parameter local itself are considered, not writes through
+	 * copies of it.
+	 * @param method The method to check
+	 * @param parameterIndex The index of the parameter, or {@link #THIS_INDEX}
+	 * for the "this" local
+	 * @return True if the object in the given parameter is modified, otherwise
+	 * false
+	 */
+	public boolean isParameterModified(SootMethod method, int parameterIndex) {
+		Summary summary = summaries.get(method);
+		return summary != null && summary.parameterWrites != null
+				&& summary.parameterWrites.get(toBit(parameterIndex));
+	}
+
+}
@@ -0,0 +1,122 @@
+package soot.jimple.infoflow.solver.cfg;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG.UnitContainer;
+import soot.toolkits.graph.DirectedGraph;
+import soot.toolkits.graph.MHGPostDominatorsFinder;
+import soot.util.ArrayNumberer;
+
+/**
+ * The immediate postdominators of all statements in a single method. The
+ * postdominators are computed once for the whole method graph. The result
+ * containers are stored in an array that is indexed by the Soot unit number
+ * of the statement relative to the smallest unit number in the method.
+ *
+ */
+class PostdominatorTree {
+
+	private final UnitContainer methodContainer;
+	private final int minNumber;
+	private final UnitContainer[] postdominators;
+
+	/**
+	 * Sorted unit numbers and the corresponding containers for methods whose
+	 * unit numbers are too sparse for a dense array, null otherwise
+	 */
+	private final int[] sparseNumbers;
+
+	/**
+	 * Computes the postdominator tree of the given method
+	 * @param method The method for which to compute the postdominators
+	 * @param graph The control flow graph of the method
+	 */
+	PostdominatorTree(SootMethod method, DirectedGraph<Unit> graph) {
+		this.methodContainer = new UnitContainer(method);
+
+		// Make sure that all statements have a unit number
+		final Unit[] units = new Unit[graph.size()];
+		final ArrayNumberer<Unit> numberer = Scene.v().getUnitNumberer();
+		int idx = 0;
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (Unit u : graph) {
+			if (u.getNumber() == 0)
+				numberer.add(u);
+			units[idx++] = u;
+			min = Math.min(min, u.getNumber());
+			max = Math.max(max, u.getNumber());
+		}
+
+		MHGPostDominatorsFinder<Unit> postdominatorFinder = new MHGPostDominatorsFinder<Unit>(graph);
+		if (units.length == 0) {
+			this.minNumber = 0;
+			this.postdominators = new UnitContainer[0];
+			this.sparseNumbers = null;
+		}
+		else if ((long) max - min < 2L * units.length) {
+			// Dense case: one slot per unit number in the method's range
+			this.minNumber = min;
+			this.postdominators = new UnitContainer[max - min + 1];
+			this.sparseNumbers = null;
+			for (Unit u : units)
+				postdominators[u.getNumber() - min] = getContainer(postdominatorFinder.getImmediateDominator(u));
+		}
+		else {
+			// Sparse case: binary search over the sorted unit numbers
+			Arrays.sort(units, new Comparator<Unit>() {
+
+				@Override
+				public int compare(Unit o1, Unit o2) {
+					return Integer.compare(o1.getNumber(), o2.getNumber());
+				}
+
+			});
+			this.minNumber = min;
+			this.postdominators = new UnitContainer[units.length];
+			this.sparseNumbers = new int[units.length];
+			for (int i = 0; i < units.length; i++) {
+				sparseNumbers[i] = units[i].getNumber();
+				postdominators[i] = getContainer(postdominatorFinder.getImmediateDominator(units[i]));
+			}
+		}
+	}
+
+	/**
+	 * Gets the container for the given postdominator
+	 * @param postdom The immediate postdominator, or null if the statement
+	 * is only postdominated by the end of the method
+	 * @return The container for the given postdominator
+	 */
+	private UnitContainer getContainer(Unit postdom) {
+		return postdom == null ? methodContainer : new UnitContainer(postdom);
+	}
+
+	/**
+	 * Gets the immediate postdominator of the given statement
+	 * @param u The statement for which to get the postdominator
+	 * @return The immediate postdominator of the given statement. If the
+	 * statement is only postdominated by the end of the method or is not part
+	 * of the method graph, the container holds the method instead.
+	 */
+	UnitContainer getPostdominatorOf(Unit u) {
+		final int number = u.getNumber();
+		UnitContainer container = null;
+		if (sparseNumbers == null) {
+			int index = number - minNumber;
+			if (number > 0 && index >= 0 && index < postdominators.length)
+				container = postdominators[index];
+		}
+		else {
+			int index = Arrays.binarySearch(sparseNumbers, number);
+			if (index >= 0)
+				container = postdominators[index];
+		}
+		return container == null ? methodContainer : container;
+	}
+
+}
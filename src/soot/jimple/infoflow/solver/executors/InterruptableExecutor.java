@@ -45,20 +45,34 @@ public class InterruptableExecutor extends CountingThreadPoolExecutor {
 	
 	@Override
 	public void execute(Runnable command) {
+		tryExecute(command);
+	}
+	
+	/**
+	 * Submits the given task for execution. In contrast to execute(), this
+	 * method tells the caller whether the task was actually accepted.
+	 * @param command The task to execute
+	 * @return True if the task has been accepted for execution, false if it
+	 * has been discarded
+	 */
+	public boolean tryExecute(Runnable command) {
 		// If the executor was terminated, it must be reset explicitly
 		if (this.terminated)
 			throw new RuntimeException("Executor has terminated. Call reset() before submitting new tasks.");
 		
 		// Discard all submitted tasks if the executor has been interrupted
 		try {
-			if (!this.interrupted)
+			if (!this.interrupted) {
 				super.execute(command);
+				return true;
+			}
 		}
 		catch (RejectedExecutionException ex) {
 			// We expect the solver to be aborted, just terminate silently
 			// now
 			this.interrupted = true;
 		}
+		return false;
 	}
 	
 	@Override
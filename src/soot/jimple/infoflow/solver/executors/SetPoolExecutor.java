@@ -24,11 +24,15 @@ public class SetPoolExecutor extends InterruptableExecutor {
 	}
 	
 	@Override
-	public void execute(Runnable command) {
+	public boolean tryExecute(Runnable command) {
 		// Make sure that we don't schedule a task for execution that is already
 		// in the queue
-		if (waiting.add(command))
-			super.execute(command);
+		if (!waiting.add(command))
+			return false;
+		if (super.tryExecute(command))
+			return true;
+		waiting.remove(command);
+		return false;
 	}
 	
 	@Override
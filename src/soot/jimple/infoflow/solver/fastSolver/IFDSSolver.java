@@ -14,9 +14,14 @@
 package soot.jimple.infoflow.solver.fastSolver;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -24,6 +29,10 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +41,6 @@ import com.google.common.cache.CacheBuilder;
 
 import heros.DontSynchronize;
 import heros.FlowFunction;
-import heros.FlowFunctionCache;
 import heros.FlowFunctions;
 import heros.IFDSTabulationProblem;
 import heros.SynchronizedBy;
@@ -43,7 +51,9 @@ import soot.SootMethod;
 import soot.Unit;
 import soot.jimple.infoflow.collect.ConcurrentHashSet;
 import soot.jimple.infoflow.collect.MyConcurrentHashMap;
-import soot.jimple.infoflow.memory.IMemoryBoundedSolver;
+import soot.jimple.infoflow.memory.IOffHeapCapableSolver;
+import soot.jimple.infoflow.metrics.AnalysisEventRecorder;
+import soot.jimple.infoflow.metrics.IAnalysisEventListener.TaskKind;
 import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
 import soot.jimple.infoflow.solver.executors.SetPoolExecutor;
 import soot.jimple.infoflow.solver.memory.IMemoryManager;
@@ -60,8 +70,14 @@ import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
  * @see IFDSTabulationProblem
  */
 public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInterproceduralCFG<N, SootMethod>>
-			implements IMemoryBoundedSolver {
+			implements IOffHeapCapableSolver {
 	
+	/**
+	 * @deprecated The solver no longer uses Guava caches for its flow
+	 * functions. This builder is only kept for source compatibility, passing
+	 * it to a constructor just enables the flow function cache.
+	 */
+	@Deprecated
 	public static CacheBuilder<Object, Object> DEFAULT_CACHE_BUILDER = CacheBuilder.newBuilder().concurrencyLevel
 			(Runtime.getRuntime().availableProcessors()).initialCapacity(10000).softValues();
 	
@@ -100,14 +116,22 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 	@DontSynchronize("only used by single thread")
 	protected final Map<N,Set<D>> initialSeeds;
 	
+	/**
+	 * @deprecated Use {@link #getPropagationCount()} instead. This field is
+	 * only updated with benign races.
+	 */
+	@Deprecated
 	@DontSynchronize("benign races")
 	public long propagationCount;
 	
+	@SynchronizedBy("atomic counter, read concurrently by the metrics")
+	protected final AtomicLong propagationCounter = new AtomicLong();
+	
 	@DontSynchronize("stateless")
 	protected final D zeroValue;
 	
 	@DontSynchronize("readOnly")
-	protected final FlowFunctionCache<N,D,SootMethod> ffCache; 
+	protected final IndexedFlowFunctionCache<N,D> ffCache;
 	
 	@DontSynchronize("readOnly")
 	protected final boolean followReturnsPastSeeds;
@@ -124,6 +148,55 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 	@DontSynchronize("readOnly")
 	protected IMemoryManager<D, N> memoryManager = null;
 	
+	@DontSynchronize("readOnly")
+	protected MethodCompletionTracker<N> completionTracker = null;
+	
+	//the jump functions and incoming contexts per method, only maintained
+	//if a completion tracker is used
+	@SynchronizedBy("update lock of the completion tracker")
+	protected final MyConcurrentHashMap<SootMethod, Set<PathEdge<N, D>>> jumpFunctionsByMethod =
+			new MyConcurrentHashMap<SootMethod, Set<PathEdge<N, D>>>();
+	
+	@SynchronizedBy("update lock of the completion tracker")
+	protected final MyConcurrentHashMap<SootMethod, Set<D>> incomingByMethod =
+			new MyConcurrentHashMap<SootMethod, Set<D>>();
+	
+	@DontSynchronize("readOnly")
+	protected OffHeapSolverTier<N, D> offHeapTier = null;
+	
+	@DontSynchronize("only used for the off-heap tier")
+	private final ReadWriteLock endSummaryLock = new ReentrantReadWriteLock();
+	
+	@DontSynchronize("only used for the off-heap tier")
+	private final ReadWriteLock jumpFunctionLock = new ReentrantReadWriteLock();
+	
+	//the propagation count at which the state of each method was last
+	//accessed, only maintained for the off-heap tier
+	@SynchronizedBy("thread safe data structure")
+	protected final MyConcurrentHashMap<SootMethod, AtomicLong> methodLastAccess =
+			new MyConcurrentHashMap<SootMethod, AtomicLong>();
+	
+	@DontSynchronize("readOnly")
+	protected AnalysisEventRecorder eventRecorder = null;
+	
+	@DontSynchronize("readOnly")
+	protected TaskKind taskKind = TaskKind.ForwardEdge;
+	
+	@DontSynchronize("thread-local")
+	private final ThreadLocal<int[]> sampledTaskFacts = new ThreadLocal<>();
+	
+	@DontSynchronize("readOnly")
+	protected ReadWriteLock checkpointLock = null;
+	
+	@SynchronizedBy("thread safe data structure, consistent with the checkpoint lock")
+	private Set<PathEdge<N, D>> pendingEdges = null;
+	
+	@DontSynchronize("only used by single thread")
+	private List<PathEdge<N, D>> restoredEdges = null;
+	
+	@DontSynchronize("only used by single thread")
+	private boolean resumed = false;
+	
 	protected boolean solverId;
 	
 	private Set<IMemoryBoundedSolverStatusNotification> notificationListeners = new HashSet<>();
@@ -134,27 +207,39 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 	 * The solver must then be started by calling {@link #solve()}.
 	 */
 	public IFDSSolver(IFDSTabulationProblem<N,D,SootMethod,I> tabulationProblem) {
-		this(tabulationProblem, DEFAULT_CACHE_BUILDER);
+		this(tabulationProblem, true);
 	}
 
 	/**
-	 * Creates a solver for the given problem, constructing caches with the
-	 * given {@link CacheBuilder}. The solver must then be started by calling
-	 * {@link #solve()}.
+	 * Creates a solver for the given problem. The solver must then be started
+	 * by calling {@link #solve()}.
 	 * @param tabulationProblem The tabulation problem to solve
 	 * @param flowFunctionCacheBuilder A valid {@link CacheBuilder} or
 	 * <code>null</code> if no caching is to be used for flow functions.
+	 * @deprecated The builder is no longer used. Use
+	 * {@link #IFDSSolver(IFDSTabulationProblem, boolean)} instead.
 	 */
+	@Deprecated
 	public IFDSSolver(IFDSTabulationProblem<N,D,SootMethod,I> tabulationProblem,
 			@SuppressWarnings("rawtypes") CacheBuilder flowFunctionCacheBuilder) {
-		if(logger.isDebugEnabled())
-			flowFunctionCacheBuilder = flowFunctionCacheBuilder.recordStats();
+		this(tabulationProblem, flowFunctionCacheBuilder != null);
+	}
+
+	/**
+	 * Creates a solver for the given problem. The solver must then be started
+	 * by calling {@link #solve()}.
+	 * @param tabulationProblem The tabulation problem to solve
+	 * @param cacheFlowFunctions True if the flow functions shall be cached,
+	 * otherwise false
+	 */
+	public IFDSSolver(IFDSTabulationProblem<N,D,SootMethod,I> tabulationProblem,
+			boolean cacheFlowFunctions) {
 		this.zeroValue = tabulationProblem.zeroValue();
 		this.icfg = tabulationProblem.interproceduralCFG();		
 		FlowFunctions<N, D, SootMethod> flowFunctions = tabulationProblem.autoAddZero() ?
 				new ZeroedFlowFunctions<N,D,SootMethod>(tabulationProblem.flowFunctions(), zeroValue) : tabulationProblem.flowFunctions(); 
-		if(flowFunctionCacheBuilder!=null) {
-			ffCache = new FlowFunctionCache<N,D,SootMethod>(flowFunctions, flowFunctionCacheBuilder);
+		if(cacheFlowFunctions) {
+			ffCache = new IndexedFlowFunctionCache<N,D>(flowFunctions);
 			flowFunctions = ffCache;
 		} else {
 			ffCache = null;
@@ -178,7 +263,10 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 		for (IMemoryBoundedSolverStatusNotification listener : notificationListeners)
 			listener.notifySolverStarted(this);
 		
-		submitInitialSeeds();
+		// When resuming from a checkpoint, the pending edges have already
+		// been scheduled
+		if (!resumed)
+			submitInitialSeeds();
 		awaitCompletionComputeValuesAndShutdown();
 		
 		// Notify the listeners that the solver has been terminated
@@ -253,8 +341,24 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
     	if (killFlag || executor.isTerminating() || executor.isTerminated())
     		return;
     	
-    	executor.execute(new PathEdgeProcessingTask(edge, solverId));
-    	propagationCount++;
+    	// The edge must be counted before it can be processed. If the executor
+    	// drops the task, e.g., because an equal one is already waiting, the
+    	// edge will never be reported as processed.
+    	final SootMethod targetMethod = completionTracker == null ? null : icfg.getMethodOf(edge.getTarget());
+    	if (targetMethod != null)
+    		completionTracker.edgeScheduled(targetMethod);
+    	if (pendingEdges != null)
+    		pendingEdges.add(edge);
+    	if (!executor.tryExecute(new PathEdgeProcessingTask(edge, solverId)) && targetMethod != null)
+    		completionTracker.edgeDiscarded(targetMethod);
+    	propagationCount = propagationCounter.incrementAndGet();
+    	
+    	// Count the new facts of the task that is currently being sampled
+    	if (eventRecorder != null) {
+    		int[] facts = sampledTaskFacts.get();
+    		if (facts != null)
+    			facts[0]++;
+    	}
     }
 	
 	/**
@@ -285,6 +389,7 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 			Set<D> res = computeCallFlowFunction(function, d1, d2);
 			
 			Collection<N> startPointsOf = icfg.getStartPointsOf(sCalledProcN);
+			Set<D> callerSideDs = null;
 			//for each result node of the call-flow function
 			for(D d3: res) {
 				if (memoryManager != null)
@@ -318,8 +423,11 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 						for(N retSiteN: returnSiteNs) {
 							//compute return-flow function
 							FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(n, sCalledProcN, eP, retSiteN);
+							//the caller-side context is the same for all end summaries
+							if (callerSideDs == null)
+								callerSideDs = Collections.singleton(d1);
 							//for each target value of the function
-							for(D d5: computeReturnFlowFunction(retFunction, d3, d4, n, Collections.singleton(d1))) {
+							for(D d5: computeReturnFlowFunction(retFunction, d3, d4, n, callerSideDs)) {
 								if (memoryManager != null)
 									d5 = memoryManager.handleGeneratedMemoryObject(d4, d5);
 								
@@ -570,40 +678,121 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 		}
 		
 		final PathEdge<N,D> edge = new PathEdge<N,D>(sourceVal, target, targetVal);
-		final D existingVal = (forceRegister || !enableMergePointChecking || isMergePoint(target)) ?
-				addFunction(edge) : null;
-		if (existingVal != null) {
-			if (existingVal != targetVal) {
-				// Check whether we need to retain this abstraction
-				boolean isEssential;
-				if (memoryManager == null)
-					isEssential = relatedCallSite != null && icfg.isCallStmt(relatedCallSite);
-				else
-					isEssential = memoryManager.isEssentialJoinPoint(targetVal, relatedCallSite);
+		final boolean register = forceRegister || !enableMergePointChecking || isMergePoint(target);
+		
+		// The state of the target method must not be evicted between
+		// registering the jump function and scheduling the edge
+		final SootMethod targetMethod = completionTracker == null && offHeapTier == null ? null
+				: icfg.getMethodOf(target);
+		final Lock updateLock = completionTracker == null || targetMethod == null ? null
+				: completionTracker.getUpdateLock(targetMethod);
+		if (offHeapTier != null && targetMethod != null)
+			recordAccess(targetMethod);
+		if (updateLock != null)
+			updateLock.lock();
+		try {
+			final D existingVal = register ? addFunction(edge) : null;
+			if (existingVal != null) {
+				if (existingVal != targetVal) {
+					// Check whether we need to retain this abstraction
+					boolean isEssential;
+					if (memoryManager == null)
+						isEssential = relatedCallSite != null && icfg.isCallStmt(relatedCallSite);
+					else
+						isEssential = memoryManager.isEssentialJoinPoint(targetVal, relatedCallSite);
+					
+					if (!singleJoinPointAbstraction || isEssential)
+						existingVal.addNeighbor(targetVal);
+				}
+			}
+			else {
+				if (register && completionTracker != null && targetMethod != null)
+					addToMethodIndex(jumpFunctionsByMethod, targetMethod, edge);
 				
-				if (!singleJoinPointAbstraction || isEssential)
-					existingVal.addNeighbor(targetVal);
+				// If this is an inactive abstraction and we have already processed
+				// its active counterpart, we can skip this one
+				D activeVal = targetVal.getActiveCopy();
+				if (activeVal != targetVal) {
+					PathEdge<N, D> activeEdge = new PathEdge<>(sourceVal, target, activeVal);
+					if (hasFunction(activeEdge))
+						return;
+				}
+				scheduleEdgeProcessing(edge);
 			}
 		}
-		else {
-			// If this is an inactive abstraction and we have already processed
-			// its active counterpart, we can skip this one
-			D activeVal = targetVal.getActiveCopy();
-			if (activeVal != targetVal) {
-				PathEdge<N, D> activeEdge = new PathEdge<>(sourceVal, target, activeVal);
-				if (jumpFunctions.containsKey(activeEdge))
-					return;
-			}
-			scheduleEdgeProcessing(edge);
+		finally {
+			if (updateLock != null)
+				updateLock.unlock();
 		}
 	}
 	
+	/**
+	 * Records that the state of the given method has just been accessed
+	 * @param m The method whose state has been accessed
+	 */
+	private void recordAccess(SootMethod m) {
+		AtomicLong lastAccess = methodLastAccess.get(m);
+		if (lastAccess == null)
+			lastAccess = methodLastAccess.putIfAbsentElseGet(m, new AtomicLong());
+		lastAccess.lazySet(propagationCounter.get());
+	}
+	
+	/**
+	 * Records an entry in one of the per-method indexes
+	 * @param index The index to which to add the entry
+	 * @param m The method to which the entry belongs
+	 * @param entry The entry to add
+	 */
+	private <E> void addToMethodIndex(MyConcurrentHashMap<SootMethod, Set<E>> index, SootMethod m, E entry) {
+		Set<E> entries = index.get(m);
+		if (entries == null)
+			entries = index.putIfAbsentElseGet(m, new ConcurrentHashSet<E>());
+		entries.add(entry);
+	}
+	
 	/**
 	 * Records a jump function. The source statement is implicit.
 	 * @see PathEdge
 	 */
 	public D addFunction(PathEdge<N, D> edge) {
-		return jumpFunctions.putIfAbsent(edge, edge.factAtTarget());
+		if (offHeapTier == null)
+			return jumpFunctions.putIfAbsent(edge, edge.factAtTarget());
+		
+		// The jump function must not be moved off the heap between the two
+		// lookups
+		jumpFunctionLock.readLock().lock();
+		try {
+			D existingVal = offHeapTier.getJumpFunction(edge.factAtSource(), edge.getTarget(),
+					edge.factAtTarget());
+			if (existingVal != null)
+				return existingVal;
+			return jumpFunctions.putIfAbsent(edge, edge.factAtTarget());
+		}
+		finally {
+			jumpFunctionLock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Checks whether a jump function has been recorded for the given edge,
+	 * either on the heap or in the off-heap tier
+	 * @param edge The edge to check
+	 * @return True if a jump function has been recorded for the given edge,
+	 * otherwise false
+	 */
+	private boolean hasFunction(PathEdge<N, D> edge) {
+		if (offHeapTier == null)
+			return jumpFunctions.containsKey(edge);
+		
+		jumpFunctionLock.readLock().lock();
+		try {
+			return jumpFunctions.containsKey(edge)
+					|| offHeapTier.getJumpFunction(edge.factAtSource(), edge.getTarget(),
+							edge.factAtTarget()) != null;
+		}
+		finally {
+			jumpFunctionLock.readLock().unlock();
+		}
 	}
 	
 	/**
@@ -632,17 +821,44 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 	}
 
 	protected Set<Pair<N, D>> endSummary(SootMethod m, D d3) {
-		Set<Pair<N, D>> map = endSummary.get(new Pair<SootMethod, D>(m, d3));
-		return map;
+		if (offHeapTier == null) {
+			Set<Pair<N, D>> map = endSummary.get(new Pair<SootMethod, D>(m, d3));
+			return map;
+		}
+		
+		// We must not miss summaries that are just being moved off the heap
+		recordAccess(m);
+		endSummaryLock.readLock().lock();
+		try {
+			Set<Pair<N, D>> map = endSummary.get(new Pair<SootMethod, D>(m, d3));
+			return offHeapTier.getEndSummaries(m, d3, map);
+		}
+		finally {
+			endSummaryLock.readLock().unlock();
+		}
 	}
 
 	private boolean addEndSummary(SootMethod m, D d1, N eP, D d2) {
 		if (d1 == zeroValue)
 			return true;
 		
-		Set<Pair<N, D>> summaries = endSummary.putIfAbsentElseGet
-				(new Pair<SootMethod, D>(m, d1), new ConcurrentHashSet<Pair<N, D>>());
-		return summaries.add(new Pair<N, D>(eP, d2));
+		if (offHeapTier == null) {
+			Set<Pair<N, D>> summaries = endSummary.putIfAbsentElseGet
+					(new Pair<SootMethod, D>(m, d1), new ConcurrentHashSet<Pair<N, D>>());
+			return summaries.add(new Pair<N, D>(eP, d2));
+		}
+		
+		endSummaryLock.readLock().lock();
+		try {
+			if (offHeapTier.containsEndSummary(m, d1, eP, d2))
+				return false;
+			Set<Pair<N, D>> summaries = endSummary.putIfAbsentElseGet
+					(new Pair<SootMethod, D>(m, d1), new ConcurrentHashSet<Pair<N, D>>());
+			return summaries.add(new Pair<N, D>(eP, d2));
+		}
+		finally {
+			endSummaryLock.readLock().unlock();
+		}
 	}
 	
 	protected Map<N, Map<D, D>> incoming(D d1, SootMethod m) {
@@ -651,10 +867,47 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 	}
 	
 	protected boolean addIncoming(SootMethod m, D d3, N n, D d1, D d2) {
-		MyConcurrentHashMap<N, Map<D, D>> summaries = incoming.putIfAbsentElseGet
-				(new Pair<SootMethod, D>(m, d3), new MyConcurrentHashMap<N, Map<D, D>>());
-		Map<D, D> set = summaries.putIfAbsentElseGet(n, new ConcurrentHashMap<D, D>());
-		return set.put(d1, d2) == null;
+		// The callee must not be evicted while we register the edge
+		final Lock updateLock = completionTracker == null ? null : completionTracker.getUpdateLock(m);
+		if (updateLock != null)
+			updateLock.lock();
+		try {
+			MyConcurrentHashMap<N, Map<D, D>> summaries = incoming.putIfAbsentElseGet
+					(new Pair<SootMethod, D>(m, d3), new MyConcurrentHashMap<N, Map<D, D>>());
+			if (updateLock != null)
+				addToMethodIndex(incomingByMethod, m, d3);
+			Map<D, D> set = summaries.putIfAbsentElseGet(n, new ConcurrentHashMap<D, D>());
+			return set.put(d1, d2) == null;
+		}
+		finally {
+			if (updateLock != null)
+				updateLock.unlock();
+		}
+	}
+	
+	/**
+	 * Removes the jump functions and incoming edges of the given methods. The
+	 * end summaries are retained. Only the entries that have been registered
+	 * while a completion tracker was set are removed. The caller must hold
+	 * the eviction lock of the methods.
+	 * @param methods The methods whose state shall be evicted
+	 * @return The number of entries that have been removed
+	 */
+	protected int evictMethodState(Collection<SootMethod> methods) {
+		int removed = 0;
+		for (SootMethod m : methods) {
+			Set<PathEdge<N, D>> edges = jumpFunctionsByMethod.remove(m);
+			if (edges != null)
+				for (PathEdge<N, D> edge : edges)
+					if (jumpFunctions.remove(edge) != null)
+						removed++;
+			Set<D> contexts = incomingByMethod.remove(m);
+			if (contexts != null)
+				for (D d3 : contexts)
+					if (incoming.remove(new Pair<SootMethod, D>(m, d3)) != null)
+						removed++;
+		}
+		return removed;
 	}
 	
 	/**
@@ -675,7 +928,8 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 	public void printStats() {
 		if(logger.isDebugEnabled()) {
 			if(ffCache!=null)
-				ffCache.printStats();
+				logger.debug("Flow function cache: {} flow functions for {} statements",
+						ffCache.getFlowFunctionCount(), ffCache.getStatementCount());
 		} else {
 			logger.info("No statistics were collected, as DEBUG is disabled.");
 		}
@@ -692,15 +946,49 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 		}
 
 		public void run() {
-			if(icfg.isCallStmt(edge.getTarget())) {
-				processCall(edge);
-			} else {
-				//note that some statements, such as "throw" may be
-				//both an exit statement and a "normal" statement
-				if(icfg.isExitStmt(edge.getTarget()))
-					processExit(edge);
-				if(!icfg.getSuccsOf(edge.getTarget()).isEmpty())
-					processNormalFlow(edge);
+			// Checkpoints must not see half-processed edges
+			final Lock lock = checkpointLock == null ? null : checkpointLock.readLock();
+			if (lock != null)
+				lock.lock();
+			try {
+				processTask();
+			} finally {
+				if (pendingEdges != null)
+					pendingEdges.remove(edge);
+				if (lock != null)
+					lock.unlock();
+			}
+		}
+		
+		private void processTask() {
+			// Only a small sample of the tasks is recorded
+			int[] facts = null;
+			long startTime = 0;
+			if (eventRecorder != null && eventRecorder.sampleTask()) {
+				facts = new int[1];
+				sampledTaskFacts.set(facts);
+				startTime = System.nanoTime();
+			}
+			
+			try {
+				if(icfg.isCallStmt(edge.getTarget())) {
+					processCall(edge);
+				} else {
+					//note that some statements, such as "throw" may be
+					//both an exit statement and a "normal" statement
+					if(icfg.isExitStmt(edge.getTarget()))
+						processExit(edge);
+					if(!icfg.getSuccsOf(edge.getTarget()).isEmpty())
+						processNormalFlow(edge);
+				}
+			}
+			finally {
+				if (completionTracker != null)
+					completionTracker.edgeProcessed(icfg.getMethodOf(edge.getTarget()));
+				if (facts != null) {
+					sampledTaskFacts.remove();
+					eventRecorder.taskSampled(taskKind, icfg.getMethodOf(edge.getTarget()), facts[0], startTime);
+				}
 			}
 		}
 
@@ -772,6 +1060,93 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 		this.memoryManager = memoryManager;
 	}
 	
+	/**
+	 * Sets the tracker that shall be used to find methods that can no longer
+	 * receive new edges. The jump functions and incoming edges of such methods
+	 * are removed during the analysis to save memory.
+	 * @param completionTracker The tracker to use, or null to keep all solver
+	 * state until the solver is cleaned up
+	 */
+	public void setCompletionTracker(MethodCompletionTracker<N> completionTracker) {
+		this.completionTracker = completionTracker;
+		if (completionTracker != null)
+			completionTracker.addSolver(this);
+	}
+	
+	/**
+	 * Sets the off-heap tier to which cold jump functions and end summaries
+	 * are moved when memory is getting scarce. The tier must be set before the
+	 * solver is started.
+	 * @param offHeapTier The off-heap tier to use, or null to keep all solver
+	 * state on the heap
+	 */
+	public void setOffHeapTier(OffHeapSolverTier<N, D> offHeapTier) {
+		this.offHeapTier = offHeapTier;
+	}
+	
+	/**
+	 * Sets the recorder that shall receive sampled events for the tasks of
+	 * this solver
+	 * @param eventRecorder The recorder for the task events
+	 * @param taskKind The kind of task to report for this solver
+	 */
+	public void setEventRecorder(AnalysisEventRecorder eventRecorder, TaskKind taskKind) {
+		this.eventRecorder = eventRecorder;
+		this.taskKind = taskKind;
+	}
+	
+	/**
+	 * Gets the number of edges this solver has propagated so far
+	 * @return The number of propagated edges
+	 */
+	public long getPropagationCount() {
+		return propagationCounter.get();
+	}
+	
+	/**
+	 * Gets the cache in which this solver keeps its flow functions
+	 * @return The flow function cache, or null if flow functions are not
+	 * cached
+	 */
+	public IndexedFlowFunctionCache<N, D> getFlowFunctionCache() {
+		return this.ffCache;
+	}
+	
+	/**
+	 * Gets the number of jump functions currently held on the heap
+	 * @return The number of jump functions currently held on the heap
+	 */
+	public int getJumpFunctionCount() {
+		return jumpFunctions.size();
+	}
+	
+	/**
+	 * Gets the number of method contexts for which incoming edges are
+	 * currently recorded
+	 * @return The number of keys in the incoming map
+	 */
+	public int getIncomingCount() {
+		return incoming.size();
+	}
+	
+	/**
+	 * Gets the number of method contexts for which end summaries are
+	 * currently held on the heap
+	 * @return The number of keys in the end summary map
+	 */
+	public int getEndSummaryCount() {
+		return endSummary.size();
+	}
+	
+	/**
+	 * Gets the number of entries this solver has moved out of the heap
+	 * @return The number of entries in the off-heap tier
+	 */
+	public long getOffHeapEntryCount() {
+		OffHeapSolverTier<N, D> tier = offHeapTier;
+		return tier == null ? 0 : tier.size();
+	}
+	
 	/**
 	 * Gets the memory manager used by this solver to reduce memory consumption
 	 * @return The memory manager registered with this solver
@@ -780,6 +1155,176 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 		return this.memoryManager;
 	}
 
+	/**
+	 * Sets the lock that coordinates the processing of edges with the writing
+	 * of checkpoints. Every edge is processed while holding the read lock, so
+	 * a checkpoint that holds the write lock sees a consistent solver state.
+	 * Solvers that propagate edges into each other must share the same lock.
+	 * The lock must be set before the solver is started.
+	 * @param checkpointLock The lock to use, or null to disable checkpoints
+	 */
+	public void setCheckpointLock(ReadWriteLock checkpointLock) {
+		this.checkpointLock = checkpointLock;
+		this.pendingEdges = checkpointLock == null ? null : new ConcurrentHashSet<PathEdge<N, D>>();
+	}
+	
+	/**
+	 * Writes the state of this solver, i.e., the initial seeds, the jump
+	 * functions, the end summaries, the incoming edges, and the edges that
+	 * have been scheduled, but not processed yet. The caller must hold the
+	 * write lock of the checkpoint lock.
+	 * @param out The output to write to
+	 * @param codec The codec for encoding the nodes, methods, and facts
+	 * @throws IOException Thrown if the state cannot be written
+	 */
+	public void writeCheckpoint(DataOutput out, ISolverStateCodec<N, D> codec) throws IOException {
+		if (pendingEdges == null)
+			throw new IOException("Checkpoints are not enabled for this solver");
+		if (getOffHeapEntryCount() > 0)
+			throw new IOException("Solver state that has been moved off the heap cannot be checkpointed");
+		
+		out.writeInt(initialSeeds.size());
+		for (Entry<N, Set<D>> seed : initialSeeds.entrySet()) {
+			codec.writeNode(out, seed.getKey());
+			out.writeInt(seed.getValue().size());
+			for (D val : seed.getValue())
+				codec.writeFact(out, val);
+		}
+		
+		out.writeInt(jumpFunctions.size());
+		for (Entry<PathEdge<N, D>, D> entry : jumpFunctions.entrySet()) {
+			codec.writeFact(out, entry.getKey().factAtSource());
+			codec.writeNode(out, entry.getKey().getTarget());
+			codec.writeFact(out, entry.getValue());
+		}
+		
+		out.writeInt(endSummary.size());
+		for (Entry<Pair<SootMethod, D>, Set<Pair<N, D>>> entry : endSummary.entrySet()) {
+			codec.writeMethod(out, entry.getKey().getO1());
+			codec.writeFact(out, entry.getKey().getO2());
+			out.writeInt(entry.getValue().size());
+			for (Pair<N, D> summary : entry.getValue()) {
+				codec.writeNode(out, summary.getO1());
+				codec.writeFact(out, summary.getO2());
+			}
+		}
+		
+		out.writeInt(incoming.size());
+		for (Entry<Pair<SootMethod, D>, MyConcurrentHashMap<N, Map<D, D>>> entry : incoming.entrySet()) {
+			codec.writeMethod(out, entry.getKey().getO1());
+			codec.writeFact(out, entry.getKey().getO2());
+			out.writeInt(entry.getValue().size());
+			for (Entry<N, Map<D, D>> callSite : entry.getValue().entrySet()) {
+				codec.writeNode(out, callSite.getKey());
+				out.writeInt(callSite.getValue().size());
+				for (Entry<D, D> facts : callSite.getValue().entrySet()) {
+					codec.writeFact(out, facts.getKey());
+					codec.writeFact(out, facts.getValue());
+				}
+			}
+		}
+		
+		out.writeInt(pendingEdges.size());
+		for (PathEdge<N, D> edge : pendingEdges) {
+			codec.writeFact(out, edge.factAtSource());
+			codec.writeNode(out, edge.getTarget());
+			codec.writeFact(out, edge.factAtTarget());
+		}
+	}
+	
+	/**
+	 * Replaces the state of this solver with the state from a checkpoint
+	 * that was written by {@link #writeCheckpoint(DataOutput, ISolverStateCodec)}.
+	 * The pending edges are only scheduled once {@link #resumeFromCheckpoint()}
+	 * is called.
+	 * @param in The input to read from
+	 * @param codec The codec for decoding the nodes, methods, and facts
+	 * @throws IOException Thrown if the state cannot be read
+	 */
+	public void readCheckpoint(DataInput in, ISolverStateCodec<N, D> codec) throws IOException {
+		initialSeeds.clear();
+		int seedCount = in.readInt();
+		for (int i = 0; i < seedCount; i++) {
+			N startPoint = codec.readNode(in);
+			int valCount = in.readInt();
+			Set<D> vals = new HashSet<>(valCount * 2);
+			for (int j = 0; j < valCount; j++)
+				vals.add(codec.readFact(in));
+			initialSeeds.put(startPoint, vals);
+		}
+		
+		jumpFunctions.clear();
+		jumpFunctionsByMethod.clear();
+		methodLastAccess.clear();
+		incomingByMethod.clear();
+		int jumpFnCount = in.readInt();
+		for (int i = 0; i < jumpFnCount; i++) {
+			D d1 = codec.readFact(in);
+			N target = codec.readNode(in);
+			D d2 = codec.readFact(in);
+			PathEdge<N, D> edge = new PathEdge<N, D>(d1, target, d2);
+			jumpFunctions.put(edge, d2);
+			if (completionTracker != null)
+				addToMethodIndex(jumpFunctionsByMethod, icfg.getMethodOf(target), edge);
+			if (offHeapTier != null)
+				recordAccess(icfg.getMethodOf(target));
+		}
+		
+		endSummary.clear();
+		int endSummaryCount = in.readInt();
+		for (int i = 0; i < endSummaryCount; i++) {
+			SootMethod m = codec.readMethod(in);
+			D d1 = codec.readFact(in);
+			int summaryCount = in.readInt();
+			Set<Pair<N, D>> summaries = new ConcurrentHashSet<Pair<N, D>>();
+			for (int j = 0; j < summaryCount; j++) {
+				N eP = codec.readNode(in);
+				summaries.add(new Pair<N, D>(eP, codec.readFact(in)));
+			}
+			endSummary.put(new Pair<SootMethod, D>(m, d1), summaries);
+		}
+		
+		incoming.clear();
+		int incomingCount = in.readInt();
+		for (int i = 0; i < incomingCount; i++) {
+			SootMethod m = codec.readMethod(in);
+			D d3 = codec.readFact(in);
+			int callSiteCount = in.readInt();
+			for (int j = 0; j < callSiteCount; j++) {
+				N n = codec.readNode(in);
+				int factCount = in.readInt();
+				for (int k = 0; k < factCount; k++) {
+					D d1 = codec.readFact(in);
+					addIncoming(m, d3, n, d1, codec.readFact(in));
+				}
+			}
+		}
+		
+		int pendingCount = in.readInt();
+		restoredEdges = new ArrayList<>(pendingCount);
+		for (int i = 0; i < pendingCount; i++) {
+			D d1 = codec.readFact(in);
+			N target = codec.readNode(in);
+			restoredEdges.add(new PathEdge<N, D>(d1, target, codec.readFact(in)));
+		}
+	}
+	
+	/**
+	 * Schedules the edges that were pending when the checkpoint was written.
+	 * Afterwards, {@link #solve()} continues from these edges instead of
+	 * starting over from the initial seeds. If several solvers propagate
+	 * edges into each other, all of them must have read their state before
+	 * any of them is resumed.
+	 */
+	public void resumeFromCheckpoint() {
+		if (restoredEdges == null)
+			throw new IllegalStateException("No checkpoint has been read");
+		resumed = true;
+		for (PathEdge<N, D> edge : restoredEdges)
+			scheduleEdgeProcessing(edge);
+		restoredEdges = null;
+	}
+	
 	@Override
 	public void forceTerminate() {
 		this.killFlag = true;
@@ -802,6 +1347,102 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,I extends BiDiInt
 		this.killFlag = false;
 	}
 
+	@Override
+	public long demoteColdEntries() {
+		if (offHeapTier == null || killFlag)
+			return 0;
+		
+		// The least recently accessed half of the methods is considered cold
+		final Set<SootMethod> coldMethods = new HashSet<>();
+		long threshold = getColdAccessThreshold();
+		if (threshold < 0)
+			return 0;
+		for (Entry<SootMethod, AtomicLong> entry : methodLastAccess.entrySet())
+			if (entry.getValue().get() <= threshold)
+				coldMethods.add(entry.getKey());
+		
+		// Jump functions whose facts have been collected since the last
+		// demotion can no longer match, so we reclaim their space first
+		long removed = offHeapTier.removeStaleEntries();
+		
+		// Concurrent propagations must see the jump function either on the
+		// heap or in the off-heap tier
+		long demoted = 0;
+		jumpFunctionLock.writeLock().lock();
+		try {
+			for (Iterator<Entry<PathEdge<N, D>, D>> entryIt = jumpFunctions.entrySet().iterator();
+					entryIt.hasNext(); ) {
+				Entry<PathEdge<N, D>, D> entry = entryIt.next();
+				if (coldMethods.contains(icfg.getMethodOf(entry.getKey().getTarget()))) {
+					offHeapTier.addJumpFunction(entry.getKey(), entry.getValue());
+					entryIt.remove();
+					demoted++;
+				}
+			}
+		}
+		finally {
+			jumpFunctionLock.writeLock().unlock();
+		}
+		
+		// The per-method index must not keep the demoted edges alive. Edges
+		// are registered in the jump functions before they are indexed.
+		for (SootMethod m : coldMethods) {
+			Set<PathEdge<N, D>> edges = jumpFunctionsByMethod.get(m);
+			if (edges != null)
+				for (Iterator<PathEdge<N, D>> edgeIt = edges.iterator(); edgeIt.hasNext(); )
+					if (!jumpFunctions.containsKey(edgeIt.next()))
+						edgeIt.remove();
+		}
+		
+		endSummaryLock.writeLock().lock();
+		try {
+			for (Iterator<Entry<Pair<SootMethod, D>, Set<Pair<N, D>>>> entryIt = endSummary.entrySet().iterator();
+					entryIt.hasNext(); ) {
+				Entry<Pair<SootMethod, D>, Set<Pair<N, D>>> entry = entryIt.next();
+				SootMethod m = entry.getKey().getO1();
+				if (coldMethods.contains(m)) {
+					for (Pair<N, D> summary : entry.getValue()) {
+						offHeapTier.addEndSummary(m, entry.getKey().getO2(), summary.getO1(), summary.getO2());
+						demoted++;
+					}
+					entryIt.remove();
+				}
+			}
+		}
+		finally {
+			endSummaryLock.writeLock().unlock();
+		}
+		
+		// Methods that have been accessed in the meantime stay in the map
+		for (SootMethod m : coldMethods) {
+			AtomicLong lastAccess = methodLastAccess.get(m);
+			if (lastAccess != null && lastAccess.get() <= threshold)
+				methodLastAccess.remove(m, lastAccess);
+		}
+		
+		logger.info("Moved {} solver entries of {} methods off the heap and removed {} stale ones, "
+				+ "the off-heap tier now uses {} MB", demoted, coldMethods.size(), removed,
+				offHeapTier.getMemoryFootprint() / 1000 / 1000);
+		return demoted;
+	}
+	
+	/**
+	 * Gets the propagation count up to which the last access to a method
+	 * counts as cold. This is the median of the last accesses to all methods
+	 * that have state on the heap.
+	 * @return The propagation count up to which a method is cold, or -1 if
+	 * there is no method with state on the heap
+	 */
+	private long getColdAccessThreshold() {
+		List<Long> accesses = new ArrayList<>(methodLastAccess.size());
+		for (AtomicLong lastAccess : methodLastAccess.values())
+			accesses.add(lastAccess.get());
+		if (accesses.isEmpty())
+			return -1;
+		Collections.sort(accesses);
+		return accesses.get((accesses.size() - 1) / 2);
+	}
+	
 	@Override
 	public void addStatusListener(IMemoryBoundedSolverStatusNotification listener) {
 		this.notificationListeners.add(listener);
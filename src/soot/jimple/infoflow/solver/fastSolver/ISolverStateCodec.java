@@ -0,0 +1,74 @@
+package soot.jimple.infoflow.solver.fastSolver;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import soot.SootMethod;
+
+/**
+ * Encoding of the nodes, methods, and facts in a solver checkpoint. A codec
+ * must encode objects in a way that can be decoded in a different JVM that
+ * has loaded the same Soot scene, i.e., it cannot rely on object identities.
+ * Codecs may keep state across calls, e.g., to encode repeated objects as
+ * back-references, so the same codec instance must be used for a complete
+ * checkpoint.
+ *
+ * @param <N> The type of nodes in the interprocedural control-flow graph
+ * @param <D> The type of data-flow facts
+ */
+public interface ISolverStateCodec<N, D> {
+
+	/**
+	 * Writes the given node
+	 * @param out The output to write to
+	 * @param node The node to write
+	 * @throws IOException Thrown if the node cannot be written
+	 */
+	public void writeNode(DataOutput out, N node) throws IOException;
+
+	/**
+	 * Reads a node that was written with {@link #writeNode(DataOutput, Object)}
+	 * @param in The input to read from
+	 * @return The node that was read
+	 * @throws IOException Thrown if the node cannot be read or does not
+	 * exist in the current scene
+	 */
+	public N readNode(DataInput in) throws IOException;
+
+	/**
+	 * Writes the given method
+	 * @param out The output to write to
+	 * @param method The method to write
+	 * @throws IOException Thrown if the method cannot be written
+	 */
+	public void writeMethod(DataOutput out, SootMethod method) throws IOException;
+
+	/**
+	 * Reads a method that was written with
+	 * {@link #writeMethod(DataOutput, SootMethod)}
+	 * @param in The input to read from
+	 * @return The method that was read
+	 * @throws IOException Thrown if the method cannot be read or does not
+	 * exist in the current scene
+	 */
+	public SootMethod readMethod(DataInput in) throws IOException;
+
+	/**
+	 * Writes the given fact, including all facts that it links to
+	 * @param out The output to write to
+	 * @param fact The fact to write
+	 * @throws IOException Thrown if the fact cannot be written
+	 */
+	public void writeFact(DataOutput out, D fact) throws IOException;
+
+	/**
+	 * Reads a fact that was written with {@link #writeFact(DataOutput, Object)}
+	 * @param in The input to read from
+	 * @return The fact that was read. Facts that were the same object when
+	 * they were written are the same object when they are read.
+	 * @throws IOException Thrown if the fact cannot be read
+	 */
+	public D readFact(DataInput in) throws IOException;
+
+}
@@ -0,0 +1,266 @@
+package soot.jimple.infoflow.solver.fastSolver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import heros.FlowFunction;
+import heros.FlowFunctions;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.infoflow.collect.IdentityNumberer;
+import soot.jimple.infoflow.memory.IMemoryPressureHandler;
+
+/**
+ * Cache for flow functions that is indexed by statement. Statements are
+ * numbered with the Soot unit numberer, and every number has one slot per
+ * kind of flow function. A slot holds an immutable list of the flow functions created for
+ * the statement, e.g., one per successor or one per callee. Lookups never
+ * lock, new flow functions are added with a compare-and-set on the slot.
+ *
+ * <p>
+ * Flow functions are small and cheap to create, so the cache never evicts
+ * entries on its own. It only drops all entries when memory gets scarce.
+ *
+ * @param <N> The type of nodes in the interprocedural control-flow graph
+ * @param <D> The type of data-flow facts
+ */
+public class IndexedFlowFunctionCache<N, D> implements FlowFunctions<N, D, SootMethod>,
+		IMemoryPressureHandler {
+
+	private static final int KIND_NORMAL = 0;
+	private static final int KIND_CALL = 1;
+	private static final int KIND_RETURN = 2;
+	private static final int KIND_UNBALANCED_RETURN = 3;
+	private static final int KIND_CALL_TO_RETURN = 4;
+	private static final int NUM_KINDS = 5;
+
+	private static final int CHUNK_SIZE = 4096;
+
+	/**
+	 * A cached flow function together with the node and the keys that
+	 * identify it within its slot. Nodes and keys are compared by identity.
+	 */
+	private static class Entry {
+
+		private final Object node;
+		private final Object key1;
+		private final Object key2;
+		private final Object key3;
+		private final FlowFunction<?> function;
+		private final Entry next;
+
+		private Entry(Object node, Object key1, Object key2, Object key3, FlowFunction<?> function,
+				Entry next) {
+			this.node = node;
+			this.key1 = key1;
+			this.key2 = key2;
+			this.key3 = key3;
+			this.function = function;
+			this.next = next;
+		}
+
+	}
+
+	private final FlowFunctions<N, D, SootMethod> delegate;
+	private final IdentityNumberer<N> numberer = new IdentityNumberer<>();
+	private final AtomicInteger statementCount = new AtomicInteger();
+	private volatile AtomicReferenceArray<Entry>[] chunks = newChunkArray(16);
+
+	/**
+	 * Creates a new instance of the {@link IndexedFlowFunctionCache} class
+	 * @param delegate The flow functions to cache
+	 */
+	public IndexedFlowFunctionCache(FlowFunctions<N, D, SootMethod> delegate) {
+		this.delegate = delegate;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static AtomicReferenceArray<Entry>[] newChunkArray(int size) {
+		return new AtomicReferenceArray[size];
+	}
+
+	/**
+	 * Gets the chunk that contains the given slot, creating it if necessary
+	 * @param slot The slot for which to get the chunk
+	 * @return The chunk that contains the given slot
+	 */
+	private AtomicReferenceArray<Entry> getChunk(int slot) {
+		final int chunkIdx = slot / CHUNK_SIZE;
+		AtomicReferenceArray<Entry>[] curChunks = chunks;
+		if (chunkIdx < curChunks.length) {
+			AtomicReferenceArray<Entry> chunk = curChunks[chunkIdx];
+			if (chunk != null)
+				return chunk;
+		}
+		return createChunk(chunkIdx);
+	}
+
+	private synchronized AtomicReferenceArray<Entry> createChunk(int chunkIdx) {
+		AtomicReferenceArray<Entry>[] curChunks = chunks;
+		if (chunkIdx >= curChunks.length) {
+			AtomicReferenceArray<Entry>[] newChunks = newChunkArray(Math.max(curChunks.length * 2,
+					chunkIdx + 1));
+			System.arraycopy(curChunks, 0, newChunks, 0, curChunks.length);
+			curChunks = newChunks;
+		}
+		if (curChunks[chunkIdx] == null)
+			curChunks[chunkIdx] = new AtomicReferenceArray<Entry>(CHUNK_SIZE);
+		chunks = curChunks;
+		return curChunks[chunkIdx];
+	}
+
+	/**
+	 * Gets the number of the given node. Soot units use their own unit
+	 * number, which costs no lookup and keeps no reference to the unit. Units
+	 * that have not been numbered yet are added to the unit numberer of the
+	 * scene. Other node types fall back to an identity-based numbering.
+	 * @param node The node for which to get the number
+	 * @return The number of the given node
+	 */
+	private int getNumber(N node) {
+		if (node instanceof Unit) {
+			Unit u = (Unit) node;
+			int number = u.getNumber();
+			if (number == 0) {
+				Scene.v().getUnitNumberer().add(u);
+				number = u.getNumber();
+			}
+			return number;
+		}
+		return numberer.getOrAddNumber(node);
+	}
+
+	/**
+	 * Looks up a flow function in the given slot
+	 * @param head The first entry in the slot
+	 * @return The flow function with the given node and keys, or null if no
+	 * such flow function has been cached yet
+	 */
+	private static FlowFunction<?> find(Entry head, Object node, Object key1, Object key2, Object key3) {
+		for (Entry e = head; e != null; e = e.next)
+			if (e.node == node && e.key1 == key1 && e.key2 == key2 && e.key3 == key3)
+				return e.function;
+		return null;
+	}
+
+	/**
+	 * Gets the cached flow function for the given node, kind, and keys
+	 * @return The cached flow function, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	private FlowFunction<D> get(N node, int kind, Object key1, Object key2, Object key3) {
+		final int slot = getNumber(node) * NUM_KINDS + kind;
+		return (FlowFunction<D>) find(getChunk(slot).get(slot % CHUNK_SIZE), node, key1, key2, key3);
+	}
+
+	/**
+	 * Adds a flow function to the cache unless another thread has already
+	 * added one for the same keys
+	 * @return The flow function that is in the cache after this call
+	 */
+	@SuppressWarnings("unchecked")
+	private FlowFunction<D> put(N node, int kind, Object key1, Object key2, Object key3,
+			FlowFunction<D> function) {
+		final int slot = getNumber(node) * NUM_KINDS + kind;
+		final AtomicReferenceArray<Entry> chunk = getChunk(slot);
+		final int idx = slot % CHUNK_SIZE;
+		while (true) {
+			Entry head = chunk.get(idx);
+			FlowFunction<?> existing = find(head, node, key1, key2, key3);
+			if (existing != null)
+				return (FlowFunction<D>) existing;
+			if (chunk.compareAndSet(idx, head, new Entry(node, key1, key2, key3, function, head))) {
+				if (head == null)
+					statementCount.incrementAndGet();
+				return function;
+			}
+		}
+	}
+
+	@Override
+	public FlowFunction<D> getNormalFlowFunction(N curr, N succ) {
+		FlowFunction<D> function = get(curr, KIND_NORMAL, succ, null, null);
+		if (function == null)
+			function = put(curr, KIND_NORMAL, succ, null, null,
+					delegate.getNormalFlowFunction(curr, succ));
+		return function;
+	}
+
+	@Override
+	public FlowFunction<D> getCallFlowFunction(N callStmt, SootMethod destinationMethod) {
+		FlowFunction<D> function = get(callStmt, KIND_CALL, destinationMethod, null, null);
+		if (function == null)
+			function = put(callStmt, KIND_CALL, destinationMethod, null, null,
+					delegate.getCallFlowFunction(callStmt, destinationMethod));
+		return function;
+	}
+
+	@Override
+	public FlowFunction<D> getReturnFlowFunction(N callSite, SootMethod calleeMethod, N exitStmt,
+			N returnSite) {
+		// Unbalanced returns have no call site, so we index them by their exit
+		// statement instead
+		final N node = callSite == null ? exitStmt : callSite;
+		final int kind = callSite == null ? KIND_UNBALANCED_RETURN : KIND_RETURN;
+		FlowFunction<D> function = get(node, kind, calleeMethod, exitStmt, returnSite);
+		if (function == null)
+			function = put(node, kind, calleeMethod, exitStmt, returnSite,
+					delegate.getReturnFlowFunction(callSite, calleeMethod, exitStmt, returnSite));
+		return function;
+	}
+
+	@Override
+	public FlowFunction<D> getCallToReturnFlowFunction(N callSite, N returnSite) {
+		FlowFunction<D> function = get(callSite, KIND_CALL_TO_RETURN, returnSite, null, null);
+		if (function == null)
+			function = put(callSite, KIND_CALL_TO_RETURN, returnSite, null, null,
+					delegate.getCallToReturnFlowFunction(callSite, returnSite));
+		return function;
+	}
+
+	/**
+	 * Gets the number of slots that hold at least one flow function. This is
+	 * an approximation of the number of statements known to this cache.
+	 * @return The number of statements known to this cache
+	 */
+	public int getStatementCount() {
+		return statementCount.get();
+	}
+
+	/**
+	 * Gets the number of flow functions in this cache. This method walks the
+	 * whole cache and is only meant for statistics.
+	 * @return The number of cached flow functions
+	 */
+	public long getFlowFunctionCount() {
+		long count = 0;
+		for (AtomicReferenceArray<Entry> chunk : chunks)
+			if (chunk != null)
+				for (int i = 0; i < chunk.length(); i++)
+					for (Entry e = chunk.get(i); e != null; e = e.next)
+						count++;
+		return count;
+	}
+
+	/**
+	 * Removes all flow functions from this cache together with the numbers of
+	 * all statements that are not Soot units
+	 */
+	public synchronized void clear() {
+		chunks = newChunkArray(16);
+		numberer.clear();
+		statementCount.set(0);
+	}
+
+	@Override
+	public String reduceMemoryConsumption(MemoryReductionStep step) {
+		if (step != MemoryReductionStep.FlushCaches)
+			return null;
+
+		// Flow functions are re-created on demand
+		clear();
+		return "Flushed the flow function cache";
+	}
+
+}
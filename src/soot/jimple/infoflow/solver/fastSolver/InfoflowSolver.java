@@ -69,6 +69,7 @@ public class InfoflowSolver extends IFDSSolver<Unit, Abstraction, BiDiInterproce
 		Set<Pair<Unit, Abstraction>> endSumm = endSummary(callee, d3);		
 		if (endSumm != null) {
 			Collection<Unit> returnSiteNs = icfg.getReturnSitesOfCallAt(callSite);
+			Set<Abstraction> callerSideDs = Collections.singleton(d1);
 			for(Pair<Unit, Abstraction> entry: endSumm) {
 				Unit eP = entry.getO1();
 				Abstraction d4 = entry.getO2();
@@ -77,7 +78,7 @@ public class InfoflowSolver extends IFDSSolver<Unit, Abstraction, BiDiInterproce
 					//compute return-flow function
 					FlowFunction<Abstraction> retFunction = flowFunctions.getReturnFlowFunction(callSite, callee, eP, retSiteN);
 					//for each target value of the function
-					for(Abstraction d5: computeReturnFlowFunction(retFunction, d3, d4, callSite, Collections.singleton(d1))) {
+					for(Abstraction d5: computeReturnFlowFunction(retFunction, d3, d4, callSite, callerSideDs)) {
 						if (memoryManager != null)
 							d5 = memoryManager.handleGeneratedMemoryObject(d4, d5);
 						
@@ -144,7 +145,14 @@ public class InfoflowSolver extends IFDSSolver<Unit, Abstraction, BiDiInterproce
 	public void cleanup() {
 		this.jumpFunctions = new MyConcurrentHashMap<PathEdge<Unit, Abstraction>, Abstraction>();
 		this.incoming.clear();
+		this.jumpFunctionsByMethod.clear();
+		this.incomingByMethod.clear();
+		this.methodLastAccess.clear();
 		this.endSummary.clear();
+		if (this.ffCache != null)
+			this.ffCache.clear();
+		if (this.offHeapTier != null)
+			this.offHeapTier.clear();
 	}
 	
 	@Override
@@ -174,11 +182,6 @@ public class InfoflowSolver extends IFDSSolver<Unit, Abstraction, BiDiInterproce
 		this.followReturnsPastSeedsHandler = handler;
 	}
 
-	@Override
-	public long getPropagationCount() {
-		return propagationCount;
-	}
-
 	@Override
 	public AbstractInfoflowProblem getTabulationProblem() {
 		return problem;
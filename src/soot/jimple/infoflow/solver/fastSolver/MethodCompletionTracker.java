@@ -0,0 +1,464 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.fastSolver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import heros.solver.Pair;
+import soot.SootMethod;
+import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
+
+/**
+ * Tracks the number of outstanding path edges per method and per strongly
+ * connected component of the callgraph. A method is considered complete if
+ * all of its callers are complete as well and neither its own SCC nor any SCC
+ * that it transitively calls has any outstanding edges. Being idle is not
+ * enough: An idle caller can still be re-activated when one of its other
+ * callees returns, and then enter the method in a new context. Since the
+ * callers of a method are complete first, this boils down to checking that
+ * everything below the callgraph roots above the method is idle. The jump
+ * functions
+ * and incoming edges of completed methods are then evicted from all
+ * registered solvers, only the end summaries are retained. If a completed
+ * method receives a new edge later on, it is simply explored again.
+ *
+ * The same tracker must be shared by all solvers that inject edges into
+ * each other, i.e., by the forward and the backward solver. The solvers
+ * register new jump functions and incoming edges while holding the update
+ * lock of the respective method. The eviction waits for these updates to
+ * finish and re-checks that the method is still idle before removing any
+ * state, so that no edge is evicted while it is being scheduled.
+ *
+ * @param <N> The type of nodes in the interprocedural control-flow graph
+ */
+public class MethodCompletionTracker<N> {
+
+	/**
+	 * The default number of processed edges between two eviction sweeps
+	 */
+	public static final int DEFAULT_SWEEP_INTERVAL = 50000;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	/**
+	 * A strongly connected component in the callgraph
+	 */
+	private static class MethodSCC {
+
+		private final List<SootMethod> methods = new ArrayList<>();
+		private final Set<MethodSCC> callees = new HashSet<>();
+		private Set<MethodSCC> callers = null;
+
+		private final AtomicInteger outstandingEdges = new AtomicInteger();
+		private volatile boolean evicted = false;
+
+		/**
+		 * Solver updates share the read lock, the eviction takes the write
+		 * lock
+		 */
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	}
+
+	private final BiDiInterproceduralCFG<N, SootMethod> icfg;
+	private final Map<SootMethod, MethodSCC> methodToSCC = new ConcurrentHashMap<>();
+	private final Set<MethodSCC> candidates = Collections.newSetFromMap(
+			new ConcurrentHashMap<MethodSCC, Boolean>());
+	private final List<IFDSSolver<N, ?, ?>> solvers = new CopyOnWriteArrayList<>();
+
+	private final AtomicLong processedEdges = new AtomicLong();
+	private final AtomicBoolean sweepRunning = new AtomicBoolean(false);
+	private final AtomicLong evictedMethods = new AtomicLong();
+	private final AtomicLong evictedEntries = new AtomicLong();
+
+	private int sweepInterval = DEFAULT_SWEEP_INTERVAL;
+
+	/**
+	 * Creates a new instance of the {@link MethodCompletionTracker} class
+	 * @param icfg The interprocedural control flow graph from which to take
+	 * the callgraph
+	 */
+	public MethodCompletionTracker(BiDiInterproceduralCFG<N, SootMethod> icfg) {
+		this.icfg = icfg;
+	}
+
+	/**
+	 * Registers a solver with this tracker. The state of completed methods will
+	 * be evicted from all registered solvers.
+	 * @param solver The solver to register
+	 */
+	void addSolver(IFDSSolver<N, ?, ?> solver) {
+		if (!solvers.contains(solver))
+			solvers.add(solver);
+	}
+
+	/**
+	 * Sets the number of processed edges after which the tracker looks for
+	 * completed methods
+	 * @param sweepInterval The number of processed edges between two eviction
+	 * sweeps
+	 */
+	public void setSweepInterval(int sweepInterval) {
+		this.sweepInterval = Math.max(1, sweepInterval);
+	}
+
+	/**
+	 * Gets the lock that a solver must hold while it registers a new jump
+	 * function or incoming edge for the given method and schedules the
+	 * corresponding edge. The state of the method is not evicted while the
+	 * lock is held.
+	 * @param method The method whose state is updated
+	 * @return The lock to hold during the update
+	 */
+	Lock getUpdateLock(SootMethod method) {
+		return getSCC(method).lock.readLock();
+	}
+
+	/**
+	 * Notifies the tracker that an edge into the given method has been
+	 * scheduled for processing
+	 * @param method The method that contains the target of the scheduled edge
+	 */
+	void edgeScheduled(SootMethod method) {
+		MethodSCC scc = getSCC(method);
+		scc.outstandingEdges.incrementAndGet();
+
+		// A method that was already completed has been entered again
+		if (scc.evicted)
+			scc.evicted = false;
+	}
+
+	/**
+	 * Notifies the tracker that an edge into the given method, which has
+	 * already been reported as scheduled, was not accepted for processing,
+	 * e.g., because an equal edge is already waiting
+	 * @param method The method that contains the target of the discarded edge
+	 */
+	void edgeDiscarded(SootMethod method) {
+		MethodSCC scc = getSCC(method);
+		if (scc.outstandingEdges.decrementAndGet() == 0)
+			candidates.add(scc);
+	}
+
+	/**
+	 * Notifies the tracker that an edge into the given method has been
+	 * processed
+	 * @param method The method that contains the target of the processed edge
+	 */
+	void edgeProcessed(SootMethod method) {
+		MethodSCC scc = getSCC(method);
+		if (scc.outstandingEdges.decrementAndGet() == 0)
+			candidates.add(scc);
+
+		// Check whether it is time for another sweep. We do not block if some
+		// other thread is already sweeping.
+		if (processedEdges.incrementAndGet() % sweepInterval == 0
+				&& sweepRunning.compareAndSet(false, true)) {
+			try {
+				sweep();
+			}
+			finally {
+				sweepRunning.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Looks for methods that can no longer receive new edges and evicts their
+	 * non-summary state from all registered solvers
+	 */
+	private void sweep() {
+		Map<MethodSCC, Boolean> calleesIdle = new HashMap<>();
+		List<MethodSCC> completed = new ArrayList<>();
+
+		for (Iterator<MethodSCC> sccIt = candidates.iterator(); sccIt.hasNext(); ) {
+			MethodSCC scc = sccIt.next();
+			if (scc.evicted || scc.outstandingEdges.get() != 0) {
+				sccIt.remove();
+				continue;
+			}
+			if (isComplete(scc, calleesIdle)) {
+				completed.add(scc);
+				sccIt.remove();
+			}
+		}
+		if (completed.isEmpty())
+			return;
+
+		long entries = 0;
+		int methods = 0;
+		for (MethodSCC scc : completed) {
+			Lock lock = scc.lock.writeLock();
+			lock.lock();
+			try {
+				// An edge may have been scheduled since we have checked the
+				// SCC. Such an edge is still outstanding now.
+				if (scc.evicted || scc.outstandingEdges.get() != 0)
+					continue;
+				scc.evicted = true;
+				for (IFDSSolver<N, ?, ?> solver : solvers)
+					entries += solver.evictMethodState(scc.methods);
+				methods += scc.methods.size();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+		evictedMethods.addAndGet(methods);
+		evictedEntries.addAndGet(entries);
+		logger.debug("Evicted {} solver entries for {} completed methods", entries, methods);
+	}
+
+	/**
+	 * Checks whether the given SCC is complete, i.e., whether all of its
+	 * callers are complete and neither the SCC itself nor any SCC it
+	 * transitively calls has outstanding edges. Every transitive caller is
+	 * transitively called by one of the callgraph roots above the SCC, so
+	 * it is sufficient to check the callees of these roots.
+	 * @param scc The SCC to check
+	 * @param calleesIdle The results of previous idleness checks in the
+	 * current sweep
+	 * @return True if the given SCC can no longer receive new edges,
+	 * otherwise false
+	 */
+	private boolean isComplete(MethodSCC scc, Map<MethodSCC, Boolean> calleesIdle) {
+		Set<MethodSCC> doneSet = new HashSet<>();
+		Deque<MethodSCC> workList = new ArrayDeque<>();
+		workList.add(scc);
+		doneSet.add(scc);
+		while (!workList.isEmpty()) {
+			MethodSCC curScc = workList.poll();
+			Set<MethodSCC> callers = getCallers(curScc);
+			if (callers.isEmpty()) {
+				if (!isClosureIdle(curScc, calleesIdle))
+					return false;
+				continue;
+			}
+			for (MethodSCC caller : callers)
+				if (doneSet.add(caller))
+					workList.add(caller);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the given SCC and all SCCs transitively called by it
+	 * have no outstanding edges
+	 * @param scc The SCC at which to start
+	 * @param cache The results of previous checks in the current sweep
+	 * @return True if there are no outstanding edges in the given SCC and all
+	 * SCCs transitively called by it, otherwise false
+	 */
+	private boolean isClosureIdle(MethodSCC scc, Map<MethodSCC, Boolean> cache) {
+		Boolean cached = cache.get(scc);
+		if (cached != null)
+			return cached;
+
+		Set<MethodSCC> doneSet = new HashSet<>();
+		Deque<MethodSCC> workList = new ArrayDeque<>();
+		workList.add(scc);
+		doneSet.add(scc);
+		while (!workList.isEmpty()) {
+			MethodSCC curScc = workList.poll();
+			Boolean curCached = cache.get(curScc);
+			if (curCached != null) {
+				if (!curCached) {
+					cache.put(scc, false);
+					return false;
+				}
+				continue;
+			}
+			if (curScc.outstandingEdges.get() != 0) {
+				cache.put(scc, false);
+				return false;
+			}
+			for (MethodSCC next : curScc.callees)
+				if (doneSet.add(next))
+					workList.add(next);
+		}
+
+		// Everything reachable from one of the visited SCCs has been visited
+		// as well
+		for (MethodSCC visited : doneSet)
+			cache.put(visited, true);
+		return true;
+	}
+
+	/**
+	 * Gets the SCC to which the given method belongs, computing it if
+	 * necessary
+	 * @param method The method for which to get the SCC
+	 * @return The SCC to which the given method belongs
+	 */
+	private MethodSCC getSCC(SootMethod method) {
+		MethodSCC scc = methodToSCC.get(method);
+		if (scc == null)
+			scc = computeSCCs(method);
+		return scc;
+	}
+
+	/**
+	 * Gets the SCCs containing the direct callers of the methods in the given
+	 * SCC
+	 * @param scc The SCC for which to get the callers
+	 * @return The SCCs that directly call into the given SCC
+	 */
+	private synchronized Set<MethodSCC> getCallers(MethodSCC scc) {
+		if (scc.callers == null) {
+			Set<MethodSCC> callers = new HashSet<>();
+			for (SootMethod sm : scc.methods)
+				for (N callSite : icfg.getCallersOf(sm)) {
+					MethodSCC callerSCC = getSCC(icfg.getMethodOf(callSite));
+					if (callerSCC != scc)
+						callers.add(callerSCC);
+				}
+			scc.callers = callers;
+		}
+		return scc.callers;
+	}
+
+	/**
+	 * Gets the methods directly called by the given method
+	 * @param method The method for which to get the callees
+	 * @return The methods directly called by the given method
+	 */
+	private Collection<SootMethod> getCallees(SootMethod method) {
+		if (!method.isConcrete() || !method.hasActiveBody())
+			return Collections.emptySet();
+
+		Set<SootMethod> callees = new HashSet<>();
+		for (N callSite : icfg.getCallsFromWithin(method))
+			callees.addAll(icfg.getCalleesOfCallAt(callSite));
+		return callees;
+	}
+
+	/**
+	 * Computes the SCCs of all methods reachable from the given root method
+	 * that have not been assigned to an SCC yet. This is an iterative version
+	 * of Tarjan's algorithm.
+	 * @param root The method at which to start
+	 * @return The SCC of the given root method
+	 */
+	private synchronized MethodSCC computeSCCs(SootMethod root) {
+		MethodSCC rootSCC = methodToSCC.get(root);
+		if (rootSCC != null)
+			return rootSCC;
+
+		Map<SootMethod, Integer> index = new HashMap<>();
+		Map<SootMethod, Integer> lowLink = new HashMap<>();
+		Deque<SootMethod> sccStack = new ArrayDeque<>();
+		Set<SootMethod> onStack = new HashSet<>();
+		Deque<Pair<SootMethod, Iterator<SootMethod>>> callStack = new ArrayDeque<>();
+
+		index.put(root, 0);
+		lowLink.put(root, 0);
+		sccStack.push(root);
+		onStack.add(root);
+		callStack.push(new Pair<SootMethod, Iterator<SootMethod>>(root, getCallees(root).iterator()));
+
+		while (!callStack.isEmpty()) {
+			Pair<SootMethod, Iterator<SootMethod>> top = callStack.peek();
+			SootMethod sm = top.getO1();
+			Iterator<SootMethod> calleeIt = top.getO2();
+
+			if (calleeIt.hasNext()) {
+				SootMethod callee = calleeIt.next();
+
+				// SCCs from earlier runs are already complete
+				if (methodToSCC.containsKey(callee))
+					continue;
+
+				Integer calleeIndex = index.get(callee);
+				if (calleeIndex == null) {
+					int idx = index.size();
+					index.put(callee, idx);
+					lowLink.put(callee, idx);
+					sccStack.push(callee);
+					onStack.add(callee);
+					callStack.push(new Pair<SootMethod, Iterator<SootMethod>>(callee,
+							getCallees(callee).iterator()));
+				}
+				else if (onStack.contains(callee))
+					lowLink.put(sm, Math.min(lowLink.get(sm), calleeIndex));
+				continue;
+			}
+
+			// All callees have been processed
+			callStack.pop();
+			if (!callStack.isEmpty()) {
+				SootMethod parent = callStack.peek().getO1();
+				lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(sm)));
+			}
+
+			if (lowLink.get(sm).equals(index.get(sm))) {
+				MethodSCC scc = new MethodSCC();
+				SootMethod member;
+				do {
+					member = sccStack.pop();
+					onStack.remove(member);
+					scc.methods.add(member);
+				} while (member != sm);
+
+				// All callees outside of this SCC have already been finished
+				for (SootMethod m : scc.methods)
+					methodToSCC.put(m, scc);
+				for (SootMethod m : scc.methods)
+					for (SootMethod callee : getCallees(m)) {
+						MethodSCC calleeSCC = methodToSCC.get(callee);
+						if (calleeSCC != null && calleeSCC != scc)
+							scc.callees.add(calleeSCC);
+					}
+			}
+		}
+		return methodToSCC.get(root);
+	}
+
+	/**
+	 * Gets the number of methods whose state has been evicted from the
+	 * solvers. Methods that were evicted more than once are counted multiple
+	 * times.
+	 * @return The number of evicted methods
+	 */
+	public long getEvictedMethodCount() {
+		return evictedMethods.get();
+	}
+
+	/**
+	 * Gets the total number of jump functions and incoming entries that have
+	 * been evicted from the solvers
+	 * @return The number of evicted solver entries
+	 */
+	public long getEvictedEntryCount() {
+		return evictedEntries.get();
+	}
+
+}
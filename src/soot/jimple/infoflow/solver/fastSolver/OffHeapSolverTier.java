@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.fastSolver;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import heros.solver.Pair;
+import heros.solver.PathEdge;
+import soot.SootMethod;
+import soot.jimple.infoflow.collect.IdentityNumberer;
+import soot.jimple.infoflow.collect.OffHeapRecordStore;
+import soot.jimple.infoflow.collect.OffHeapRecordStore.RecordVisitor;
+import soot.jimple.infoflow.collect.WeakIdentityNumberer;
+
+/**
+ * Storage tier for jump functions and end summaries that keeps the entries
+ * outside of the Java heap. Facts, statements and methods are encoded as
+ * numbers, so every jump function takes 16 bytes and every end summary 20
+ * bytes. Lookups are slower than on the heap, because the candidates need to
+ * be decoded and compared.
+ *
+ * Statements and methods are part of the program and stay alive anyway. The
+ * facts of jump functions are only referenced weakly. A fact that is no longer
+ * referenced elsewhere, e.g., as the predecessor of another fact, cannot
+ * contribute to any result. Jump functions that refer to such a fact no
+ * longer match any lookup, so the corresponding edge is simply processed
+ * again if it shows up once more. Their records are reclaimed by
+ * {@link #removeStaleEntries()}.
+ *
+ * The facts of end summaries are kept alive. A call site that finds the
+ * callee context in the incoming edges does not explore the callee again, so
+ * a lost end summary would mean a lost return flow.
+ *
+ * @param <N> The type of nodes in the interprocedural control-flow graph
+ * @param <D> The type of data-flow facts
+ */
+public class OffHeapSolverTier<N, D> {
+
+	private final IdentityNumberer<Object> nodes = new IdentityNumberer<>();
+	private final WeakIdentityNumberer<D> facts = new WeakIdentityNumberer<>();
+	private final IdentityNumberer<D> summaryFacts = new IdentityNumberer<>();
+
+	// d1, target, d2
+	private final OffHeapRecordStore jumpFunctions;
+
+	// method, d1, exit point, d2
+	private final OffHeapRecordStore endSummaries;
+
+	/**
+	 * Creates a new instance of the {@link OffHeapSolverTier} class
+	 * @param memoryMapped True to store the entries in memory-mapped temporary
+	 * files, false to use direct buffers
+	 */
+	public OffHeapSolverTier(boolean memoryMapped) {
+		this.jumpFunctions = new OffHeapRecordStore(3, memoryMapped);
+		this.endSummaries = new OffHeapRecordStore(4, memoryMapped);
+	}
+
+	/**
+	 * Gets the fact stored for the given jump function
+	 * @param d1 The fact at the start node of the method
+	 * @param target The target statement of the jump function
+	 * @param d2 The fact at the target statement
+	 * @return The fact registered for the given jump function, or null if
+	 * this jump function is not in the off-heap tier
+	 */
+	@SuppressWarnings("unchecked")
+	public D getJumpFunction(final D d1, N target, final D d2) {
+		final int targetId = nodes.getNumber(target);
+		if (targetId < 0)
+			return null;
+
+		final Object[] existing = new Object[1];
+		jumpFunctions.visit(jumpFunctionHash(d1, targetId, d2), new RecordVisitor() {
+
+			@Override
+			public boolean visit(int[] record) {
+				if (record[1] != targetId)
+					return false;
+				D val = facts.get(record[2]);
+				if (val != null && d2.equals(val) && d1.equals(facts.get(record[0]))) {
+					existing[0] = val;
+					return true;
+				}
+				return false;
+			}
+
+		});
+		return (D) existing[0];
+	}
+
+	/**
+	 * Moves the given jump function into the off-heap tier. The caller must
+	 * remove it from the heap afterwards.
+	 * @param edge The jump function to demote
+	 * @param value The fact registered for the jump function. This is the
+	 * object that collects the neighbors, so the tier refers to this exact
+	 * instance.
+	 */
+	public void addJumpFunction(PathEdge<N, D> edge, D value) {
+		int targetId = nodes.getOrAddNumber(edge.getTarget());
+		jumpFunctions.add(jumpFunctionHash(edge.factAtSource(), targetId, value),
+				facts.getOrAddNumber(edge.factAtSource()), targetId, facts.getOrAddNumber(value));
+	}
+
+	/**
+	 * Checks whether the given end summary is in the off-heap tier
+	 * @param m The method for which to check the end summary
+	 * @param d1 The fact at the start node of the method
+	 * @param eP The exit point of the method
+	 * @param d2 The fact at the exit point
+	 * @return True if the given end summary is in the off-heap tier, otherwise
+	 * false
+	 */
+	public boolean containsEndSummary(SootMethod m, final D d1, N eP, final D d2) {
+		final int methodId = nodes.getNumber(m);
+		final int exitId = nodes.getNumber(eP);
+		if (methodId < 0 || exitId < 0)
+			return false;
+
+		return endSummaries.visit(endSummaryHash(methodId, d1), new RecordVisitor() {
+
+			@Override
+			public boolean visit(int[] record) {
+				return record[0] == methodId && record[2] == exitId
+						&& d1.equals(summaryFacts.get(record[1]))
+						&& d2.equals(summaryFacts.get(record[3]));
+			}
+
+		});
+	}
+
+	/**
+	 * Gets the end summaries for the given method and start fact, including
+	 * the ones that are still on the heap
+	 * @param m The method for which to get the end summaries
+	 * @param d1 The fact at the start node of the method
+	 * @param heapSummaries The end summaries that are still on the heap. May be
+	 * null.
+	 * @return The end summaries from the heap and from the off-heap tier, or
+	 * null if there are none
+	 */
+	public Set<Pair<N, D>> getEndSummaries(SootMethod m, final D d1, Set<Pair<N, D>> heapSummaries) {
+		final int methodId = nodes.getNumber(m);
+		if (methodId < 0)
+			return heapSummaries;
+
+		final Set<Pair<N, D>> summaries = new HashSet<>();
+		endSummaries.visit(endSummaryHash(methodId, d1), new RecordVisitor() {
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean visit(int[] record) {
+				if (record[0] == methodId && d1.equals(summaryFacts.get(record[1])))
+					summaries.add(new Pair<N, D>((N) nodes.get(record[2]), summaryFacts.get(record[3])));
+				return false;
+			}
+
+		});
+		if (summaries.isEmpty())
+			return heapSummaries;
+		if (heapSummaries != null)
+			summaries.addAll(heapSummaries);
+		return summaries;
+	}
+
+	/**
+	 * Moves the given end summary into the off-heap tier. The caller must
+	 * remove it from the heap afterwards and make sure that no other thread
+	 * modifies the end summaries of the method in the meantime. The facts of
+	 * the end summary are kept alive by this tier.
+	 * @param m The method to which the end summary belongs
+	 * @param d1 The fact at the start node of the method
+	 * @param eP The exit point of the method
+	 * @param d2 The fact at the exit point
+	 */
+	public void addEndSummary(SootMethod m, D d1, N eP, D d2) {
+		int methodId = nodes.getOrAddNumber(m);
+		endSummaries.add(endSummaryHash(methodId, d1), methodId, summaryFacts.getOrAddNumber(d1),
+				nodes.getOrAddNumber(eP), summaryFacts.getOrAddNumber(d2));
+	}
+
+	/**
+	 * Removes the jump functions that refer to facts which have been
+	 * garbage-collected in the meantime. These jump functions can no longer
+	 * match any lookup.
+	 * @return The number of jump functions that have been removed
+	 */
+	public long removeStaleEntries() {
+		return jumpFunctions.removeAll(new RecordVisitor() {
+
+			@Override
+			public boolean visit(int[] record) {
+				return facts.get(record[0]) == null || facts.get(record[2]) == null;
+			}
+
+		});
+	}
+
+	private int jumpFunctionHash(D d1, int targetId, D d2) {
+		return 31 * (31 * d1.hashCode() + targetId) + d2.hashCode();
+	}
+
+	private int endSummaryHash(int methodId, D d1) {
+		return 31 * methodId + d1.hashCode();
+	}
+
+	/**
+	 * Gets the number of entries in this off-heap tier
+	 * @return The number of jump functions and end summaries in this tier
+	 */
+	public long size() {
+		return jumpFunctions.size() + endSummaries.size();
+	}
+
+	/**
+	 * Gets the number of facts referenced by the jump functions in this tier
+	 * that have not been garbage-collected yet
+	 * @return The number of live jump function facts in this tier
+	 */
+	public int getLiveFactCount() {
+		return facts.size();
+	}
+
+	/**
+	 * Gets the number of bytes allocated outside of the heap by this tier
+	 * @return The number of bytes allocated by this tier
+	 */
+	public long getMemoryFootprint() {
+		return jumpFunctions.getMemoryFootprint() + endSummaries.getMemoryFootprint();
+	}
+
+	/**
+	 * Removes all entries from this off-heap tier
+	 */
+	public void clear() {
+		jumpFunctions.clear();
+		endSummaries.clear();
+		nodes.clear();
+		facts.clear();
+		summaryFacts.clear();
+	}
+
+}
@@ -0,0 +1,263 @@
+package soot.jimple.infoflow.solver.fastSolver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AbstractionAtSink;
+import soot.jimple.infoflow.data.AbstractionStateCodec;
+import soot.jimple.infoflow.problems.TaintPropagationResults;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+
+/**
+ * Class for periodically writing the state of the data flow solvers to disk
+ * and for restoring it later. A checkpoint contains the configuration, the
+ * state of every solver including its seeds and pending edges, and the
+ * abstractions that have already reached a sink. Checkpoints can only be
+ * restored against the same Soot scene, i.e., the same application, the
+ * same libraries, and the same configuration.
+ *
+ * <p>
+ * While a checkpoint is being written, the solvers do not process any edges.
+ * Every new checkpoint replaces the previous one once it has been written
+ * completely, so a crash while writing leaves the previous checkpoint
+ * intact.
+ *
+ */
+public class SolverCheckpointManager {
+
+	private static final Logger logger = LoggerFactory.getLogger(SolverCheckpointManager.class);
+
+	private static final int MAGIC = 0x46444350;
+	private static final int VERSION = 1;
+
+	/**
+	 * The name of the checkpoint file inside the checkpoint directory
+	 */
+	public static final String CHECKPOINT_FILE = "solver.checkpoint";
+
+	private final File directory;
+	private final String configuration;
+	private final IInfoflowCFG icfg;
+	private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+	private final List<InfoflowSolver> solvers = new ArrayList<>();
+	private TaintPropagationResults results = null;
+	private Timer timer = null;
+
+	/**
+	 * Creates a new instance of the {@link SolverCheckpointManager} class
+	 * @param directory The directory in which to write the checkpoints, or
+	 * null if checkpoints shall only be restored
+	 * @param config The configuration of the data flow analysis
+	 * @param icfg The interprocedural control flow graph
+	 */
+	public SolverCheckpointManager(File directory, InfoflowConfiguration config, IInfoflowCFG icfg) {
+		this.directory = directory;
+		this.configuration = describeConfiguration(config);
+		this.icfg = icfg;
+	}
+
+	/**
+	 * Creates a textual description of all configuration options that
+	 * influence the solver state
+	 * @param config The configuration to describe
+	 * @return The description of the configuration
+	 */
+	private static String describeConfiguration(InfoflowConfiguration config) {
+		return "apLength=" + config.getAccessPathLength()
+				+ ";recursiveAPs=" + config.getUseRecursiveAccessPaths()
+				+ ";thisChainReduction=" + config.getUseThisChainReduction()
+				+ ";singleJoinPoint=" + config.getSingleJoinPointAbstraction()
+				+ ";implicitFlows=" + config.getEnableImplicitFlows()
+				+ ";staticFields=" + config.getEnableStaticFieldTracking()
+				+ ";exceptions=" + config.getEnableExceptionTracking()
+				+ ";arraySize=" + config.getEnableArraySizeTainting()
+				+ ";flowSensitiveAliasing=" + config.getFlowSensitiveAliasing()
+				+ ";typeChecking=" + config.getEnableTypeChecking()
+				+ ";ignoreSystemFlows=" + config.getIgnoreFlowsInSystemPackages()
+				+ ";callgraph=" + config.getCallgraphAlgorithm()
+				+ ";aliasing=" + config.getAliasingAlgorithm()
+				+ ";codeElimination=" + config.getCodeEliminationMode()
+				+ ";solver=" + config.getDataFlowSolver();
+	}
+
+	/**
+	 * Adds a solver whose state shall be part of the checkpoints. Solvers must
+	 * be added in the same order when writing and when restoring checkpoints,
+	 * and before they are started.
+	 * @param solver The solver to add
+	 */
+	public void addSolver(InfoflowSolver solver) {
+		solver.setCheckpointLock(checkpointLock);
+		solvers.add(solver);
+	}
+
+	/**
+	 * Sets the object that collects the abstractions that have reached a sink
+	 * @param results The results of the forward taint propagation
+	 */
+	public void setResults(TaintPropagationResults results) {
+		this.results = results;
+	}
+
+	/**
+	 * Gets the checkpoint file inside the given directory
+	 * @param directory The checkpoint directory
+	 * @return The checkpoint file inside the given directory
+	 */
+	public static File getCheckpointFile(File directory) {
+		return new File(directory, CHECKPOINT_FILE);
+	}
+
+	/**
+	 * Creates a codec that maps the zero values of the solvers onto each other
+	 * @return The new codec
+	 */
+	private AbstractionStateCodec createCodec() {
+		Abstraction[] zeroValues = new Abstraction[solvers.size()];
+		for (int i = 0; i < zeroValues.length; i++)
+			zeroValues[i] = solvers.get(i).getTabulationProblem().zeroValue();
+		return new AbstractionStateCodec(icfg, zeroValues);
+	}
+
+	/**
+	 * Starts writing checkpoints in the given interval
+	 * @param interval The interval in seconds in which to write checkpoints
+	 */
+	public void start(long interval) {
+		if (directory == null)
+			throw new IllegalStateException("No checkpoint directory set");
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IllegalStateException("Could not create checkpoint directory " + directory);
+
+		timer = new Timer("FlowDroid Checkpoint Writer", true);
+		timer.schedule(new TimerTask() {
+
+			@Override
+			public void run() {
+				try {
+					long beforeCheckpoint = System.nanoTime();
+					writeCheckpoint();
+					logger.info("Wrote solver checkpoint in {} seconds",
+							(System.nanoTime() - beforeCheckpoint) / 1E9);
+				} catch (IOException e) {
+					logger.error("Could not write solver checkpoint", e);
+				}
+			}
+
+		}, interval * 1000, interval * 1000);
+	}
+
+	/**
+	 * Stops writing checkpoints. The last checkpoint remains on disk.
+	 */
+	public void stop() {
+		if (timer != null) {
+			timer.cancel();
+			timer = null;
+		}
+	}
+
+	/**
+	 * Writes a checkpoint of the current solver state. The solvers are paused
+	 * while the checkpoint is being written.
+	 * @throws IOException Thrown if the checkpoint cannot be written
+	 */
+	public void writeCheckpoint() throws IOException {
+		File tempFile = new File(directory, CHECKPOINT_FILE + ".tmp");
+		checkpointLock.writeLock().lock();
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new GZIPOutputStream(new FileOutputStream(tempFile))))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(configuration);
+
+				AbstractionStateCodec codec = createCodec();
+				out.writeInt(solvers.size());
+				for (InfoflowSolver solver : solvers)
+					solver.writeCheckpoint(out, codec);
+
+				List<AbstractionAtSink> sinkAbs = results == null ? new ArrayList<AbstractionAtSink>()
+						: new ArrayList<>(results.getResults());
+				out.writeInt(sinkAbs.size());
+				for (AbstractionAtSink abs : sinkAbs) {
+					codec.writeFact(out, abs.getAbstraction());
+					codec.writeNode(out, abs.getSinkStmt());
+				}
+			}
+		} finally {
+			checkpointLock.writeLock().unlock();
+		}
+		Files.move(tempFile.toPath(), getCheckpointFile(directory).toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Restores the solver state from the given checkpoint and schedules the
+	 * edges that were pending when the checkpoint was written. Afterwards,
+	 * the solvers continue from the checkpoint when they are started.
+	 * @param checkpointFile The checkpoint file to restore
+	 * @throws IOException Thrown if the checkpoint cannot be read or does not
+	 * match the current configuration and scene
+	 */
+	public void restore(File checkpointFile) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new GZIPInputStream(new FileInputStream(checkpointFile))))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException(checkpointFile + " is not a solver checkpoint");
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported checkpoint version " + version);
+			String checkpointConfig = in.readUTF();
+			if (!checkpointConfig.equals(configuration))
+				throw new IOException("Checkpoint was written with a different configuration: "
+						+ checkpointConfig);
+
+			AbstractionStateCodec codec = createCodec();
+			int solverCount = in.readInt();
+			if (solverCount != solvers.size())
+				throw new IOException("Checkpoint contains " + solverCount + " solvers, but "
+						+ solvers.size() + " are configured");
+			for (InfoflowSolver solver : solvers)
+				solver.readCheckpoint(in, codec);
+
+			int resultCount = in.readInt();
+			for (int i = 0; i < resultCount; i++) {
+				Abstraction abs = codec.readFact(in);
+				Unit sinkStmt = codec.readNode(in);
+				if (results != null)
+					results.addResult(new AbstractionAtSink(abs, (Stmt) sinkStmt));
+			}
+			logger.info("Restored solver state from {} with {} results at sinks", checkpointFile, resultCount);
+		}
+
+		// Only continue once all solvers have their state, because they
+		// propagate edges into each other
+		for (InfoflowSolver solver : solvers)
+			solver.resumeFromCheckpoint();
+	}
+
+}
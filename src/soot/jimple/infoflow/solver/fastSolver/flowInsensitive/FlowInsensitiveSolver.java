@@ -23,6 +23,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +32,6 @@ import com.google.common.cache.CacheBuilder;
 
 import heros.DontSynchronize;
 import heros.FlowFunction;
-import heros.FlowFunctionCache;
 import heros.FlowFunctions;
 import heros.IFDSTabulationProblem;
 import heros.SynchronizedBy;
@@ -47,6 +47,7 @@ import soot.jimple.infoflow.memory.IMemoryBoundedSolver.IMemoryBoundedSolverStat
 import soot.jimple.infoflow.solver.executors.InterruptableExecutor;
 import soot.jimple.infoflow.solver.executors.SetPoolExecutor;
 import soot.jimple.infoflow.solver.fastSolver.FastSolverLinkedNode;
+import soot.jimple.infoflow.solver.fastSolver.IndexedFlowFunctionCache;
 import soot.jimple.infoflow.solver.memory.IMemoryManager;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 
@@ -63,6 +64,12 @@ import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode<D, N>,I extends BiDiInterproceduralCFG<Unit, SootMethod>>
 			implements IMemoryBoundedSolver {
 	
+	/**
+	 * @deprecated The solver no longer uses Guava caches for its flow
+	 * functions. This builder is only kept for source compatibility, passing
+	 * it to a constructor just enables the flow function cache.
+	 */
+	@Deprecated
 	public static CacheBuilder<Object, Object> DEFAULT_CACHE_BUILDER = CacheBuilder.newBuilder().concurrencyLevel
 			(Runtime.getRuntime().availableProcessors()).initialCapacity(10000).softValues();
 	
@@ -101,14 +108,22 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 	@DontSynchronize("only used by single thread")
 	protected final Map<Unit,Set<D>> initialSeeds;
 	
+	/**
+	 * @deprecated Use {@link #getPropagationCount()} instead. This field is
+	 * only updated with benign races.
+	 */
+	@Deprecated
 	@DontSynchronize("benign races")
 	public long propagationCount;
 	
+	@SynchronizedBy("atomic counter, read concurrently by the metrics")
+	protected final AtomicLong propagationCounter = new AtomicLong();
+	
 	@DontSynchronize("stateless")
 	protected final D zeroValue;
 	
 	@DontSynchronize("readOnly")
-	protected final FlowFunctionCache<Unit,D,SootMethod> ffCache; 
+	protected final IndexedFlowFunctionCache<Unit,D> ffCache;
 	
 	@DontSynchronize("readOnly")
 	protected final boolean followReturnsPastSeeds;
@@ -135,27 +150,39 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 	 * The solver must then be started by calling {@link #solve()}.
 	 */
 	public FlowInsensitiveSolver(IFDSTabulationProblem<Unit,D,SootMethod,I> tabulationProblem) {
-		this(tabulationProblem, DEFAULT_CACHE_BUILDER);
+		this(tabulationProblem, true);
 	}
 
 	/**
-	 * Creates a solver for the given problem, constructing caches with the
-	 * given {@link CacheBuilder}. The solver must then be started by calling
-	 * {@link #solve()}.
+	 * Creates a solver for the given problem. The solver must then be started
+	 * by calling {@link #solve()}.
 	 * @param tabulationProblem The tabulation problem to solve
 	 * @param flowFunctionCacheBuilder A valid {@link CacheBuilder} or
 	 * <code>null</code> if no caching is to be used for flow functions.
+	 * @deprecated The builder is no longer used. Use
+	 * {@link #FlowInsensitiveSolver(IFDSTabulationProblem, boolean)} instead.
 	 */
+	@Deprecated
 	public FlowInsensitiveSolver(IFDSTabulationProblem<Unit,D,SootMethod,I> tabulationProblem,
 			@SuppressWarnings("rawtypes") CacheBuilder flowFunctionCacheBuilder) {
-		if(logger.isDebugEnabled())
-			flowFunctionCacheBuilder = flowFunctionCacheBuilder.recordStats();
+		this(tabulationProblem, flowFunctionCacheBuilder != null);
+	}
+
+	/**
+	 * Creates a solver for the given problem. The solver must then be started
+	 * by calling {@link #solve()}.
+	 * @param tabulationProblem The tabulation problem to solve
+	 * @param cacheFlowFunctions True if the flow functions shall be cached,
+	 * otherwise false
+	 */
+	public FlowInsensitiveSolver(IFDSTabulationProblem<Unit,D,SootMethod,I> tabulationProblem,
+			boolean cacheFlowFunctions) {
 		this.zeroValue = tabulationProblem.zeroValue();
 		this.icfg = tabulationProblem.interproceduralCFG();		
 		FlowFunctions<Unit, D, SootMethod> flowFunctions = tabulationProblem.autoAddZero() ?
 				new ZeroedFlowFunctions<Unit,D,SootMethod>(tabulationProblem.flowFunctions(), zeroValue) : tabulationProblem.flowFunctions(); 
-		if(flowFunctionCacheBuilder!=null) {
-			ffCache = new FlowFunctionCache<Unit,D,SootMethod>(flowFunctions, flowFunctionCacheBuilder);
+		if(cacheFlowFunctions) {
+			ffCache = new IndexedFlowFunctionCache<Unit,D>(flowFunctions);
 			flowFunctions = ffCache;
 		} else {
 			ffCache = null;
@@ -266,7 +293,7 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
     		return;
     	
     	executor.execute(new PathEdgeProcessingTask(edge, getSolverId()));
-    	propagationCount++;
+    	propagationCount = propagationCounter.incrementAndGet();
     }
 	
 	/**
@@ -287,6 +314,7 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 			FlowFunction<D> function = flowFunctions.getCallFlowFunction(n, sCalledProcN);
 			Set<D> res = computeCallFlowFunction(function, d1, d2);
 			
+			Set<D> callerSideDs = null;
 			//for each result node of the call-flow function
 			for(D d3: res) {
 				if (memoryManager != null)
@@ -318,8 +346,11 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 							SootMethod retMeth = icfg.getMethodOf(retSiteN);							
 							//compute return-flow function
 							FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(n, sCalledProcN, eP, retSiteN);
+							//the caller-side context is the same for all end summaries
+							if (callerSideDs == null)
+								callerSideDs = Collections.singleton(d1);
 							//for each target value of the function
-							for(D d5: computeReturnFlowFunction(retFunction, d3, d4, n, Collections.singleton(d1))) {
+							for(D d5: computeReturnFlowFunction(retFunction, d3, d4, n, callerSideDs)) {
 								if (memoryManager != null)
 									d5 = memoryManager.handleGeneratedMemoryObject(d4, d5);
 								
@@ -642,12 +673,30 @@ public class FlowInsensitiveSolver<N extends Unit,D extends FastSolverLinkedNode
 	public void printStats() {
 		if(logger.isDebugEnabled()) {
 			if(ffCache!=null)
-				ffCache.printStats();
+				logger.debug("Flow function cache: {} flow functions for {} statements",
+						ffCache.getFlowFunctionCount(), ffCache.getStatementCount());
 		} else {
 			logger.info("No statistics were collected, as DEBUG is disabled.");
 		}
 	}
 	
+	/**
+	 * Gets the number of edges this solver has propagated so far
+	 * @return The number of propagated edges
+	 */
+	public long getPropagationCount() {
+		return propagationCounter.get();
+	}
+	
+	/**
+	 * Gets the cache in which this solver keeps its flow functions
+	 * @return The flow function cache, or null if flow functions are not
+	 * cached
+	 */
+	public IndexedFlowFunctionCache<Unit, D> getFlowFunctionCache() {
+		return this.ffCache;
+	}
+	
 	private class PathEdgeProcessingTask implements Runnable {
 		
 		private final PathEdge<SootMethod,D> edge;
@@ -69,6 +69,7 @@ public class InfoflowSolver extends FlowInsensitiveSolver<Unit, Abstraction, BiD
 		Set<Pair<Unit, Abstraction>> endSumm = endSummary(callee, d3);		
 		if (endSumm != null) {
 			Collection<Unit> returnSiteNs = icfg.getReturnSitesOfCallAt(callSite);
+			Set<Abstraction> callerSideDs = Collections.singleton(d1);
 			for(Pair<Unit, Abstraction> entry: endSumm) {
 				Unit eP = entry.getO1();
 				Abstraction d4 = entry.getO2();
@@ -78,7 +79,7 @@ public class InfoflowSolver extends FlowInsensitiveSolver<Unit, Abstraction, BiD
 					//compute return-flow function
 					FlowFunction<Abstraction> retFunction = flowFunctions.getReturnFlowFunction(callSite, callee, eP, retSiteN);
 					//for each target value of the function
-					for(Abstraction d5: computeReturnFlowFunction(retFunction, d3, d4, callSite, Collections.singleton(d1))) {
+					for(Abstraction d5: computeReturnFlowFunction(retFunction, d3, d4, callSite, callerSideDs)) {
 						if (memoryManager != null)
 							d5 = memoryManager.handleGeneratedMemoryObject(d4, d5);
 						
@@ -146,6 +147,8 @@ public class InfoflowSolver extends FlowInsensitiveSolver<Unit, Abstraction, BiD
 		this.jumpFunctions = new MyConcurrentHashMap<PathEdge<SootMethod, Abstraction>, Abstraction>();
 		this.incoming.clear();
 		this.endSummary.clear();
+		if (this.ffCache != null)
+			this.ffCache.clear();
 	}
 	
 	@Override
@@ -171,11 +174,6 @@ public class InfoflowSolver extends FlowInsensitiveSolver<Unit, Abstraction, BiD
 		this.followReturnsPastSeedsHandler = handler;
 	}
 
-	@Override
-	public long getPropagationCount() {
-		return propagationCount;
-	}
-
 	@Override
 	public void setSolverId(boolean solverId) {
 		super.setSolverId(solverId);
@@ -0,0 +1,18 @@
+package soot.jimple.infoflow.source;
+
+/**
+ * Interface for source/sink managers that hide some of the sources of another
+ * source/sink manager. The code optimizers run on the unrestricted manager,
+ * so that the program is transformed in the same way regardless of which
+ * sources are hidden.
+ *
+ */
+public interface IRestrictedSourceSinkManager extends ISourceSinkManager {
+
+	/**
+	 * Gets the source/sink manager whose sources are restricted
+	 * @return The source/sink manager that reports all sources
+	 */
+	public ISourceSinkManager getUnrestrictedManager();
+
+}
@@ -0,0 +1,55 @@
+package soot.jimple.infoflow.source;
+
+import java.util.Set;
+
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.InfoflowManager;
+import soot.jimple.infoflow.data.AccessPath;
+
+/**
+ * Source/sink manager that only reports a fixed subset of the sources of
+ * another source/sink manager. The sinks are not changed. In contrast to
+ * {@link IOneSourceAtATimeManager}, every instance has its own subset, so
+ * several instances can be used concurrently on the same source/sink
+ * manager.
+ *
+ */
+public class RestrictedSourceSinkManager implements IRestrictedSourceSinkManager {
+
+	private final ISourceSinkManager sourcesSinks;
+	private final Set<Stmt> sources;
+
+	/**
+	 * Creates a new instance of the {@link RestrictedSourceSinkManager} class
+	 * @param sourcesSinks The source/sink manager whose sources to restrict
+	 * @param sources The source statements to report. All other sources are
+	 * hidden.
+	 */
+	public RestrictedSourceSinkManager(ISourceSinkManager sourcesSinks, Set<Stmt> sources) {
+		this.sourcesSinks = sourcesSinks;
+		this.sources = sources;
+	}
+
+	@Override
+	public void initialize() {
+		sourcesSinks.initialize();
+	}
+
+	@Override
+	public SourceInfo getSourceInfo(Stmt sCallSite, InfoflowManager manager) {
+		if (!sources.contains(sCallSite))
+			return null;
+		return sourcesSinks.getSourceInfo(sCallSite, manager);
+	}
+
+	@Override
+	public ISourceSinkManager getUnrestrictedManager() {
+		return sourcesSinks;
+	}
+
+	@Override
+	public boolean isSink(Stmt sCallSite, InfoflowManager manager, AccessPath ap) {
+		return sourcesSinks.isSink(sCallSite, manager, ap);
+	}
+
+}
@@ -0,0 +1,158 @@
+package soot.jimple.infoflow.source;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+
+/**
+ * Class for grouping source statements by the code they can reach. Every
+ * group is analyzed in a single solver run, so sources whose taints pass
+ * through the same callees share the summaries of these callees instead of
+ * computing them again in separate runs.
+ *
+ * <p>
+ * The planner computes the set of methods that are reachable in the
+ * callgraph from the method that contains each source. It then builds the
+ * groups greedily: Every group starts with the unassigned source that reaches
+ * the most code and is filled up with the sources whose reachable methods
+ * are covered best by the methods the group already reaches.
+ *
+ */
+public class SourceGroupPlanner {
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final IInfoflowCFG icfg;
+	private final Map<SootMethod, BitSet> reachableMethods = new HashMap<>();
+
+	/**
+	 * Creates a new instance of the {@link SourceGroupPlanner} class
+	 * @param icfg The interprocedural control flow graph
+	 */
+	public SourceGroupPlanner(IInfoflowCFG icfg) {
+		this.icfg = icfg;
+	}
+
+	/**
+	 * Gets the methods that are reachable in the callgraph from the given
+	 * method, including the method itself
+	 * @param method The method at which to start
+	 * @return The numbers of the reachable methods
+	 */
+	private BitSet getReachableMethods(SootMethod method) {
+		BitSet reachable = reachableMethods.get(method);
+		if (reachable != null)
+			return reachable;
+
+		reachable = new BitSet();
+		Deque<SootMethod> worklist = new ArrayDeque<>();
+		reachable.set(method.getNumber());
+		worklist.add(method);
+		while (!worklist.isEmpty()) {
+			SootMethod current = worklist.poll();
+
+			// We can reuse what we already know about the callees
+			BitSet known = current == method ? null : reachableMethods.get(current);
+			if (known != null) {
+				reachable.or(known);
+				continue;
+			}
+
+			for (Unit callSite : icfg.getCallsFromWithin(current))
+				for (SootMethod callee : icfg.getCalleesOfCallAt(callSite))
+					if (!reachable.get(callee.getNumber())) {
+						reachable.set(callee.getNumber());
+						worklist.add(callee);
+					}
+		}
+		reachableMethods.put(method, reachable);
+		return reachable;
+	}
+
+	/**
+	 * Groups the given source statements by the methods they can reach
+	 * @param sources The source statements to group
+	 * @param maxGroupSize The maximum number of sources per group
+	 * @return The groups of source statements. Every source is contained in
+	 * exactly one group.
+	 */
+	public List<Set<Stmt>> plan(Collection<Stmt> sources, int maxGroupSize) {
+		if (maxGroupSize < 1)
+			throw new IllegalArgumentException("Groups must contain at least one source");
+
+		// Compute what every source can reach
+		final Map<Stmt, BitSet> sourceReach = new HashMap<>(sources.size());
+		for (Stmt source : sources)
+			sourceReach.put(source, getReachableMethods(icfg.getMethodOf(source)));
+
+		// Start the groups with the sources that reach the most code, since
+		// they are the most likely to cover the others
+		List<Stmt> unassigned = new ArrayList<>(new LinkedHashSet<>(sources));
+		Collections.sort(unassigned, new Comparator<Stmt>() {
+
+			@Override
+			public int compare(Stmt o1, Stmt o2) {
+				return Integer.compare(sourceReach.get(o2).cardinality(), sourceReach.get(o1).cardinality());
+			}
+
+		});
+
+		List<Set<Stmt>> groups = new ArrayList<>();
+		long totalReach = 0;
+		long groupReach = 0;
+		while (!unassigned.isEmpty()) {
+			Stmt first = unassigned.remove(0);
+			Set<Stmt> group = new LinkedHashSet<>();
+			group.add(first);
+			BitSet covered = (BitSet) sourceReach.get(first).clone();
+			totalReach += covered.cardinality();
+
+			while (group.size() < maxGroupSize && !unassigned.isEmpty()) {
+				// Find the source whose code is covered best by the group
+				int bestIndex = -1;
+				double bestOverlap = -1;
+				for (int i = 0; i < unassigned.size(); i++) {
+					BitSet reach = sourceReach.get(unassigned.get(i));
+					BitSet overlap = (BitSet) reach.clone();
+					overlap.and(covered);
+					double ratio = (double) overlap.cardinality() / reach.cardinality();
+					if (ratio > bestOverlap) {
+						bestOverlap = ratio;
+						bestIndex = i;
+						if (ratio == 1)
+							break;
+					}
+				}
+
+				Stmt next = unassigned.remove(bestIndex);
+				group.add(next);
+				totalReach += sourceReach.get(next).cardinality();
+				covered.or(sourceReach.get(next));
+			}
+			groupReach += covered.cardinality();
+			groups.add(group);
+		}
+
+		logger.info("Grouped {} sources into {} groups, the groups reach {} methods instead of {}", sources.size(),
+				groups.size(), groupReach, totalReach);
+		return groups;
+	}
+
+}
@@ -0,0 +1,269 @@
+package soot.jimple.infoflow.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import soot.SootMethod;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * Class for processing methods in the bottom-up order of the strongly
+ * connected components of the callgraph. A component is only processed once
+ * all components it calls into have been processed, components that do not
+ * depend on each other are processed in parallel. All methods of the same
+ * component are processed by the same thread.
+ *
+ */
+public class BottomUpSCCScheduler {
+
+	/**
+	 * Interface for processing a single strongly connected component of the
+	 * callgraph
+	 */
+	public interface IComponentProcessor {
+
+		/**
+		 * Processes the given component
+		 * @param component The methods of the component
+		 */
+		public void process(List<SootMethod> component);
+
+	}
+
+	private final List<List<SootMethod>> components = new ArrayList<>();
+	private final List<Set<Integer>> callers = new ArrayList<>();
+	private final int[] calleeCounts;
+
+	/**
+	 * Creates a new instance of the {@link BottomUpSCCScheduler} class
+	 * @param methods The methods to schedule. Call edges to methods outside
+	 * of this collection are ignored.
+	 * @param callGraph The callgraph
+	 */
+	public BottomUpSCCScheduler(Collection<SootMethod> methods, CallGraph callGraph) {
+		final Map<SootMethod, Integer> methodIndex = new HashMap<>(methods.size());
+		final List<SootMethod> methodList = new ArrayList<>(methods.size());
+		for (SootMethod sm : methods)
+			if (!methodIndex.containsKey(sm)) {
+				methodIndex.put(sm, methodList.size());
+				methodList.add(sm);
+			}
+
+		// Collect the callees of all methods
+		final List<int[]> callees = new ArrayList<>(methodList.size());
+		for (SootMethod sm : methodList) {
+			Set<Integer> targets = new LinkedHashSet<>();
+			for (Iterator<Edge> edgeIt = callGraph.edgesOutOf(sm); edgeIt.hasNext();) {
+				Integer tgt = methodIndex.get(edgeIt.next().tgt());
+				if (tgt != null)
+					targets.add(tgt);
+			}
+			int[] targetArray = new int[targets.size()];
+			int i = 0;
+			for (Integer tgt : targets)
+				targetArray[i++] = tgt;
+			callees.add(targetArray);
+		}
+
+		// Tarjan's algorithm emits the components in reverse topological
+		// order, i.e., callees before callers
+		int[] componentOf = computeComponents(methodList, callees);
+
+		// Connect the components
+		calleeCounts = new int[components.size()];
+		for (int i = 0; i < components.size(); i++)
+			callers.add(new LinkedHashSet<Integer>());
+		for (int m = 0; m < methodList.size(); m++)
+			for (int tgt : callees.get(m)) {
+				int caller = componentOf[m];
+				int callee = componentOf[tgt];
+				if (caller != callee && callers.get(callee).add(caller))
+					calleeCounts[caller]++;
+			}
+	}
+
+	/**
+	 * Computes the strongly connected components with an iterative version of
+	 * Tarjan's algorithm
+	 * @param methods The methods in the callgraph
+	 * @param callees The indices of the callees of every method
+	 * @return The index of the component of every method
+	 */
+	private int[] computeComponents(List<SootMethod> methods, List<int[]> callees) {
+		final int n = methods.size();
+		final int[] index = new int[n];
+		final int[] lowLink = new int[n];
+		final int[] componentOf = new int[n];
+		final boolean[] onStack = new boolean[n];
+		final int[] edgePos = new int[n];
+		for (int i = 0; i < n; i++)
+			index[i] = -1;
+
+		Deque<Integer> stack = new ArrayDeque<>();
+		Deque<Integer> callStack = new ArrayDeque<>();
+		int nextIndex = 0;
+		for (int root = 0; root < n; root++) {
+			if (index[root] >= 0)
+				continue;
+
+			callStack.push(root);
+			index[root] = lowLink[root] = nextIndex++;
+			stack.push(root);
+			onStack[root] = true;
+			while (!callStack.isEmpty()) {
+				int v = callStack.peek();
+				int[] targets = callees.get(v);
+				if (edgePos[v] < targets.length) {
+					int w = targets[edgePos[v]++];
+					if (index[w] < 0) {
+						index[w] = lowLink[w] = nextIndex++;
+						stack.push(w);
+						onStack[w] = true;
+						callStack.push(w);
+					} else if (onStack[w])
+						lowLink[v] = Math.min(lowLink[v], index[w]);
+					continue;
+				}
+
+				// All successors are done
+				callStack.pop();
+				if (!callStack.isEmpty()) {
+					int parent = callStack.peek();
+					lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+				}
+				if (lowLink[v] == index[v]) {
+					List<SootMethod> component = new ArrayList<>();
+					int w;
+					do {
+						w = stack.pop();
+						onStack[w] = false;
+						componentOf[w] = components.size();
+						component.add(methods.get(w));
+					} while (w != v);
+					components.add(component);
+				}
+			}
+		}
+		return componentOf;
+	}
+
+	/**
+	 * Gets the strongly connected components of the callgraph
+	 * @return The components in bottom-up order, i.e., every component is
+	 * listed after all of the components it calls into
+	 */
+	public List<List<SootMethod>> getComponents() {
+		return Collections.unmodifiableList(components);
+	}
+
+	/**
+	 * Processes all components in bottom-up order. A component is submitted to
+	 * the executor as soon as all of its callees have been processed.
+	 * @param executor The executor that runs the processing tasks
+	 * @param processor The processor to run on every component
+	 * @return The total time in nanoseconds that was spent in the processor,
+	 * summed up over all threads
+	 * @throws InterruptedException Thrown if the current thread was
+	 * interrupted while waiting for the components to be processed
+	 */
+	public long runBottomUp(ExecutorService executor, IComponentProcessor processor)
+			throws InterruptedException {
+		return run(executor, processor, true);
+	}
+
+	/**
+	 * Processes all components in parallel regardless of the calls between
+	 * them. This is suitable for intraprocedural work that only touches the
+	 * methods of the component being processed.
+	 * @param executor The executor that runs the processing tasks
+	 * @param processor The processor to run on every component
+	 * @return The total time in nanoseconds that was spent in the processor,
+	 * summed up over all threads
+	 * @throws InterruptedException Thrown if the current thread was
+	 * interrupted while waiting for the components to be processed
+	 */
+	public long runIndependently(ExecutorService executor, IComponentProcessor processor)
+			throws InterruptedException {
+		return run(executor, processor, false);
+	}
+
+	/**
+	 * Formats the speedup of a parallel run over a sequential one
+	 * @param wallTime The time that the parallel run took
+	 * @param busyTime The time that all threads spent in the processor, as
+	 * returned by {@link #runBottomUp(ExecutorService, IComponentProcessor)}
+	 * or {@link #runIndependently(ExecutorService, IComponentProcessor)}
+	 * @return The speedup as a human-readable string
+	 */
+	public static String formatSpeedup(long wallTime, long busyTime) {
+		return String.format("%.2f", wallTime <= 0 ? 1.0 : (double) busyTime / wallTime);
+	}
+
+	private long run(final ExecutorService executor, final IComponentProcessor processor, final boolean bottomUp)
+			throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(components.size());
+		final AtomicLong busyTime = new AtomicLong();
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final AtomicInteger[] pending = new AtomicInteger[components.size()];
+		for (int i = 0; i < components.size(); i++)
+			pending[i] = new AtomicInteger(bottomUp ? calleeCounts[i] : 0);
+
+		class ComponentTask implements Runnable {
+
+			private final int component;
+
+			ComponentTask(int component) {
+				this.component = component;
+			}
+
+			@Override
+			public void run() {
+				try {
+					// Once a component has failed, we only drain the schedule
+					if (failure.get() == null) {
+						long beforeProcessing = System.nanoTime();
+						processor.process(components.get(component));
+						busyTime.addAndGet(System.nanoTime() - beforeProcessing);
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				} finally {
+					if (bottomUp)
+						for (int caller : callers.get(component))
+							if (pending[caller].decrementAndGet() == 0)
+								executor.execute(new ComponentTask(caller));
+					done.countDown();
+				}
+			}
+
+		}
+
+		for (int i = 0; i < components.size(); i++)
+			if (pending[i].get() == 0)
+				executor.execute(new ComponentTask(i));
+		done.await();
+
+		Throwable t = failure.get();
+		if (t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		if (t instanceof Error)
+			throw (Error) t;
+		return busyTime.get();
+	}
+
+}
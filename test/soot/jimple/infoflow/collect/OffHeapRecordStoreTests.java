@@ -0,0 +1,168 @@
+package soot.jimple.infoflow.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.collect.OffHeapRecordStore.RecordVisitor;
+
+/**
+ * Tests for the off-heap record store and the numberers that encode objects
+ * as record fields
+ *
+ */
+public class OffHeapRecordStoreTests {
+
+	/**
+	 * Collects the first field of all visited records
+	 */
+	private static class CollectingVisitor implements RecordVisitor {
+
+		private final List<Integer> firstFields = new ArrayList<>();
+
+		@Override
+		public boolean visit(int[] record) {
+			firstFields.add(record[0]);
+			return false;
+		}
+
+	}
+
+	private void checkStore(boolean memoryMapped) {
+		OffHeapRecordStore store = new OffHeapRecordStore(2, memoryMapped);
+		for (int i = 0; i < 10000; i++)
+			store.add(i % 100, i, -i);
+		assertEquals(10000, store.size());
+		assertTrue(store.getMemoryFootprint() > 0);
+
+		CollectingVisitor visitor = new CollectingVisitor();
+		assertFalse(store.visit(42, visitor));
+		assertEquals(100, visitor.firstFields.size());
+		for (int field : visitor.firstFields)
+			assertEquals(42, field % 100);
+
+		// The visitor can stop the lookup
+		assertTrue(store.visit(7, new RecordVisitor() {
+
+			@Override
+			public boolean visit(int[] record) {
+				return record[0] == 507 && record[1] == -507;
+			}
+
+		}));
+
+		store.clear();
+		assertEquals(0, store.size());
+		assertFalse(store.visit(42, new CollectingVisitor()));
+	}
+
+	@Test
+	public void directBuffersStoreRecords() {
+		checkStore(false);
+	}
+
+	@Test
+	public void mappedFilesStoreRecords() {
+		checkStore(true);
+	}
+
+	@Test
+	public void removedRecordsReleaseSpace() {
+		OffHeapRecordStore store = new OffHeapRecordStore(2, false);
+		for (int i = 0; i < 10000; i++)
+			store.add(i % 100, i, -i);
+		long footprint = store.getMemoryFootprint();
+
+		assertEquals(9900, store.removeAll(new RecordVisitor() {
+
+			@Override
+			public boolean visit(int[] record) {
+				return record[0] % 100 != 42;
+			}
+
+		}));
+		assertEquals(100, store.size());
+		assertTrue(store.getMemoryFootprint() < footprint);
+
+		CollectingVisitor visitor = new CollectingVisitor();
+		store.visit(42, visitor);
+		assertEquals(100, visitor.firstFields.size());
+		visitor = new CollectingVisitor();
+		store.visit(43, visitor);
+		assertEquals(0, visitor.firstFields.size());
+
+		// The store can grow again afterwards
+		for (int i = 0; i < 1000; i++)
+			store.add(43, i, -i);
+		store.visit(43, visitor);
+		assertEquals(1000, visitor.firstFields.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void recordSizeIsChecked() {
+		new OffHeapRecordStore(3, false).add(1, 1, 2);
+	}
+
+	@Test
+	public void identityNumbererUsesIdentity() {
+		IdentityNumberer<String> numberer = new IdentityNumberer<>();
+		String a = new String("a");
+		String b = new String("a");
+		int aNum = numberer.getOrAddNumber(a);
+		int bNum = numberer.getOrAddNumber(b);
+		assertEquals(0, aNum);
+		assertEquals(1, bNum);
+		assertEquals(aNum, numberer.getOrAddNumber(a));
+		assertSame(b, numberer.get(bNum));
+		assertEquals(-1, numberer.getNumber(new String("a")));
+
+		numberer.clear();
+		assertEquals(0, numberer.size());
+		assertEquals(-1, numberer.getNumber(a));
+	}
+
+	@Test
+	public void weakNumbererUsesIdentity() {
+		WeakIdentityNumberer<String> numberer = new WeakIdentityNumberer<>();
+		List<String> strings = new ArrayList<>();
+		for (int i = 0; i < 10000; i++)
+			strings.add(new String("s"));
+		for (int i = 0; i < strings.size(); i++)
+			assertEquals(i, numberer.getOrAddNumber(strings.get(i)));
+		for (int i = 0; i < strings.size(); i++) {
+			assertEquals(i, numberer.getNumber(strings.get(i)));
+			assertSame(strings.get(i), numberer.get(i));
+		}
+		assertEquals(-1, numberer.getNumber(new String("s")));
+		assertNull(numberer.get(strings.size()));
+		assertEquals(strings.size(), numberer.size());
+	}
+
+	@Test(timeout = 60000)
+	public void weakNumbererReleasesObjects() throws InterruptedException {
+		WeakIdentityNumberer<Object> numberer = new WeakIdentityNumberer<>();
+		Object kept = new Object();
+		int keptNum = numberer.getOrAddNumber(kept);
+		for (int i = 0; i < 10000; i++)
+			numberer.getOrAddNumber(new byte[1024]);
+
+		// The numberer alone must not keep the objects alive
+		while (numberer.size() > 1) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertSame(kept, numberer.get(keptNum));
+		assertNull(numberer.get(keptNum + 1));
+
+		// Numbers are not reused
+		assertEquals(10001, numberer.getOrAddNumber(new Object()));
+	}
+
+}
@@ -0,0 +1,135 @@
+package soot.jimple.infoflow.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for the thread-local buffer that collects flow function results and
+ * for the fixed-size sets it hands out
+ *
+ */
+public class ReusableSetBufferTests {
+
+	@Test
+	public void toSetReturnsRightSizedSets() {
+		ReusableSetBuffer<String> buffer = ReusableSetBuffer.acquire();
+		try {
+			assertTrue(buffer.toSet().isEmpty());
+
+			buffer.add("a");
+			assertEquals(Collections.singleton("a"), buffer.toSet());
+
+			buffer.add("b");
+			Set<String> two = buffer.toSet();
+			assertTrue(two instanceof MutableTwoElementSet);
+			assertEquals(new HashSet<String>(Arrays.asList("a", "b")), two);
+
+			buffer.add("c");
+			Set<String> three = buffer.toSet();
+			assertTrue(three instanceof HashSet);
+			assertEquals(3, three.size());
+		} finally {
+			buffer.release();
+		}
+	}
+
+	@Test
+	public void singletonsAreShared() {
+		String element = new String("x");
+		ReusableSetBuffer<String> buffer = ReusableSetBuffer.acquire();
+		try {
+			buffer.add(element);
+			Set<String> first = buffer.toSet();
+			buffer.clear();
+			buffer.add(element);
+			assertSame(first, buffer.toSet());
+
+			// Equal, but not identical elements get their own set
+			buffer.clear();
+			buffer.add(new String("x"));
+			assertNotSame(first, buffer.toSet());
+		} finally {
+			buffer.release();
+		}
+	}
+
+	@Test
+	public void nestedAcquireHandsOutFreshBuffer() {
+		ReusableSetBuffer<String> outer = ReusableSetBuffer.acquire();
+		try {
+			outer.add("a");
+			ReusableSetBuffer<String> inner = ReusableSetBuffer.acquire();
+			try {
+				assertNotSame(outer, inner);
+				assertTrue(inner.isEmpty());
+			} finally {
+				inner.release();
+			}
+			assertEquals(1, outer.size());
+		} finally {
+			outer.release();
+		}
+
+		// The released buffer is handed out again
+		ReusableSetBuffer<String> again = ReusableSetBuffer.acquire();
+		try {
+			assertSame(outer, again);
+			assertTrue(again.isEmpty());
+		} finally {
+			again.release();
+		}
+	}
+
+	@Test
+	public void largeBuffersDeduplicate() {
+		ReusableSetBuffer<Integer> buffer = ReusableSetBuffer.acquire();
+		try {
+			for (int round = 0; round < 2; round++)
+				for (int i = 0; i < 100; i++)
+					buffer.add(i);
+			assertEquals(100, buffer.size());
+			assertTrue(buffer.contains(99));
+			assertFalse(buffer.contains(100));
+		} finally {
+			buffer.release();
+		}
+	}
+
+	@Test
+	public void unionDoesNotModifyInputs() {
+		Set<String> first = Collections.singleton("a");
+		Set<String> second = new HashSet<>(Arrays.asList("b", "c"));
+		Set<String> union = ReusableSetBuffer.union(first, second);
+		assertEquals(3, union.size());
+		assertEquals(1, first.size());
+		assertEquals(2, second.size());
+		assertSame(second, ReusableSetBuffer.union(Collections.<String>emptySet(), second));
+	}
+
+	@Test
+	public void twoElementSetDeduplicates() {
+		MutableTwoElementSet<String> set = new MutableTwoElementSet<>();
+		assertTrue(set.add("a"));
+		assertFalse(set.add("a"));
+		assertTrue(set.add("b"));
+		assertFalse(set.add("b"));
+		assertEquals(2, set.size());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void twoElementSetRejectsThirdElement() {
+		MutableTwoElementSet<String> set = new MutableTwoElementSet<>("a", "b");
+		set.add("c");
+	}
+
+}
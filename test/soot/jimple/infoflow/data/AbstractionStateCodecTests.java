@@ -0,0 +1,140 @@
+package soot.jimple.infoflow.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.Body;
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.util.ProgramFixture;
+
+/**
+ * Tests for the codec that writes abstractions to solver checkpoints
+ *
+ */
+public class AbstractionStateCodecTests {
+
+	private ProgramFixture<Unit> program;
+	private AccessPathFactory apFactory;
+	private Local x;
+	private Local y;
+	private SootField field;
+	private Stmt assign;
+	private Stmt store;
+	private Stmt nop;
+
+	@Before
+	public void setUp() {
+		program = new ProgramFixture<>();
+		InfoflowConfiguration config = new InfoflowConfiguration();
+		config.setEnableTypeChecking(false);
+		apFactory = new AccessPathFactory(config);
+
+		field = new SootField("f", IntType.v(), Modifier.PUBLIC);
+		program.getTestClass().addField(field);
+
+		SootMethod method = program.method("m");
+		Body body = method.getActiveBody();
+		x = Jimple.v().newLocal("x", program.getTestClass().getType());
+		y = Jimple.v().newLocal("y", IntType.v());
+		body.getLocals().add(x);
+		body.getLocals().add(y);
+		assign = Jimple.v().newAssignStmt(y, IntConstant.v(0));
+		store = Jimple.v().newAssignStmt(Jimple.v().newInstanceFieldRef(x, field.makeRef()), y);
+		nop = Jimple.v().newNopStmt();
+		for (Stmt s : new Stmt[] { assign, store, nop, Jimple.v().newReturnVoidStmt() }) {
+			body.getUnits().add(s);
+			program.setMethodOf(s, method);
+		}
+	}
+
+	private IInfoflowCFG icfg() {
+		return program.icfg(IInfoflowCFG.class);
+	}
+
+	@Test
+	public void factsSurviveRoundTrip() throws IOException {
+		Abstraction writerZero = Abstraction.getZeroAbstraction(false);
+		Abstraction source = new Abstraction(apFactory.createAccessPath(y, true), assign, "user data", false,
+				false);
+		AccessPath fieldAp = apFactory.createAccessPath(x, new SootField[] { field }, true);
+		Abstraction atStore = source.deriveNewAbstraction(fieldAp, store);
+		Abstraction atNop = source.deriveNewAbstraction(fieldAp, nop);
+		atStore.addNeighbor(atNop);
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bos);
+		AbstractionStateCodec writer = new AbstractionStateCodec(icfg(), writerZero);
+		writer.writeFact(out, atStore);
+		writer.writeFact(out, atStore);
+		writer.writeFact(out, writerZero);
+		writer.writeNode(out, nop);
+		writer.writeFact(out, null);
+		out.close();
+
+		// The reading codec maps the known facts onto its own instances
+		Abstraction readerZero = Abstraction.getZeroAbstraction(false);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		AbstractionStateCodec reader = new AbstractionStateCodec(icfg(), readerZero);
+		Abstraction readStore = reader.readFact(in);
+		assertSame(readStore, reader.readFact(in));
+		assertSame(readerZero, reader.readFact(in));
+		assertSame(nop, reader.readNode(in));
+		assertNull(reader.readFact(in));
+
+		// Statements are identified by their position in the body
+		assertEquals(fieldAp, readStore.getAccessPath());
+		assertSame(store, readStore.getCurrentStmt());
+
+		// The predecessor and the neighbors are linked again
+		Abstraction readSource = readStore.getPredecessor();
+		assertNotNull(readSource);
+		assertSame(assign, readSource.getSourceContext().getStmt());
+		assertEquals("user data", readSource.getSourceContext().getUserData());
+		assertSame(y, readSource.getAccessPath().getPlainValue());
+		Set<Abstraction> neighbors = readStore.getNeighbors();
+		assertEquals(1, neighbors.size());
+		Abstraction readNop = neighbors.iterator().next();
+		assertSame(nop, readNop.getCurrentStmt());
+		assertSame(readSource, readNop.getPredecessor());
+
+		// Shared objects are only written once
+		assertSame(readStore.getAccessPath(), readNop.getAccessPath());
+	}
+
+	@Test(expected = IOException.class)
+	public void changedBodyIsRejected() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bos);
+		new AbstractionStateCodec(icfg()).writeNode(out, nop);
+		out.close();
+
+		// The statement is no longer at the position that was recorded
+		SootMethod method = program.getTestClass().getMethodByName("m");
+		method.getActiveBody().getUnits().removeLast();
+		method.getActiveBody().getUnits().removeLast();
+		new AbstractionStateCodec(icfg()).readNode(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+	}
+
+}
@@ -0,0 +1,182 @@
+package soot.jimple.infoflow.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.G;
+import soot.Local;
+import soot.RefType;
+import soot.SootField;
+import soot.Type;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.AccessPath.ArrayTaintType;
+
+/**
+ * Tests for the index that finds abstractions at sinks whose access paths
+ * entail each other
+ *
+ */
+public class SinkEntailmentIndexTests {
+
+	private Type objectType;
+	private Local base;
+	private SootField f;
+	private SootField g;
+	private Stmt sourceStmt;
+	private Stmt sinkStmt;
+	private SourceContext context;
+
+	@Before
+	public void setUp() {
+		G.reset();
+		objectType = RefType.v("java.lang.Object");
+		base = Jimple.v().newLocal("a", objectType);
+		f = new SootField("f", objectType);
+		g = new SootField("g", objectType);
+		sourceStmt = Jimple.v().newNopStmt();
+		sinkStmt = Jimple.v().newNopStmt();
+		context = new SourceContext(accessPath(), sourceStmt);
+	}
+
+	private AccessPath accessPath(SootField... fields) {
+		Type[] fieldTypes = new Type[fields.length];
+		for (int i = 0; i < fields.length; i++)
+			fieldTypes[i] = objectType;
+		return new AccessPath(base, fields.length == 0 ? null : fields, objectType,
+				fields.length == 0 ? null : fieldTypes, true, false,
+				ArrayTaintType.ContentsAndLength, false);
+	}
+
+	private AbstractionAtSink atSink(SourceContext context, SootField... fields) {
+		return new AbstractionAtSink(new Abstraction(accessPath(fields), context, false, false), sinkStmt);
+	}
+
+	@Test
+	public void shorterAccessPathEntailsLongerOne() {
+		SinkEntailmentIndex index = new SinkEntailmentIndex();
+		AbstractionAtSink af = atSink(context, f);
+		AbstractionAtSink afg = atSink(context, f, g);
+		AbstractionAtSink ag = atSink(context, g);
+
+		SinkEntailmentIndex.Group group = index.getGroup(af);
+		group.add(af);
+		assertSame(af, group.findEntailing(afg));
+		assertNull(group.findEntailing(ag));
+		assertNull(group.findEntailing(af));
+	}
+
+	@Test
+	public void newResultRemovesEntailedOnes() {
+		SinkEntailmentIndex index = new SinkEntailmentIndex();
+		AbstractionAtSink afg = atSink(context, f, g);
+		AbstractionAtSink ag = atSink(context, g);
+		AbstractionAtSink af = atSink(context, f);
+
+		SinkEntailmentIndex.Group group = index.getGroup(af);
+		group.add(afg);
+		group.add(ag);
+		group.add(af);
+		List<AbstractionAtSink> removed = group.removeEntailedBy(af);
+		assertEquals(1, removed.size());
+		assertSame(afg, removed.get(0));
+		assertEquals(2, group.size());
+	}
+
+	@Test
+	public void equalSourceContextsShareGroup() {
+		SinkEntailmentIndex index = new SinkEntailmentIndex();
+		SourceContext otherContext = new SourceContext(accessPath(), sourceStmt);
+		assertEquals(context, otherContext);
+
+		AbstractionAtSink af = atSink(context, f);
+		AbstractionAtSink afg = atSink(otherContext, f, g);
+		SinkEntailmentIndex.Group group = index.getGroup(af);
+		assertSame(group, index.getGroup(afg));
+
+		// Entailment still requires the very same source context
+		group.add(af);
+		assertNull(group.findEntailing(afg));
+	}
+
+	@Test
+	public void removeEntailedKeepsEntailingResults() {
+		AbstractionAtSink af = atSink(context, f);
+		AbstractionAtSink afg = atSink(context, f, g);
+		AbstractionAtSink ag = atSink(context, g);
+		Set<AbstractionAtSink> res = new LinkedHashSet<>();
+		res.add(afg);
+		res.add(af);
+		res.add(ag);
+
+		SinkEntailmentIndex.removeEntailed(res, null);
+		assertEquals(2, res.size());
+		assertTrue(res.contains(af));
+		assertTrue(res.contains(ag));
+	}
+
+	@Test(timeout = 30000)
+	public void concurrentUpdatesUseSameGroup() throws InterruptedException {
+		final SinkEntailmentIndex index = new SinkEntailmentIndex();
+		final int numThreads = 8;
+		final int numResults = 200;
+
+		// Every thread uses its own, but equal, source context object
+		final List<List<AbstractionAtSink>> perThread = new ArrayList<>();
+		for (int t = 0; t < numThreads; t++) {
+			SourceContext threadContext = new SourceContext(accessPath(), sourceStmt);
+			List<AbstractionAtSink> results = new ArrayList<>();
+			for (int i = 0; i < numResults; i++)
+				results.add(atSink(threadContext, new SootField("f" + i, objectType)));
+			perThread.add(results);
+		}
+
+		final Set<SinkEntailmentIndex.Group> groups = Collections.newSetFromMap(
+				new ConcurrentHashMap<SinkEntailmentIndex.Group, Boolean>());
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		for (final List<AbstractionAtSink> results : perThread)
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (AbstractionAtSink abs : results) {
+						SinkEntailmentIndex.Group group = index.getGroup(abs);
+						groups.add(group);
+						synchronized (group) {
+							group.add(abs);
+						}
+					}
+				}
+
+			});
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(1, groups.size());
+		assertEquals(numThreads * numResults, groups.iterator().next().size());
+	}
+
+}
@@ -0,0 +1,55 @@
+package soot.jimple.infoflow.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.metrics.AnalysisPhase;
+
+/**
+ * Tests for the planner that splits the time budget across the analysis
+ * phases
+ *
+ */
+public class AnalysisBudgetPlannerTests {
+
+	@Test
+	public void repeatedPhaseSplitsItsShare() {
+		AnalysisBudgetPlanner planner = new AnalysisBudgetPlanner(100);
+		planner.start();
+		planner.setPhaseIterations(AnalysisPhase.ForwardSolver, 4);
+
+		// The solvers have half of the weight, a quarter of that per iteration
+		assertEquals(12, planner.beginPhase(AnalysisPhase.ForwardSolver));
+		planner.endPhase(AnalysisPhase.ForwardSolver);
+		long share = planner.beginPhase(AnalysisPhase.ForwardSolver);
+		assertTrue(share >= 15 && share <= 16);
+		planner.endPhase(AnalysisPhase.ForwardSolver);
+	}
+
+	@Test
+	public void unplannedIterationKeepsItsShare() {
+		AnalysisBudgetPlanner planner = new AnalysisBudgetPlanner(100);
+		planner.start();
+		assertEquals(15, planner.beginPhase(AnalysisPhase.CallgraphConstruction));
+		planner.endPhase(AnalysisPhase.CallgraphConstruction);
+
+		// The callgraph is built once more, which must not take the budget of
+		// the phases that are still pending
+		long share = planner.beginPhase(AnalysisPhase.CallgraphConstruction);
+		assertTrue(share >= 14 && share <= 15);
+		planner.endPhase(AnalysisPhase.CallgraphConstruction);
+	}
+
+	@Test
+	public void skippedIterationsReleaseTheirShare() {
+		AnalysisBudgetPlanner planner = new AnalysisBudgetPlanner(100);
+		planner.start();
+		planner.setPhaseIterations(AnalysisPhase.ForwardSolver, 4);
+		planner.skipPhase(AnalysisPhase.ForwardSolver);
+		long share = planner.beginPhase(AnalysisPhase.PathReconstruction);
+		assertTrue(share >= 35 && share <= 36);
+	}
+
+}
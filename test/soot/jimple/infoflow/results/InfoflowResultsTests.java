@@ -0,0 +1,153 @@
+package soot.jimple.infoflow.results;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.AccessPathFactory;
+import soot.jimple.infoflow.metrics.AnalysisPhase;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.util.ProgramFixture;
+
+/**
+ * Tests for the secondary indexes of the data flow results
+ *
+ */
+public class InfoflowResultsTests {
+
+	private ProgramFixture<Unit> program;
+	private SootMethod source;
+	private SootMethod sink;
+	private AccessPathFactory apFactory;
+
+	@Before
+	public void setUp() {
+		program = new ProgramFixture<>();
+		source = program.method("source", Collections.<Type>emptyList(), IntType.v(),
+				Modifier.PUBLIC | Modifier.STATIC);
+		sink = program.method("sink", Collections.<Type>singletonList(IntType.v()), VoidType.v(),
+				Modifier.PUBLIC | Modifier.STATIC);
+		apFactory = new AccessPathFactory(new InfoflowConfiguration());
+	}
+
+	private SootMethod method(String name) {
+		return program.method(name);
+	}
+
+	private Stmt sourceStmt(Local local, SootMethod container) {
+		Stmt stmt = Jimple.v().newAssignStmt(local, Jimple.v().newStaticInvokeExpr(source.makeRef()));
+		program.setMethodOf(stmt, container);
+		return stmt;
+	}
+
+	private Stmt sinkStmt(Local local, SootMethod container) {
+		Stmt stmt = Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr(sink.makeRef(), local));
+		program.setMethodOf(stmt, container);
+		return stmt;
+	}
+
+	private AccessPath ap(Local local) {
+		return apFactory.createAccessPath(local, true);
+	}
+
+	private IInfoflowCFG icfg() {
+		return program.icfg(IInfoflowCFG.class);
+	}
+
+	@Test
+	public void indexesAnswerQueries() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		Local x = Jimple.v().newLocal("x", IntType.v());
+		Local y = Jimple.v().newLocal("y", IntType.v());
+		Stmt sourceA = sourceStmt(x, a);
+		Stmt sinkA = sinkStmt(x, a);
+		Stmt sourceB = sourceStmt(y, b);
+		Stmt sinkB = sinkStmt(y, b);
+
+		InfoflowResults results = new InfoflowResults();
+		results.addResult(ap(x), sinkA, ap(x), sourceA);
+		results.addResult(ap(y), sinkB, ap(y), sourceB);
+		results.addResult(ap(y), sinkB, ap(y), sourceB);
+		assertEquals(2, results.size());
+		assertEquals(2, results.numConnections());
+
+		assertTrue(results.containsSink(sinkA));
+		assertFalse(results.containsSink(sourceA));
+		assertTrue(results.containsSinkMethod(sink.getSignature()));
+		assertFalse(results.containsSinkMethod(source.getSignature()));
+		assertTrue(results.isPathBetweenMethods(sink.getSignature(), source.getSignature()));
+		assertFalse(results.isPathBetweenMethods(source.getSignature(), sink.getSignature()));
+		assertTrue(results.isPathBetween("x", "source"));
+		assertFalse(results.isPathBetween("z", "source"));
+		assertEquals(2, results.findSinkByMethodSignature(sink.getSignature()).size());
+		assertEquals(2, results.findSourceByMethodSignature(source.getSignature()).size());
+		assertTrue(results.findSinkByMethodSignature(source.getSignature()).isEmpty());
+
+		// Without a control flow graph, there is no index by method
+		assertTrue(results.findSinksInMethod(a).isEmpty());
+		results.setInterproceduralCFG(icfg());
+		assertEquals(1, results.findSinksInMethod(a).size());
+		assertEquals(sinkB, results.findSinksInMethod(b).iterator().next().getSink());
+		assertEquals(sourceB, results.findSourcesInMethod(b).iterator().next().getSource());
+		assertTrue(results.getIndexMemoryFootprint() > 0);
+
+		results.clear();
+		assertTrue(results.isEmpty());
+		assertFalse(results.containsSink(sinkA));
+		assertFalse(results.isPathBetweenMethods(sink.getSignature(), source.getSignature()));
+		assertTrue(results.findSinksInMethod(a).isEmpty());
+		assertEquals(0, results.getIndexMemoryFootprint());
+	}
+
+	@Test
+	public void addAllUpdatesIndexes() {
+		SootMethod a = method("a");
+		Local x = Jimple.v().newLocal("x", IntType.v());
+		Stmt sourceA = sourceStmt(x, a);
+		Stmt sinkA = sinkStmt(x, a);
+
+		InfoflowResults partial = new InfoflowResults(icfg());
+		partial.addResult(ap(x), sinkA, ap(x), sourceA);
+
+		InfoflowResults results = new InfoflowResults();
+		results.addAll(partial);
+		assertEquals(partial, results);
+		assertTrue(results.containsSink(sinkA));
+		assertTrue(results.isPathBetweenMethods(sink.getSignature(), source.getSignature()));
+		assertEquals(1, results.findSourcesInMethod(a).size());
+	}
+
+	@Test
+	public void addAllKeepsAnalysisState() {
+		InfoflowResults partial = new InfoflowResults();
+		partial.addException("java.lang.OutOfMemoryError: test");
+		partial.addDegradation("Flushed caches", false);
+		partial.addTruncatedPhase(AnalysisPhase.ForwardSolver);
+
+		InfoflowResults results = new InfoflowResults();
+		results.addAll(partial);
+		assertTrue(results.isEmpty());
+		assertFalse(results.isComplete());
+		assertEquals(partial.getExceptions(), results.getExceptions());
+		assertEquals(partial.getDegradations(), results.getDegradations());
+		assertTrue(results.getPrecisionDegradations().isEmpty());
+	}
+
+}
@@ -0,0 +1,82 @@
+package soot.jimple.infoflow.shard;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.util.ProgramFixture;
+
+/**
+ * Tests for the assignment of source statements to the partitions of a
+ * sharded analysis
+ *
+ */
+public class SourcePartitionTests {
+
+	private static final int STMT_COUNT = 50;
+
+	/**
+	 * Creates a fresh scene with a single method that consists of no-op
+	 * statements
+	 */
+	private SootMethod createMethod() {
+		SootMethod method = new ProgramFixture<Unit>().method("m");
+		for (int i = 0; i < STMT_COUNT; i++)
+			method.getActiveBody().getUnits().add(Jimple.v().newNopStmt());
+		return method;
+	}
+
+	/**
+	 * Gets the partition of every statement in the given method
+	 */
+	private int[] assign(SootMethod method, int shardCount) {
+		int[] partitions = new int[STMT_COUNT];
+		int i = 0;
+		for (Unit u : method.getActiveBody().getUnits()) {
+			partitions[i] = -1;
+			for (int shard = 0; shard < shardCount; shard++)
+				if (new SourcePartition(shard, shardCount).contains((Stmt) u, method)) {
+					assertEquals(-1, partitions[i]);
+					partitions[i] = shard;
+				}
+			i++;
+		}
+		return partitions;
+	}
+
+	@Test
+	public void everySourceInExactlyOnePartition() {
+		int[] partitions = assign(createMethod(), 3);
+		int[] partitionSizes = new int[3];
+		for (int partition : partitions) {
+			assertTrue(partition >= 0);
+			partitionSizes[partition]++;
+		}
+		for (int size : partitionSizes)
+			assertTrue(size > 0);
+	}
+
+	@Test
+	public void sameAssignmentInEveryScene() {
+		// The coordinator and the workers load the scene independently, so the
+		// assignment must only depend on the method and the position in its body
+		assertArrayEquals(assign(createMethod(), 4), assign(createMethod(), 4));
+	}
+
+	@Test
+	public void specialPartitions() {
+		SootMethod method = createMethod();
+		for (Unit u : method.getActiveBody().getUnits()) {
+			assertTrue(new SourcePartition(0, 1).contains((Stmt) u, method));
+			assertFalse(SourcePartition.noSources().contains((Stmt) u, method));
+		}
+	}
+
+}
@@ -0,0 +1,189 @@
+package soot.jimple.infoflow.solver.cfg;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.Body;
+import soot.IntType;
+import soot.Local;
+import soot.Modifier;
+import soot.RefType;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.IntConstant;
+import soot.jimple.InvokeExpr;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.util.ProgramFixture;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * Tests for the whole-program mod/ref summaries
+ *
+ */
+public class ModRefSummariesTests {
+
+	private ProgramFixture<Unit> program;
+	private SootClass testClass;
+	private RefType testType;
+	private SootField instanceField;
+	private SootField staticField;
+	private CallGraph callGraph;
+	private final List<SootMethod> methods = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		program = new ProgramFixture<>();
+		testClass = program.getTestClass();
+		testType = testClass.getType();
+		instanceField = new SootField("f", IntType.v(), Modifier.PUBLIC);
+		testClass.addField(instanceField);
+		staticField = new SootField("counter", IntType.v(), Modifier.PUBLIC | Modifier.STATIC);
+		testClass.addField(staticField);
+		callGraph = new CallGraph();
+		methods.clear();
+	}
+
+	/**
+	 * Creates a method with a body that only consists of the identity
+	 * statements for the "this" local and the parameters
+	 */
+	private Body method(String name, boolean isStatic, Type... parameterTypes) {
+		SootMethod sm = program.method(name, Arrays.asList(parameterTypes), VoidType.v(),
+				Modifier.PUBLIC | (isStatic ? Modifier.STATIC : 0));
+		Body body = sm.getActiveBody();
+		if (!isStatic) {
+			Local thisLocal = Jimple.v().newLocal("this", testType);
+			body.getLocals().add(thisLocal);
+			body.getUnits().add(Jimple.v().newIdentityStmt(thisLocal, Jimple.v().newThisRef(testType)));
+		}
+		for (int i = 0; i < parameterTypes.length; i++) {
+			Local param = Jimple.v().newLocal("p" + i, parameterTypes[i]);
+			body.getLocals().add(param);
+			body.getUnits().add(Jimple.v().newIdentityStmt(param,
+					Jimple.v().newParameterRef(parameterTypes[i], i)));
+		}
+		methods.add(sm);
+		return body;
+	}
+
+	private void call(Body caller, InvokeExpr iexpr) {
+		Stmt callSite = Jimple.v().newInvokeStmt(iexpr);
+		caller.getUnits().add(callSite);
+		callGraph.addEdge(new Edge(caller.getMethod(), callSite, iexpr.getMethod()));
+	}
+
+	private void writeField(Body body, Local base) {
+		body.getUnits().add(Jimple.v().newAssignStmt(
+				Jimple.v().newInstanceFieldRef(base, instanceField.makeRef()), IntConstant.v(1)));
+	}
+
+	private ModRefSummaries compute() throws InterruptedException {
+		ModRefSummaries summaries = new ModRefSummaries(callGraph);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			summaries.compute(methods, executor);
+		} finally {
+			executor.shutdown();
+		}
+		return summaries;
+	}
+
+	@Test
+	public void parameterWritesReachCallers() throws InterruptedException {
+		Body setter = method("setter", false, testType);
+		writeField(setter, setter.getParameterLocal(0));
+		Body delegate = method("delegate", false, testType);
+		call(delegate, Jimple.v().newVirtualInvokeExpr(delegate.getThisLocal(),
+				setter.getMethod().makeRef(), delegate.getParameterLocal(0)));
+		Body consume = method("consume", true, IntType.v());
+		Body pure = method("pure", true, IntType.v());
+		call(pure, Jimple.v().newStaticInvokeExpr(consume.getMethod().makeRef(), pure.getParameterLocal(0)));
+		ModRefSummaries summaries = compute();
+
+		SootMethod sm = setter.getMethod();
+		assertTrue(summaries.hasSummary(sm));
+		assertTrue(summaries.writesFields(sm));
+		assertTrue(summaries.isParameterModified(sm, 0));
+		assertFalse(summaries.isParameterModified(sm, ModRefSummaries.THIS_INDEX));
+		assertFalse(summaries.readsThis(sm));
+
+		sm = delegate.getMethod();
+		assertTrue(summaries.isParameterModified(sm, 0));
+		assertTrue(summaries.isParameterRead(sm, 0));
+		assertTrue(summaries.readsThis(sm));
+		assertTrue(summaries.writesHeap(sm));
+
+		sm = pure.getMethod();
+		assertTrue(summaries.hasSummary(sm));
+		assertTrue(summaries.isParameterRead(sm, 0));
+		assertFalse(summaries.isParameterModified(sm, 0));
+		assertFalse(summaries.writesHeap(sm));
+	}
+
+	@Test
+	public void staticFieldsReachCallers() throws InterruptedException {
+		Body incr = method("incr", true);
+		Local x = Jimple.v().newLocal("x", IntType.v());
+		incr.getLocals().add(x);
+		incr.getUnits().add(Jimple.v().newAssignStmt(x, Jimple.v().newStaticFieldRef(staticField.makeRef())));
+		incr.getUnits().add(Jimple.v().newAssignStmt(Jimple.v().newStaticFieldRef(staticField.makeRef()), x));
+		Body caller = method("caller", true);
+		call(caller, Jimple.v().newStaticInvokeExpr(incr.getMethod().makeRef()));
+		Body other = method("other", true);
+		ModRefSummaries summaries = compute();
+
+		for (SootMethod sm : new SootMethod[] { incr.getMethod(), caller.getMethod() }) {
+			assertTrue(summaries.isStaticFieldRead(sm, staticField));
+			assertTrue(summaries.isStaticFieldWritten(sm, staticField));
+			assertTrue(summaries.writesFields(sm));
+		}
+		assertFalse(summaries.isStaticFieldUsed(other.getMethod(), staticField));
+		assertFalse(summaries.isStaticFieldUsed(caller.getMethod(), instanceField));
+	}
+
+	@Test
+	public void recursiveMethodsShareEffects() throws InterruptedException {
+		Body r1 = method("r1", true, testType);
+		Body r2 = method("r2", true, testType);
+		call(r1, Jimple.v().newStaticInvokeExpr(r2.getMethod().makeRef(), r1.getParameterLocal(0)));
+		call(r2, Jimple.v().newStaticInvokeExpr(r1.getMethod().makeRef(), r2.getParameterLocal(0)));
+		writeField(r2, r2.getParameterLocal(0));
+		Body unrelated = method("unrelated", true, testType);
+		ModRefSummaries summaries = compute();
+
+		assertTrue(summaries.isParameterModified(r1.getMethod(), 0));
+		assertTrue(summaries.isParameterModified(r2.getMethod(), 0));
+		assertTrue(summaries.writesFields(r1.getMethod()));
+		assertFalse(summaries.isParameterModified(unrelated.getMethod(), 0));
+		assertFalse(summaries.writesHeap(unrelated.getMethod()));
+	}
+
+	@Test
+	public void methodsWithoutBodiesHaveNoSummary() throws InterruptedException {
+		SootMethod phantom = new SootMethod("phantom", Collections.<Type>emptyList(), VoidType.v(),
+				Modifier.PUBLIC | Modifier.STATIC);
+		testClass.addMethod(phantom);
+		methods.add(phantom);
+		ModRefSummaries summaries = compute();
+
+		assertFalse(summaries.hasSummary(phantom));
+		assertFalse(summaries.writesHeap(phantom));
+	}
+
+}
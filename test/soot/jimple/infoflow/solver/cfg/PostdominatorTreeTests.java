@@ -0,0 +1,113 @@
+package soot.jimple.infoflow.solver.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.Body;
+import soot.IntType;
+import soot.Local;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG.UnitContainer;
+import soot.jimple.infoflow.util.ProgramFixture;
+import soot.toolkits.graph.BriefUnitGraph;
+import soot.toolkits.graph.DirectedGraph;
+import soot.toolkits.graph.MHGPostDominatorsFinder;
+
+/**
+ * Tests for the precomputed postdominator tree of a method
+ *
+ */
+public class PostdominatorTreeTests {
+
+	private ProgramFixture<Unit> program;
+	private SootMethod method;
+	private Stmt first;
+	private Stmt branch;
+	private Stmt thenStmt;
+	private Stmt join;
+	private Stmt ret;
+
+	@Before
+	public void setUp() {
+		program = new ProgramFixture<>();
+	}
+
+	/**
+	 * Creates a method with a single branch. The given number of unrelated
+	 * units is numbered after every statement, which makes the unit numbers
+	 * of the method sparse.
+	 */
+	private DirectedGraph<Unit> createMethod(int gap) {
+		method = program.method("m");
+		Body body = method.getActiveBody();
+
+		Local x = Jimple.v().newLocal("x", IntType.v());
+		body.getLocals().add(x);
+		first = Jimple.v().newAssignStmt(x, IntConstant.v(0));
+		join = Jimple.v().newNopStmt();
+		branch = Jimple.v().newIfStmt(Jimple.v().newEqExpr(x, IntConstant.v(0)), join);
+		thenStmt = Jimple.v().newAssignStmt(x, IntConstant.v(1));
+		ret = Jimple.v().newReturnVoidStmt();
+		for (Stmt s : new Stmt[] { first, branch, thenStmt, join, ret }) {
+			body.getUnits().add(s);
+			Scene.v().getUnitNumberer().add(s);
+			for (int i = 0; i < gap; i++)
+				Scene.v().getUnitNumberer().add(Jimple.v().newNopStmt());
+		}
+		return new BriefUnitGraph(body);
+	}
+
+	private void checkAgainstFinder(DirectedGraph<Unit> graph) {
+		PostdominatorTree tree = new PostdominatorTree(method, graph);
+		MHGPostDominatorsFinder<Unit> finder = new MHGPostDominatorsFinder<Unit>(graph);
+		for (Unit u : graph) {
+			Unit postdom = finder.getImmediateDominator(u);
+			UnitContainer expected = postdom == null ? new UnitContainer(method) : new UnitContainer(postdom);
+			assertEquals(expected, tree.getPostdominatorOf(u));
+		}
+
+		assertEquals(new UnitContainer(branch), tree.getPostdominatorOf(first));
+		assertEquals(new UnitContainer(join), tree.getPostdominatorOf(branch));
+		assertEquals(new UnitContainer(join), tree.getPostdominatorOf(thenStmt));
+		assertSame(method, tree.getPostdominatorOf(ret).getMethod());
+
+		// Statements outside of the method are only postdominated by the
+		// end of the method
+		Unit other = Jimple.v().newNopStmt();
+		assertSame(method, tree.getPostdominatorOf(other).getMethod());
+		Scene.v().getUnitNumberer().add(other);
+		assertSame(method, tree.getPostdominatorOf(other).getMethod());
+	}
+
+	@Test
+	public void denseNumbers() {
+		checkAgainstFinder(createMethod(0));
+	}
+
+	@Test
+	public void sparseNumbers() {
+		checkAgainstFinder(createMethod(10));
+	}
+
+	@Test
+	public void unnumberedUnitsAreNumbered() {
+		DirectedGraph<Unit> graph = createMethod(0);
+		Unit extra = Jimple.v().newNopStmt();
+		method.getActiveBody().getUnits().insertBefore(extra, ret);
+		graph = new BriefUnitGraph(method.getActiveBody());
+		assertEquals(0, extra.getNumber());
+
+		PostdominatorTree tree = new PostdominatorTree(method, graph);
+		assertEquals(new UnitContainer(ret), tree.getPostdominatorOf(extra));
+		assertEquals(new UnitContainer(extra), tree.getPostdominatorOf(join));
+	}
+
+}
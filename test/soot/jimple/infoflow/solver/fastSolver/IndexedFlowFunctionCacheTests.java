@@ -0,0 +1,105 @@
+package soot.jimple.infoflow.solver.fastSolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import heros.FlowFunction;
+import heros.FlowFunctions;
+import soot.G;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Jimple;
+
+/**
+ * Tests for the statement-indexed flow function cache
+ *
+ */
+public class IndexedFlowFunctionCacheTests {
+
+	/**
+	 * Flow functions that create a new function object on every call and
+	 * count the calls
+	 */
+	private static class CountingFlowFunctions<N> implements FlowFunctions<N, Object, SootMethod> {
+
+		private final AtomicInteger created = new AtomicInteger();
+
+		private FlowFunction<Object> create() {
+			created.incrementAndGet();
+			return new FlowFunction<Object>() {
+
+				@Override
+				public Set<Object> computeTargets(Object source) {
+					return Collections.singleton(source);
+				}
+
+			};
+		}
+
+		@Override
+		public FlowFunction<Object> getNormalFlowFunction(N curr, N succ) {
+			return create();
+		}
+
+		@Override
+		public FlowFunction<Object> getCallFlowFunction(N callStmt, SootMethod destinationMethod) {
+			return create();
+		}
+
+		@Override
+		public FlowFunction<Object> getReturnFlowFunction(N callSite, SootMethod calleeMethod, N exitStmt,
+				N returnSite) {
+			return create();
+		}
+
+		@Override
+		public FlowFunction<Object> getCallToReturnFlowFunction(N callSite, N returnSite) {
+			return create();
+		}
+
+	}
+
+	@Before
+	public void setUp() {
+		G.reset();
+	}
+
+	@Test
+	public void unitsAreCachedBySuccessor() {
+		CountingFlowFunctions<Unit> delegate = new CountingFlowFunctions<>();
+		IndexedFlowFunctionCache<Unit, Object> cache = new IndexedFlowFunctionCache<>(delegate);
+		Unit a = Jimple.v().newNopStmt();
+		Unit b = Jimple.v().newNopStmt();
+		Unit c = Jimple.v().newNopStmt();
+
+		FlowFunction<Object> ab = cache.getNormalFlowFunction(a, b);
+		assertSame(ab, cache.getNormalFlowFunction(a, b));
+		assertNotSame(ab, cache.getNormalFlowFunction(a, c));
+		assertNotSame(ab, cache.getCallToReturnFlowFunction(a, b));
+		assertEquals(3, delegate.created.get());
+		assertEquals(3, cache.getFlowFunctionCount());
+	}
+
+	@Test
+	public void clearDropsFunctionsAndNumbers() {
+		CountingFlowFunctions<String> delegate = new CountingFlowFunctions<>();
+		IndexedFlowFunctionCache<String, Object> cache = new IndexedFlowFunctionCache<>(delegate);
+		FlowFunction<Object> ff = cache.getNormalFlowFunction("a", "b");
+		assertEquals(1, cache.getStatementCount());
+
+		cache.clear();
+		assertEquals(0, cache.getStatementCount());
+		assertEquals(0, cache.getFlowFunctionCount());
+		assertNotSame(ff, cache.getNormalFlowFunction("a", "b"));
+		assertEquals(2, delegate.created.get());
+	}
+
+}
@@ -0,0 +1,163 @@
+package soot.jimple.infoflow.solver.fastSolver;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.SootMethod;
+import soot.jimple.infoflow.util.ProgramFixture;
+import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
+
+/**
+ * Tests for the tracker that finds methods which can no longer receive new
+ * edges
+ *
+ */
+public class MethodCompletionTrackerTests {
+
+	private ProgramFixture<String> program;
+
+	@Before
+	public void setUp() {
+		program = new ProgramFixture<>();
+	}
+
+	private SootMethod method(String name) {
+		return program.method(name);
+	}
+
+	private void call(SootMethod caller, SootMethod callee) {
+		program.call(caller.getName() + "->" + callee.getName(), caller, callee);
+	}
+
+	@SuppressWarnings("unchecked")
+	private MethodCompletionTracker<String> tracker() {
+		BiDiInterproceduralCFG<String, SootMethod> icfg = program.icfg(BiDiInterproceduralCFG.class);
+		MethodCompletionTracker<String> tracker = new MethodCompletionTracker<>(icfg);
+		tracker.setSweepInterval(1);
+		return tracker;
+	}
+
+	@Test
+	public void calleeWaitsForCaller() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		call(a, b);
+		MethodCompletionTracker<String> tracker = tracker();
+
+		tracker.edgeScheduled(a);
+		tracker.edgeScheduled(b);
+		tracker.edgeProcessed(b);
+		assertEquals(0, tracker.getEvictedMethodCount());
+
+		tracker.edgeProcessed(a);
+		assertEquals(2, tracker.getEvictedMethodCount());
+	}
+
+	@Test
+	public void idleCallerIsNotComplete() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		SootMethod c = method("c");
+		call(a, b);
+		call(a, c);
+		MethodCompletionTracker<String> tracker = tracker();
+
+		// The caller a is idle, but c can still return into it and a can then
+		// call b in a new context
+		tracker.edgeScheduled(b);
+		tracker.edgeScheduled(c);
+		tracker.edgeProcessed(b);
+		assertEquals(0, tracker.getEvictedMethodCount());
+
+		tracker.edgeProcessed(c);
+		assertEquals(2, tracker.getEvictedMethodCount());
+	}
+
+	@Test
+	public void discardedEdgesAreNotOutstanding() {
+		SootMethod a = method("a");
+		MethodCompletionTracker<String> tracker = tracker();
+
+		tracker.edgeScheduled(a);
+		tracker.edgeScheduled(a);
+		tracker.edgeDiscarded(a);
+		tracker.edgeProcessed(a);
+		assertEquals(1, tracker.getEvictedMethodCount());
+	}
+
+	@Test
+	public void recursiveMethodsCompleteTogether() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		call(a, b);
+		call(b, a);
+		MethodCompletionTracker<String> tracker = tracker();
+
+		tracker.edgeScheduled(a);
+		tracker.edgeScheduled(b);
+		tracker.edgeProcessed(a);
+		assertEquals(0, tracker.getEvictedMethodCount());
+
+		tracker.edgeProcessed(b);
+		assertEquals(2, tracker.getEvictedMethodCount());
+	}
+
+	@Test
+	public void reenteredMethodIsEvictedAgain() {
+		SootMethod a = method("a");
+		MethodCompletionTracker<String> tracker = tracker();
+
+		tracker.edgeScheduled(a);
+		tracker.edgeProcessed(a);
+		assertEquals(1, tracker.getEvictedMethodCount());
+
+		tracker.edgeScheduled(a);
+		tracker.edgeProcessed(a);
+		assertEquals(2, tracker.getEvictedMethodCount());
+	}
+
+	@Test(timeout = 30000)
+	public void evictionWaitsForPendingUpdate() throws InterruptedException {
+		final SootMethod a = method("a");
+		final SootMethod b = method("b");
+		final MethodCompletionTracker<String> tracker = tracker();
+		tracker.edgeScheduled(a);
+		tracker.edgeScheduled(b);
+
+		// A solver is registering a new edge for b while the last
+		// outstanding edge of b finishes. The sweep must wait for the update
+		// and then notice the new edge.
+		Lock updateLock = tracker.getUpdateLock(b);
+		updateLock.lock();
+		Thread sweeper;
+		try {
+			sweeper = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					tracker.edgeProcessed(b);
+				}
+
+			});
+			sweeper.start();
+			while (sweeper.getState() != Thread.State.WAITING && sweeper.isAlive())
+				Thread.sleep(10);
+			tracker.edgeScheduled(b);
+		}
+		finally {
+			updateLock.unlock();
+		}
+		sweeper.join();
+		assertEquals(0, tracker.getEvictedMethodCount());
+
+		tracker.edgeProcessed(a);
+		assertEquals(1, tracker.getEvictedMethodCount());
+		tracker.edgeProcessed(b);
+		assertEquals(2, tracker.getEvictedMethodCount());
+	}
+
+}
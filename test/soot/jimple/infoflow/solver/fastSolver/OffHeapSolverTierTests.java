@@ -0,0 +1,175 @@
+package soot.jimple.infoflow.solver.fastSolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import heros.solver.Pair;
+import heros.solver.PathEdge;
+import soot.G;
+import soot.Modifier;
+import soot.SootMethod;
+import soot.Type;
+import soot.VoidType;
+
+/**
+ * Tests for the storage tier that moves jump functions and end summaries out
+ * of the Java heap
+ *
+ */
+public class OffHeapSolverTierTests {
+
+	/**
+	 * Fact that is compared by its id and carries some payload to make its
+	 * size measurable
+	 */
+	private static class Fact {
+
+		private final int id;
+		private final byte[] payload;
+
+		private Fact(int id, int payloadSize) {
+			this.id = id;
+			this.payload = new byte[payloadSize];
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Fact && ((Fact) obj).id == id;
+		}
+
+	}
+
+	/**
+	 * Gets one of ten statements. Statements are numbered by identity, so we
+	 * always return the same string object.
+	 */
+	private static String node(int id) {
+		return ("n" + id % 10).intern();
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	@Test
+	public void demotedEntriesAreRestored() {
+		G.reset();
+		OffHeapSolverTier<String, Fact> tier = new OffHeapSolverTier<>(false);
+		Fact zero = new Fact(0, 0);
+		Fact d1 = new Fact(1, 0);
+		Fact d2 = new Fact(2, 0);
+
+		tier.addJumpFunction(new PathEdge<String, Fact>(d1, "n1", d2), d2);
+		assertSame(d2, tier.getJumpFunction(new Fact(1, 0), "n1", new Fact(2, 0)));
+		assertNull(tier.getJumpFunction(d1, "n2", d2));
+		assertNull(tier.getJumpFunction(zero, "n1", d2));
+
+		SootMethod m = new SootMethod("m", Collections.<Type>emptyList(), VoidType.v(), Modifier.PUBLIC);
+		tier.addEndSummary(m, d1, "exit", d2);
+		assertTrue(tier.containsEndSummary(m, d1, "exit", new Fact(2, 0)));
+		assertFalse(tier.containsEndSummary(m, d1, "n1", d2));
+
+		Set<Pair<String, Fact>> summaries = tier.getEndSummaries(m, d1, null);
+		assertEquals(1, summaries.size());
+		Pair<String, Fact> summary = summaries.iterator().next();
+		assertEquals("exit", summary.getO1());
+		assertSame(d2, summary.getO2());
+
+		// Summaries that are still on the heap are merged in
+		Set<Pair<String, Fact>> heapSummaries = Collections.singleton(new Pair<String, Fact>("n1", zero));
+		assertEquals(2, tier.getEndSummaries(m, d1, heapSummaries).size());
+		assertSame(heapSummaries, tier.getEndSummaries(m, zero, heapSummaries));
+		assertEquals(2, tier.size());
+
+		tier.clear();
+		assertEquals(0, tier.size());
+		assertNull(tier.getJumpFunction(d1, "n1", d2));
+	}
+
+	@Test(timeout = 60000)
+	public void demotedFactsDoNotStayOnHeap() throws InterruptedException {
+		OffHeapSolverTier<String, Fact> tier = new OffHeapSolverTier<>(false);
+		Fact zero = new Fact(0, 0);
+		List<Fact> facts = new ArrayList<>();
+		for (int i = 1; i <= 20000; i++)
+			facts.add(new Fact(i, 1024));
+		for (Fact fact : facts)
+			tier.addJumpFunction(new PathEdge<String, Fact>(zero, node(fact.id), fact), fact);
+		assertEquals(20000, tier.size());
+		assertEquals(20001, tier.getLiveFactCount());
+
+		// As long as the facts are used elsewhere, the tier finds them
+		Fact someFact = facts.get(4711);
+		assertSame(someFact, tier.getJumpFunction(zero, node(someFact.id), new Fact(someFact.id, 0)));
+		someFact = null;
+
+		// Once nothing else refers to the facts, they must be collectable
+		long heapWithFacts = usedHeap();
+		facts = null;
+		long heapWithoutFacts = usedHeap();
+		while (tier.getLiveFactCount() > 1) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertTrue("Heap usage did not drop: " + heapWithFacts + " -> " + heapWithoutFacts,
+				heapWithFacts - heapWithoutFacts > 10 * 1024 * 1024);
+
+		// The records are still there, but do not match anymore
+		assertEquals(20000, tier.size());
+		assertNull(tier.getJumpFunction(zero, "n1", new Fact(4711, 0)));
+
+		// The stale records can be reclaimed
+		long footprint = tier.getMemoryFootprint();
+		assertEquals(20000, tier.removeStaleEntries());
+		assertEquals(0, tier.size());
+		assertTrue(tier.getMemoryFootprint() < footprint);
+	}
+
+	@Test(timeout = 60000)
+	public void endSummariesSurviveGarbageCollection() throws InterruptedException {
+		G.reset();
+		OffHeapSolverTier<String, Fact> tier = new OffHeapSolverTier<>(false);
+		SootMethod m = new SootMethod("m", Collections.<Type>emptyList(), VoidType.v(), Modifier.PUBLIC);
+		Fact d1 = new Fact(1, 0);
+		Fact d2 = new Fact(2, 0);
+		Fact jumpFact = new Fact(3, 0);
+		tier.addEndSummary(m, d1, "exit", d2);
+		tier.addJumpFunction(new PathEdge<String, Fact>(d1, "n1", jumpFact), jumpFact);
+
+		// The caller still knows the start fact, but nothing else refers to
+		// the exit fact anymore
+		d2 = null;
+		jumpFact = null;
+		while (tier.getLiveFactCount() > 1) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals(1, tier.removeStaleEntries());
+
+		Set<Pair<String, Fact>> summaries = tier.getEndSummaries(m, new Fact(1, 0), null);
+		assertEquals(Collections.singleton(new Pair<String, Fact>("exit", new Fact(2, 0))), summaries);
+		assertTrue(tier.containsEndSummary(m, d1, "exit", new Fact(2, 0)));
+		assertEquals(1, tier.size());
+	}
+
+}
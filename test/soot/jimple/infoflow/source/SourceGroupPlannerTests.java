@@ -0,0 +1,111 @@
+package soot.jimple.infoflow.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.util.ProgramFixture;
+
+/**
+ * Tests for the planner that groups sources by the code they reach
+ *
+ */
+public class SourceGroupPlannerTests {
+
+	private ProgramFixture<Unit> program;
+
+	@Before
+	public void setUp() {
+		program = new ProgramFixture<>();
+	}
+
+	private SootMethod method(String name) {
+		return program.method(name);
+	}
+
+	private void call(SootMethod caller, SootMethod callee) {
+		program.call(Jimple.v().newNopStmt(), caller, callee);
+	}
+
+	private Stmt source(SootMethod container) {
+		Stmt source = Jimple.v().newNopStmt();
+		program.setMethodOf(source, container);
+		return source;
+	}
+
+	private IInfoflowCFG icfg() {
+		return program.icfg(IInfoflowCFG.class);
+	}
+
+	private static void assertPartition(Collection<Stmt> sources, List<Set<Stmt>> groups, int maxGroupSize) {
+		List<Stmt> grouped = new ArrayList<>();
+		for (Set<Stmt> group : groups) {
+			assertTrue(group.size() <= maxGroupSize);
+			grouped.addAll(group);
+		}
+		assertEquals(new HashSet<>(sources).size(), grouped.size());
+		assertEquals(new HashSet<>(sources), new HashSet<>(grouped));
+	}
+
+	@Test
+	public void sourcesReachingSameCodeShareGroup() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		SootMethod c = method("c");
+		SootMethod d = method("d");
+		SootMethod e = method("e");
+		call(a, c);
+		call(b, c);
+		call(d, e);
+		Stmt inA = source(a);
+		Stmt inD = source(d);
+		Stmt inB = source(b);
+
+		List<Stmt> sources = Arrays.asList(inA, inD, inB);
+		List<Set<Stmt>> groups = new SourceGroupPlanner(icfg()).plan(sources, 2);
+		assertPartition(sources, groups, 2);
+		assertEquals(2, groups.size());
+		assertEquals(new HashSet<>(Arrays.asList(inA, inB)), groups.get(0));
+		assertEquals(Collections.singleton(inD), groups.get(1));
+	}
+
+	@Test
+	public void largestReachStartsGroup() {
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		SootMethod c = method("c");
+		SootMethod d = method("d");
+		call(a, b);
+		call(b, a);
+		call(b, c);
+		call(c, d);
+		Stmt inD = source(d);
+		Stmt inA = source(a);
+
+		List<Set<Stmt>> groups = new SourceGroupPlanner(icfg()).plan(Arrays.asList(inD, inA, inA), 1);
+		assertEquals(2, groups.size());
+		assertEquals(Collections.singleton(inA), groups.get(0));
+		assertEquals(Collections.singleton(inD), groups.get(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void emptyGroupsAreRejected() {
+		new SourceGroupPlanner(icfg()).plan(Collections.<Stmt>emptyList(), 0);
+	}
+
+}
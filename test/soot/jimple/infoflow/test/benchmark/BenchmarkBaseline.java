@@ -0,0 +1,203 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of macro benchmark results against which new results are compared.
+ * A new result is flagged as a regression if it is considerably slower, needs
+ * considerably more propagations or memory, or reports a different number of
+ * data flows than the baseline. Small absolute differences in time and
+ * memory are ignored, because they are mostly noise on the small programs of
+ * the corpus.
+ *
+ */
+public class BenchmarkBaseline {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private final Map<String, BenchmarkResult> results = new LinkedHashMap<String, BenchmarkResult>();
+
+	private double timeTolerance = 0.2;
+	private long minTimeDifference = 500;
+	private double propagationTolerance = 0.05;
+	private double memoryTolerance = 0.25;
+	private long minMemoryDifference = 50 * 1000 * 1000;
+
+	/**
+	 * Loads a baseline from the given file
+	 * @param file The file from which to load the baseline
+	 * @return The baseline that was loaded
+	 * @throws IOException Thrown if the file cannot be read or is not a valid
+	 * baseline file
+	 */
+	public static BenchmarkBaseline load(File file) throws IOException {
+		String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		Object json;
+		try {
+			json = SimpleJson.parse(text);
+		} catch (IllegalArgumentException ex) {
+			throw new IOException("Invalid baseline file " + file + ": " + ex.getMessage(), ex);
+		}
+		if (!(json instanceof Map) || !(((Map<?, ?>) json).get("runs") instanceof List))
+			throw new IOException("Invalid baseline file " + file + ": no runs found");
+
+		BenchmarkBaseline baseline = new BenchmarkBaseline();
+		for (Object run : (List<?>) ((Map<?, ?>) json).get("runs"))
+			if (run instanceof Map)
+				baseline.addResult(BenchmarkResult.fromJson((Map<?, ?>) run));
+		return baseline;
+	}
+
+	/**
+	 * Writes this baseline into the given file
+	 * @param file The file to write
+	 * @throws IOException Thrown if the file cannot be written
+	 */
+	public void save(File file) throws IOException {
+		Files.write(file.toPath(), toJson().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Converts this baseline into its JSON representation
+	 * @return The JSON text of this baseline
+	 */
+	public String toJson() {
+		List<Object> runs = new ArrayList<Object>();
+		for (BenchmarkResult result : results.values())
+			runs.add(result.toJson());
+
+		Map<String, Object> json = new LinkedHashMap<String, Object>();
+		json.put("version", FORMAT_VERSION);
+		json.put("java", System.getProperty("java.version"));
+		json.put("processors", Runtime.getRuntime().availableProcessors());
+		json.put("runs", runs);
+		return SimpleJson.write(json);
+	}
+
+	/**
+	 * Adds a result to this baseline. An existing result for the same program
+	 * and configuration is replaced.
+	 * @param result The result to add
+	 */
+	public void addResult(BenchmarkResult result) {
+		results.put(result.getKey(), result);
+	}
+
+	/**
+	 * Adds all of the given results to this baseline
+	 * @param results The results to add
+	 */
+	public void addResults(Collection<BenchmarkResult> results) {
+		for (BenchmarkResult result : results)
+			addResult(result);
+	}
+
+	/**
+	 * Gets the baseline result for the given program and configuration
+	 * @param program The name of the program
+	 * @param configuration The name of the configuration
+	 * @return The baseline result, or null if the baseline has no result for
+	 * the given combination
+	 */
+	public BenchmarkResult getResult(String program, String configuration) {
+		return results.get(BenchmarkResult.getKey(program, configuration));
+	}
+
+	/**
+	 * Gets all results in this baseline
+	 * @return The results in this baseline
+	 */
+	public Collection<BenchmarkResult> getResults() {
+		return results.values();
+	}
+
+	/**
+	 * Compares the given result with the respective result from this baseline
+	 * @param result The new result
+	 * @return The regressions of the new result, one human-readable message
+	 * per regression. If the result is as good as the baseline or the
+	 * baseline contains no result for the same program and configuration,
+	 * the list is empty.
+	 */
+	public List<String> findRegressions(BenchmarkResult result) {
+		List<String> regressions = new ArrayList<String>();
+		BenchmarkResult base = results.get(result.getKey());
+		if (base == null)
+			return regressions;
+
+		if (base.getResultCount() != result.getResultCount())
+			regressions.add("result count changed from " + base.getResultCount() + " to "
+					+ result.getResultCount());
+		if (exceeds(base.getWallTime(), result.getWallTime(), timeTolerance, minTimeDifference))
+			regressions.add("wall time increased from " + base.getWallTime() + " ms to "
+					+ result.getWallTime() + " ms");
+		if (exceeds(base.getForwardPropagationCount(), result.getForwardPropagationCount(),
+				propagationTolerance, 0))
+			regressions.add("forward propagations increased from " + base.getForwardPropagationCount()
+					+ " to " + result.getForwardPropagationCount());
+		if (exceeds(base.getBackwardPropagationCount(), result.getBackwardPropagationCount(),
+				propagationTolerance, 0))
+			regressions.add("backward propagations increased from " + base.getBackwardPropagationCount()
+					+ " to " + result.getBackwardPropagationCount());
+		if (exceeds(base.getPeakMemory(), result.getPeakMemory(), memoryTolerance, minMemoryDifference))
+			regressions.add("peak memory increased from " + base.getPeakMemory() / 1000000 + " MB to "
+					+ result.getPeakMemory() / 1000000 + " MB");
+		return regressions;
+	}
+
+	/**
+	 * Checks whether the new value exceeds the baseline value by more than
+	 * the given tolerance. Unknown values are never considered a regression.
+	 */
+	private static boolean exceeds(long baseValue, long newValue, double tolerance, long minDifference) {
+		if (baseValue < 0 || newValue < 0)
+			return false;
+		long difference = newValue - baseValue;
+		return difference > minDifference && difference > baseValue * tolerance;
+	}
+
+	/**
+	 * Sets by how much the wall time may grow before it is considered a
+	 * regression
+	 * @param timeTolerance The tolerance as a fraction of the baseline time,
+	 * e.g., 0.2 for 20 percent
+	 * @param minTimeDifference The minimum absolute difference in
+	 * milliseconds. Smaller differences are never considered a regression.
+	 */
+	public void setTimeTolerance(double timeTolerance, long minTimeDifference) {
+		this.timeTolerance = timeTolerance;
+		this.minTimeDifference = minTimeDifference;
+	}
+
+	/**
+	 * Sets by how much the number of propagations may grow before it is
+	 * considered a regression
+	 * @param propagationTolerance The tolerance as a fraction of the baseline
+	 * propagation count, e.g., 0.05 for 5 percent
+	 */
+	public void setPropagationTolerance(double propagationTolerance) {
+		this.propagationTolerance = propagationTolerance;
+	}
+
+	/**
+	 * Sets by how much the peak memory consumption may grow before it is
+	 * considered a regression
+	 * @param memoryTolerance The tolerance as a fraction of the baseline
+	 * memory consumption, e.g., 0.25 for 25 percent
+	 * @param minMemoryDifference The minimum absolute difference in bytes.
+	 * Smaller differences are never considered a regression.
+	 */
+	public void setMemoryTolerance(double memoryTolerance, long minMemoryDifference) {
+		this.memoryTolerance = memoryTolerance;
+		this.minMemoryDifference = minMemoryDifference;
+	}
+
+}
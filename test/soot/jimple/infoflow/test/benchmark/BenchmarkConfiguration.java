@@ -0,0 +1,143 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import soot.Unit;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.InfoflowConfiguration.AliasingAlgorithm;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.FlowDroidMemoryManager;
+import soot.jimple.infoflow.data.FlowDroidMemoryManager.PathDataErasureMode;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory.PathBuilder;
+import soot.jimple.infoflow.solver.memory.IMemoryManager;
+import soot.jimple.infoflow.solver.memory.IMemoryManagerFactory;
+
+/**
+ * A configuration of the data flow analysis under which the programs of the
+ * macro benchmark are run
+ *
+ */
+public class BenchmarkConfiguration {
+
+	/**
+	 * The number of threads used by all default configurations that do not
+	 * vary the thread count
+	 */
+	public static final int DEFAULT_THREAD_NUM = 4;
+
+	private final String name;
+	private final AliasingAlgorithm aliasingAlgorithm;
+	private final PathBuilder pathBuilder;
+	private final int threadNum;
+	private final PathDataErasureMode erasureMode;
+
+	/**
+	 * Creates a new instance of the {@link BenchmarkConfiguration} class
+	 * @param name The unique name of the configuration
+	 * @param aliasingAlgorithm The aliasing algorithm to use
+	 * @param pathBuilder The path building algorithm to use
+	 * @param threadNum The maximum number of threads to use
+	 * @param erasureMode The path data erasure mode to use, or null to let the
+	 * data flow analysis choose the mode that fits the path builder
+	 */
+	public BenchmarkConfiguration(String name, AliasingAlgorithm aliasingAlgorithm,
+			PathBuilder pathBuilder, int threadNum, PathDataErasureMode erasureMode) {
+		this.name = name;
+		this.aliasingAlgorithm = aliasingAlgorithm;
+		this.pathBuilder = pathBuilder;
+		this.threadNum = threadNum;
+		this.erasureMode = erasureMode;
+	}
+
+	/**
+	 * Gets the default configurations of the macro benchmark. Starting from a
+	 * default configuration, each of the other configurations varies exactly
+	 * one dimension, i.e., the aliasing algorithm, the path builder, the
+	 * number of threads, or the path data erasure mode.
+	 * @return The default configurations
+	 */
+	public static List<BenchmarkConfiguration> getDefaultConfigurations() {
+		List<BenchmarkConfiguration> configs = new ArrayList<BenchmarkConfiguration>();
+		configs.add(new BenchmarkConfiguration("default", AliasingAlgorithm.FlowSensitive,
+				PathBuilder.ContextSensitive, DEFAULT_THREAD_NUM, null));
+
+		configs.add(new BenchmarkConfiguration("alias-ptsbased", AliasingAlgorithm.PtsBased,
+				PathBuilder.ContextSensitive, DEFAULT_THREAD_NUM, null));
+		configs.add(new BenchmarkConfiguration("alias-lazy", AliasingAlgorithm.Lazy,
+				PathBuilder.ContextSensitive, DEFAULT_THREAD_NUM, null));
+
+		configs.add(new BenchmarkConfiguration("paths-insensitive", AliasingAlgorithm.FlowSensitive,
+				PathBuilder.ContextInsensitive, DEFAULT_THREAD_NUM, null));
+		configs.add(new BenchmarkConfiguration("paths-sourcefinder", AliasingAlgorithm.FlowSensitive,
+				PathBuilder.ContextInsensitiveSourceFinder, DEFAULT_THREAD_NUM, null));
+
+		configs.add(new BenchmarkConfiguration("threads-1", AliasingAlgorithm.FlowSensitive,
+				PathBuilder.ContextSensitive, 1, null));
+		configs.add(new BenchmarkConfiguration("threads-8", AliasingAlgorithm.FlowSensitive,
+				PathBuilder.ContextSensitive, 8, null));
+
+		// The path builders normally choose the most aggressive erasure mode
+		// they support, so we measure what keeping the data costs
+		configs.add(new BenchmarkConfiguration("erase-nothing", AliasingAlgorithm.FlowSensitive,
+				PathBuilder.ContextSensitive, DEFAULT_THREAD_NUM, PathDataErasureMode.EraseNothing));
+		configs.add(new BenchmarkConfiguration("sourcefinder-keep-context", AliasingAlgorithm.FlowSensitive,
+				PathBuilder.ContextInsensitiveSourceFinder, DEFAULT_THREAD_NUM,
+				PathDataErasureMode.KeepOnlyContextData));
+		return configs;
+	}
+
+	/**
+	 * Applies this configuration to the given data flow analysis
+	 * @param infoflow The data flow analysis to configure
+	 */
+	public void apply(Infoflow infoflow) {
+		infoflow.getConfig().setAliasingAlgorithm(aliasingAlgorithm);
+		infoflow.getConfig().setMaxThreadNum(threadNum);
+		infoflow.setPathBuilderFactory(new DefaultPathBuilderFactory(pathBuilder, false));
+		if (erasureMode != null) {
+			infoflow.setMemoryManagerFactory(new IMemoryManagerFactory() {
+
+				@Override
+				public IMemoryManager<Abstraction, Unit> getMemoryManager(boolean tracingEnabled,
+						PathDataErasureMode erasePathData) {
+					return new FlowDroidMemoryManager(tracingEnabled, erasureMode);
+				}
+
+			});
+		}
+	}
+
+	/**
+	 * Gets the unique name of this configuration
+	 * @return The name of this configuration
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	public AliasingAlgorithm getAliasingAlgorithm() {
+		return this.aliasingAlgorithm;
+	}
+
+	public PathBuilder getPathBuilder() {
+		return this.pathBuilder;
+	}
+
+	public int getThreadNum() {
+		return this.threadNum;
+	}
+
+	public PathDataErasureMode getErasureMode() {
+		return this.erasureMode;
+	}
+
+	@Override
+	public String toString() {
+		return name + " (aliasing: " + aliasingAlgorithm + ", path builder: " + pathBuilder
+				+ ", threads: " + threadNum + ", erasure: "
+				+ (erasureMode == null ? "automatic" : erasureMode.toString()) + ")";
+	}
+
+}
@@ -0,0 +1,232 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import soot.jimple.infoflow.config.ConfigForTest;
+import soot.jimple.infoflow.config.ConfigSecuriBench;
+import soot.jimple.infoflow.test.junit.JUnitTests;
+
+/**
+ * The fixed set of programs on which the macro benchmark is run. The corpus
+ * consists of the test code classes of the JUnit tests and of the
+ * SecuriBench Micro categories that the SecuriBench tests cover, and
+ * optionally of a series of synthetic programs of growing size. Further
+ * programs can be added before running the benchmark.
+ *
+ */
+public class BenchmarkCorpus {
+
+	/**
+	 * The sources and sinks of the JUnit tests, which are only visible to
+	 * subclasses of the test base class
+	 */
+	private static abstract class TestCodeSignatures extends JUnitTests {
+
+		private static final List<String> SOURCES = Arrays.asList(sourcePwd, sourceUserData,
+				sourceDeviceId, sourceIMEI, sourceIMSI, sourceBundleGet, sourceLongitude, sourceLocation);
+		private static final List<String> SINKS = Arrays.asList(sink, sinkInt, sinkBoolean, sinkDouble);
+
+	}
+
+	/**
+	 * The sources and sinks of the SecuriBench tests, which are only visible
+	 * to subclasses of the test base class
+	 */
+	private static abstract class SecuriBenchSignatures
+			extends soot.jimple.infoflow.test.securibench.JUnitTests {
+
+		private static final List<String> SOURCES = Arrays.asList(sourceArray);
+		private static final List<String> SINKS = Arrays.asList(sinkArray);
+
+	}
+
+	/**
+	 * The test code classes in the corpus. All public, parameterless void
+	 * methods of these classes are used as entry points.
+	 */
+	private static final String[] TEST_CODE_CLASSES = new String[] {
+			"soot.jimple.infoflow.test.ArrayTestCode",
+			"soot.jimple.infoflow.test.BasicTestCode",
+			"soot.jimple.infoflow.test.CallbackTestCode",
+			"soot.jimple.infoflow.test.ConstantTestCode",
+			"soot.jimple.infoflow.test.ContextSensitivityTestCode",
+			"soot.jimple.infoflow.test.EasyWrapperTestCode",
+			"soot.jimple.infoflow.test.ExceptionTestCode",
+			"soot.jimple.infoflow.test.HeapTestCode",
+			"soot.jimple.infoflow.test.HierarchyTestCode",
+			"soot.jimple.infoflow.test.ImplicitFlowTestCode",
+			"soot.jimple.infoflow.test.InFunctionCode",
+			"soot.jimple.infoflow.test.InheritanceTestCode",
+			"soot.jimple.infoflow.test.LengthTestCode",
+			"soot.jimple.infoflow.test.ListTestCode",
+			"soot.jimple.infoflow.test.MapTestCode",
+			"soot.jimple.infoflow.test.MultiTestCode",
+			"soot.jimple.infoflow.test.OperationSemanticTestCode",
+			"soot.jimple.infoflow.test.OtherTestCode",
+			"soot.jimple.infoflow.test.OverwriteTestCode",
+			"soot.jimple.infoflow.test.QueueTestCode",
+			"soot.jimple.infoflow.test.SetTestCode",
+			"soot.jimple.infoflow.test.SingleJoinPointTestCode",
+			"soot.jimple.infoflow.test.SourceSinkTestCode",
+			"soot.jimple.infoflow.test.StaticTestCode",
+			"soot.jimple.infoflow.test.StringTestCode",
+			"soot.jimple.infoflow.test.ThreadTestCode",
+			"soot.jimple.infoflow.test.TypeTestCode",
+			"soot.jimple.infoflow.test.VectorTestCode" };
+
+	/**
+	 * The SecuriBench Micro categories in the corpus. The reflection,
+	 * sanitizer and predicate tests are left out for the same reasons as in
+	 * the SecuriBench JUnit tests.
+	 */
+	private static final String[] SECURIBENCH_CATEGORIES = new String[] {
+			"aliasing", "arrays", "basic", "collections", "datastructures",
+			"factories", "inter", "session", "strong_updates" };
+
+	private static final String SECURIBENCH_ENTRY_POINT = "void doGet(javax.servlet.http.HttpServletRequest,"
+			+ "javax.servlet.http.HttpServletResponse)";
+
+	private final List<BenchmarkProgram> programs = new ArrayList<BenchmarkProgram>();
+
+	/**
+	 * Creates the default corpus with the test code classes and the
+	 * SecuriBench Micro categories
+	 * @param securiBenchDir The directory that contains the SecuriBench Micro
+	 * sources
+	 * @return The default corpus
+	 * @throws IOException Thrown if the SecuriBench sources cannot be read
+	 * @throws ClassNotFoundException Thrown if a test code class is not on the
+	 * class path
+	 */
+	public static BenchmarkCorpus createDefaultCorpus(File securiBenchDir)
+			throws IOException, ClassNotFoundException {
+		BenchmarkCorpus corpus = new BenchmarkCorpus();
+		corpus.addTestCodePrograms();
+		corpus.addSecuriBenchPrograms(securiBenchDir);
+		return corpus;
+	}
+
+	/**
+	 * Adds a program to this corpus
+	 * @param program The program to add
+	 */
+	public void addProgram(BenchmarkProgram program) {
+		for (BenchmarkProgram existing : programs)
+			if (existing.getName().equals(program.getName()))
+				throw new IllegalArgumentException("Duplicate program name: " + program.getName());
+		programs.add(program);
+	}
+
+	/**
+	 * Gets the programs in this corpus
+	 * @return The programs in this corpus
+	 */
+	public List<BenchmarkProgram> getPrograms() {
+		return Collections.unmodifiableList(programs);
+	}
+
+	/**
+	 * Adds one program for every test code class
+	 * @throws ClassNotFoundException Thrown if a test code class is not on the
+	 * class path
+	 */
+	private void addTestCodePrograms() throws ClassNotFoundException {
+		List<String> sources = TestCodeSignatures.SOURCES;
+		List<String> sinks = TestCodeSignatures.SINKS;
+
+		for (String className : TEST_CODE_CLASSES) {
+			List<String> entryPoints = new ArrayList<String>();
+			Method[] methods = Class.forName(className).getDeclaredMethods();
+			Arrays.sort(methods, new Comparator<Method>() {
+
+				@Override
+				public int compare(Method o1, Method o2) {
+					return o1.getName().compareTo(o2.getName());
+				}
+
+			});
+			for (Method method : methods)
+				if (Modifier.isPublic(method.getModifiers())
+						&& !Modifier.isStatic(method.getModifiers())
+						&& method.getReturnType() == void.class
+						&& method.getParameterTypes().length == 0)
+					entryPoints.add("<" + className + ": void " + method.getName() + "()>");
+
+			String simpleName = className.substring(className.lastIndexOf('.') + 1);
+			BenchmarkProgram program = new BenchmarkProgram("testcode/" + simpleName,
+					entryPoints, sources, sinks, new ConfigForTest());
+			program.setUseTaintWrapper(true);
+			addProgram(program);
+		}
+	}
+
+	/**
+	 * Generates the synthetic programs of the scaling series around the
+	 * default specification and adds them to this corpus
+	 * @param targetDir The directory into which to generate the programs
+	 * @throws IOException Thrown if a program cannot be generated
+	 */
+	public void addSyntheticPrograms(File targetDir) throws IOException {
+		Map<String, SyntheticProgramSpec> series = SyntheticProgramGenerator.createScalingSeries(
+				new SyntheticProgramSpec());
+		for (Map.Entry<String, SyntheticProgramSpec> entry : series.entrySet()) {
+			SyntheticProgramGenerator generator = new SyntheticProgramGenerator(entry.getValue());
+			addProgram(generator.generate("synthetic/" + entry.getKey(),
+					new File(targetDir, entry.getKey())));
+		}
+	}
+
+	/**
+	 * Adds one program for every SecuriBench Micro category. The servlets of
+	 * a category are found by scanning the category's source directory.
+	 * @param securiBenchDir The directory that contains the SecuriBench Micro
+	 * sources
+	 * @throws IOException Thrown if the SecuriBench sources cannot be read
+	 */
+	private void addSecuriBenchPrograms(File securiBenchDir) throws IOException {
+		List<String> substClasses = Arrays.asList(
+				"soot.jimple.infoflow.test.securibench.supportClasses.DummyHttpRequest",
+				"soot.jimple.infoflow.test.securibench.supportClasses.DummyHttpResponse");
+		List<String> sources = SecuriBenchSignatures.SOURCES;
+		List<String> sinks = SecuriBenchSignatures.SINKS;
+
+		for (String category : SECURIBENCH_CATEGORIES) {
+			File categoryDir = new File(securiBenchDir, "securibench" + File.separator + "micro"
+					+ File.separator + category);
+			File[] files = categoryDir.listFiles();
+			if (files == null)
+				throw new IOException("SecuriBench category not found: " + categoryDir);
+			Arrays.sort(files);
+
+			List<String> entryPoints = new ArrayList<String>();
+			for (File file : files) {
+				if (!file.getName().endsWith(".java"))
+					continue;
+				String source = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+				if (!source.contains("void doGet(HttpServletRequest"))
+					continue;
+				String className = file.getName().substring(0, file.getName().length() - 5);
+				entryPoints.add("<securibench.micro." + category + "." + className + ": "
+						+ SECURIBENCH_ENTRY_POINT + ">");
+			}
+
+			BenchmarkProgram program = new BenchmarkProgram("securibench/" + category,
+					entryPoints, sources, sinks, new ConfigSecuriBench());
+			program.setSubstituteClasses(substClasses);
+			program.setInspectSinks(false);
+			addProgram(program);
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import soot.jimple.infoflow.config.IInfoflowConfig;
+import soot.jimple.infoflow.entryPointCreators.DefaultEntryPointCreator;
+import soot.jimple.infoflow.entryPointCreators.IEntryPointCreator;
+
+/**
+ * A program in the corpus of the macro benchmark, i.e., a set of entry points
+ * together with the sources and sinks to look for
+ *
+ */
+public class BenchmarkProgram {
+
+	private final String name;
+	private final List<String> entryPoints;
+	private final List<String> sources;
+	private final List<String> sinks;
+	private final IInfoflowConfig sootConfig;
+	private boolean useTaintWrapper = false;
+	private boolean inspectSinks = true;
+	private List<String> substituteClasses = null;
+	private String appPath = null;
+	private String libPath = null;
+
+	/**
+	 * Creates a new instance of the {@link BenchmarkProgram} class
+	 * @param name The unique name of the program in the corpus
+	 * @param entryPoints The signatures of the methods to call from the dummy
+	 * main method
+	 * @param sources The signatures of the source methods
+	 * @param sinks The signatures of the sink methods
+	 * @param sootConfig The configuration to apply to Soot before loading the
+	 * program
+	 */
+	public BenchmarkProgram(String name, Collection<String> entryPoints,
+			Collection<String> sources, Collection<String> sinks,
+			IInfoflowConfig sootConfig) {
+		this.name = name;
+		this.entryPoints = new ArrayList<String>(entryPoints);
+		this.sources = new ArrayList<String>(sources);
+		this.sinks = new ArrayList<String>(sinks);
+		this.sootConfig = sootConfig;
+	}
+
+	/**
+	 * Gets the unique name of this program in the corpus
+	 * @return The name of this program
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	public List<String> getEntryPoints() {
+		return this.entryPoints;
+	}
+
+	public List<String> getSources() {
+		return this.sources;
+	}
+
+	public List<String> getSinks() {
+		return this.sinks;
+	}
+
+	public IInfoflowConfig getSootConfig() {
+		return this.sootConfig;
+	}
+
+	/**
+	 * Gets whether library calls in this program shall be modeled by the
+	 * EasyTaintWrapper
+	 * @return True if the EasyTaintWrapper shall be used, otherwise false
+	 */
+	public boolean getUseTaintWrapper() {
+		return this.useTaintWrapper;
+	}
+
+	/**
+	 * Sets whether library calls in this program shall be modeled by the
+	 * EasyTaintWrapper
+	 * @param useTaintWrapper True if the EasyTaintWrapper shall be used,
+	 * otherwise false
+	 */
+	public void setUseTaintWrapper(boolean useTaintWrapper) {
+		this.useTaintWrapper = useTaintWrapper;
+	}
+
+	/**
+	 * Gets whether the data flow analysis shall propagate taints into the
+	 * sink methods of this program
+	 * @return True if the sink methods shall be analyzed, otherwise false
+	 */
+	public boolean getInspectSinks() {
+		return this.inspectSinks;
+	}
+
+	/**
+	 * Sets whether the data flow analysis shall propagate taints into the
+	 * sink methods of this program
+	 * @param inspectSinks True if the sink methods shall be analyzed,
+	 * otherwise false
+	 */
+	public void setInspectSinks(boolean inspectSinks) {
+		this.inspectSinks = inspectSinks;
+	}
+
+	/**
+	 * Sets the classes that the dummy main method shall use when creating
+	 * parameters for the entry points
+	 * @param substituteClasses The names of the substitute classes
+	 */
+	public void setSubstituteClasses(List<String> substituteClasses) {
+		this.substituteClasses = substituteClasses;
+	}
+
+	/**
+	 * Gets the class path from which to load the program. If this value is
+	 * null, the default application path of the corpus is used.
+	 * @return The application class path of this program
+	 */
+	public String getAppPath() {
+		return this.appPath;
+	}
+
+	/**
+	 * Sets the class path from which to load the program
+	 * @param appPath The application class path of this program, or null to
+	 * use the default application path of the corpus
+	 */
+	public void setAppPath(String appPath) {
+		this.appPath = appPath;
+	}
+
+	/**
+	 * Gets the library class path of the program. If this value is null, the
+	 * default library path of the corpus is used.
+	 * @return The library class path of this program
+	 */
+	public String getLibPath() {
+		return this.libPath;
+	}
+
+	/**
+	 * Sets the library class path of the program
+	 * @param libPath The library class path of this program, or null to use
+	 * the default library path of the corpus
+	 */
+	public void setLibPath(String libPath) {
+		this.libPath = libPath;
+	}
+
+	/**
+	 * Creates the entry point creator that generates the dummy main method for
+	 * this program
+	 * @return The new entry point creator
+	 */
+	public IEntryPointCreator createEntryPointCreator() {
+		DefaultEntryPointCreator entryPointCreator = new DefaultEntryPointCreator(entryPoints);
+		if (substituteClasses != null) {
+			entryPointCreator.setSubstituteCallParams(true);
+			entryPointCreator.setSubstituteClasses(substituteClasses);
+		}
+		return entryPointCreator;
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + entryPoints.size() + " entry points)";
+	}
+
+}
@@ -0,0 +1,157 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The measurements of running one program of the macro benchmark under one
+ * configuration
+ *
+ */
+public class BenchmarkResult {
+
+	private final String program;
+	private final String configuration;
+	private long wallTime = -1;
+	private long forwardPropagationCount = -1;
+	private long backwardPropagationCount = -1;
+	private long peakMemory = -1;
+	private int resultCount = -1;
+	private int repetitions = 0;
+
+	/**
+	 * Creates a new instance of the {@link BenchmarkResult} class
+	 * @param program The name of the program that was analyzed
+	 * @param configuration The name of the configuration that was used
+	 */
+	public BenchmarkResult(String program, String configuration) {
+		this.program = program;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Gets the key that identifies this combination of program and
+	 * configuration in a baseline
+	 * @return The key of this result
+	 */
+	public String getKey() {
+		return getKey(program, configuration);
+	}
+
+	static String getKey(String program, String configuration) {
+		return program + "@" + configuration;
+	}
+
+	public String getProgram() {
+		return this.program;
+	}
+
+	public String getConfiguration() {
+		return this.configuration;
+	}
+
+	/**
+	 * Gets the wall time of the analysis. If the analysis was repeated, this
+	 * is the median of all runs.
+	 * @return The wall time in milliseconds
+	 */
+	public long getWallTime() {
+		return this.wallTime;
+	}
+
+	public void setWallTime(long wallTime) {
+		this.wallTime = wallTime;
+	}
+
+	public long getForwardPropagationCount() {
+		return this.forwardPropagationCount;
+	}
+
+	public void setForwardPropagationCount(long forwardPropagationCount) {
+		this.forwardPropagationCount = forwardPropagationCount;
+	}
+
+	public long getBackwardPropagationCount() {
+		return this.backwardPropagationCount;
+	}
+
+	public void setBackwardPropagationCount(long backwardPropagationCount) {
+		this.backwardPropagationCount = backwardPropagationCount;
+	}
+
+	/**
+	 * Gets the peak memory consumption of the analysis. If the analysis was
+	 * repeated, this is the maximum over all runs.
+	 * @return The peak memory consumption in bytes, or -1 if it is not known
+	 */
+	public long getPeakMemory() {
+		return this.peakMemory;
+	}
+
+	public void setPeakMemory(long peakMemory) {
+		this.peakMemory = peakMemory;
+	}
+
+	public int getResultCount() {
+		return this.resultCount;
+	}
+
+	public void setResultCount(int resultCount) {
+		this.resultCount = resultCount;
+	}
+
+	public int getRepetitions() {
+		return this.repetitions;
+	}
+
+	public void setRepetitions(int repetitions) {
+		this.repetitions = repetitions;
+	}
+
+	/**
+	 * Converts this result into the map that represents it in a JSON file
+	 * @return The map that represents this result
+	 */
+	Map<String, Object> toJson() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("program", program);
+		map.put("configuration", configuration);
+		map.put("wallTimeMs", wallTime);
+		map.put("forwardPropagations", forwardPropagationCount);
+		map.put("backwardPropagations", backwardPropagationCount);
+		map.put("peakMemoryBytes", peakMemory);
+		map.put("resultCount", resultCount);
+		map.put("repetitions", repetitions);
+		return map;
+	}
+
+	/**
+	 * Creates a result from its representation in a JSON file
+	 * @param map The map that represents the result
+	 * @return The result
+	 */
+	static BenchmarkResult fromJson(Map<?, ?> map) {
+		BenchmarkResult result = new BenchmarkResult((String) map.get("program"),
+				(String) map.get("configuration"));
+		result.wallTime = getLong(map, "wallTimeMs");
+		result.forwardPropagationCount = getLong(map, "forwardPropagations");
+		result.backwardPropagationCount = getLong(map, "backwardPropagations");
+		result.peakMemory = getLong(map, "peakMemoryBytes");
+		result.resultCount = (int) getLong(map, "resultCount");
+		result.repetitions = (int) getLong(map, "repetitions");
+		return result;
+	}
+
+	private static long getLong(Map<?, ?> map, String key) {
+		Object value = map.get(key);
+		return value instanceof Number ? ((Number) value).longValue() : -1;
+	}
+
+	@Override
+	public String toString() {
+		return getKey() + ": " + wallTime + " ms, " + forwardPropagationCount + " forward / "
+				+ backwardPropagationCount + " backward propagations, "
+				+ (peakMemory < 0 ? "?" : peakMemory / 1000000) + " MB, " + resultCount + " results";
+	}
+
+}
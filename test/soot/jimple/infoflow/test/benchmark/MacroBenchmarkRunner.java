@@ -0,0 +1,325 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
+
+/**
+ * Runs the programs of the benchmark corpus under a set of configurations,
+ * records the wall time, the number of propagations, the peak memory
+ * consumption and the number of results, and compares them against a
+ * checked-in baseline. Run it from the project root with the main classes,
+ * the test classes and Soot on the class path. The exit code is 1 if a
+ * regression was found, 2 if the benchmark could not be run, and 0
+ * otherwise.
+ *
+ * <pre>
+ * Options:
+ *   --baseline FILE      The baseline to compare against
+ *                        (default: benchmarks/macro-baseline.json)
+ *   --output FILE        The file into which to write the new results
+ *                        (default: benchmarks/macro-results.json)
+ *   --update-baseline    Merge the new results into the baseline file
+ *   --programs REGEX     Only run the programs whose names match
+ *   --configs REGEX      Only run the configurations whose names match
+ *   --repetitions N      How often to run every combination (default: 3)
+ *   --timeout SECONDS    Abort the data flow analysis after the given time
+ *   --securibench DIR    The SecuriBench Micro sources (default: securiBench)
+ *   --synthetic DIR      Where to generate the synthetic programs
+ *                        (default: build/synthetic)
+ *   --no-synthetic       Do not run the synthetic programs
+ * </pre>
+ *
+ */
+public class MacroBenchmarkRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(MacroBenchmarkRunner.class);
+
+	private final BenchmarkCorpus corpus;
+	private final List<BenchmarkConfiguration> configurations;
+	private String appPath;
+	private String libPath;
+	private int repetitions = 3;
+	private long timeout = 0;
+
+	/**
+	 * Creates a new instance of the {@link MacroBenchmarkRunner} class
+	 * @param corpus The programs to analyze
+	 * @param configurations The configurations under which to analyze the
+	 * programs
+	 * @throws IOException Thrown if the default class paths cannot be
+	 * determined
+	 */
+	public MacroBenchmarkRunner(BenchmarkCorpus corpus, List<BenchmarkConfiguration> configurations)
+			throws IOException {
+		this.corpus = corpus;
+		this.configurations = configurations;
+
+		// We use the same class paths as the JUnit tests
+		final String sep = File.pathSeparator;
+		File f = new File(".");
+		this.appPath = new File(f, "bin").getCanonicalPath() + sep
+				+ new File(f, "build" + File.separator + "classes").getCanonicalPath() + sep
+				+ new File(f, "build" + File.separator + "testclasses").getCanonicalPath();
+		this.libPath = System.getProperty("java.home") + File.separator + "lib" + File.separator + "rt.jar"
+				+ sep + new File(f, "lib" + File.separator + "j2ee.jar").getCanonicalPath()
+				+ sep + new File(f, "lib" + File.separator + "cos.jar").getCanonicalPath();
+	}
+
+	public static void main(String[] args) {
+		File baselineFile = new File("benchmarks" + File.separator + "macro-baseline.json");
+		File outputFile = new File("benchmarks" + File.separator + "macro-results.json");
+		File securiBenchDir = new File("securiBench");
+		File syntheticDir = new File("build" + File.separator + "synthetic");
+		boolean updateBaseline = false;
+		Pattern programFilter = null;
+		Pattern configFilter = null;
+		int repetitions = 3;
+		long timeout = 0;
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("--update-baseline"))
+				updateBaseline = true;
+			else if (arg.equals("--no-synthetic"))
+				syntheticDir = null;
+			else if (i + 1 >= args.length) {
+				printUsage("Missing value for option " + arg);
+				return;
+			}
+			else if (arg.equals("--baseline"))
+				baselineFile = new File(args[++i]);
+			else if (arg.equals("--output"))
+				outputFile = new File(args[++i]);
+			else if (arg.equals("--programs"))
+				programFilter = Pattern.compile(args[++i]);
+			else if (arg.equals("--configs"))
+				configFilter = Pattern.compile(args[++i]);
+			else if (arg.equals("--repetitions"))
+				repetitions = Integer.parseInt(args[++i]);
+			else if (arg.equals("--timeout"))
+				timeout = Long.parseLong(args[++i]);
+			else if (arg.equals("--securibench"))
+				securiBenchDir = new File(args[++i]);
+			else if (arg.equals("--synthetic"))
+				syntheticDir = new File(args[++i]);
+			else {
+				printUsage("Unknown option " + arg);
+				return;
+			}
+		}
+
+		try {
+			// Select the programs and configurations to run
+			BenchmarkCorpus fullCorpus = BenchmarkCorpus.createDefaultCorpus(securiBenchDir);
+			if (syntheticDir != null)
+				fullCorpus.addSyntheticPrograms(syntheticDir);
+			BenchmarkCorpus corpus = new BenchmarkCorpus();
+			for (BenchmarkProgram program : fullCorpus.getPrograms())
+				if (programFilter == null || programFilter.matcher(program.getName()).find())
+					corpus.addProgram(program);
+			List<BenchmarkConfiguration> configs = new ArrayList<BenchmarkConfiguration>();
+			for (BenchmarkConfiguration config : BenchmarkConfiguration.getDefaultConfigurations())
+				if (configFilter == null || configFilter.matcher(config.getName()).find())
+					configs.add(config);
+
+			MacroBenchmarkRunner runner = new MacroBenchmarkRunner(corpus, configs);
+			runner.setRepetitions(repetitions);
+			runner.setTimeout(timeout);
+			List<BenchmarkResult> results = runner.run();
+
+			// Write out the new results
+			BenchmarkBaseline current = new BenchmarkBaseline();
+			current.addResults(results);
+			current.save(outputFile);
+			logger.info("Results written to {}", outputFile);
+
+			// Compare the results against the baseline
+			BenchmarkBaseline baseline = baselineFile.exists() ? BenchmarkBaseline.load(baselineFile)
+					: new BenchmarkBaseline();
+			int regressions = compare(baseline, results);
+
+			if (updateBaseline) {
+				baseline.addResults(results);
+				baseline.save(baselineFile);
+				logger.info("Baseline {} updated", baselineFile);
+			}
+			else if (regressions > 0)
+				System.exit(1);
+		} catch (IOException | ClassNotFoundException ex) {
+			logger.error("Could not run the macro benchmark", ex);
+			System.exit(2);
+		}
+	}
+
+	private static void printUsage(String error) {
+		System.err.println(error);
+		System.err.println("Usage: MacroBenchmarkRunner [--baseline FILE] [--output FILE] [--update-baseline]"
+				+ " [--programs REGEX] [--configs REGEX] [--repetitions N] [--timeout SECONDS]"
+				+ " [--securibench DIR] [--synthetic DIR | --no-synthetic]");
+		System.exit(2);
+	}
+
+	/**
+	 * Compares the given results against the baseline and logs the outcome
+	 * @param baseline The baseline to compare against
+	 * @param results The new results
+	 * @return The number of results with at least one regression
+	 */
+	public static int compare(BenchmarkBaseline baseline, List<BenchmarkResult> results) {
+		int regressed = 0;
+		int missing = 0;
+		for (BenchmarkResult result : results) {
+			BenchmarkResult base = baseline.getResult(result.getProgram(), result.getConfiguration());
+			if (base == null) {
+				missing++;
+				logger.info("NEW       {}", result);
+				continue;
+			}
+
+			List<String> regressions = baseline.findRegressions(result);
+			if (regressions.isEmpty())
+				logger.info("OK        {}", result);
+			else {
+				regressed++;
+				logger.warn("REGRESSED {}", result);
+				for (String regression : regressions)
+					logger.warn("          {}", regression);
+			}
+		}
+		logger.info("{} of {} runs regressed, {} runs have no baseline", regressed, results.size(), missing);
+		return regressed;
+	}
+
+	/**
+	 * Runs all programs of the corpus under all configurations
+	 * @return The measurements, one for every combination of program and
+	 * configuration
+	 * @throws IOException Thrown if the taint wrapper cannot be loaded
+	 */
+	public List<BenchmarkResult> run() throws IOException {
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+		for (BenchmarkConfiguration config : configurations) {
+			logger.info("Running configuration {}", config);
+			for (BenchmarkProgram program : corpus.getPrograms())
+				results.add(run(program, config));
+		}
+		return results;
+	}
+
+	/**
+	 * Runs a single program under a single configuration. The analysis is
+	 * repeated as often as configured, the wall time is the median of all
+	 * runs.
+	 * @param program The program to analyze
+	 * @param config The configuration to use
+	 * @return The measurements of the analysis
+	 * @throws IOException Thrown if the taint wrapper cannot be loaded
+	 */
+	public BenchmarkResult run(BenchmarkProgram program, BenchmarkConfiguration config) throws IOException {
+		logger.info("Analyzing {} with configuration {}", program, config.getName());
+		BenchmarkResult result = new BenchmarkResult(program.getName(), config.getName());
+		long[] wallTimes = new long[repetitions];
+		for (int i = 0; i < repetitions; i++) {
+			Infoflow infoflow = createInfoflow(program, config);
+
+			// Do not let garbage from the previous run distort the measurement
+			System.gc();
+
+			long beforeRun = System.nanoTime();
+			analyze(infoflow, program);
+			wallTimes[i] = (System.nanoTime() - beforeRun) / 1000000;
+
+			// Propagation and result counts should be the same for every run,
+			// we keep the last ones
+			InfoflowResults results = infoflow.getResults();
+			result.setResultCount(results == null ? 0 : results.size());
+			result.setForwardPropagationCount(infoflow.getMetrics().getForwardPropagationCount());
+			result.setBackwardPropagationCount(infoflow.getMetrics().getBackwardPropagationCount());
+			result.setPeakMemory(Math.max(result.getPeakMemory(), infoflow.getMaxMemoryConsumption()));
+		}
+
+		Arrays.sort(wallTimes);
+		result.setWallTime(wallTimes[wallTimes.length / 2]);
+		result.setRepetitions(repetitions);
+		return result;
+	}
+
+	/**
+	 * Creates a data flow analysis for the given program under the given
+	 * configuration
+	 * @param program The program to analyze
+	 * @param config The configuration to use
+	 * @return The configured data flow analysis
+	 * @throws IOException Thrown if the taint wrapper cannot be loaded
+	 */
+	public Infoflow createInfoflow(BenchmarkProgram program, BenchmarkConfiguration config)
+			throws IOException {
+		Infoflow infoflow = new Infoflow();
+		infoflow.setSootConfig(program.getSootConfig());
+		infoflow.getConfig().setInspectSinks(program.getInspectSinks());
+		if (timeout > 0)
+			infoflow.getConfig().setDataFlowTimeout(timeout);
+		if (program.getUseTaintWrapper())
+			infoflow.setTaintWrapper(new EasyTaintWrapper(new File("EasyTaintWrapperSource.txt")));
+		config.apply(infoflow);
+		return infoflow;
+	}
+
+	/**
+	 * Runs the given data flow analysis on the given program
+	 * @param infoflow The data flow analysis, as created by createInfoflow()
+	 * @param program The program to analyze
+	 */
+	public void analyze(Infoflow infoflow, BenchmarkProgram program) {
+		infoflow.computeInfoflow(program.getAppPath() == null ? appPath : program.getAppPath(),
+				program.getLibPath() == null ? libPath : program.getLibPath(),
+				program.createEntryPointCreator(), program.getSources(), program.getSinks());
+	}
+
+	/**
+	 * Sets how often every combination of program and configuration shall be
+	 * analyzed
+	 * @param repetitions The number of repetitions
+	 */
+	public void setRepetitions(int repetitions) {
+		if (repetitions < 1)
+			throw new IllegalArgumentException("At least one repetition is required");
+		this.repetitions = repetitions;
+	}
+
+	/**
+	 * Sets the timeout after which the data flow analysis is aborted
+	 * @param timeout The timeout in seconds, or 0 for no timeout
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Sets the default class path from which to load the programs
+	 * @param appPath The default application class path
+	 */
+	public void setAppPath(String appPath) {
+		this.appPath = appPath;
+	}
+
+	/**
+	 * Sets the default library class path of the programs
+	 * @param libPath The default library class path
+	 */
+	public void setLibPath(String libPath) {
+		this.libPath = libPath;
+	}
+
+}
@@ -0,0 +1,274 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader and writer for the JSON files of the macro benchmark. Objects
+ * are represented as maps, arrays as lists, and numbers as longs or doubles.
+ *
+ */
+class SimpleJson {
+
+	private final String text;
+	private int pos = 0;
+
+	private SimpleJson(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * Parses the given JSON text
+	 * @param text The text to parse
+	 * @return The parsed value
+	 * @throws IllegalArgumentException Thrown if the text is not valid JSON
+	 */
+	public static Object parse(String text) {
+		SimpleJson parser = new SimpleJson(text);
+		Object value = parser.readValue();
+		parser.skipWhitespace();
+		if (parser.pos != text.length())
+			throw parser.error("Unexpected trailing data");
+		return value;
+	}
+
+	/**
+	 * Converts the given value into JSON text
+	 * @param value The value to convert. Maps, lists, strings, numbers,
+	 * booleans, and null are supported.
+	 * @return The JSON text
+	 */
+	public static String write(Object value) {
+		StringBuilder sb = new StringBuilder();
+		write(value, sb, "");
+		sb.append("\n");
+		return sb.toString();
+	}
+
+	private static void write(Object value, StringBuilder sb, String indent) {
+		if (value == null)
+			sb.append("null");
+		else if (value instanceof String)
+			writeString((String) value, sb);
+		else if (value instanceof Number || value instanceof Boolean)
+			sb.append(value);
+		else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			if (map.isEmpty()) {
+				sb.append("{}");
+				return;
+			}
+			String innerIndent = indent + "  ";
+			sb.append("{");
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				sb.append(first ? "\n" : ",\n").append(innerIndent);
+				first = false;
+				writeString(entry.getKey().toString(), sb);
+				sb.append(": ");
+				write(entry.getValue(), sb, innerIndent);
+			}
+			sb.append("\n").append(indent).append("}");
+		}
+		else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			if (list.isEmpty()) {
+				sb.append("[]");
+				return;
+			}
+			String innerIndent = indent + "  ";
+			sb.append("[");
+			boolean first = true;
+			for (Object item : list) {
+				sb.append(first ? "\n" : ",\n").append(innerIndent);
+				first = false;
+				write(item, sb, innerIndent);
+			}
+			sb.append("\n").append(indent).append("]");
+		}
+		else
+			throw new IllegalArgumentException("Unsupported value type: " + value.getClass());
+	}
+
+	private static void writeString(String value, StringBuilder sb) {
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					sb.append(String.format("\\u%04x", (int) c));
+				else
+					sb.append(c);
+			}
+		}
+		sb.append('"');
+	}
+
+	private Object readValue() {
+		skipWhitespace();
+		if (pos >= text.length())
+			throw error("Unexpected end of input");
+		char c = text.charAt(pos);
+		switch (c) {
+		case '{':
+			return readObject();
+		case '[':
+			return readArray();
+		case '"':
+			return readString();
+		case 't':
+			expect("true");
+			return Boolean.TRUE;
+		case 'f':
+			expect("false");
+			return Boolean.FALSE;
+		case 'n':
+			expect("null");
+			return null;
+		default:
+			return readNumber();
+		}
+	}
+
+	private Map<String, Object> readObject() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		pos++;
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+			return map;
+		}
+		while (true) {
+			skipWhitespace();
+			String key = readString();
+			skipWhitespace();
+			if (peek() != ':')
+				throw error("Expected ':'");
+			pos++;
+			map.put(key, readValue());
+			skipWhitespace();
+			char c = peek();
+			pos++;
+			if (c == '}')
+				return map;
+			if (c != ',')
+				throw error("Expected ',' or '}'");
+		}
+	}
+
+	private List<Object> readArray() {
+		List<Object> list = new ArrayList<Object>();
+		pos++;
+		skipWhitespace();
+		if (peek() == ']') {
+			pos++;
+			return list;
+		}
+		while (true) {
+			list.add(readValue());
+			skipWhitespace();
+			char c = peek();
+			pos++;
+			if (c == ']')
+				return list;
+			if (c != ',')
+				throw error("Expected ',' or ']'");
+		}
+	}
+
+	private String readString() {
+		if (peek() != '"')
+			throw error("Expected string");
+		pos++;
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			char c = peek();
+			pos++;
+			if (c == '"')
+				return sb.toString();
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+			char escaped = peek();
+			pos++;
+			switch (escaped) {
+			case 'n':
+				sb.append('\n');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'b':
+				sb.append('\b');
+				break;
+			case 'f':
+				sb.append('\f');
+				break;
+			case 'u':
+				if (pos + 4 > text.length())
+					throw error("Invalid unicode escape");
+				sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+				pos += 4;
+				break;
+			default:
+				sb.append(escaped);
+			}
+		}
+	}
+
+	private Number readNumber() {
+		int start = pos;
+		while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0)
+			pos++;
+		String number = text.substring(start, pos);
+		if (number.isEmpty())
+			throw error("Unexpected character");
+		if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0)
+			return Double.valueOf(number);
+		return Long.valueOf(number);
+	}
+
+	private void expect(String literal) {
+		if (!text.startsWith(literal, pos))
+			throw error("Expected " + literal);
+		pos += literal.length();
+	}
+
+	private char peek() {
+		if (pos >= text.length())
+			throw error("Unexpected end of input");
+		return text.charAt(pos);
+	}
+
+	private void skipWhitespace() {
+		while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+			pos++;
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + pos);
+	}
+
+}
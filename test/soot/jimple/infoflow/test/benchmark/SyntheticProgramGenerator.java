@@ -0,0 +1,312 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import soot.jimple.infoflow.config.ConfigForTest;
+
+/**
+ * Generates synthetic programs of configurable size and shape for the
+ * scalability benchmarks. The generator emits Java sources and compiles them
+ * with the system Java compiler, so it needs to run on a JDK.
+ *
+ * <p>
+ * A generated program consists of the following classes in the package
+ * <code>synthetic</code>:
+ * <ul>
+ * <li><code>Api</code> contains the source and sink methods.</li>
+ * <li><code>Node</code> is the heap object through which the tainted values
+ * are passed.</li>
+ * <li><code>Main</code> contains one entry point per source. It builds a chain
+ * of nodes, stores the source value at its end, and calls the first
+ * layer.</li>
+ * <li><code>Layer0</code> to <code>LayerN</code> contain the layered call
+ * graph. The methods on the last layer read the value and call the
+ * sinks.</li>
+ * </ul>
+ *
+ */
+public class SyntheticProgramGenerator {
+
+	/**
+	 * The package of the generated classes
+	 */
+	public static final String PACKAGE = "synthetic";
+
+	private static final String API_CLASS = PACKAGE + ".Api";
+	private static final String MAIN_CLASS = PACKAGE + ".Main";
+
+	private final SyntheticProgramSpec spec;
+	private final Random random;
+
+	/**
+	 * Creates a new instance of the {@link SyntheticProgramGenerator} class
+	 * @param spec The shape of the program to generate
+	 */
+	public SyntheticProgramGenerator(SyntheticProgramSpec spec) {
+		this.spec = spec;
+		this.random = new Random(spec.getSeed());
+	}
+
+	/**
+	 * Creates a series of specifications that grow the given base
+	 * specification along each dimension in turn. All other dimensions keep
+	 * the values of the base specification, so that the runs of one series
+	 * show how the analysis scales in that dimension.
+	 * @param base The base specification
+	 * @return The specifications of the series, indexed by a name of the form
+	 * dimension-value
+	 */
+	public static Map<String, SyntheticProgramSpec> createScalingSeries(SyntheticProgramSpec base) {
+		Map<String, SyntheticProgramSpec> series = new LinkedHashMap<String, SyntheticProgramSpec>();
+		for (int depth : new int[] { 2, 4, 8, 16 }) {
+			SyntheticProgramSpec spec = base.copy();
+			spec.setCallDepth(depth);
+			series.put("depth-" + depth, spec);
+		}
+		for (int fanOut : new int[] { 1, 2, 4, 8 }) {
+			SyntheticProgramSpec spec = base.copy();
+			spec.setFanOut(fanOut);
+			series.put("fanout-" + fanOut, spec);
+		}
+		for (double recursion : new double[] { 0, 0.1, 0.3, 0.6 }) {
+			SyntheticProgramSpec spec = base.copy();
+			spec.setRecursionProbability(recursion);
+			series.put("recursion-" + recursion, spec);
+		}
+		for (int heapDepth : new int[] { 0, 1, 3, 6 }) {
+			SyntheticProgramSpec spec = base.copy();
+			spec.setHeapDepth(heapDepth);
+			series.put("heap-" + heapDepth, spec);
+		}
+		for (double aliasDensity : new double[] { 0, 0.25, 0.5, 1 }) {
+			SyntheticProgramSpec spec = base.copy();
+			spec.setAliasDensity(aliasDensity);
+			series.put("alias-" + aliasDensity, spec);
+		}
+		for (int sources : new int[] { 1, 4, 16, 64 }) {
+			SyntheticProgramSpec spec = base.copy();
+			spec.setSourceCount(sources);
+			series.put("sources-" + sources, spec);
+		}
+		for (int sinks : new int[] { 1, 4, 16, 64 }) {
+			SyntheticProgramSpec spec = base.copy();
+			spec.setSinkCount(sinks);
+			series.put("sinks-" + sinks, spec);
+		}
+		return series;
+	}
+
+	/**
+	 * Generates the program, compiles it, and creates the corpus entry for it
+	 * @param name The name of the program in the corpus
+	 * @param targetDir The directory into which to write the sources and
+	 * classes
+	 * @return The corpus entry for the generated program
+	 * @throws IOException Thrown if the program cannot be written or compiled
+	 */
+	public BenchmarkProgram generate(String name, File targetDir) throws IOException {
+		File sourceDir = new File(targetDir, "src");
+		File classesDir = new File(targetDir, "classes");
+		File packageDir = new File(sourceDir, PACKAGE);
+		if (!packageDir.mkdirs() && !packageDir.isDirectory())
+			throw new IOException("Could not create directory " + packageDir);
+		if (!classesDir.mkdirs() && !classesDir.isDirectory())
+			throw new IOException("Could not create directory " + classesDir);
+
+		List<File> files = new ArrayList<File>();
+		files.add(write(packageDir, "Api", generateApi()));
+		files.add(write(packageDir, "Node", generateNode()));
+		files.add(write(packageDir, "Main", generateMain()));
+		for (int layer = 0; layer <= spec.getCallDepth(); layer++)
+			files.add(write(packageDir, "Layer" + layer, generateLayer(layer)));
+		compile(files, classesDir);
+
+		BenchmarkProgram program = new BenchmarkProgram(name, getEntryPoints(), getSources(),
+				getSinks(), new ConfigForTest());
+		program.setAppPath(classesDir.getCanonicalPath());
+		return program;
+	}
+
+	/**
+	 * Gets the signatures of the entry points of the generated program
+	 * @return The signatures of the entry points
+	 */
+	public List<String> getEntryPoints() {
+		List<String> entryPoints = new ArrayList<String>();
+		for (int i = 0; i < spec.getSourceCount(); i++)
+			entryPoints.add("<" + MAIN_CLASS + ": void flow" + i + "()>");
+		return entryPoints;
+	}
+
+	/**
+	 * Gets the signatures of the source methods of the generated program
+	 * @return The signatures of the source methods
+	 */
+	public List<String> getSources() {
+		List<String> sources = new ArrayList<String>();
+		for (int i = 0; i < spec.getSourceCount(); i++)
+			sources.add("<" + API_CLASS + ": java.lang.String source" + i + "()>");
+		return sources;
+	}
+
+	/**
+	 * Gets the signatures of the sink methods of the generated program
+	 * @return The signatures of the sink methods
+	 */
+	public List<String> getSinks() {
+		List<String> sinks = new ArrayList<String>();
+		for (int i = 0; i < spec.getSinkCount(); i++)
+			sinks.add("<" + API_CLASS + ": void sink" + i + "(java.lang.String)>");
+		return sinks;
+	}
+
+	/**
+	 * Gets the number of methods on the given layer
+	 * @param layer The layer
+	 * @return The number of methods on the given layer
+	 */
+	private int getLayerWidth(int layer) {
+		long width = spec.getSourceCount();
+		for (int i = 0; i < layer && width < spec.getMaxMethodsPerLayer(); i++)
+			width *= spec.getFanOut();
+		return (int) Math.min(width, spec.getMaxMethodsPerLayer());
+	}
+
+	/**
+	 * Gets the expression that accesses the node at the end of the heap
+	 * chain starting at the given local
+	 */
+	private String getHeapPath(String local) {
+		StringBuilder sb = new StringBuilder(local);
+		for (int i = 0; i < spec.getHeapDepth(); i++)
+			sb.append(".next");
+		return sb.toString();
+	}
+
+	private String generateApi() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(PACKAGE).append(";\n\n");
+		sb.append("public class Api {\n\n");
+		sb.append("\tpublic static int flag = 0;\n\n");
+		for (int i = 0; i < spec.getSourceCount(); i++)
+			sb.append("\tpublic static String source").append(i).append("() {\n\t\treturn \"secret")
+					.append(i).append("\";\n\t}\n\n");
+		for (int i = 0; i < spec.getSinkCount(); i++)
+			sb.append("\tpublic static void sink").append(i).append("(String value) {\n\t}\n\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	private String generateNode() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(PACKAGE).append(";\n\n");
+		sb.append("public class Node {\n\n");
+		sb.append("\tpublic Node next;\n");
+		sb.append("\tpublic String data;\n");
+		sb.append("\tpublic String other;\n\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	private String generateMain() {
+		int firstLayerWidth = getLayerWidth(0);
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(PACKAGE).append(";\n\n");
+		sb.append("public class Main {\n\n");
+		for (int i = 0; i < spec.getSourceCount(); i++) {
+			sb.append("\tpublic void flow").append(i).append("() {\n");
+			sb.append("\t\tNode root = new Node();\n");
+			String path = "root";
+			for (int d = 0; d < spec.getHeapDepth(); d++) {
+				sb.append("\t\t").append(path).append(".next = new Node();\n");
+				path += ".next";
+			}
+			sb.append("\t\t").append(path).append(".data = Api.source").append(i).append("();\n");
+			sb.append("\t\tLayer0.m").append(i % firstLayerWidth).append("(root);\n");
+			sb.append("\t}\n\n");
+		}
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	private String generateLayer(int layer) {
+		boolean isLeaf = layer == spec.getCallDepth();
+		int width = getLayerWidth(layer);
+		int nextWidth = isLeaf ? 0 : getLayerWidth(layer + 1);
+		String path = getHeapPath("n");
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(PACKAGE).append(";\n\n");
+		sb.append("public class Layer").append(layer).append(" {\n\n");
+		for (int i = 0; i < width; i++) {
+			sb.append("\tpublic static void m").append(i).append("(Node n) {\n");
+
+			// Write the value through an alias of the node that holds it
+			if (random.nextDouble() < spec.getAliasDensity()) {
+				sb.append("\t\tNode a = ").append(path).append(";\n");
+				sb.append("\t\tNode b = a;\n");
+				sb.append("\t\tb.other = a.data;\n");
+			}
+
+			if (isLeaf) {
+				sb.append("\t\tApi.sink").append(i % spec.getSinkCount()).append("(")
+						.append(path).append(".data);\n");
+			}
+			else {
+				for (int j = 0; j < spec.getFanOut(); j++) {
+					int callee = (i * spec.getFanOut() + j) % nextWidth;
+					sb.append("\t\tLayer").append(layer + 1).append(".m").append(callee).append("(n);\n");
+				}
+			}
+
+			// Call back into a previous layer to create a recursive cycle
+			if (layer > 0 && random.nextDouble() < spec.getRecursionProbability()) {
+				int target = random.nextInt(layer);
+				int callee = random.nextInt(getLayerWidth(target));
+				sb.append("\t\tif (Api.flag > ").append(layer).append(")\n");
+				sb.append("\t\t\tLayer").append(target).append(".m").append(callee).append("(n);\n");
+			}
+			sb.append("\t}\n\n");
+		}
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	private static File write(File packageDir, String className, String source) throws IOException {
+		File file = new File(packageDir, className + ".java");
+		Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static void compile(List<File> files, File classesDir) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null)
+			throw new IOException("No Java compiler available, the synthetic programs require a JDK");
+
+		StringWriter output = new StringWriter();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null,
+				StandardCharsets.UTF_8)) {
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+			List<String> options = Arrays.asList("-g", "-source", "1.7", "-target", "1.7",
+					"-d", classesDir.getPath());
+			if (!compiler.getTask(output, fileManager, null, options, null, units).call())
+				throw new IOException("Could not compile the synthetic program: " + output);
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+package soot.jimple.infoflow.test.benchmark;
+
+/**
+ * The shape of a synthetic program for the scalability benchmarks. Every
+ * source is read in its own entry point, stored at the end of a chain of heap
+ * objects and passed down a layered call graph. The methods on the last
+ * layer read the value from the heap and pass it to a sink.
+ *
+ */
+public class SyntheticProgramSpec {
+
+	private int callDepth = 4;
+	private int fanOut = 2;
+	private int maxMethodsPerLayer = 64;
+	private double recursionProbability = 0;
+	private int heapDepth = 1;
+	private double aliasDensity = 0;
+	private int sourceCount = 1;
+	private int sinkCount = 1;
+	private long seed = 42;
+
+	/**
+	 * Creates a copy of this specification
+	 * @return The copy of this specification
+	 */
+	public SyntheticProgramSpec copy() {
+		SyntheticProgramSpec spec = new SyntheticProgramSpec();
+		spec.callDepth = callDepth;
+		spec.fanOut = fanOut;
+		spec.maxMethodsPerLayer = maxMethodsPerLayer;
+		spec.recursionProbability = recursionProbability;
+		spec.heapDepth = heapDepth;
+		spec.aliasDensity = aliasDensity;
+		spec.sourceCount = sourceCount;
+		spec.sinkCount = sinkCount;
+		spec.seed = seed;
+		return spec;
+	}
+
+	/**
+	 * Gets the number of method layers between an entry point and a sink
+	 * @return The call depth
+	 */
+	public int getCallDepth() {
+		return this.callDepth;
+	}
+
+	public void setCallDepth(int callDepth) {
+		if (callDepth < 1)
+			throw new IllegalArgumentException("The call depth must be at least 1");
+		this.callDepth = callDepth;
+	}
+
+	/**
+	 * Gets the number of methods on the next layer that every method calls
+	 * @return The fan-out of the call graph
+	 */
+	public int getFanOut() {
+		return this.fanOut;
+	}
+
+	public void setFanOut(int fanOut) {
+		if (fanOut < 1)
+			throw new IllegalArgumentException("The fan-out must be at least 1");
+		this.fanOut = fanOut;
+	}
+
+	/**
+	 * Gets the maximum number of methods per layer. Once a layer reaches this
+	 * size, the methods of the previous layer share their callees, so that
+	 * the call graph does not grow exponentially with the call depth.
+	 * @return The maximum number of methods per layer
+	 */
+	public int getMaxMethodsPerLayer() {
+		return this.maxMethodsPerLayer;
+	}
+
+	public void setMaxMethodsPerLayer(int maxMethodsPerLayer) {
+		if (maxMethodsPerLayer < 1)
+			throw new IllegalArgumentException("Every layer needs at least one method");
+		this.maxMethodsPerLayer = maxMethodsPerLayer;
+	}
+
+	/**
+	 * Gets the probability with which a method additionally calls a method on
+	 * one of the previous layers, creating a recursive cycle
+	 * @return The probability of a recursive call between 0 and 1
+	 */
+	public double getRecursionProbability() {
+		return this.recursionProbability;
+	}
+
+	public void setRecursionProbability(double recursionProbability) {
+		this.recursionProbability = recursionProbability;
+	}
+
+	/**
+	 * Gets the number of heap objects between the local variable and the
+	 * field that holds the tainted value, i.e., the length of the field chain
+	 * through which the value is accessed
+	 * @return The heap object depth
+	 */
+	public int getHeapDepth() {
+		return this.heapDepth;
+	}
+
+	public void setHeapDepth(int heapDepth) {
+		if (heapDepth < 0)
+			throw new IllegalArgumentException("The heap depth must not be negative");
+		this.heapDepth = heapDepth;
+	}
+
+	/**
+	 * Gets the probability with which a method creates aliases of the heap
+	 * object that holds the tainted value and writes the value through them,
+	 * which triggers the alias analysis
+	 * @return The probability of an alias between 0 and 1
+	 */
+	public double getAliasDensity() {
+		return this.aliasDensity;
+	}
+
+	public void setAliasDensity(double aliasDensity) {
+		this.aliasDensity = aliasDensity;
+	}
+
+	/**
+	 * Gets the number of source methods. Every source is read in its own
+	 * entry point.
+	 * @return The number of sources
+	 */
+	public int getSourceCount() {
+		return this.sourceCount;
+	}
+
+	public void setSourceCount(int sourceCount) {
+		if (sourceCount < 1)
+			throw new IllegalArgumentException("At least one source is required");
+		this.sourceCount = sourceCount;
+	}
+
+	/**
+	 * Gets the number of sink methods. The methods on the last layer call the
+	 * sinks in a round-robin fashion.
+	 * @return The number of sinks
+	 */
+	public int getSinkCount() {
+		return this.sinkCount;
+	}
+
+	public void setSinkCount(int sinkCount) {
+		if (sinkCount < 1)
+			throw new IllegalArgumentException("At least one sink is required");
+		this.sinkCount = sinkCount;
+	}
+
+	/**
+	 * Gets the seed of the random generator that places the recursive calls
+	 * and aliases. The same specification always yields the same program.
+	 * @return The random seed
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public String toString() {
+		return "depth=" + callDepth + ",fanout=" + fanOut + ",width=" + maxMethodsPerLayer
+				+ ",recursion=" + recursionProbability + ",heap=" + heapDepth + ",alias=" + aliasDensity
+				+ ",sources=" + sourceCount + ",sinks=" + sinkCount + ",seed=" + seed;
+	}
+
+}
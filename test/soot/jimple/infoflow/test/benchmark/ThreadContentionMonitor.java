@@ -0,0 +1,208 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects the lock contention and CPU time of all threads of the JVM while
+ * an analysis is running. The JVM only reports these numbers for live
+ * threads, but the executors of the data flow analysis shut down their
+ * worker threads at the end of each phase. The monitor therefore polls the
+ * numbers periodically and keeps the last value it has seen for every
+ * thread. Whatever a thread does between the last poll and its termination
+ * is lost, so the poll interval should be short compared to the analysis.
+ *
+ */
+public class ThreadContentionMonitor {
+
+	/**
+	 * The default interval between two polls in milliseconds
+	 */
+	public static final long DEFAULT_POLL_INTERVAL = 50;
+
+	private static final int BLOCKED_COUNT = 0;
+	private static final int BLOCKED_TIME = 1;
+	private static final int WAITED_COUNT = 2;
+	private static final int WAITED_TIME = 3;
+	private static final int CPU_TIME = 4;
+	private static final int NUM_VALUES = 5;
+
+	private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+	private final long pollInterval;
+
+	private final Map<Long, long[]> initialValues = new HashMap<>();
+	private final Map<Long, long[]> lastValues = new HashMap<>();
+	private Thread pollThread = null;
+	private volatile boolean running = false;
+
+	/**
+	 * Creates a new instance of the {@link ThreadContentionMonitor} class
+	 * that polls with the default interval
+	 */
+	public ThreadContentionMonitor() {
+		this(DEFAULT_POLL_INTERVAL);
+	}
+
+	/**
+	 * Creates a new instance of the {@link ThreadContentionMonitor} class
+	 * @param pollInterval The interval between two polls in milliseconds
+	 */
+	public ThreadContentionMonitor(long pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+
+	/**
+	 * Starts monitoring. The numbers of the threads that are already running
+	 * are taken as the baseline.
+	 */
+	public synchronized void start() {
+		if (running)
+			throw new IllegalStateException("The monitor is already running");
+		if (threadBean.isThreadContentionMonitoringSupported())
+			threadBean.setThreadContentionMonitoringEnabled(true);
+		if (threadBean.isThreadCpuTimeSupported())
+			threadBean.setThreadCpuTimeEnabled(true);
+
+		initialValues.clear();
+		lastValues.clear();
+		poll();
+		initialValues.putAll(lastValues);
+
+		running = true;
+		pollThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				while (running) {
+					poll();
+					try {
+						Thread.sleep(pollInterval);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+
+		}, "ThreadContentionMonitor");
+		pollThread.setDaemon(true);
+		pollThread.start();
+	}
+
+	/**
+	 * Stops monitoring and takes a final poll
+	 */
+	public synchronized void stop() {
+		if (!running)
+			return;
+		running = false;
+		pollThread.interrupt();
+		try {
+			pollThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		pollThread = null;
+		poll();
+	}
+
+	private void poll() {
+		long[] ids = threadBean.getAllThreadIds();
+		ThreadInfo[] infos = threadBean.getThreadInfo(ids);
+		long pollThreadId = pollThread == null ? -1 : pollThread.getId();
+		synchronized (lastValues) {
+			for (ThreadInfo info : infos) {
+				// The thread may have terminated in the meantime
+				if (info == null || info.getThreadId() == pollThreadId)
+					continue;
+
+				long[] values = new long[NUM_VALUES];
+				values[BLOCKED_COUNT] = info.getBlockedCount();
+				values[BLOCKED_TIME] = info.getBlockedTime();
+				values[WAITED_COUNT] = info.getWaitedCount();
+				values[WAITED_TIME] = info.getWaitedTime();
+				values[CPU_TIME] = threadBean.isThreadCpuTimeEnabled()
+						? threadBean.getThreadCpuTime(info.getThreadId()) : -1;
+
+				// A terminated thread reports -1 for its CPU time, keep what we
+				// have seen before
+				long[] previous = lastValues.get(info.getThreadId());
+				if (previous != null && values[CPU_TIME] < 0)
+					values[CPU_TIME] = previous[CPU_TIME];
+				lastValues.put(info.getThreadId(), values);
+			}
+		}
+	}
+
+	private long getTotal(int valueIdx) {
+		long total = 0;
+		synchronized (lastValues) {
+			for (Map.Entry<Long, long[]> entry : lastValues.entrySet()) {
+				long value = entry.getValue()[valueIdx];
+				if (value < 0)
+					return -1;
+				long[] initial = initialValues.get(entry.getKey());
+				total += initial == null ? value : value - initial[valueIdx];
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the number of threads that have been observed while monitoring
+	 * @return The number of observed threads
+	 */
+	public int getThreadCount() {
+		synchronized (lastValues) {
+			return lastValues.size();
+		}
+	}
+
+	/**
+	 * Gets how often the threads have blocked on entering a monitor
+	 * @return The total number of blocked monitor entries
+	 */
+	public long getBlockedCount() {
+		return getTotal(BLOCKED_COUNT);
+	}
+
+	/**
+	 * Gets how long the threads have blocked on entering a monitor
+	 * @return The total blocked time in milliseconds, or -1 if the JVM does
+	 * not support contention monitoring
+	 */
+	public long getBlockedTime() {
+		return getTotal(BLOCKED_TIME);
+	}
+
+	/**
+	 * Gets how often the threads have waited or parked. This includes waiting
+	 * for java.util.concurrent locks, but also idle workers waiting for new
+	 * tasks.
+	 * @return The total number of waits
+	 */
+	public long getWaitedCount() {
+		return getTotal(WAITED_COUNT);
+	}
+
+	/**
+	 * Gets how long the threads have waited or parked
+	 * @return The total waited time in milliseconds, or -1 if the JVM does not
+	 * support contention monitoring
+	 */
+	public long getWaitedTime() {
+		return getTotal(WAITED_TIME);
+	}
+
+	/**
+	 * Gets the CPU time the threads have consumed
+	 * @return The total CPU time in nanoseconds, or -1 if the JVM does not
+	 * support measuring it
+	 */
+	public long getCpuTime() {
+		return getTotal(CPU_TIME);
+	}
+
+}
@@ -0,0 +1,390 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.SootMethod;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.metrics.AnalysisPhase;
+import soot.jimple.infoflow.metrics.IAnalysisEventListener;
+import soot.jimple.infoflow.metrics.IAnalysisEventListener.TaskKind;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.test.benchmark.ThreadSweepStep.Component;
+
+/**
+ * Analyzes a program of the benchmark corpus repeatedly with a growing
+ * number of threads to find the point where more threads stop helping. The
+ * thread count of one component is varied at a time, while the other
+ * components keep the thread count of the base configuration. For every
+ * step, the runner reports the speedup and the parallel efficiency of the
+ * phase in which the component runs, estimates of the time spent on forward
+ * edges, backward edges and path reconstruction steps, and the lock
+ * contention of all threads.
+ *
+ * <p>
+ * The forward and the backward solver share one executor, so the thread
+ * count of the solvers can only be swept together. The estimated task times
+ * show how the work of the solver phase splits between the two.
+ *
+ * <pre>
+ * Options:
+ *   --program REGEX      The program to analyze, the first match is used
+ *                        (default: the first program of the corpus)
+ *   --config NAME        The base configuration (default: default)
+ *   --components LIST    The components to sweep, comma-separated
+ *                        (default: Solver,PathBuilder)
+ *   --threads LIST       The thread counts to try, comma-separated
+ *                        (default: powers of two up to the number of cores)
+ *   --repetitions N      How often to run every step (default: 3)
+ *   --timeout SECONDS    Abort the data flow analysis after the given time
+ *   --output FILE        The file into which to write the results
+ *                        (default: benchmarks/thread-sweep.json)
+ *   --securibench DIR    The SecuriBench Micro sources (default: securiBench)
+ *   --synthetic DIR      Where to generate the synthetic programs
+ *                        (default: build/synthetic)
+ *   --no-synthetic       Do not generate the synthetic programs
+ * </pre>
+ *
+ */
+public class ThreadSweepRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(ThreadSweepRunner.class);
+
+	/**
+	 * Out of how many solver tasks one is sampled to estimate the task times
+	 */
+	private static final int TASK_SAMPLING_INTERVAL = 100;
+
+	private final MacroBenchmarkRunner runner;
+	private final BenchmarkProgram program;
+	private final BenchmarkConfiguration baseConfig;
+	private int repetitions = 3;
+
+	/**
+	 * Creates a new instance of the {@link ThreadSweepRunner} class
+	 * @param runner The macro benchmark runner that sets up the analysis
+	 * @param program The program to analyze
+	 * @param baseConfig The configuration whose thread counts shall be varied
+	 */
+	public ThreadSweepRunner(MacroBenchmarkRunner runner, BenchmarkProgram program,
+			BenchmarkConfiguration baseConfig) {
+		this.runner = runner;
+		this.program = program;
+		this.baseConfig = baseConfig;
+	}
+
+	public static void main(String[] args) {
+		File outputFile = new File("benchmarks" + File.separator + "thread-sweep.json");
+		File securiBenchDir = new File("securiBench");
+		File syntheticDir = new File("build" + File.separator + "synthetic");
+		Pattern programFilter = null;
+		String configName = "default";
+		List<Component> components = Arrays.asList(Component.values());
+		List<Integer> threadCounts = getDefaultThreadCounts();
+		int repetitions = 3;
+		long timeout = 0;
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("--no-synthetic"))
+				syntheticDir = null;
+			else if (i + 1 >= args.length) {
+				printUsage("Missing value for option " + arg);
+				return;
+			}
+			else if (arg.equals("--program"))
+				programFilter = Pattern.compile(args[++i]);
+			else if (arg.equals("--config"))
+				configName = args[++i];
+			else if (arg.equals("--components")) {
+				components = new ArrayList<Component>();
+				for (String component : args[++i].split(","))
+					components.add(Component.valueOf(component.trim()));
+			}
+			else if (arg.equals("--threads")) {
+				TreeSet<Integer> counts = new TreeSet<Integer>();
+				for (String count : args[++i].split(","))
+					counts.add(Integer.parseInt(count.trim()));
+				threadCounts = new ArrayList<Integer>(counts);
+			}
+			else if (arg.equals("--repetitions"))
+				repetitions = Integer.parseInt(args[++i]);
+			else if (arg.equals("--timeout"))
+				timeout = Long.parseLong(args[++i]);
+			else if (arg.equals("--output"))
+				outputFile = new File(args[++i]);
+			else if (arg.equals("--securibench"))
+				securiBenchDir = new File(args[++i]);
+			else if (arg.equals("--synthetic"))
+				syntheticDir = new File(args[++i]);
+			else {
+				printUsage("Unknown option " + arg);
+				return;
+			}
+		}
+
+		try {
+			BenchmarkCorpus corpus = BenchmarkCorpus.createDefaultCorpus(securiBenchDir);
+			if (syntheticDir != null)
+				corpus.addSyntheticPrograms(syntheticDir);
+			BenchmarkProgram program = null;
+			for (BenchmarkProgram p : corpus.getPrograms())
+				if (programFilter == null || programFilter.matcher(p.getName()).find()) {
+					program = p;
+					break;
+				}
+			if (program == null) {
+				printUsage("No program matches " + programFilter);
+				return;
+			}
+
+			BenchmarkConfiguration config = null;
+			for (BenchmarkConfiguration c : BenchmarkConfiguration.getDefaultConfigurations())
+				if (c.getName().equals(configName))
+					config = c;
+			if (config == null) {
+				printUsage("Unknown configuration " + configName);
+				return;
+			}
+
+			MacroBenchmarkRunner macroRunner = new MacroBenchmarkRunner(new BenchmarkCorpus(),
+					new ArrayList<BenchmarkConfiguration>());
+			macroRunner.setTimeout(timeout);
+			ThreadSweepRunner sweepRunner = new ThreadSweepRunner(macroRunner, program, config);
+			sweepRunner.setRepetitions(repetitions);
+
+			Map<Component, List<ThreadSweepStep>> sweeps = new EnumMap<Component, List<ThreadSweepStep>>(
+					Component.class);
+			for (Component component : components)
+				sweeps.put(component, sweepRunner.sweep(component, threadCounts));
+
+			Files.write(outputFile.toPath(), sweepRunner.toJson(sweeps).getBytes(StandardCharsets.UTF_8));
+			logger.info("Results written to {}", outputFile);
+		} catch (IOException | ClassNotFoundException ex) {
+			logger.error("Could not run the thread sweep", ex);
+			System.exit(2);
+		}
+	}
+
+	private static void printUsage(String error) {
+		System.err.println(error);
+		System.err.println("Usage: ThreadSweepRunner [--program REGEX] [--config NAME] [--components LIST]"
+				+ " [--threads LIST] [--repetitions N] [--timeout SECONDS] [--output FILE]"
+				+ " [--securibench DIR] [--synthetic DIR | --no-synthetic]");
+		System.exit(2);
+	}
+
+	/**
+	 * Gets the default thread counts of a sweep, i.e., the powers of two up
+	 * to the number of cores plus the number of cores itself. The data flow
+	 * analysis never uses more threads than there are cores.
+	 * @return The default thread counts in ascending order
+	 */
+	public static List<Integer> getDefaultThreadCounts() {
+		int cores = Runtime.getRuntime().availableProcessors();
+		TreeSet<Integer> counts = new TreeSet<Integer>();
+		for (int i = 1; i < cores; i *= 2)
+			counts.add(i);
+		counts.add(cores);
+		return new ArrayList<Integer>(counts);
+	}
+
+	/**
+	 * Sweeps the thread count of the given component
+	 * @param component The component whose thread count shall be varied
+	 * @param threadCounts The thread counts to try in ascending order
+	 * @return The measurements, one step per thread count. The speedup is
+	 * relative to the first step.
+	 * @throws IOException Thrown if the taint wrapper cannot be loaded
+	 */
+	public List<ThreadSweepStep> sweep(Component component, List<Integer> threadCounts) throws IOException {
+		logger.info("Sweeping the threads of the {} on {} with configuration {}", component, program,
+				baseConfig.getName());
+		List<ThreadSweepStep> steps = new ArrayList<ThreadSweepStep>();
+		for (int threads : threadCounts) {
+			ThreadSweepStep step = run(component, threads);
+			if (!steps.isEmpty())
+				step.computeSpeedup(steps.get(0));
+			steps.add(step);
+		}
+
+		logger.info(String.format("%-12s %7s %10s %10s %8s %10s %10s %10s %10s %10s", "Component", "Threads",
+				"Wall (ms)", "Phase (ms)", "Speedup", "Efficiency", "Fwd (ms)", "Bwd (ms)", "Blocked", "Waited"));
+		for (ThreadSweepStep step : steps)
+			logger.info(step.toString());
+		return steps;
+	}
+
+	/**
+	 * Runs a single step of a sweep. The analysis is repeated as often as
+	 * configured, all times are medians over the runs.
+	 * @param component The component whose thread count shall be varied
+	 * @param threads The number of threads to give to the component
+	 * @return The measurements of the step
+	 * @throws IOException Thrown if the taint wrapper cannot be loaded
+	 */
+	public ThreadSweepStep run(Component component, int threads) throws IOException {
+		logger.info("Analyzing {} with {} threads for the {}", program.getName(), threads, component);
+		ThreadSweepStep step = new ThreadSweepStep(component, threads);
+		long[][] measurements = new long[10][repetitions];
+		for (int i = 0; i < repetitions; i++) {
+			Infoflow infoflow = runner.createInfoflow(program, baseConfig);
+			switch (component) {
+			case Solver:
+				infoflow.getConfig().setMaxThreadNum(threads);
+				infoflow.getConfig().setPathBuilderThreadNum(baseConfig.getThreadNum());
+				break;
+			case PathBuilder:
+				infoflow.getConfig().setPathBuilderThreadNum(threads);
+				break;
+			}
+
+			TimingListener timings = new TimingListener();
+			infoflow.getEventRecorder().addListener(timings);
+			infoflow.getEventRecorder().setTaskSamplingInterval(TASK_SAMPLING_INTERVAL);
+
+			// Do not let garbage from the previous run distort the measurement
+			System.gc();
+
+			ThreadContentionMonitor monitor = new ThreadContentionMonitor();
+			monitor.start();
+			long beforeRun = System.nanoTime();
+			runner.analyze(infoflow, program);
+			measurements[0][i] = (System.nanoTime() - beforeRun) / 1000000;
+			monitor.stop();
+
+			AnalysisPhase phase = component == Component.Solver ? AnalysisPhase.ForwardSolver
+					: AnalysisPhase.PathReconstruction;
+			measurements[1][i] = timings.getPhaseTime(phase);
+			measurements[2][i] = timings.getEstimatedTaskTime(TaskKind.ForwardEdge);
+			measurements[3][i] = timings.getEstimatedTaskTime(TaskKind.BackwardEdge);
+			measurements[4][i] = timings.getEstimatedTaskTime(TaskKind.SourceFinding);
+			measurements[5][i] = monitor.getCpuTime() < 0 ? -1 : monitor.getCpuTime() / 1000000;
+			measurements[6][i] = monitor.getBlockedCount();
+			measurements[7][i] = monitor.getBlockedTime();
+			measurements[8][i] = monitor.getWaitedCount();
+			measurements[9][i] = monitor.getWaitedTime();
+
+			InfoflowResults results = infoflow.getResults();
+			step.setResultCount(results == null ? 0 : results.size());
+		}
+
+		step.setWallTime(median(measurements[0]));
+		step.setPhaseTime(median(measurements[1]));
+		step.setForwardTaskTime(median(measurements[2]));
+		step.setBackwardTaskTime(median(measurements[3]));
+		step.setPathTaskTime(median(measurements[4]));
+		step.setCpuTime(median(measurements[5]));
+		step.setBlockedCount(median(measurements[6]));
+		step.setBlockedTime(median(measurements[7]));
+		step.setWaitedCount(median(measurements[8]));
+		step.setWaitedTime(median(measurements[9]));
+		return step;
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	/**
+	 * Converts the results of a set of sweeps into JSON
+	 * @param sweeps The steps of the sweeps, indexed by component
+	 * @return The JSON text
+	 */
+	public String toJson(Map<Component, List<ThreadSweepStep>> sweeps) {
+		Map<String, Object> root = new LinkedHashMap<String, Object>();
+		root.put("program", program.getName());
+		root.put("configuration", baseConfig.getName());
+		root.put("cores", Runtime.getRuntime().availableProcessors());
+		root.put("repetitions", repetitions);
+		List<Object> steps = new ArrayList<Object>();
+		for (List<ThreadSweepStep> sweep : sweeps.values())
+			for (ThreadSweepStep step : sweep)
+				steps.add(step.toJson());
+		root.put("steps", steps);
+		return SimpleJson.write(root);
+	}
+
+	/**
+	 * Sets how often every step of a sweep shall be run
+	 * @param repetitions The number of repetitions
+	 */
+	public void setRepetitions(int repetitions) {
+		if (repetitions < 1)
+			throw new IllegalArgumentException("At least one repetition is required");
+		this.repetitions = repetitions;
+	}
+
+	/**
+	 * Listener that sums up the phase durations and extrapolates the time
+	 * spent on each kind of task from the sampled tasks
+	 */
+	private static class TimingListener implements IAnalysisEventListener {
+
+		private final Map<AnalysisPhase, AtomicLong> phaseTimes = new EnumMap<AnalysisPhase, AtomicLong>(
+				AnalysisPhase.class);
+		private final Map<TaskKind, AtomicLong> taskTimes = new EnumMap<TaskKind, AtomicLong>(
+				TaskKind.class);
+
+		public TimingListener() {
+			for (AnalysisPhase phase : AnalysisPhase.values())
+				phaseTimes.put(phase, new AtomicLong());
+			for (TaskKind kind : TaskKind.values())
+				taskTimes.put(kind, new AtomicLong());
+		}
+
+		@Override
+		public void onPhaseStarted(AnalysisPhase phase) {
+			// nothing to do here
+		}
+
+		@Override
+		public void onPhaseFinished(AnalysisPhase phase, long startTime, long duration) {
+			phaseTimes.get(phase).addAndGet(duration);
+		}
+
+		@Override
+		public void onTaskSampled(TaskKind kind, SootMethod method, int factCount, long startTime,
+				long duration) {
+			taskTimes.get(kind).addAndGet(duration);
+		}
+
+		/**
+		 * Gets the total duration of the given phase
+		 * @param phase The phase
+		 * @return The duration of the phase in milliseconds
+		 */
+		public long getPhaseTime(AnalysisPhase phase) {
+			return phaseTimes.get(phase).get() / 1000000;
+		}
+
+		/**
+		 * Gets the estimated total time of all tasks of the given kind
+		 * @param kind The kind of task
+		 * @return The estimated time in milliseconds, or -1 if no task of the
+		 * given kind was sampled
+		 */
+		public long getEstimatedTaskTime(TaskKind kind) {
+			long sampled = taskTimes.get(kind).get();
+			return sampled == 0 ? -1 : sampled * TASK_SAMPLING_INTERVAL / 1000000;
+		}
+
+	}
+
+}
@@ -0,0 +1,265 @@
+package soot.jimple.infoflow.test.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The measurements of one step of a thread-count sweep, i.e., of a program
+ * analyzed with a given number of threads for one component of the data flow
+ * analysis
+ *
+ */
+public class ThreadSweepStep {
+
+	/**
+	 * The components of the data flow analysis whose thread count can be
+	 * swept
+	 */
+	public enum Component {
+		/**
+		 * The forward and backward solvers. Both solvers share a single
+		 * executor, so they can only be swept together.
+		 */
+		Solver,
+
+		/**
+		 * The path builder that reconstructs the paths after the solvers have
+		 * finished
+		 */
+		PathBuilder
+	}
+
+	private final Component component;
+	private final int threads;
+
+	private long wallTime;
+	private long phaseTime;
+	private long forwardTaskTime = -1;
+	private long backwardTaskTime = -1;
+	private long pathTaskTime = -1;
+	private long cpuTime = -1;
+	private long blockedCount;
+	private long blockedTime;
+	private long waitedCount;
+	private long waitedTime;
+	private int resultCount;
+
+	private double speedup = 1;
+	private double efficiency = 1;
+
+	/**
+	 * Creates a new instance of the {@link ThreadSweepStep} class
+	 * @param component The component whose thread count was varied
+	 * @param threads The number of threads the component was allowed to use
+	 */
+	public ThreadSweepStep(Component component, int threads) {
+		this.component = component;
+		this.threads = threads;
+	}
+
+	/**
+	 * Computes the speedup and the parallel efficiency of this step relative
+	 * to the given reference step. The speedup is based on the time of the
+	 * phase in which the swept component runs.
+	 * @param reference The step with the lowest number of threads
+	 */
+	public void computeSpeedup(ThreadSweepStep reference) {
+		if (phaseTime <= 0 || reference.phaseTime <= 0) {
+			speedup = -1;
+			efficiency = -1;
+			return;
+		}
+		speedup = (double) reference.phaseTime / phaseTime;
+		efficiency = speedup * reference.threads / threads;
+	}
+
+	public Component getComponent() {
+		return this.component;
+	}
+
+	public int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * Gets the median wall time of the complete analysis
+	 * @return The wall time in milliseconds
+	 */
+	public long getWallTime() {
+		return this.wallTime;
+	}
+
+	public void setWallTime(long wallTime) {
+		this.wallTime = wallTime;
+	}
+
+	/**
+	 * Gets the median time of the phase in which the swept component runs,
+	 * i.e., the solver phase or the path reconstruction
+	 * @return The phase time in milliseconds
+	 */
+	public long getPhaseTime() {
+		return this.phaseTime;
+	}
+
+	public void setPhaseTime(long phaseTime) {
+		this.phaseTime = phaseTime;
+	}
+
+	/**
+	 * Gets the estimated time the worker threads have spent on forward solver
+	 * edges. The estimate is extrapolated from the sampled tasks.
+	 * @return The estimated task time in milliseconds, or -1 if no tasks were
+	 * sampled
+	 */
+	public long getForwardTaskTime() {
+		return this.forwardTaskTime;
+	}
+
+	public void setForwardTaskTime(long forwardTaskTime) {
+		this.forwardTaskTime = forwardTaskTime;
+	}
+
+	/**
+	 * Gets the estimated time the worker threads have spent on backward
+	 * (alias) solver edges. The estimate is extrapolated from the sampled
+	 * tasks.
+	 * @return The estimated task time in milliseconds, or -1 if no tasks were
+	 * sampled
+	 */
+	public long getBackwardTaskTime() {
+		return this.backwardTaskTime;
+	}
+
+	public void setBackwardTaskTime(long backwardTaskTime) {
+		this.backwardTaskTime = backwardTaskTime;
+	}
+
+	/**
+	 * Gets the estimated time the worker threads have spent on path
+	 * reconstruction steps. The estimate is extrapolated from the sampled
+	 * tasks.
+	 * @return The estimated task time in milliseconds, or -1 if no tasks were
+	 * sampled
+	 */
+	public long getPathTaskTime() {
+		return this.pathTaskTime;
+	}
+
+	public void setPathTaskTime(long pathTaskTime) {
+		this.pathTaskTime = pathTaskTime;
+	}
+
+	/**
+	 * Gets the CPU time consumed by all threads during the analysis
+	 * @return The CPU time in milliseconds, or -1 if it could not be measured
+	 */
+	public long getCpuTime() {
+		return this.cpuTime;
+	}
+
+	public void setCpuTime(long cpuTime) {
+		this.cpuTime = cpuTime;
+	}
+
+	public long getBlockedCount() {
+		return this.blockedCount;
+	}
+
+	public void setBlockedCount(long blockedCount) {
+		this.blockedCount = blockedCount;
+	}
+
+	/**
+	 * Gets how long the threads have blocked on entering a monitor
+	 * @return The blocked time in milliseconds, or -1 if it could not be
+	 * measured
+	 */
+	public long getBlockedTime() {
+		return this.blockedTime;
+	}
+
+	public void setBlockedTime(long blockedTime) {
+		this.blockedTime = blockedTime;
+	}
+
+	public long getWaitedCount() {
+		return this.waitedCount;
+	}
+
+	public void setWaitedCount(long waitedCount) {
+		this.waitedCount = waitedCount;
+	}
+
+	/**
+	 * Gets how long the threads have waited or parked, e.g., on
+	 * java.util.concurrent locks or for new tasks
+	 * @return The waited time in milliseconds, or -1 if it could not be
+	 * measured
+	 */
+	public long getWaitedTime() {
+		return this.waitedTime;
+	}
+
+	public void setWaitedTime(long waitedTime) {
+		this.waitedTime = waitedTime;
+	}
+
+	public int getResultCount() {
+		return this.resultCount;
+	}
+
+	public void setResultCount(int resultCount) {
+		this.resultCount = resultCount;
+	}
+
+	/**
+	 * Gets the speedup of the swept phase relative to the step with the
+	 * lowest number of threads
+	 * @return The speedup, or -1 if it could not be computed
+	 */
+	public double getSpeedup() {
+		return this.speedup;
+	}
+
+	/**
+	 * Gets the parallel efficiency, i.e., the speedup divided by the factor
+	 * by which the number of threads was increased
+	 * @return The parallel efficiency, or -1 if it could not be computed
+	 */
+	public double getEfficiency() {
+		return this.efficiency;
+	}
+
+	/**
+	 * Converts this step into its representation in a JSON file
+	 * @return The map that represents this step
+	 */
+	Map<String, Object> toJson() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("component", component.toString());
+		map.put("threads", threads);
+		map.put("wallTimeMs", wallTime);
+		map.put("phaseTimeMs", phaseTime);
+		map.put("speedup", speedup);
+		map.put("efficiency", efficiency);
+		map.put("forwardTaskTimeMs", forwardTaskTime);
+		map.put("backwardTaskTimeMs", backwardTaskTime);
+		map.put("pathTaskTimeMs", pathTaskTime);
+		map.put("cpuTimeMs", cpuTime);
+		map.put("blockedCount", blockedCount);
+		map.put("blockedTimeMs", blockedTime);
+		map.put("waitedCount", waitedCount);
+		map.put("waitedTimeMs", waitedTime);
+		map.put("resultCount", resultCount);
+		return map;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-12s %7d %10d %10d %8.2f %9.1f%% %10d %10d %10d %10d", component, threads,
+				wallTime, phaseTime, speedup, efficiency * 100, forwardTaskTime, backwardTaskTime,
+				blockedTime, waitedTime);
+	}
+
+}
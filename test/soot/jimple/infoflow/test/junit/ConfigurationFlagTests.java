@@ -0,0 +1,408 @@
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import soot.Unit;
+import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.InfoflowConfiguration.OffHeapStorageMode;
+import soot.jimple.infoflow.config.ConfigForTest;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory.PathBuilder;
+import soot.jimple.infoflow.entryPointCreators.DefaultEntryPointCreator;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler;
+import soot.jimple.infoflow.memory.IMemoryBoundedSolver;
+import soot.jimple.infoflow.memory.IOffHeapCapableSolver;
+import soot.jimple.infoflow.metrics.AnalysisPhase;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+import soot.jimple.infoflow.solver.IInfoflowSolver;
+import soot.jimple.infoflow.solver.cfg.IInfoflowCFG;
+import soot.jimple.infoflow.solver.fastSolver.MethodCompletionTracker;
+import soot.jimple.infoflow.solver.fastSolver.SolverCheckpointManager;
+import soot.jimple.infoflow.source.DefaultSourceSinkManager;
+import soot.jimple.infoflow.source.IOneSourceAtATimeManager;
+
+/**
+ * Checks that the optional analysis features do not change the data flows
+ * that are found. Every test enables one feature and compares the results
+ * with a run in the default configuration.
+ *
+ */
+public class ConfigurationFlagTests extends JUnitTests {
+
+	private static Set<String> defaultFlows = null;
+
+	/**
+	 * Source/sink manager that can be used with one source at a time. Since
+	 * the partitioned analysis collects the sources upfront, the manager
+	 * never needs to iterate over them itself.
+	 */
+	private static class PartitionableSourceSinkManager extends DefaultSourceSinkManager
+			implements IOneSourceAtATimeManager {
+
+		private boolean oneSourceAtATime = false;
+
+		private PartitionableSourceSinkManager() {
+			super(sources, sinks);
+		}
+
+		@Override
+		public void setOneSourceAtATimeEnabled(boolean enabled) {
+			this.oneSourceAtATime = enabled;
+		}
+
+		@Override
+		public boolean isOneSourceAtATimeEnabled() {
+			return oneSourceAtATime;
+		}
+
+		@Override
+		public void resetCurrentSource() {
+		}
+
+		@Override
+		public void nextSource() {
+		}
+
+		@Override
+		public boolean hasNextSource() {
+			return false;
+		}
+
+	}
+
+	private List<String> getEntryPoints() {
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void method2()>");
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void method3()>");
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void method4()>");
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testPointsToSet()>");
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void methodNotTainted()>");
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void simpleTest()>");
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void argumentTest()>");
+		epoints.add("<soot.jimple.infoflow.test.ConstantTestCode: void easyConstantFieldTest()>");
+		return epoints;
+	}
+
+	/**
+	 * Gets a textual representation of the data flows. The statements of
+	 * different runs are different objects, so we cannot compare them directly.
+	 */
+	private Set<String> getFlows(InfoflowResults results) {
+		Set<String> flows = new TreeSet<String>();
+		for (ResultSinkInfo sink : results.getResults().keySet())
+			for (ResultSourceInfo source : results.getResults().get(sink))
+				flows.add(source.getSource() + " -> " + sink.getSink());
+		return flows;
+	}
+
+	private Set<String> runInfoflow(IInfoflow infoflow) {
+		soot.G.reset();
+		infoflow.computeInfoflow(appPath, libPath, new DefaultEntryPointCreator(getEntryPoints()),
+				new PartitionableSourceSinkManager());
+		return getFlows(infoflow.getResults());
+	}
+
+	/**
+	 * Checks that the given analysis finds the same flows as the analysis in
+	 * the default configuration
+	 */
+	private void checkSameFlows(IInfoflow infoflow) {
+		if (defaultFlows == null) {
+			defaultFlows = runInfoflow(initInfoflow());
+			assertFalse(defaultFlows.isEmpty());
+		}
+		assertEquals(defaultFlows, runInfoflow(infoflow));
+	}
+
+	/**
+	 * Creates a data flow analysis in the test configuration that sweeps for
+	 * completed methods after every edge
+	 */
+	private Infoflow initEvictingInfoflow(final List<MethodCompletionTracker<Unit>> trackers) {
+		Infoflow infoflow = new Infoflow("", false, null,
+				new DefaultPathBuilderFactory(PathBuilder.ContextSensitive, false)) {
+
+			@Override
+			protected MethodCompletionTracker<Unit> createCompletionTracker(IInfoflowCFG iCfg,
+					IInfoflowSolver... solvers) {
+				MethodCompletionTracker<Unit> tracker = super.createCompletionTracker(iCfg, solvers);
+				if (tracker != null) {
+					tracker.setSweepInterval(1);
+					trackers.add(tracker);
+				}
+				return tracker;
+			}
+
+		};
+		infoflow.setSootConfig(new ConfigForTest());
+		return infoflow;
+	}
+
+	@Test(timeout = 600000)
+	public void evictCompletedMethodsTest() {
+		List<MethodCompletionTracker<Unit>> trackers = new ArrayList<>();
+		IInfoflow infoflow = initEvictingInfoflow(trackers);
+		infoflow.getConfig().setEvictCompletedMethods(true);
+		checkSameFlows(infoflow);
+
+		long evicted = 0;
+		for (MethodCompletionTracker<Unit> tracker : trackers)
+			evicted += tracker.getEvictedMethodCount();
+		assertTrue(evicted > 0);
+	}
+
+	@Test(timeout = 600000)
+	public void analysisBudgetTest() {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setAnalysisTimeBudget(3600);
+		infoflow.getConfig().setAnalysisMemoryBudget(Runtime.getRuntime().maxMemory() / (1024 * 1024));
+		checkSameFlows(infoflow);
+	}
+
+	@Test(timeout = 600000)
+	public void predictiveMemoryWarningsTest() {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setPredictiveMemoryWarnings(true);
+		checkSameFlows(infoflow);
+	}
+
+	@Test(timeout = 600000)
+	public void publishMetricsTest() {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setPublishMetrics(true);
+		checkSameFlows(infoflow);
+	}
+
+	@Test(timeout = 600000)
+	public void ruleStatisticsTest() {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setCollectRuleStatistics(true);
+		checkSameFlows(infoflow);
+	}
+
+	@Test(timeout = 600000)
+	public void pathBuilderThreadsTest() {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setPathBuilderThreadNum(4);
+		checkSameFlows(infoflow);
+	}
+
+	@Test(timeout = 600000)
+	public void methodCacheWarmUpTest() {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setWarmUpMethodCaches(true);
+		checkSameFlows(infoflow);
+	}
+
+	/**
+	 * Creates a data flow analysis in the test configuration that moves the
+	 * cold solver state off the heap every few propagations, regardless of
+	 * the actual memory consumption
+	 */
+	private Infoflow initDemotingInfoflow(final AtomicLong demoted) {
+		final List<IOffHeapCapableSolver> solvers = new CopyOnWriteArrayList<>();
+		Infoflow infoflow = new Infoflow("", false, null,
+				new DefaultPathBuilderFactory(PathBuilder.ContextSensitive, false)) {
+
+			@Override
+			protected void configureOffHeapTier(IInfoflowSolver solver) {
+				super.configureOffHeapTier(solver);
+				if (solver instanceof IOffHeapCapableSolver)
+					solvers.add((IOffHeapCapableSolver) solver);
+			}
+
+		};
+		infoflow.setSootConfig(new ConfigForTest());
+		infoflow.setTaintPropagationHandler(new TaintPropagationHandler() {
+
+			private final AtomicLong propagations = new AtomicLong();
+
+			@Override
+			public void notifyFlowIn(Unit stmt, Abstraction taint, IInfoflowCFG cfg, FlowFunctionType type) {
+				if (propagations.incrementAndGet() % 10 == 0)
+					for (IOffHeapCapableSolver solver : solvers)
+						demoted.addAndGet(solver.demoteColdEntries());
+			}
+
+			@Override
+			public Set<Abstraction> notifyFlowOut(Unit stmt, Abstraction d1, Abstraction incoming,
+					Set<Abstraction> outgoing, IInfoflowCFG cfg, FlowFunctionType type) {
+				return outgoing;
+			}
+
+		});
+		return infoflow;
+	}
+
+	@Test(timeout = 600000)
+	public void offHeapStorageTest() {
+		AtomicLong demoted = new AtomicLong();
+		IInfoflow infoflow = initDemotingInfoflow(demoted);
+		infoflow.getConfig().setOffHeapStorageMode(OffHeapStorageMode.DirectBuffers);
+		checkSameFlows(infoflow);
+		assertTrue(demoted.get() > 0);
+	}
+
+	@Test(timeout = 600000)
+	public void modRefSummariesTest() {
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setPrecomputeModRefSummaries(true);
+		checkSameFlows(infoflow);
+	}
+
+	@Test(timeout = 600000)
+	public void concurrentSourcePartitionsTest() {
+		IInfoflow infoflow = initInfoflow();
+		InfoflowConfiguration config = infoflow.getConfig();
+		config.setOneSourceAtATime(true);
+		config.setConcurrentSourcePartitions(4);
+		checkSameFlows(infoflow);
+	}
+
+	@Test(timeout = 600000)
+	public void concurrentIncrementalReportingTest() {
+		IInfoflow infoflow = initInfoflow();
+		InfoflowConfiguration config = infoflow.getConfig();
+		config.setOneSourceAtATime(true);
+		config.setConcurrentSourcePartitions(4);
+		config.setIncrementalResultReporting(true);
+		checkSameFlows(infoflow);
+	}
+
+	@Test(timeout = 600000)
+	public void groupedSourcePartitionsTest() {
+		IInfoflow infoflow = initInfoflow();
+		InfoflowConfiguration config = infoflow.getConfig();
+		config.setOneSourceAtATime(true);
+		config.setMaxSourcesPerPartition(3);
+		config.setConcurrentSourcePartitions(2);
+		checkSameFlows(infoflow);
+	}
+
+	/**
+	 * Creates a data flow analysis in the test configuration that writes a
+	 * single checkpoint after a few propagations and then kills the solvers.
+	 * Until the solvers are killed, every propagation is slowed down, so that
+	 * edges are still pending when the checkpoint is written.
+	 */
+	private Infoflow initInterruptedInfoflow() {
+		final List<SolverCheckpointManager> managers = new CopyOnWriteArrayList<>();
+		final List<IMemoryBoundedSolver> checkpointedSolvers = new CopyOnWriteArrayList<>();
+		final AtomicBoolean killed = new AtomicBoolean(false);
+		Infoflow infoflow = new Infoflow("", false, null,
+				new DefaultPathBuilderFactory(PathBuilder.ContextSensitive, false)) {
+
+			@Override
+			protected SolverCheckpointManager createCheckpointManager(IInfoflowCFG iCfg,
+					IOneSourceAtATimeManager oneSourceAtATime, IInfoflowSolver... solvers) {
+				SolverCheckpointManager manager = super.createCheckpointManager(iCfg, oneSourceAtATime, solvers);
+				if (manager != null) {
+					managers.add(manager);
+					for (IInfoflowSolver solver : solvers)
+						if (solver != null)
+							checkpointedSolvers.add((IMemoryBoundedSolver) solver);
+				}
+				return manager;
+			}
+
+		};
+		infoflow.setSootConfig(new ConfigForTest());
+		infoflow.setTaintPropagationHandler(new TaintPropagationHandler() {
+
+			private final AtomicLong propagations = new AtomicLong();
+
+			@Override
+			public void notifyFlowIn(Unit stmt, Abstraction taint, IInfoflowCFG cfg, FlowFunctionType type) {
+				// The solver thread holds the checkpoint lock while it
+				// propagates, so the checkpoint must be written elsewhere
+				if (propagations.incrementAndGet() == 20)
+					new Thread(new Runnable() {
+
+						@Override
+						public void run() {
+							try {
+								for (SolverCheckpointManager manager : managers)
+									manager.writeCheckpoint();
+							} catch (IOException e) {
+								throw new RuntimeException(e);
+							} finally {
+								for (IMemoryBoundedSolver solver : checkpointedSolvers)
+									solver.forceTerminate();
+								killed.set(true);
+							}
+						}
+
+					}).start();
+				if (!killed.get()) {
+					try {
+						Thread.sleep(5);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+
+			@Override
+			public Set<Abstraction> notifyFlowOut(Unit stmt, Abstraction d1, Abstraction incoming,
+					Set<Abstraction> outgoing, IInfoflowCFG cfg, FlowFunctionType type) {
+				return outgoing;
+			}
+
+		});
+		return infoflow;
+	}
+
+	@Test(timeout = 600000)
+	public void checkpointResumeTest() throws IOException {
+		if (defaultFlows == null)
+			defaultFlows = runInfoflow(initInfoflow());
+
+		File checkpointDir = Files.createTempDirectory("checkpoints").toFile();
+		try {
+			// Interrupt an analysis that has written a checkpoint
+			Infoflow interrupted = initInterruptedInfoflow();
+			interrupted.getConfig().setCheckpointDirectory(checkpointDir.getAbsolutePath());
+			interrupted.getConfig().setCheckpointInterval(3600);
+			runInfoflow(interrupted);
+			assertTrue(interrupted.getResults().getTruncatedPhases().contains(AnalysisPhase.ForwardSolver));
+			File checkpoint = SolverCheckpointManager.getCheckpointFile(checkpointDir);
+			assertTrue(checkpoint.isFile());
+
+			// The resumed analysis must find all flows, including the ones
+			// that depend on the edges that were pending in the checkpoint
+			soot.G.reset();
+			Infoflow resumed = (Infoflow) initInfoflow();
+			resumed.resume(checkpoint, appPath, libPath, new DefaultEntryPointCreator(getEntryPoints()),
+					new PartitionableSourceSinkManager());
+			assertTrue(resumed.getResults().getTruncatedPhases().isEmpty());
+			assertEquals(defaultFlows, getFlows(resumed.getResults()));
+		} finally {
+			File[] files = checkpointDir.listFiles();
+			if (files != null)
+				for (File f : files)
+					f.delete();
+			checkpointDir.delete();
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.InfoflowConfiguration.CodeEliminationMode;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+
+/**
+ * Checks that the parallel inter-procedural constant propagation produces the
+ * same code and the same results as the sequential one
+ *
+ */
+public class ParallelConstantPropagationTests extends JUnitTests {
+
+	private static final String testClass = "soot.jimple.infoflow.test.ConstantTestCode";
+
+	/**
+	 * The outcome of a single data flow analysis
+	 */
+	private static class Outcome {
+
+		private final Set<String> results;
+		private final Map<String, String> bodies;
+
+		private Outcome(Set<String> results, Map<String, String> bodies) {
+			this.results = results;
+			this.bodies = bodies;
+		}
+
+	}
+
+	private List<String> getEntryPoints() {
+		List<String> epoints = new ArrayList<String>();
+		String[] methods = { "easyConstantFieldTest", "easyConstantVarTest", "constantArrayTest",
+				"constantStaticArrayTest", "constantFieldArrayTest", "constantFieldTest",
+				"fpConstIntraproceduralTest1", "fpConstInterproceduralTest1", "fpConstInterproceduralTest2",
+				"fpConstInterproceduralTest3", "fpConstInterproceduralTest4", "fpConstInterproceduralTest5",
+				"constRecursiveTest1", "fpConstInterproceduralTest6", "constantExceptionTest1",
+				"allocSiteTest1", "multiLevelConstTest1", "multiLevelReturnTest1" };
+		for (String method : methods)
+			epoints.add("<" + testClass + ": void " + method + "()>");
+		return epoints;
+	}
+
+	private Outcome runInfoflow(CodeEliminationMode mode, int threads) {
+		soot.G.reset();
+		IInfoflow infoflow = initInfoflow();
+		infoflow.getConfig().setCodeEliminationMode(mode);
+		infoflow.getConfig().setMaxThreadNum(threads);
+		infoflow.computeInfoflow(appPath, libPath, getEntryPoints(), sources, sinks);
+
+		// Record the optimized code before the next run resets Soot
+		Map<String, String> bodies = new TreeMap<String, String>();
+		SootClass sc = Scene.v().getSootClass(testClass);
+		for (SootMethod sm : sc.getMethods())
+			if (sm.hasActiveBody())
+				bodies.put(sm.getSignature(), sm.getActiveBody().toString());
+		return new Outcome(getFlows(infoflow.getResults()), bodies);
+	}
+
+	/**
+	 * Gets a textual representation of the data flows. The statements of
+	 * different runs are different objects, so we cannot compare them directly.
+	 */
+	private Set<String> getFlows(InfoflowResults results) {
+		Set<String> flows = new TreeSet<String>();
+		for (ResultSinkInfo sink : results.getResults().keySet())
+			for (ResultSourceInfo source : results.getResults().get(sink))
+				flows.add(source.getSource() + " -> " + sink.getSink());
+		return flows;
+	}
+
+	private void compareWithSequential(CodeEliminationMode mode) {
+		Outcome sequential = runInfoflow(mode, 1);
+		Outcome parallel = runInfoflow(mode, 4);
+		assertEquals(sequential.bodies, parallel.bodies);
+		assertEquals(sequential.results, parallel.results);
+	}
+
+	@Test(timeout = 600000)
+	public void propagateConstantsTest() {
+		compareWithSequential(CodeEliminationMode.PropagateConstants);
+	}
+
+	@Test(timeout = 600000)
+	public void removeSideEffectFreeCodeTest() {
+		compareWithSequential(CodeEliminationMode.RemoveSideEffectFreeCode);
+	}
+
+}
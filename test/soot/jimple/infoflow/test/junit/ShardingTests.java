@@ -0,0 +1,98 @@
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.IInfoflow;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.InfoflowConfiguration;
+import soot.jimple.infoflow.config.ConfigForTest;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory.PathBuilder;
+import soot.jimple.infoflow.entryPointCreators.DefaultEntryPointCreator;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+import soot.jimple.infoflow.shard.IShardTask;
+import soot.jimple.infoflow.shard.ShardCoordinator;
+import soot.jimple.infoflow.shard.SourcePartition;
+import soot.jimple.infoflow.source.DefaultSourceSinkManager;
+
+/**
+ * Runs a data flow analysis that is distributed across several worker JVMs
+ * and compares the merged results with the ones of a single JVM
+ *
+ */
+public class ShardingTests extends JUnitTests {
+
+	/**
+	 * Task that analyzes the test code in the coordinator and in the worker
+	 * JVMs
+	 */
+	public static class TestShardTask implements IShardTask {
+
+		@Override
+		public IInfoflow createInfoflow() {
+			Infoflow infoflow = new Infoflow("", false, null,
+					new DefaultPathBuilderFactory(PathBuilder.ContextSensitive, false));
+			infoflow.setSootConfig(new ConfigForTest());
+			return infoflow;
+		}
+
+		@Override
+		public void run(IInfoflow infoflow, SourcePartition partition) throws Exception {
+			// The worker JVMs do not run the JUnit setup
+			JUnitTests.setUp();
+			soot.G.reset();
+
+			List<String> epoints = new ArrayList<String>();
+			epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void method2()>");
+			epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void method3()>");
+			epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void method4()>");
+			epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void simpleTest()>");
+			epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void argumentTest()>");
+			epoints.add("<soot.jimple.infoflow.test.ConstantTestCode: void easyConstantFieldTest()>");
+			epoints.add("<soot.jimple.infoflow.test.ConstantTestCode: void constantFieldArrayTest()>");
+			epoints.add("<soot.jimple.infoflow.test.ConstantTestCode: void fpConstInterproceduralTest1()>");
+			infoflow.computeInfoflow(appPath, libPath, new DefaultEntryPointCreator(epoints),
+					partition.apply(new DefaultSourceSinkManager(sources, sinks)));
+		}
+
+	}
+
+	/**
+	 * Gets a textual representation of the data flows. The statements of
+	 * different runs are different objects, so we cannot compare them directly.
+	 */
+	private Set<String> getFlows(InfoflowResults results) {
+		Set<String> flows = new TreeSet<String>();
+		for (ResultSinkInfo sink : results.getResults().keySet())
+			for (ResultSourceInfo source : results.getResults().get(sink))
+				flows.add(source.getSource() + " -> " + sink.getSink());
+		return flows;
+	}
+
+	@Test(timeout = 600000)
+	public void coordinatorMergesWorkerResults() throws Exception {
+		TestShardTask task = new TestShardTask();
+		IInfoflow infoflow = task.createInfoflow();
+		task.run(infoflow, new SourcePartition(0, 1));
+		Set<String> expectedFlows = getFlows(infoflow.getResults());
+		assertFalse(expectedFlows.isEmpty());
+
+		ShardCoordinator coordinator = new ShardCoordinator(new InfoflowConfiguration(), TestShardTask.class, 3);
+		InfoflowResults results = coordinator.run();
+		assertTrue(results.getExceptions().isEmpty());
+		assertTrue(results.getTruncatedPhases().isEmpty());
+		assertEquals(expectedFlows, getFlows(results));
+	}
+
+}
@@ -0,0 +1,175 @@
+package soot.jimple.infoflow.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.Modifier;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.util.BottomUpSCCScheduler.IComponentProcessor;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * Tests for the scheduler that processes the strongly connected components of
+ * the callgraph bottom-up
+ *
+ */
+public class BottomUpSCCSchedulerTests {
+
+	private ProgramFixture<Unit> program;
+	private SootClass testClass;
+	private CallGraph callGraph;
+	private final Map<SootMethod, Set<SootMethod>> callees = new HashMap<>();
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		program = new ProgramFixture<>();
+		testClass = program.getTestClass();
+		callGraph = new CallGraph();
+		callees.clear();
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private SootMethod method(String name) {
+		SootMethod sm = program.method(name, Collections.<Type>emptyList(), VoidType.v(),
+				Modifier.PUBLIC | Modifier.STATIC);
+		callees.put(sm, new HashSet<SootMethod>());
+		return sm;
+	}
+
+	private void call(SootMethod caller, SootMethod callee) {
+		Stmt callSite = Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr(callee.makeRef()));
+		callGraph.addEdge(new Edge(caller, callSite, callee));
+		callees.get(caller).add(callee);
+	}
+
+	/**
+	 * Creates a callgraph with a chain of methods, a recursive pair of methods
+	 * and a number of independent leaves
+	 */
+	private List<SootMethod> createCallGraph() {
+		SootMethod main = method("main");
+		SootMethod a = method("a");
+		SootMethod b = method("b");
+		SootMethod c = method("c");
+		call(main, a);
+		call(a, b);
+		call(b, c);
+		call(c, b);
+		List<SootMethod> methods = new ArrayList<>(Arrays.asList(main, a, b, c));
+		for (int i = 0; i < 20; i++) {
+			SootMethod leaf = method("leaf" + i);
+			call(i % 2 == 0 ? main : b, leaf);
+			methods.add(leaf);
+		}
+		return methods;
+	}
+
+	@Test
+	public void componentsAreInBottomUpOrder() {
+		List<SootMethod> methods = createCallGraph();
+		BottomUpSCCScheduler scheduler = new BottomUpSCCScheduler(methods, callGraph);
+		List<List<SootMethod>> components = scheduler.getComponents();
+		assertEquals(methods.size() - 1, components.size());
+
+		Map<SootMethod, Integer> position = new HashMap<>();
+		for (int i = 0; i < components.size(); i++)
+			for (SootMethod sm : components.get(i))
+				position.put(sm, i);
+		assertEquals(position.get(testClass.getMethodByName("b")), position.get(testClass.getMethodByName("c")));
+		for (SootMethod caller : methods)
+			for (SootMethod callee : callees.get(caller))
+				assertTrue(position.get(callee) <= position.get(caller));
+	}
+
+	@Test(timeout = 30000)
+	public void calleesAreProcessedFirst() throws InterruptedException {
+		List<SootMethod> methods = createCallGraph();
+		BottomUpSCCScheduler scheduler = new BottomUpSCCScheduler(methods, callGraph);
+		final Set<SootMethod> processed = Collections.newSetFromMap(new ConcurrentHashMap<SootMethod, Boolean>());
+		final AtomicInteger violations = new AtomicInteger();
+		scheduler.runBottomUp(executor, new IComponentProcessor() {
+
+			@Override
+			public void process(List<SootMethod> component) {
+				for (SootMethod sm : component)
+					for (SootMethod callee : callees.get(sm))
+						if (!component.contains(callee) && !processed.contains(callee))
+							violations.incrementAndGet();
+				processed.addAll(component);
+			}
+
+		});
+		assertEquals(0, violations.get());
+		assertEquals(new HashSet<>(methods), processed);
+	}
+
+	@Test(timeout = 30000)
+	public void callsOutsideTheMethodsAreIgnored() throws InterruptedException {
+		List<SootMethod> methods = createCallGraph();
+		methods.remove(testClass.getMethodByName("a"));
+		BottomUpSCCScheduler scheduler = new BottomUpSCCScheduler(methods, callGraph);
+		final AtomicInteger count = new AtomicInteger();
+		scheduler.runIndependently(executor, new IComponentProcessor() {
+
+			@Override
+			public void process(List<SootMethod> component) {
+				count.addAndGet(component.size());
+			}
+
+		});
+		assertEquals(methods.size(), count.get());
+	}
+
+	@Test(timeout = 30000)
+	public void failuresAreRethrown() throws InterruptedException {
+		List<SootMethod> methods = createCallGraph();
+		BottomUpSCCScheduler scheduler = new BottomUpSCCScheduler(methods, callGraph);
+		final SootMethod b = testClass.getMethodByName("b");
+		try {
+			scheduler.runBottomUp(executor, new IComponentProcessor() {
+
+				@Override
+				public void process(List<SootMethod> component) {
+					if (component.contains(b))
+						throw new IllegalStateException("failed");
+				}
+
+			});
+			fail("The failure was not rethrown");
+		} catch (IllegalStateException ex) {
+			assertEquals("failed", ex.getMessage());
+		}
+	}
+
+}
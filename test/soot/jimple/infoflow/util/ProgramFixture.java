@@ -0,0 +1,141 @@
+package soot.jimple.infoflow.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import soot.G;
+import soot.Modifier;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Type;
+import soot.VoidType;
+import soot.jimple.Jimple;
+
+/**
+ * Small program for unit tests that do not load any code. Soot is reset, and
+ * all methods are created in a single class called "Test". Calls between the
+ * methods can be registered to obtain a callgraph-only view of the
+ * interprocedural control flow graph.
+ *
+ * @param <N> The type of the nodes in the interprocedural control flow graph
+ */
+public class ProgramFixture<N> {
+
+	private final SootClass testClass;
+	private final Map<N, SootMethod> methodOf = new HashMap<>();
+	private final Map<N, SootMethod> calleeOf = new HashMap<>();
+
+	/**
+	 * Creates a new instance of the {@link ProgramFixture} class. This resets
+	 * Soot.
+	 */
+	public ProgramFixture() {
+		G.reset();
+		testClass = new SootClass("Test", Modifier.PUBLIC);
+		Scene.v().addClass(testClass);
+	}
+
+	/**
+	 * Gets the class that contains all methods of this program
+	 * @return The class that contains all methods of this program
+	 */
+	public SootClass getTestClass() {
+		return testClass;
+	}
+
+	/**
+	 * Creates a public method without parameters and return value
+	 * @param name The name of the new method
+	 * @return The new method. Its active body is empty.
+	 */
+	public SootMethod method(String name) {
+		return method(name, Collections.<Type>emptyList(), VoidType.v(), Modifier.PUBLIC);
+	}
+
+	/**
+	 * Creates a new method
+	 * @param name The name of the new method
+	 * @param parameterTypes The types of the parameters
+	 * @param returnType The return type
+	 * @param modifiers The modifiers of the new method
+	 * @return The new method. Its active body is empty.
+	 */
+	public SootMethod method(String name, List<Type> parameterTypes, Type returnType, int modifiers) {
+		SootMethod sm = new SootMethod(name, parameterTypes, returnType, modifiers);
+		testClass.addMethod(sm);
+		sm.setActiveBody(Jimple.v().newBody(sm));
+		return sm;
+	}
+
+	/**
+	 * Places the given node in the given method
+	 * @param node The node
+	 * @param container The method that contains the node
+	 */
+	public void setMethodOf(N node, SootMethod container) {
+		methodOf.put(node, container);
+	}
+
+	/**
+	 * Registers a call between two methods
+	 * @param callSite The node that identifies the call site
+	 * @param caller The method that contains the call site
+	 * @param callee The method that is called
+	 */
+	public void call(N callSite, SootMethod caller, SootMethod callee) {
+		methodOf.put(callSite, caller);
+		calleeOf.put(callSite, callee);
+	}
+
+	/**
+	 * Creates a view of the interprocedural control flow graph that only
+	 * knows the containing methods of the nodes and the calls. All other
+	 * methods throw an {@link UnsupportedOperationException}.
+	 * @param icfgInterface The interface of the control flow graph to create
+	 * @return The new control flow graph
+	 */
+	public <I> I icfg(Class<I> icfgInterface) {
+		return icfgInterface.cast(Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { icfgInterface }, new InvocationHandler() {
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						String name = method.getName();
+						if (name.equals("getMethodOf"))
+							return methodOf.get(args[0]);
+						if (name.equals("getCalleesOfCallAt")) {
+							SootMethod callee = calleeOf.get(args[0]);
+							return callee == null ? Collections.<SootMethod>emptySet()
+									: Collections.singleton(callee);
+						}
+						if (name.equals("getCallsFromWithin"))
+							return callSites(methodOf, args[0]);
+						if (name.equals("getCallersOf"))
+							return callSites(calleeOf, args[0]);
+						throw new UnsupportedOperationException(name);
+					}
+
+				}));
+	}
+
+	/**
+	 * Gets the call sites that are mapped to the given method
+	 */
+	private Collection<N> callSites(Map<N, SootMethod> map, Object method) {
+		Set<N> callSites = new HashSet<>();
+		for (Map.Entry<N, SootMethod> entry : map.entrySet())
+			if (entry.getValue() == method && calleeOf.containsKey(entry.getKey()))
+				callSites.add(entry.getKey());
+		return callSites;
+	}
+
+}